@@ -16,12 +16,10 @@
 
 package com.alibaba.cloud.ai.graph.bigtool.agent;
 
-import com.alibaba.cloud.ai.graph.bigtool.service.VectorStoreService;
+import com.alibaba.cloud.ai.graph.bigtool.service.ToolIndexService;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
 import com.alibaba.cloud.ai.graph.bigtool.constants.Constant;
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.document.Document;
 import org.springframework.util.StringUtils;
 
@@ -29,64 +27,49 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * 从工具索引中选出与问题最相关的工具。直接用用户的原始问题检索（BM25 + 向量），不再先调用大模型提取关键词。
+ */
 public class ToolAgent implements NodeAction {
 
-	private List<Document> documents;
+	private static final int DEFAULT_TOP_K = 3;
 
-	private ChatClient chatClient;
+	private final String inputTextKey;
 
-	private String inputTextKey;
+	private final ToolIndexService toolIndexService;
 
-	private String inputText;
+	private final int topK;
 
-	private VectorStoreService vectorStoreService;
+	/**
+	 * 状态中没有 inputTextKey 时使用的问题。节点会被多个请求并发执行，只在构造时赋值
+	 */
+	private final String inputText;
 
-	public ToolAgent(ChatClient chatClient, String inputTextKey, VectorStoreService vectorStoreService) {
-		this.chatClient = chatClient;
-		this.inputTextKey = inputTextKey;
-		this.vectorStoreService = vectorStoreService;
+	public ToolAgent(String inputTextKey, ToolIndexService toolIndexService) {
+		this(inputTextKey, toolIndexService, DEFAULT_TOP_K);
 	}
 
-	public ToolAgent(ChatClient chatClient, String inputTextKey, List<Document> documents) {
-		this.documents = documents;
-		this.chatClient = chatClient;
-		this.inputTextKey = inputTextKey;
+	public ToolAgent(String inputTextKey, ToolIndexService toolIndexService, int topK) {
+		this(inputTextKey, null, toolIndexService, topK);
 	}
 
-	private static final String CLASSIFIER_PROMPT_TEMPLATE = """
-			### Job Description
-			You are a text keyword extraction engine that can analyze the questions passed in by users and extract the main keywords of this sentence.
-			### Task
-			You need to extract one or more keywords from this sentence, without missing the main body of the user description
-			### Constraint
-			Multiple keywords returned, separated by spaces
-			""";
+	public ToolAgent(String inputTextKey, String inputText, ToolIndexService toolIndexService, int topK) {
+		this.inputTextKey = inputTextKey;
+		this.inputText = inputText;
+		this.toolIndexService = toolIndexService;
+		this.topK = topK;
+	}
 
 	@Override
 	public Map<String, Object> apply(OverAllState state) throws Exception {
 
-		if (documents == null) {
-			this.documents = (List<Document>) state.value(Constant.TOOL_LIST).orElseThrow();
-		}
-
-		if (StringUtils.hasLength(inputTextKey)) {
-			this.inputText = (String) state.value(inputTextKey).orElse(this.inputText);
-		}
+		String query = StringUtils.hasLength(inputTextKey)
+				? state.value(inputTextKey).map(String.class::cast).orElse(inputText) : inputText;
 
-		ChatResponse response = chatClient.prompt()
-			.system(CLASSIFIER_PROMPT_TEMPLATE)
-			.user(inputText)
-			.call()
-			.chatResponse();
-
-		List<Document> hitTool = vectorStoreService.search(response.getResult().getOutput().getText(), 3);
+		List<Document> hitTool = toolIndexService.search(query, topK);
 
 		Map<String, Object> updatedState = new HashMap<>();
 		updatedState.put(Constant.HIT_TOOL, hitTool);
-		if (state.value(inputTextKey).isPresent()) {
-			updatedState.put(inputTextKey, response.getResult().getOutput().getText());
-		}
-
 		return updatedState;
 	}
 
@@ -28,7 +28,7 @@ import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
 import com.alibaba.cloud.ai.graph.bigtool.agent.CalculateAgent;
 import com.alibaba.cloud.ai.graph.bigtool.agent.Tool;
 import com.alibaba.cloud.ai.graph.bigtool.agent.ToolAgent;
-import com.alibaba.cloud.ai.graph.bigtool.service.VectorStoreService;
+import com.alibaba.cloud.ai.graph.bigtool.service.ToolIndexService;
 import com.alibaba.cloud.ai.graph.bigtool.utils.MethodUtils;
 import com.alibaba.cloud.ai.graph.bigtool.constants.Constant;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
@@ -58,15 +58,15 @@ public class BigToolController {
 
 	private static final Logger logger = LoggerFactory.getLogger(BigToolController.class);
 
-	private final VectorStoreService vectorStoreService;
+	private final ToolIndexService toolIndexService;
 
 	private CompiledGraph compiledGraph;
 
 	private List<Document> documents = new ArrayList<>();
 
-	public BigToolController(VectorStoreService vectorStoreService, ChatModel chatModel) throws GraphStateException {
-		this.vectorStoreService = vectorStoreService;
-		this.initializeVectorStore();
+	public BigToolController(ToolIndexService toolIndexService, ChatModel chatModel) throws GraphStateException {
+		this.toolIndexService = toolIndexService;
+		this.initializeToolIndex();
 		ChatClient chatClient = ChatClient.builder(chatModel).defaultAdvisors(new SimpleLoggerAdvisor()).build();
 
 		KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
@@ -75,7 +75,7 @@ public class BigToolController {
 				.addPatternStrategy(Constant.SOLUTION, new ReplaceStrategy())
 				.addPatternStrategy(Constant.TOOL_LIST, new ReplaceStrategy()).build();
 
-		ToolAgent tools = new ToolAgent(chatClient, Constant.INPUT_KEY, vectorStoreService);
+		ToolAgent tools = new ToolAgent(Constant.INPUT_KEY, toolIndexService);
 
 		CalculateAgent calculateAgent = new CalculateAgent(chatClient, Constant.INPUT_KEY);
 
@@ -97,7 +97,7 @@ public class BigToolController {
 
 	}
 
-	private void initializeVectorStore() {
+	private void initializeToolIndex() {
 		List<Tool> allTools = new ArrayList<>();
 		for (Method method : Math.class.getMethods()) {
 			if (java.lang.reflect.Modifier.isStatic(method.getModifiers())) {
@@ -111,7 +111,7 @@ public class BigToolController {
 		allTools.forEach(tool -> documents.add(new Document(IdUtil.fastSimpleUUID(), tool.getDescription(),
 				Map.of(Constant.METHOD_NAME, tool.getName(), Constant.METHOD_PARAMETER_TYPES, tool.getParameterTypes()))));
 
-		vectorStoreService.addDocuments(documents);
+		toolIndexService.index(documents);
 
 	}
 
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * 带缓存的 EmbeddingModel 包装，设计与 playground 的 CachingEmbeddingModel 一致，去掉了磁盘层和批量时间窗：
+ * <ul>
+ *     <li>key 为 模型名 + 维度 + 去掉首尾空白后的文本，请求中显式指定的 model / dimensions 会进入 key；</li>
+ *     <li>结果放入有界 LRU，返回给调用方的是副本；</li>
+ *     <li>相同 key 的并发未命中只触发一次远程调用，其余调用等待同一个结果；</li>
+ *     <li>{@link #call(EmbeddingRequest)} 和批量的 {@link #embed(List, EmbeddingOptions, BatchingStrategy)}
+ *     只把未命中的文本合成一次请求交给被包装的模型；</li>
+ *     <li>命中、未命中和合并次数记录在 {@code bigtool.embedding.cache.requests} 计数器中。</li>
+ * </ul>
+ * 两边是独立构建，互相不能依赖，所以这里单独实现。
+ */
+public final class QueryEmbeddingCache implements EmbeddingModel {
+
+	private static final String METRIC_PREFIX = "bigtool.embedding.cache";
+
+	private final EmbeddingModel delegate;
+
+	private final String modelName;
+
+	private final Map<Key, float[]> vectors;
+
+	private final Map<Key, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+
+	private final Counter hits;
+
+	private final Counter coalesced;
+
+	private final Counter misses;
+
+	public QueryEmbeddingCache(EmbeddingModel delegate, String modelName, int maxSize, MeterRegistry meterRegistry) {
+
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.hasText(modelName, "modelName cannot be empty");
+		Assert.isTrue(maxSize > 0, "maxSize must be positive");
+		this.delegate = delegate;
+		this.modelName = modelName;
+		this.vectors = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, float[]> eldest) {
+				return size() > maxSize;
+			}
+		};
+
+		MeterRegistry registry = Objects.nonNull(meterRegistry) ? meterRegistry : new SimpleMeterRegistry();
+		this.hits = counter(registry, "hit");
+		this.coalesced = counter(registry, "coalesced");
+		this.misses = counter(registry, "miss");
+		Gauge.builder(METRIC_PREFIX + ".size", this, QueryEmbeddingCache::size)
+			.tag("model", modelName)
+			.register(registry);
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+
+		EmbeddingOptions options = request.getOptions();
+		List<String> texts = request.getInstructions();
+		List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+		List<Key> missed = new ArrayList<>();
+		List<CompletableFuture<float[]>> loading = new ArrayList<>();
+		for (String text : texts) {
+			Key key = key(text, options);
+			float[] vector = cached(key);
+			if (Objects.nonNull(vector)) {
+				hits.increment();
+				futures.add(CompletableFuture.completedFuture(vector));
+				continue;
+			}
+			CompletableFuture<float[]> future = new CompletableFuture<>();
+			CompletableFuture<float[]> existing = inFlight.putIfAbsent(key, future);
+			if (Objects.nonNull(existing)) {
+				coalesced.increment();
+				futures.add(existing);
+				continue;
+			}
+			// 查缓存和登记之间，另一个调用可能刚好写入了结果
+			vector = cached(key);
+			if (Objects.nonNull(vector)) {
+				inFlight.remove(key, future);
+				hits.increment();
+				futures.add(CompletableFuture.completedFuture(vector));
+				continue;
+			}
+			misses.increment();
+			missed.add(key);
+			loading.add(future);
+			futures.add(future);
+		}
+		if (!missed.isEmpty()) {
+			load(missed, loading, options);
+		}
+
+		List<Embedding> embeddings = new ArrayList<>(futures.size());
+		for (int i = 0; i < futures.size(); i++) {
+			embeddings.add(new Embedding(join(futures.get(i)).clone(), i));
+		}
+		return new EmbeddingResponse(embeddings);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+
+		return delegate.embed(document);
+	}
+
+	@Override
+	public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+
+		Assert.notNull(documents, "documents cannot be null");
+		List<float[]> embeddings = new ArrayList<>(documents.size());
+		for (List<Document> batch : batchingStrategy.batch(documents)) {
+			EmbeddingResponse response = call(
+					new EmbeddingRequest(batch.stream().map(Document::getText).toList(), options));
+			for (Embedding embedding : response.getResults()) {
+				embeddings.add(embedding.getOutput());
+			}
+		}
+		return embeddings;
+	}
+
+	@Override
+	public int dimensions() {
+
+		return delegate.dimensions();
+	}
+
+	int size() {
+
+		synchronized (vectors) {
+			return vectors.size();
+		}
+	}
+
+	/**
+	 * 一次远程调用计算所有未命中的文本；先写缓存再移出 inFlight，中间到达的调用总能拿到结果
+	 */
+	private void load(List<Key> keys, List<CompletableFuture<float[]>> futures, EmbeddingOptions options) {
+
+		try {
+			EmbeddingResponse response = delegate
+				.call(new EmbeddingRequest(keys.stream().map(Key::text).toList(), options));
+			List<Embedding> results = response.getResults();
+			Assert.isTrue(results.size() == keys.size(), "Embedding model returned " + results.size()
+					+ " embeddings for " + keys.size() + " texts");
+			for (int i = 0; i < keys.size(); i++) {
+				float[] vector = results.get(i).getOutput();
+				synchronized (vectors) {
+					vectors.put(keys.get(i), vector);
+				}
+				futures.get(i).complete(vector);
+			}
+		}
+		catch (RuntimeException ex) {
+			// 失败不缓存，等待同一结果的调用一起失败，下一次请求重新计算
+			futures.forEach(future -> future.completeExceptionally(ex));
+			throw ex;
+		}
+		finally {
+			for (int i = 0; i < keys.size(); i++) {
+				inFlight.remove(keys.get(i), futures.get(i));
+			}
+		}
+	}
+
+	private float[] cached(Key key) {
+
+		synchronized (vectors) {
+			return vectors.get(key);
+		}
+	}
+
+	private Key key(String text, EmbeddingOptions options) {
+
+		String model = Objects.nonNull(options) && StringUtils.hasText(options.getModel()) ? options.getModel()
+				: modelName;
+		Integer dimensions = Objects.nonNull(options) ? options.getDimensions() : null;
+		return new Key(model, dimensions, text.strip());
+	}
+
+	private Counter counter(MeterRegistry registry, String result) {
+
+		return Counter.builder(METRIC_PREFIX + ".requests")
+			.tag("model", modelName)
+			.tag("result", result)
+			.register(registry);
+	}
+
+	private static float[] join(CompletableFuture<float[]> future) {
+
+		try {
+			return future.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+
+	private record Key(String model, Integer dimensions, String text) {
+	}
+
+}
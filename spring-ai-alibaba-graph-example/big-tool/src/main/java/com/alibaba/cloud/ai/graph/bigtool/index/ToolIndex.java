@@ -0,0 +1,718 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.alibaba.cloud.ai.graph.bigtool.constants.Constant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.util.Assert;
+
+/**
+ * 工具检索的混合索引：BM25 倒排索引 + 预先计算并持久化的 embedding。
+ * <ul>
+ *     <li>工具名（按驼峰拆分，同时保留完整名称）和描述建立倒排索引，工具名中的词项按 2 倍词频计；</li>
+ *     <li>描述的 embedding 在构建时批量计算并归一化，按 模型名 + 描述文本 的哈希持久化到 storePath，
+ *     重启后只为新增或描述变化的工具调用 embedding；</li>
+ *     <li>查询时取 BM25 得分最高的 candidatePoolSize 个工具，与查询向量的余弦相似度按 lexicalWeight 加权融合后返回 topK；
+ *     BM25 命中不足 topK 时（例如用中文检索英文描述）对全部工具做向量扫描。</li>
+ * </ul>
+ * 索引构建后只读，可以被多个线程并发查询。
+ */
+public final class ToolIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(ToolIndex.class);
+
+	private static final int STORE_MAGIC = 0x42544958;
+
+	private static final int STORE_VERSION = 1;
+
+	private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+			"from", "in", "is", "it", "of", "on", "or", "that", "the", "this", "to", "with");
+
+	private static final float K1 = 1.2f;
+
+	private static final float B = 0.75f;
+
+	/**
+	 * 文档频率超过已命中候选数的多少倍时，改为只对已命中的文档二分查找
+	 */
+	private static final int PROBE_RATIO = 8;
+
+	private final Document[] documents;
+
+	private final Map<String, Postings> postings;
+
+	/**
+	 * BM25 分母中与文档长度相关的部分 k1 * (1 - b + b * len / avgLen)，构建时预先计算
+	 */
+	private final float[] lengthNorms;
+
+	/**
+	 * 归一化后的描述向量，按文档顺序连续存放；未配置 embedding 模型时为 null
+	 */
+	private final float[] vectors;
+
+	private final int dimensions;
+
+	private final EmbeddingModel embeddingModel;
+
+	private final int candidatePoolSize;
+
+	private final float lexicalWeight;
+
+	private final ThreadLocal<Scratch> scratch;
+
+	private ToolIndex(Builder builder, List<Document> tools) {
+
+		this.documents = tools.toArray(new Document[0]);
+		this.embeddingModel = builder.embeddingModel;
+		this.candidatePoolSize = builder.candidatePoolSize;
+		this.lexicalWeight = builder.lexicalWeight;
+		this.scratch = ThreadLocal.withInitial(() -> new Scratch(documents.length));
+
+		Map<String, IntList> terms = new HashMap<>();
+		int[] lengths = new int[documents.length];
+		long totalLength = 0;
+		Map<String, Integer> frequencies = new HashMap<>();
+		for (int doc = 0; doc < documents.length; doc++) {
+			frequencies.clear();
+			Object name = documents[doc].getMetadata().get(Constant.METHOD_NAME);
+			if (Objects.nonNull(name)) {
+				for (String term : tokenize(name.toString())) {
+					frequencies.merge(term, 2, Integer::sum);
+				}
+			}
+			for (String term : tokenize(documents[doc].getText())) {
+				frequencies.merge(term, 1, Integer::sum);
+			}
+			for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+				terms.computeIfAbsent(entry.getKey(), key -> new IntList()).add(doc, entry.getValue());
+				lengths[doc] += entry.getValue();
+			}
+			totalLength += lengths[doc];
+		}
+
+		float averageLength = documents.length == 0 ? 1 : Math.max(1, (float) totalLength / documents.length);
+		this.lengthNorms = new float[documents.length];
+		for (int doc = 0; doc < documents.length; doc++) {
+			lengthNorms[doc] = K1 * (1 - B + B * lengths[doc] / averageLength);
+		}
+		this.postings = new HashMap<>(terms.size() * 2);
+		for (Map.Entry<String, IntList> entry : terms.entrySet()) {
+			IntList list = entry.getValue();
+			int df = list.size / 2;
+			float idf = (float) Math.log(1 + (documents.length - df + 0.5) / (df + 0.5));
+			postings.put(entry.getKey(), new Postings(list.toArray(), idf));
+		}
+
+		if (Objects.nonNull(embeddingModel) && documents.length > 0) {
+			float[][] embedded = embedDescriptions(builder);
+			this.dimensions = embedded[0].length;
+			this.vectors = new float[documents.length * dimensions];
+			for (int doc = 0; doc < documents.length; doc++) {
+				float[] vector = embedded[doc];
+				Assert.isTrue(vector.length == dimensions, "All tool embeddings must have the same dimensions");
+				System.arraycopy(normalize(vector), 0, vectors, doc * dimensions, dimensions);
+			}
+		}
+		else {
+			this.dimensions = 0;
+			this.vectors = null;
+		}
+		logger.info("Tool index built: {} tools, {} terms, {} dimensions", documents.length, postings.size(),
+				dimensions);
+	}
+
+	public static Builder builder() {
+
+		return new Builder();
+	}
+
+	public int size() {
+
+		return documents.length;
+	}
+
+	/**
+	 * 检索与 query 最相关的 topK 个工具；配置了 embedding 模型时会为 query 计算一次 embedding
+	 */
+	public List<Document> search(String query, int topK) {
+
+		float[] queryVector = Objects.nonNull(vectors) ? embeddingModel.embed(query) : null;
+		return search(query, queryVector, topK).stream().map(Hit::document).toList();
+	}
+
+	/**
+	 * 使用调用方提供的查询向量检索，queryVector 为 null 时只使用 BM25
+	 */
+	public List<Hit> search(String query, float[] queryVector, int topK) {
+
+		Assert.isTrue(topK > 0, "topK must be positive");
+		if (documents.length == 0) {
+			return List.of();
+		}
+		Scratch s = scratch.get();
+		try {
+			scoreLexical(query, Math.max(topK, candidatePoolSize), s);
+			boolean dense = Objects.nonNull(vectors) && Objects.nonNull(queryVector);
+			if (!dense) {
+				TopK top = new TopK(topK);
+				for (int i = 0; i < s.touchedCount; i++) {
+					top.offer(s.touched[i], s.scores[s.touched[i]]);
+				}
+				return top.toHits(documents);
+			}
+
+			Assert.isTrue(queryVector.length == dimensions, "queryVector must have " + dimensions + " dimensions");
+			float[] normalizedQuery = normalize(queryVector);
+			TopK top = new TopK(topK);
+			if (s.touchedCount >= topK) {
+				TopK candidates = new TopK(Math.max(topK, candidatePoolSize));
+				for (int i = 0; i < s.touchedCount; i++) {
+					candidates.offer(s.touched[i], s.scores[s.touched[i]]);
+				}
+				float maxLexical = (float) candidates.maxScore();
+				for (int i = 0; i < candidates.size; i++) {
+					int doc = candidates.docs[i];
+					top.offer(doc, fuse(s.scores[doc] / maxLexical, dot(normalizedQuery, doc)));
+				}
+			}
+			else {
+				// 字面命中太少，对全部工具做向量扫描，有字面命中的工具仍然加上 BM25 得分
+				float maxLexical = 0;
+				for (int i = 0; i < s.touchedCount; i++) {
+					maxLexical = Math.max(maxLexical, s.scores[s.touched[i]]);
+				}
+				for (int doc = 0; doc < documents.length; doc++) {
+					float lexical = maxLexical > 0 ? s.scores[doc] / maxLexical : 0;
+					top.offer(doc, fuse(lexical, dot(normalizedQuery, doc)));
+				}
+			}
+			return top.toHits(documents);
+		}
+		finally {
+			s.reset();
+		}
+	}
+
+	private double fuse(float lexical, float semantic) {
+
+		return lexicalWeight * lexical + (1 - lexicalWeight) * semantic;
+	}
+
+	/**
+	 * 按文档频率从低到高处理查询词项。已经命中足够多（enough 个）的候选后，文档频率远高于候选数的常见词项
+	 * 不再遍历整个倒排表，只在倒排表中二分查找已命中的文档补充得分：只包含常见词项的文档不会成为新的候选，
+	 * 这是为延迟做的近似，与 WAND / MaxScore 的思路相同。
+	 */
+	private void scoreLexical(String query, int enough, Scratch s) {
+
+		List<Postings> terms = new ArrayList<>();
+		for (String term : new LinkedHashSet<>(tokenize(query))) {
+			Postings p = postings.get(term);
+			if (Objects.nonNull(p)) {
+				terms.add(p);
+			}
+		}
+		terms.sort(Comparator.comparingInt(p -> p.entries().length));
+
+		for (Postings p : terms) {
+			int[] entries = p.entries();
+			int df = entries.length / 2;
+			if (s.touchedCount >= enough && df > (long) s.touchedCount * PROBE_RATIO) {
+				int count = s.touchedCount;
+				for (int i = 0; i < count; i++) {
+					int doc = s.touched[i];
+					int tf = p.termFrequency(doc);
+					if (tf > 0) {
+						s.scores[doc] += p.idf() * tf * (K1 + 1) / (tf + lengthNorms[doc]);
+					}
+				}
+				continue;
+			}
+			for (int i = 0; i < entries.length; i += 2) {
+				int doc = entries[i];
+				int tf = entries[i + 1];
+				if (s.scores[doc] == 0) {
+					s.touched[s.touchedCount++] = doc;
+				}
+				s.scores[doc] += p.idf() * tf * (K1 + 1) / (tf + lengthNorms[doc]);
+			}
+		}
+	}
+
+	private float dot(float[] query, int doc) {
+
+		int offset = doc * dimensions;
+		float sum = 0;
+		for (int i = 0; i < dimensions; i++) {
+			sum += query[i] * vectors[offset + i];
+		}
+		return sum;
+	}
+
+	/**
+	 * 从 storePath 读取已有的向量，只为缺失的描述调用 embedding 模型，然后写回 storePath
+	 */
+	private float[][] embedDescriptions(Builder builder) {
+
+		Map<Long, float[]> stored = Objects.nonNull(builder.storePath) ? readStore(builder.storePath) : Map.of();
+		float[][] embedded = new float[documents.length][];
+		long[] keys = new long[documents.length];
+		Map<Long, List<Integer>> missing = new HashMap<>();
+		List<Document> toEmbed = new ArrayList<>();
+		for (int doc = 0; doc < documents.length; doc++) {
+			keys[doc] = key(builder.modelName, documents[doc].getText());
+			embedded[doc] = stored.get(keys[doc]);
+			if (Objects.isNull(embedded[doc])) {
+				List<Integer> docs = missing.computeIfAbsent(keys[doc], key -> new ArrayList<>());
+				if (docs.isEmpty()) {
+					// 只用描述文本计算 embedding，metadata 中的参数类型等不参与
+					toEmbed.add(new Document(documents[doc].getText()));
+				}
+				docs.add(doc);
+			}
+		}
+
+		if (!toEmbed.isEmpty()) {
+			logger.info("Embedding {} tool descriptions ({} reused from {})", toEmbed.size(),
+					documents.length - missing.values().stream().mapToInt(List::size).sum(), builder.storePath);
+			int batchSize = builder.embeddingBatchSize;
+			BatchingStrategy batching = docs -> {
+				List<List<Document>> batches = new ArrayList<>();
+				for (int from = 0; from < docs.size(); from += batchSize) {
+					batches.add(docs.subList(from, Math.min(docs.size(), from + batchSize)));
+				}
+				return batches;
+			};
+			List<float[]> vectors = embeddingModel.embed(toEmbed, EmbeddingOptions.builder().build(), batching);
+			for (int i = 0; i < toEmbed.size(); i++) {
+				long key = key(builder.modelName, toEmbed.get(i).getText());
+				for (int doc : missing.get(key)) {
+					embedded[doc] = vectors.get(i);
+				}
+			}
+			if (Objects.nonNull(builder.storePath)) {
+				writeStore(builder.storePath, keys, embedded);
+			}
+		}
+		return embedded;
+	}
+
+	private static Map<Long, float[]> readStore(Path path) {
+
+		if (!Files.isRegularFile(path)) {
+			return Map.of();
+		}
+		Map<Long, float[]> stored = new HashMap<>();
+		try (InputStream in = Files.newInputStream(path);
+				DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16))) {
+			if (data.readInt() != STORE_MAGIC || data.readInt() != STORE_VERSION) {
+				logger.warn("Ignoring tool embedding store {} with unknown format", path);
+				return Map.of();
+			}
+			int dims = data.readInt();
+			int count = data.readInt();
+			byte[] bytes = new byte[dims * Float.BYTES];
+			for (int i = 0; i < count; i++) {
+				long key = data.readLong();
+				data.readFully(bytes);
+				float[] vector = new float[dims];
+				ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+				stored.put(key, vector);
+			}
+		}
+		catch (EOFException e) {
+			logger.warn("Tool embedding store {} is truncated, using {} complete entries", path, stored.size());
+		}
+		catch (IOException e) {
+			logger.warn("Failed to read tool embedding store {}: {}", path, e.getMessage());
+			return Map.of();
+		}
+		return stored;
+	}
+
+	/**
+	 * 写临时文件后原子替换；描述相同的工具只写一份
+	 */
+	private static void writeStore(Path path, long[] keys, float[][] vectors) {
+
+		Map<Long, float[]> unique = new HashMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			unique.putIfAbsent(keys[i], vectors[i]);
+		}
+		int dims = vectors[0].length;
+		try {
+			Path parent = path.toAbsolutePath().getParent();
+			Files.createDirectories(parent);
+			Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+			try (OutputStream out = Files.newOutputStream(tmp);
+					DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16))) {
+				data.writeInt(STORE_MAGIC);
+				data.writeInt(STORE_VERSION);
+				data.writeInt(dims);
+				data.writeInt(unique.size());
+				ByteBuffer buffer = ByteBuffer.allocate(dims * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+				for (Map.Entry<Long, float[]> entry : unique.entrySet()) {
+					data.writeLong(entry.getKey());
+					buffer.clear();
+					buffer.asFloatBuffer().put(entry.getValue());
+					data.write(buffer.array());
+				}
+			}
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to write tool embedding store {}: {}", path, e.getMessage());
+		}
+	}
+
+	/**
+	 * 64 位 FNV-1a，作为持久化向量的 key
+	 */
+	static long key(String modelName, String text) {
+
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : (modelName + '\u0000' + text).getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	private static float[] normalize(float[] vector) {
+
+		double norm = 0;
+		for (float v : vector) {
+			norm += v * v;
+		}
+		float[] normalized = new float[vector.length];
+		if (norm == 0) {
+			return normalized;
+		}
+		float scale = (float) (1 / Math.sqrt(norm));
+		for (int i = 0; i < vector.length; i++) {
+			normalized[i] = vector[i] * scale;
+		}
+		return normalized;
+	}
+
+	/**
+	 * 按字母数字切分并转小写，驼峰和字母数字交界处再拆分（同时保留完整的词），汉字逐字切分
+	 */
+	static List<String> tokenize(String text) {
+
+		List<String> tokens = new ArrayList<>();
+		if (Objects.isNull(text)) {
+			return tokens;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			char c = i < text.length() ? text.charAt(i) : ' ';
+			if (c < 128 && Character.isLetterOrDigit(c)) {
+				if (start < 0) {
+					start = i;
+				}
+				continue;
+			}
+			if (start >= 0) {
+				addWord(text, start, i, tokens);
+				start = -1;
+			}
+			if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+				tokens.add(String.valueOf(c));
+			}
+		}
+		return tokens;
+	}
+
+	private static void addWord(String text, int start, int end, List<String> tokens) {
+
+		int parts = 0;
+		int partStart = start;
+		for (int i = start + 1; i <= end; i++) {
+			if (i == end || isBoundary(text.charAt(i - 1), text.charAt(i), i + 1 < end ? text.charAt(i + 1) : ' ')) {
+				addToken(text.substring(partStart, i), tokens);
+				parts++;
+				partStart = i;
+			}
+		}
+		if (parts > 1) {
+			addToken(text.substring(start, end), tokens);
+		}
+	}
+
+	private static boolean isBoundary(char previous, char current, char next) {
+
+		if (Character.isDigit(previous) != Character.isDigit(current)) {
+			return true;
+		}
+		if (Character.isLowerCase(previous) && Character.isUpperCase(current)) {
+			return true;
+		}
+		// "parseHTTPHeader" -> "parse" + "HTTP" + "Header"
+		return Character.isUpperCase(previous) && Character.isUpperCase(current) && Character.isLowerCase(next);
+	}
+
+	private static void addToken(String token, List<String> tokens) {
+
+		String lower = token.toLowerCase();
+		if (!STOP_WORDS.contains(lower)) {
+			tokens.add(lower);
+		}
+	}
+
+	public record Hit(Document document, double score) {
+	}
+
+	/**
+	 * 倒排表，按 docId 升序，docId 与词频交替存放
+	 */
+	private record Postings(int[] entries, float idf) {
+
+		int termFrequency(int doc) {
+
+			int low = 0;
+			int high = entries.length / 2 - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int value = entries[mid * 2];
+				if (value < doc) {
+					low = mid + 1;
+				}
+				else if (value > doc) {
+					high = mid - 1;
+				}
+				else {
+					return entries[mid * 2 + 1];
+				}
+			}
+			return 0;
+		}
+
+	}
+
+	private static final class IntList {
+
+		private int[] values = new int[4];
+
+		private int size;
+
+		void add(int first, int second) {
+
+			if (size + 2 > values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			values[size++] = first;
+			values[size++] = second;
+		}
+
+		int[] toArray() {
+
+			return Arrays.copyOf(values, size);
+		}
+
+	}
+
+	/**
+	 * 每个线程复用的 BM25 累加数组，查询结束后只清理被命中的位置
+	 */
+	private static final class Scratch {
+
+		private final float[] scores;
+
+		private final int[] touched;
+
+		private int touchedCount;
+
+		Scratch(int size) {
+
+			this.scores = new float[size];
+			this.touched = new int[size];
+		}
+
+		void reset() {
+
+			for (int i = 0; i < touchedCount; i++) {
+				scores[touched[i]] = 0;
+			}
+			touchedCount = 0;
+		}
+
+	}
+
+	/**
+	 * 保留得分最高的 k 个文档，按得分降序存放，k 较小时插入排序比堆更快
+	 */
+	private static final class TopK {
+
+		private final int[] docs;
+
+		private final double[] scores;
+
+		private int size;
+
+		TopK(int k) {
+
+			this.docs = new int[k];
+			this.scores = new double[k];
+		}
+
+		void offer(int doc, double score) {
+
+			if (size == docs.length && score <= scores[size - 1]) {
+				return;
+			}
+			int i = size == docs.length ? size - 1 : size++;
+			while (i > 0 && scores[i - 1] < score) {
+				docs[i] = docs[i - 1];
+				scores[i] = scores[i - 1];
+				i--;
+			}
+			docs[i] = doc;
+			scores[i] = score;
+		}
+
+		double maxScore() {
+
+			return size == 0 ? 0 : scores[0];
+		}
+
+		List<Hit> toHits(Document[] documents) {
+
+			List<Hit> hits = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				hits.add(new Hit(documents[docs[i]], scores[i]));
+			}
+			return hits;
+		}
+
+	}
+
+	public static final class Builder {
+
+		private EmbeddingModel embeddingModel;
+
+		private String modelName = "default";
+
+		private Path storePath;
+
+		private int embeddingBatchSize = 10;
+
+		private int candidatePoolSize = 64;
+
+		private float lexicalWeight = 0.5f;
+
+		private Builder() {
+		}
+
+		/**
+		 * 为 null 时只使用 BM25
+		 */
+		public Builder embeddingModel(EmbeddingModel embeddingModel) {
+
+			this.embeddingModel = embeddingModel;
+			return this;
+		}
+
+		/**
+		 * 参与持久化向量的 key，更换模型后已有的向量不会被复用
+		 */
+		public Builder modelName(String modelName) {
+
+			Assert.hasText(modelName, "modelName must not be empty");
+			this.modelName = modelName;
+			return this;
+		}
+
+		/**
+		 * 持久化向量的文件，为 null 时每次构建都重新计算
+		 */
+		public Builder storePath(Path storePath) {
+
+			this.storePath = storePath;
+			return this;
+		}
+
+		/**
+		 * 单次 embedding 调用的最大文本数，DashScope text-embedding-v3 单次最多 10 条
+		 */
+		public Builder embeddingBatchSize(int embeddingBatchSize) {
+
+			Assert.isTrue(embeddingBatchSize > 0, "embeddingBatchSize must be positive");
+			this.embeddingBatchSize = embeddingBatchSize;
+			return this;
+		}
+
+		/**
+		 * 参与向量重排的 BM25 候选数量
+		 */
+		public Builder candidatePoolSize(int candidatePoolSize) {
+
+			Assert.isTrue(candidatePoolSize > 0, "candidatePoolSize must be positive");
+			this.candidatePoolSize = candidatePoolSize;
+			return this;
+		}
+
+		/**
+		 * 融合得分中 BM25（按候选中的最高分归一化）所占的权重，其余为余弦相似度
+		 */
+		public Builder lexicalWeight(float lexicalWeight) {
+
+			Assert.isTrue(lexicalWeight >= 0 && lexicalWeight <= 1, "lexicalWeight must be between 0 and 1");
+			this.lexicalWeight = lexicalWeight;
+			return this;
+		}
+
+		public ToolIndex build(List<Document> tools) {
+
+			Assert.notNull(tools, "tools must not be null");
+			return new ToolIndex(this, tools);
+		}
+
+	}
+
+}
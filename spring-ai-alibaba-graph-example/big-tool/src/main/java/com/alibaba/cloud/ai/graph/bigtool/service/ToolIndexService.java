@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.service;
+
+import com.alibaba.cloud.ai.graph.bigtool.index.QueryEmbeddingCache;
+import com.alibaba.cloud.ai.graph.bigtool.index.ToolIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@Service
+public class ToolIndexService {
+
+	private final EmbeddingModel embeddingModel;
+
+	private final String modelName;
+
+	private final Path storePath;
+
+	private volatile ToolIndex toolIndex = ToolIndex.builder().build(List.of());
+
+	public ToolIndexService(EmbeddingModel embeddingModel, ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${bigtool.index.query-cache-size:1024}") int queryCacheSize,
+			@Value("${spring.ai.dashscope.embedding.options.model:text-embedding-v1}") String modelName,
+			@Value("${bigtool.index.store-path:${java.io.tmpdir}/big-tool/tool-embeddings.bin}") Path storePath) {
+		// 重复的查询不再远程 embedding，工具描述的向量另由 ToolIndex 持久化
+		this.embeddingModel = new QueryEmbeddingCache(embeddingModel, modelName, queryCacheSize,
+				meterRegistry.getIfAvailable());
+		this.modelName = modelName;
+		this.storePath = storePath;
+	}
+
+	/**
+	 * 用新的工具列表重建索引，构建完成前的查询仍然使用旧索引
+	 */
+	public void index(List<Document> tools) {
+		this.toolIndex = ToolIndex.builder()
+			.embeddingModel(embeddingModel)
+			.modelName(modelName)
+			.storePath(storePath)
+			.build(tools);
+	}
+
+	public List<Document> search(String query, int topK) {
+		return toolIndex.search(query, topK);
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * 测试用的 embedding 模型：对词项做特征哈希（feature hashing），相同词项越多余弦相似度越高，并统计调用次数。
+ */
+class HashingEmbeddingModel implements EmbeddingModel {
+
+	final AtomicInteger calls = new AtomicInteger();
+
+	final AtomicInteger texts = new AtomicInteger();
+
+	private final int dimensions;
+
+	HashingEmbeddingModel(int dimensions) {
+
+		this.dimensions = dimensions;
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+
+		calls.incrementAndGet();
+		texts.addAndGet(request.getInstructions().size());
+		List<Embedding> embeddings = new ArrayList<>();
+		for (String text : request.getInstructions()) {
+			embeddings.add(new Embedding(vector(text), embeddings.size()));
+		}
+		return new EmbeddingResponse(embeddings);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+
+		return vector(document.getText());
+	}
+
+	@Override
+	public int dimensions() {
+
+		return dimensions;
+	}
+
+	float[] vector(String text) {
+
+		float[] vector = new float[dimensions];
+		for (String token : ToolIndex.tokenize(text)) {
+			int h = token.hashCode() * 0x9E3779B9;
+			vector[Math.floorMod(h, dimensions)] += (h & 0x10000) == 0 ? 1 : -1;
+		}
+		return vector;
+	}
+
+}
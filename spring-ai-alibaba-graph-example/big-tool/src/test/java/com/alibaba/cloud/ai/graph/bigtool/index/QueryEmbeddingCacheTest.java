@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryEmbeddingCacheTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void repeatedQueriesHitCache() {
+
+		CountingEmbeddingModel model = new CountingEmbeddingModel();
+		QueryEmbeddingCache cache = cache(model, 8);
+
+		float[] first = cache.embed("square root");
+		// 返回副本，调用方修改不影响缓存
+		first[0] += 1;
+		assertThat(cache.embed("  square root ")).containsExactly(model.vector("square root"));
+		assertThat(model.calls).hasValue(1);
+		assertThat(count("hit")).isEqualTo(1);
+		assertThat(count("miss")).isEqualTo(1);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedQuery() {
+
+		CountingEmbeddingModel model = new CountingEmbeddingModel();
+		QueryEmbeddingCache cache = cache(model, 2);
+
+		cache.embed("a");
+		cache.embed("b");
+		cache.embed("a");
+		cache.embed("c");
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(model.calls).hasValue(3);
+
+		cache.embed("a");
+		assertThat(model.calls).hasValue(3);
+		cache.embed("b");
+		assertThat(model.calls).hasValue(4);
+	}
+
+	@Test
+	void requestedModelAndDimensionsArePartOfKey() {
+
+		CountingEmbeddingModel model = new CountingEmbeddingModel();
+		QueryEmbeddingCache cache = cache(model, 8);
+
+		cache.embed("weather");
+		// 显式指定默认模型与不指定命中同一项
+		cache.call(request("weather", EmbeddingOptions.builder().model("text-embedding-v1").build()));
+		assertThat(model.calls).hasValue(1);
+
+		cache.call(request("weather", EmbeddingOptions.builder().model("text-embedding-v3").build()));
+		cache.call(request("weather", EmbeddingOptions.builder().dimensions(32).build()));
+		assertThat(model.calls).hasValue(3);
+	}
+
+	@Test
+	void batchEmbeddingOnlySendsMisses() {
+
+		CountingEmbeddingModel model = new CountingEmbeddingModel();
+		QueryEmbeddingCache cache = cache(model, 8);
+		EmbeddingOptions options = EmbeddingOptions.builder().build();
+
+		cache.embed(List.of(new Document("convert currency"), new Document("send email")), options,
+				new TokenCountBatchingStrategy());
+		List<float[]> vectors = cache.embed(
+				List.of(new Document("send email"), new Document("book flight"), new Document("convert currency")),
+				options, new TokenCountBatchingStrategy());
+
+		assertThat(vectors).hasSize(3);
+		assertThat(vectors.get(0)).containsExactly(model.vector("send email"));
+		assertThat(vectors.get(1)).containsExactly(model.vector("book flight"));
+		assertThat(vectors.get(2)).containsExactly(model.vector("convert currency"));
+		// 第二批只有 "book flight" 需要远程计算
+		assertThat(model.calls).hasValue(2);
+		assertThat(model.texts).hasValue(3);
+		assertThat(count("hit")).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentMissesShareOneCall() throws Exception {
+
+		BlockingEmbeddingModel model = new BlockingEmbeddingModel();
+		QueryEmbeddingCache cache = cache(model, 8);
+
+		CompletableFuture<float[]> first = CompletableFuture.supplyAsync(() -> cache.embed("stock price"));
+		assertThat(model.entered.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<float[]> second = CompletableFuture.supplyAsync(() -> cache.embed("stock price "));
+		while (count("coalesced") < 1) {
+			Thread.sleep(5);
+		}
+		model.release.countDown();
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly(second.get(5, TimeUnit.SECONDS));
+		assertThat(model.calls).hasValue(1);
+	}
+
+	@Test
+	void failureIsNotCached() {
+
+		AtomicBoolean failed = new AtomicBoolean();
+		CountingEmbeddingModel model = new CountingEmbeddingModel() {
+			@Override
+			public EmbeddingResponse call(EmbeddingRequest request) {
+				if (failed.compareAndSet(false, true)) {
+					throw new IllegalStateException("quota exceeded");
+				}
+				return super.call(request);
+			}
+		};
+		QueryEmbeddingCache cache = cache(model, 8);
+
+		assertThatThrownBy(() -> cache.embed("translate")).hasMessage("quota exceeded");
+		assertThat(cache.embed("translate")).containsExactly(model.vector("translate"));
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(model.calls).hasValue(1);
+	}
+
+	private QueryEmbeddingCache cache(EmbeddingModel model, int maxSize) {
+
+		return new QueryEmbeddingCache(model, "text-embedding-v1", maxSize, registry);
+	}
+
+	private static EmbeddingRequest request(String text, EmbeddingOptions options) {
+
+		return new EmbeddingRequest(List.of(text), options);
+	}
+
+	private double count(String result) {
+
+		return registry.get("bigtool.embedding.cache.requests").tag("result", result).counter().count();
+	}
+
+	/**
+	 * 由文本推导向量的模型，统计远程调用次数和文本条数
+	 */
+	private static class CountingEmbeddingModel implements EmbeddingModel {
+
+		final AtomicInteger calls = new AtomicInteger();
+
+		final AtomicInteger texts = new AtomicInteger();
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+
+			calls.incrementAndGet();
+			texts.addAndGet(request.getInstructions().size());
+			List<Embedding> embeddings = new ArrayList<>();
+			for (String text : request.getInstructions()) {
+				embeddings.add(new Embedding(vector(text), embeddings.size()));
+			}
+			return new EmbeddingResponse(embeddings);
+		}
+
+		@Override
+		public float[] embed(Document document) {
+
+			return vector(document.getText());
+		}
+
+		@Override
+		public int dimensions() {
+
+			return 3;
+		}
+
+		float[] vector(String text) {
+
+			return new float[] { text.length(), text.hashCode(), text.chars().sum() };
+		}
+
+	}
+
+	/**
+	 * 第一次调用停在远程请求中，直到测试放行
+	 */
+	private static final class BlockingEmbeddingModel extends CountingEmbeddingModel {
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+
+			entered.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return super.call(request);
+		}
+
+	}
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.index;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.alibaba.cloud.ai.graph.bigtool.constants.Constant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+
+/**
+ * 合成工具目录（1k / 10k / 100k）上的检索延迟，对比 ToolIndex 与原来的 SimpleVectorStore 暴力检索。
+ * <p>
+ * 查询向量预先计算，测量的是索引本身的耗时，不含远程 embedding 调用。
+ * 运行：{@code mvn test -pl big-tool -Dtest=ToolIndexBenchmark -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ToolIndexBenchmark {
+
+	private static final Logger logger = LoggerFactory.getLogger(ToolIndexBenchmark.class);
+
+	private static final int DIMENSIONS = 256;
+
+	private static final int QUERIES = 2_000;
+
+	private static final int TOP_K = 3;
+
+	private static final String[] VERBS = { "get", "list", "create", "update", "delete", "compute", "convert",
+			"validate", "search", "sync", "export", "import", "send", "schedule", "approve", "render" };
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void searchLatency() {
+
+		logger.info(String.format("%8s  %-16s %10s %10s %10s %10s", "tools", "index", "build ms", "p50 us", "p99 us",
+				"recall@3"));
+		for (int size : new int[] { 1_000, 10_000, 100_000 }) {
+			Catalog catalog = new Catalog(size, new Random(size));
+			HashingEmbeddingModel model = new HashingEmbeddingModel(DIMENSIONS);
+			Path store = directory.resolve("tools-" + size + ".bin");
+
+			long start = System.nanoTime();
+			ToolIndex.builder().embeddingModel(model).storePath(store).build(catalog.tools);
+			long coldMillis = (System.nanoTime() - start) / 1_000_000;
+
+			start = System.nanoTime();
+			ToolIndex index = ToolIndex.builder().embeddingModel(model).storePath(store).build(catalog.tools);
+			long warmMillis = (System.nanoTime() - start) / 1_000_000;
+
+			float[][] queryVectors = new float[QUERIES][];
+			for (int i = 0; i < QUERIES; i++) {
+				queryVectors[i] = model.vector(catalog.queries[i]);
+			}
+			long[] latencies = new long[QUERIES];
+			int found = 0;
+			// 第一轮预热，避免把 JIT 和上一个目录的 GC 计入延迟
+			System.gc();
+			for (int round = 0; round < 3; round++) {
+				found = 0;
+				for (int i = 0; i < QUERIES; i++) {
+					long t = System.nanoTime();
+					List<ToolIndex.Hit> hits = index.search(catalog.queries[i], queryVectors[i], TOP_K);
+					latencies[i] = System.nanoTime() - t;
+					Document target = catalog.targets[i];
+					if (hits.stream().anyMatch(hit -> hit.document() == target)) {
+						found++;
+					}
+				}
+			}
+			print(size, "ToolIndex", coldMillis + "/" + warmMillis, latencies, found);
+
+			if (size <= 10_000) {
+				start = System.nanoTime();
+				SimpleVectorStore vectorStore = SimpleVectorStore.builder(model).build();
+				vectorStore.add(catalog.tools);
+				long buildMillis = (System.nanoTime() - start) / 1_000_000;
+				int queries = QUERIES / 10;
+				long[] bruteForce = new long[queries];
+				found = 0;
+				for (int i = 0; i < queries; i++) {
+					long t = System.nanoTime();
+					List<Document> hits = vectorStore
+						.similaritySearch(SearchRequest.builder().query(catalog.queries[i]).topK(TOP_K).build());
+					bruteForce[i] = System.nanoTime() - t;
+					String target = catalog.targets[i].getId();
+					if (hits.stream().anyMatch(hit -> hit.getId().equals(target))) {
+						found++;
+					}
+				}
+				print(size, "SimpleVectorStore", String.valueOf(buildMillis), bruteForce,
+						found * (QUERIES / queries));
+			}
+		}
+	}
+
+	private static void print(int size, String name, String build, long[] latencies, int found) {
+
+		long[] sorted = latencies.clone();
+		Arrays.sort(sorted);
+		logger.info(String.format("%8d  %-16s %10s %10.1f %10.1f %10.2f", size, name, build,
+				sorted[sorted.length / 2] / 1e3, sorted[(int) (sorted.length * 0.99)] / 1e3,
+				(double) found / QUERIES));
+	}
+
+	/**
+	 * 合成的工具目录：工具名为 动词 + 两个领域名词，描述从约 5000 个词中按 Zipf 分布抽取；
+	 * 查询取某个工具名中的名词加上描述中的几个词，期望该工具出现在 topK 中。
+	 */
+	private static final class Catalog {
+
+		final List<Document> tools = new ArrayList<>();
+
+		final String[] queries = new String[QUERIES];
+
+		final Document[] targets = new Document[QUERIES];
+
+		Catalog(int size, Random random) {
+
+			String[] nouns = words(random, 800);
+			String[] vocabulary = words(random, 5_000);
+			List<String[]> descriptions = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				String verb = VERBS[random.nextInt(VERBS.length)];
+				String first = nouns[random.nextInt(nouns.length)];
+				String second = nouns[random.nextInt(nouns.length)];
+				String name = verb + capitalize(first) + capitalize(second) + (i % 100 == 0 ? "" : "V" + i % 7);
+				String[] words = new String[12 + random.nextInt(12)];
+				for (int w = 0; w < words.length; w++) {
+					words[w] = vocabulary[zipf(random, vocabulary.length)];
+				}
+				descriptions.add(words);
+				String description = verb + " the " + first + " " + second + " " + String.join(" ", words);
+				tools.add(new Document(description, Map.of(Constant.METHOD_NAME, name)));
+			}
+			for (int i = 0; i < QUERIES; i++) {
+				int target = random.nextInt(size);
+				String[] words = descriptions.get(target);
+				String name = (String) tools.get(target).getMetadata().get(Constant.METHOD_NAME);
+				queries[i] = "please " + String.join(" ", ToolIndex.tokenize(name).subList(1, 3)) + " "
+						+ words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+				targets[i] = tools.get(target);
+			}
+		}
+
+		private static String[] words(Random random, int count) {
+
+			String[] syllables = { "ka", "lo", "mi", "ner", "sto", "vel", "dra", "qui", "zen", "por", "tal", "bex",
+					"run", "sil", "gom", "fen" };
+			String[] words = new String[count];
+			for (int i = 0; i < count; i++) {
+				// 随机前缀 + 按 16 进制把序号编码成音节，保证不重复且不含数字
+				StringBuilder word = new StringBuilder(syllables[random.nextInt(syllables.length)]);
+				int n = i;
+				do {
+					word.append(syllables[n % syllables.length]);
+					n /= syllables.length;
+				}
+				while (n > 0);
+				words[i] = word.toString();
+			}
+			return words;
+		}
+
+		private static int zipf(Random random, int n) {
+
+			// 近似 Zipf(s=1)：对数均匀分布
+			return Math.min(n - 1, (int) Math.exp(random.nextDouble() * Math.log(n)) - 1);
+		}
+
+		private static String capitalize(String word) {
+
+			return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+		}
+
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.bigtool.index;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.cloud.ai.graph.bigtool.constants.Constant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.ai.document.Document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolIndexTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void tokenizesToolNames() {
+
+		assertThat(ToolIndex.tokenize("nextAfter")).containsExactly("next", "after", "nextafter");
+		assertThat(ToolIndex.tokenize("parseHTTPHeader")).containsExactly("parse", "http", "header", "parsehttpheader");
+		assertThat(ToolIndex.tokenize("log10 of the value")).containsExactly("log", "10", "log10", "value");
+		assertThat(ToolIndex.tokenize("计算平方根")).containsExactly("计", "算", "平", "方", "根");
+	}
+
+	@Test
+	void findsToolsByNameAndDescription() {
+
+		ToolIndex index = ToolIndex.builder().build(mathTools());
+
+		assertThat(names(index.search("nextAfter", null, 1))).containsExactly("nextAfter");
+		assertThat(names(index.search("what is the cube root of 27", null, 1))).containsExactly("cbrt");
+		assertThat(names(index.search("base 10 logarithm", null, 1))).containsExactly("log10");
+		assertThat(index.search("unrelated words only", null, 3)).isEmpty();
+	}
+
+	@Test
+	void fallsBackToVectorsWithoutLexicalHits() {
+
+		HashingEmbeddingModel model = new HashingEmbeddingModel(64);
+		ToolIndex index = ToolIndex.builder().embeddingModel(model).build(mathTools());
+
+		// 中文问题与英文描述没有共同词项，只能依靠向量
+		List<ToolIndex.Hit> hits = index.search("平方根", model.vector("positive square root"), 1);
+		assertThat(names(hits)).containsExactly("sqrt");
+	}
+
+	@Test
+	void reusesPersistedEmbeddings() {
+
+		Path store = directory.resolve("tool-embeddings.bin");
+		List<Document> tools = mathTools();
+
+		HashingEmbeddingModel first = new HashingEmbeddingModel(64);
+		ToolIndex.builder().embeddingModel(first).embeddingBatchSize(2).storePath(store).build(tools);
+		assertThat(first.texts).hasValue(tools.size());
+		assertThat(first.calls).hasValue((tools.size() + 1) / 2);
+
+		// 重启后只有描述变化的工具需要重新计算
+		List<Document> changed = new ArrayList<>(tools);
+		changed.set(0, tool("sqrt", "Returns the correctly rounded positive square root of a double value."));
+		HashingEmbeddingModel second = new HashingEmbeddingModel(64);
+		ToolIndex index = ToolIndex.builder().embeddingModel(second).storePath(store).build(changed);
+		assertThat(second.texts).hasValue(1);
+		assertThat(names(index.search("square root", second.vector("square root"), 1))).containsExactly("sqrt");
+
+		// 更换模型后不复用
+		HashingEmbeddingModel third = new HashingEmbeddingModel(64);
+		ToolIndex.builder().embeddingModel(third).modelName("other").storePath(store).build(changed);
+		assertThat(third.texts).hasValue(tools.size());
+	}
+
+	private static List<Document> mathTools() {
+
+		return List.of(tool("sqrt", "Returns the correctly rounded positive square root of a double value"),
+				tool("cbrt", "Returns the cube root of a double value"),
+				tool("nextAfter", "Returns the floating-point number adjacent to the first argument in the direction "
+						+ "of the second argument"),
+				tool("IEEEremainder", "Computes the remainder operation on two arguments as prescribed by the IEEE "
+						+ "754 standard"),
+				tool("log10", "Returns the base 10 logarithm of a double value"),
+				tool("abs", "Returns the absolute value of an int value"));
+	}
+
+	private static Document tool(String name, String description) {
+
+		return new Document(description, Map.of(Constant.METHOD_NAME, name));
+	}
+
+	private static List<Object> names(List<ToolIndex.Hit> hits) {
+
+		return hits.stream().map(hit -> hit.document().getMetadata().get(Constant.METHOD_NAME)).toList();
+	}
+
+}
@@ -0,0 +1,1001 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.saver;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import com.alibaba.cloud.ai.graph.serializer.Serializer;
+import com.alibaba.cloud.ai.graph.serializer.StateSerializer;
+import com.alibaba.cloud.ai.graph.serializer.check_point.CheckPointSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 基于追加日志的 checkpoint saver，替代 MemorySaver，进程重启后暂停的工作流仍然可以恢复。
+ * <p>
+ * 存储结构：
+ * <ul>
+ *     <li>每个 checkpoint 序列化为一条二进制记录，追加写入分段日志（segment-*.log），段写满后滚动到新段；</li>
+ *     <li>内存中只保留每个 thread 的偏移索引（checkpoint id、所在段、偏移、长度），checkpoint 本身在需要时从磁盘读取；</li>
+ *     <li>最近访问的 thread 缓存最新的 checkpoint，空闲超过 idleTimeout 或超出 maxHotThreads 后从缓存淘汰，只留索引；</li>
+ *     <li>后台压缩：有效数据占比低于阈值的旧段，把仍然有效的记录复制到当前段后删除；</li>
+ *     <li>fsync 策略：ALWAYS 每次写入后落盘，INTERVAL 按固定间隔落盘，NEVER 交给操作系统。</li>
+ * </ul>
+ * 记录格式：{@code [int 长度][int CRC32][type][seq][threadId][orderKey][checkpointId][replacedId][payload]}。
+ * 每条记录带有全局递增的 seq，压缩移动记录时保持不变，因此重放结果与记录在文件中的先后顺序无关。
+ * <p>
+ * 默认配置下 put / get / list / release 的语义与 MemorySaver 一致。唯一的区别在于保留策略：设置了
+ * maxCheckpointsPerThread 后，每个 thread 只保留最新的 N 个 checkpoint，更早的会从 list / get 中消失，
+ * 重启重放时同样只保留最新的 N 个；MemorySaver 从不丢弃 checkpoint。
+ */
+public class LogCheckpointSaver implements BaseCheckpointSaver, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogCheckpointSaver.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{10})\\.log");
+
+    private static final int HEADER_BYTES = 8;
+
+    private static final byte PUT = 1;
+
+    private static final byte REPLACE = 2;
+
+    private static final byte RELEASE = 3;
+
+    public enum FsyncPolicy {
+
+        /**
+         * 每次写入后立即 fsync，进程或机器崩溃都不会丢失已返回的写入
+         */
+        ALWAYS,
+
+        /**
+         * 按 fsyncInterval 定期 fsync，机器崩溃时最多丢失一个间隔内的写入
+         */
+        INTERVAL,
+
+        /**
+         * 不主动 fsync，只在滚动段和关闭时落盘
+         */
+        NEVER
+    }
+
+    private final Path directory;
+
+    private final Serializer<Checkpoint> serializer;
+
+    private final long segmentBytes;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final int maxCheckpointsPerThread;
+
+    private final long idleTimeoutNanos;
+
+    private final int maxHotThreads;
+
+    private final double compactionThreshold;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 以下字段由 lock 保护
+     */
+    private final Map<String, ThreadIndex> threads = new HashMap<>();
+
+    private final NavigableMap<Integer, Segment> segments = new TreeMap<>();
+
+    private Segment active;
+
+    private long nextSeq = 1;
+
+    private volatile boolean dirty;
+
+    private volatile boolean closed;
+
+    private final Map<String, HotThread> hot = new ConcurrentHashMap<>();
+
+    private final Object compactionLock = new Object();
+
+    private final ScheduledExecutorService maintenance;
+
+    private LogCheckpointSaver(Builder builder) throws IOException {
+        Objects.requireNonNull(builder.directory, "directory must not be null");
+        Objects.requireNonNull(builder.stateSerializer, "stateSerializer must not be null");
+        if (builder.segmentBytes <= 0 || builder.maxCheckpointsPerThread <= 0 || builder.maxHotThreads <= 0) {
+            throw new IllegalArgumentException("segmentBytes, maxCheckpointsPerThread and maxHotThreads must be positive");
+        }
+
+        this.directory = builder.directory;
+        this.serializer = new CheckPointSerializer(builder.stateSerializer);
+        this.segmentBytes = builder.segmentBytes;
+        this.fsyncPolicy = builder.fsyncPolicy;
+        this.maxCheckpointsPerThread = builder.maxCheckpointsPerThread;
+        this.idleTimeoutNanos = builder.idleTimeout.toNanos();
+        this.maxHotThreads = builder.maxHotThreads;
+        this.compactionThreshold = builder.compactionThreshold;
+
+        Files.createDirectories(directory);
+        recover();
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "checkpoint-log-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            long interval = builder.fsyncInterval.toMillis();
+            maintenance.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        long evictInterval = Math.max(1000, Math.min(builder.idleTimeout.toMillis() / 2, 30_000));
+        maintenance.scheduleWithFixedDelay(this::evictIdle, evictInterval, evictInterval, TimeUnit.MILLISECONDS);
+        long compactionInterval = builder.compactionInterval.toMillis();
+        maintenance.scheduleWithFixedDelay(this::compactQuietly, compactionInterval, compactionInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public Collection<Checkpoint> list(RunnableConfig config) {
+        String threadId = threadId(config);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            ThreadIndex index = threads.get(threadId);
+            if (index == null) {
+                return List.of();
+            }
+            List<Checkpoint> checkpoints = new ArrayList<>(index.entries.size());
+            for (int i = index.entries.size() - 1; i >= 0; i--) {
+                checkpoints.add(load(threadId, index.entries.get(i), i == index.entries.size() - 1));
+            }
+            return checkpoints;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Checkpoint> get(RunnableConfig config) {
+        String threadId = threadId(config);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            ThreadIndex index = threads.get(threadId);
+            if (index == null || index.entries.isEmpty()) {
+                return Optional.empty();
+            }
+            Entry newest = index.newest();
+            // 与 MemorySaver 一致，指定的 checkPointId 不存在时返回空，而不是最新的 checkpoint
+            Entry entry = config.checkPointId().isPresent() ? index.find(config.checkPointId().get()) : newest;
+            return entry == null ? Optional.empty() : Optional.of(load(threadId, entry, entry == newest));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+        String threadId = threadId(config);
+        // 序列化在锁外进行
+        byte[] payload = serializer.objectToBytes(checkpoint);
+
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            ThreadIndex index = threads.get(threadId);
+            long seq = nextSeq++;
+
+            if (config.checkPointId().isPresent()) {
+                String replacedId = config.checkPointId().get();
+                Entry replaced = index == null ? null : index.find(replacedId);
+                if (replaced == null) {
+                    throw new NoSuchElementException(String.format("Checkpoint with id %s not found!", replacedId));
+                }
+                byte[] record = encode(REPLACE, seq, threadId, replaced.orderKey, checkpoint.getId(), replacedId, payload);
+                Entry entry = append(record, seq, replaced.orderKey, checkpoint.getId());
+                index.replace(replaced, entry);
+                replaced.segment.liveBytes -= replaced.length;
+            }
+            else {
+                if (index == null) {
+                    index = new ThreadIndex();
+                    threads.put(threadId, index);
+                }
+                byte[] record = encode(PUT, seq, threadId, seq, checkpoint.getId(), null, payload);
+                index.insert(append(record, seq, seq, checkpoint.getId()));
+                trim(index);
+            }
+
+            // 只缓存最新的 checkpoint
+            if (index.newest().checkpointId.equals(checkpoint.getId())) {
+                cache(threadId, index.newest(), checkpoint);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+        return RunnableConfig.builder(config).checkPointId(checkpoint.getId()).build();
+    }
+
+    @Override
+    public Tag release(RunnableConfig config) throws Exception {
+        String threadId = threadId(config);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            ThreadIndex index = threads.get(threadId);
+            if (index == null) {
+                return new Tag(threadId, List.of());
+            }
+            List<Checkpoint> checkpoints = new ArrayList<>(index.entries.size());
+            for (int i = index.entries.size() - 1; i >= 0; i--) {
+                checkpoints.add(load(threadId, index.entries.get(i), false));
+            }
+
+            // tombstone 不计入有效数据，压缩时按需向后复制
+            appendRaw(encode(RELEASE, nextSeq++, threadId, 0, null, null, null));
+            threads.remove(threadId);
+            for (Entry entry : index.entries) {
+                entry.segment.liveBytes -= entry.length;
+            }
+            hot.remove(threadId);
+            return new Tag(threadId, checkpoints);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 当前有索引的 thread 数量
+     */
+    public int threadCount() {
+        lock.readLock().lock();
+        try {
+            return threads.size();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 当前缓存了最新 checkpoint 的 thread 数量
+     */
+    public int hotThreadCount() {
+        return hot.size();
+    }
+
+    public int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 压缩有效数据占比低于阈值的旧段。后台定期执行，也可以手动调用。
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            compactCandidates();
+        }
+    }
+
+    private void compactCandidates() throws IOException {
+        List<Segment> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            for (Segment segment : segments.values()) {
+                if (segment != active && segment.liveBytes < segment.size * compactionThreshold) {
+                    candidates.add(segment);
+                }
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        for (Segment segment : candidates) {
+            compact(segment);
+        }
+    }
+
+    /**
+     * 将缓冲区中的写入落盘
+     */
+    public void flush() throws IOException {
+        Segment segment;
+        lock.readLock().lock();
+        try {
+            segment = active;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        if (dirty) {
+            dirty = false;
+            segment.channel.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 不能中断维护线程：中断阻塞在 FileChannel 上的线程会关闭 channel
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            active.channel.force(false);
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            segments.clear();
+            threads.clear();
+            hot.clear();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // 读取与缓存
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * 调用方持有读锁或写锁
+     */
+    private Checkpoint load(String threadId, Entry entry, boolean newest) {
+        HotThread cached = hot.get(threadId);
+        if (cached != null && cached.seq == entry.seq) {
+            cached.lastAccess = System.nanoTime();
+            return cached.checkpoint;
+        }
+        try {
+            Record record = read(entry.segment, entry.offset, entry.length);
+            Checkpoint checkpoint = serializer.bytesToObject(record.payload);
+            if (newest) {
+                cache(threadId, entry, checkpoint);
+            }
+            return checkpoint;
+        }
+        catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Failed to read checkpoint " + entry.checkpointId + " of thread " + threadId, e);
+        }
+    }
+
+    private void cache(String threadId, Entry entry, Checkpoint checkpoint) {
+        hot.put(threadId, new HotThread(entry.seq, checkpoint));
+        if (hot.size() > maxHotThreads) {
+            evictOverflow();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        hot.entrySet().removeIf(e -> now - e.getValue().lastAccess > idleTimeoutNanos);
+        if (hot.size() > maxHotThreads) {
+            evictOverflow();
+        }
+    }
+
+    /**
+     * 超出上限时淘汰最久未访问的 thread，一次淘汰到上限的 90%，避免每次写入都排序
+     */
+    private synchronized void evictOverflow() {
+        int target = (int) (maxHotThreads * 0.9);
+        int excess = hot.size() - target;
+        if (excess <= 0) {
+            return;
+        }
+        hot.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(hot::remove);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // 追加写入
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * 调用方持有写锁
+     */
+    private Entry append(byte[] record, long seq, long orderKey, String checkpointId) throws IOException {
+        long offset = appendRaw(record);
+        active.liveBytes += record.length;
+        return new Entry(checkpointId, orderKey, seq, active, offset, record.length);
+    }
+
+    private long appendRaw(byte[] record) throws IOException {
+        if (active.size > 0 && active.size + record.length > segmentBytes) {
+            roll();
+        }
+        long offset = active.size;
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += active.channel.write(buffer, position);
+        }
+        active.size += record.length;
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            active.channel.force(false);
+        }
+        else {
+            dirty = true;
+        }
+        return offset;
+    }
+
+    private void roll() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NEVER || dirty) {
+            active.channel.force(false);
+        }
+        active = openSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+    }
+
+    private Segment openSegment(int id) throws IOException {
+        Path path = directory.resolve(String.format("segment-%010d.log", id));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        Segment segment = new Segment(id, path, channel);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * 超出保留数量的旧 checkpoint 只从索引中移除，磁盘上的记录由压缩回收
+     */
+    private void trim(ThreadIndex index) {
+        while (index.entries.size() > maxCheckpointsPerThread) {
+            Entry oldest = index.entries.remove(0);
+            oldest.segment.liveBytes -= oldest.length;
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // 压缩
+    // ------------------------------------------------------------------------------------------------
+
+    private void compact(Segment segment) throws IOException {
+        // 旧段已经封存，只有压缩线程会删除它，可以不加锁顺序扫描
+        long position = 0;
+        while (position + HEADER_BYTES <= segment.size) {
+            Record record = readChecked(segment, position);
+            if (record == null) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (record.type == RELEASE) {
+                    // 更早的段中可能还有该 thread 的旧记录，tombstone 需要保留
+                    if (segments.firstKey() < segment.id) {
+                        appendRaw(record.raw);
+                    }
+                }
+                else {
+                    Entry entry = liveEntry(record.threadId, record.seq, segment, position);
+                    if (entry != null) {
+                        long offset = appendRaw(record.raw);
+                        entry.segment.liveBytes -= entry.length;
+                        entry.segment = active;
+                        entry.offset = offset;
+                        active.liveBytes += entry.length;
+                    }
+                }
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+            position += record.raw.length;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            // 复制的数据落盘后再删除旧段
+            active.channel.force(false);
+            segments.remove(segment.id);
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+            logger.debug("Compacted checkpoint segment {}", segment.path.getFileName());
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Entry liveEntry(String threadId, long seq, Segment segment, long offset) {
+        ThreadIndex index = threads.get(threadId);
+        if (index == null) {
+            return null;
+        }
+        for (Entry entry : index.entries) {
+            if (entry.seq == seq && entry.segment == segment && entry.offset == offset) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void compactQuietly() {
+        try {
+            if (!closed) {
+                compact();
+            }
+        }
+        catch (Exception e) {
+            logger.warn("Checkpoint log compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            if (!closed) {
+                flush();
+            }
+        }
+        catch (Exception e) {
+            logger.warn("Checkpoint log fsync failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // 恢复
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * 按段的顺序重放所有记录，重建每个 thread 的索引。末尾写了一半的记录（CRC 校验失败或长度越界）会被截断。
+     */
+    private void recover() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Integer.parseInt(matcher.group(1)));
+                }
+            });
+        }
+        ids.sort(Comparator.naturalOrder());
+
+        Map<String, Long> releasedBefore = new HashMap<>();
+        long maxSeq = 0;
+        int records = 0;
+        for (int id : ids) {
+            Segment segment = openSegment(id);
+            segment.size = segment.channel.size();
+            long position = 0;
+            while (position + HEADER_BYTES <= segment.size) {
+                Record record = readChecked(segment, position);
+                if (record == null) {
+                    break;
+                }
+                replay(record, segment, position, releasedBefore);
+                maxSeq = Math.max(maxSeq, record.seq);
+                position += record.raw.length;
+                records++;
+            }
+            if (position < segment.size) {
+                logger.warn("Truncating torn checkpoint record in {} at offset {}", segment.path.getFileName(), position);
+                segment.channel.truncate(position);
+                segment.size = position;
+            }
+        }
+
+        for (ThreadIndex index : threads.values()) {
+            while (index.entries.size() > maxCheckpointsPerThread) {
+                index.entries.remove(0);
+            }
+            for (Entry entry : index.entries) {
+                entry.segment.liveBytes += entry.length;
+            }
+        }
+        threads.values().removeIf(index -> index.entries.isEmpty());
+        nextSeq = maxSeq + 1;
+
+        if (segments.isEmpty() || segments.lastEntry().getValue().size >= segmentBytes) {
+            active = openSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+        }
+        else {
+            active = segments.lastEntry().getValue();
+        }
+        logger.info("Checkpoint log recovered from {}: {} segments, {} records, {} threads",
+                directory, segments.size(), records, threads.size());
+    }
+
+    private void replay(Record record, Segment segment, long offset, Map<String, Long> releasedBefore) {
+        if (record.type == RELEASE) {
+            releasedBefore.merge(record.threadId, record.seq, Math::max);
+            ThreadIndex index = threads.get(record.threadId);
+            if (index != null) {
+                index.entries.removeIf(entry -> entry.seq < record.seq);
+            }
+            return;
+        }
+        if (record.seq < releasedBefore.getOrDefault(record.threadId, 0L)) {
+            return;
+        }
+        ThreadIndex index = threads.computeIfAbsent(record.threadId, key -> new ThreadIndex());
+        // 压缩复制后、删除旧段前崩溃时，同一条记录会出现两次，以后读到的副本为准
+        index.entries.removeIf(entry -> entry.seq == record.seq || entry.seq < record.seq
+                && (entry.checkpointId.equals(record.checkpointId) || entry.checkpointId.equals(record.replacedId)));
+        index.insert(new Entry(record.checkpointId, record.orderKey, record.seq, segment, offset, record.raw.length));
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // 编解码
+    // ------------------------------------------------------------------------------------------------
+
+    private static byte[] encode(byte type, long seq, String threadId, long orderKey, String checkpointId,
+            String replacedId, byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (payload == null ? 0 : payload.length));
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeByte(type);
+        out.writeLong(seq);
+        out.writeUTF(threadId);
+        if (type != RELEASE) {
+            out.writeLong(orderKey);
+            out.writeUTF(checkpointId);
+            out.writeUTF(replacedId == null ? "" : replacedId);
+            out.write(payload);
+        }
+        out.flush();
+
+        byte[] record = bytes.toByteArray();
+        int bodyLength = record.length - HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_BYTES, bodyLength);
+        ByteBuffer.wrap(record).putInt(bodyLength).putInt((int) crc.getValue());
+        return record;
+    }
+
+    private static Record read(Segment segment, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(segment.channel, buffer, offset);
+        return decode(buffer.array());
+    }
+
+    /**
+     * 读取 position 处的一条记录，记录不完整或校验失败时返回 null
+     */
+    private static Record readChecked(Segment segment, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (!readFully(segment.channel, header, position)) {
+            return null;
+        }
+        header.flip();
+        int bodyLength = header.getInt();
+        int checksum = header.getInt();
+        if (bodyLength <= 0 || position + HEADER_BYTES + bodyLength > segment.size) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + bodyLength);
+        if (!readFully(segment.channel, record, position)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, bodyLength);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        return decode(record.array());
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Record decode(byte[] raw) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            in.skipNBytes(HEADER_BYTES);
+            byte type = in.readByte();
+            long seq = in.readLong();
+            String threadId = in.readUTF();
+            if (type == RELEASE) {
+                return new Record(type, seq, threadId, 0, null, null, null, raw);
+            }
+            long orderKey = in.readLong();
+            String checkpointId = in.readUTF();
+            String replacedId = in.readUTF();
+            return new Record(type, seq, threadId, orderKey, checkpointId, replacedId.isEmpty() ? null : replacedId,
+                    in.readAllBytes(), raw);
+        }
+        catch (EOFException e) {
+            throw new IOException("Corrupted checkpoint record", e);
+        }
+    }
+
+    private static String threadId(RunnableConfig config) {
+        return config.threadId().orElse(THREAD_ID_DEFAULT);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("LogCheckpointSaver is closed");
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // 内部结构
+    // ------------------------------------------------------------------------------------------------
+
+    private record Record(byte type, long seq, String threadId, long orderKey, String checkpointId,
+            String replacedId, byte[] payload, byte[] raw) {
+    }
+
+    private static final class Segment {
+
+        private final int id;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private long size;
+
+        /**
+         * 仍被索引引用的记录字节数
+         */
+        private long liveBytes;
+
+        Segment(int id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * 一个 checkpoint 在日志中的位置。segment / offset 只在持有写锁时被压缩修改。
+     */
+    private static final class Entry {
+
+        private final String checkpointId;
+
+        /**
+         * 在 thread 的 checkpoint 列表中的位置，替换时沿用被替换者的值
+         */
+        private final long orderKey;
+
+        private final long seq;
+
+        private Segment segment;
+
+        private long offset;
+
+        private final int length;
+
+        Entry(String checkpointId, long orderKey, long seq, Segment segment, long offset, int length) {
+            this.checkpointId = checkpointId;
+            this.orderKey = orderKey;
+            this.seq = seq;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * 单个 thread 的索引，按 orderKey 升序，最后一个是最新的 checkpoint
+     */
+    private static final class ThreadIndex {
+
+        private final List<Entry> entries = new ArrayList<>(4);
+
+        Entry newest() {
+            return entries.get(entries.size() - 1);
+        }
+
+        Entry find(String checkpointId) {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                if (entries.get(i).checkpointId.equals(checkpointId)) {
+                    return entries.get(i);
+                }
+            }
+            return null;
+        }
+
+        void insert(Entry entry) {
+            int i = entries.size();
+            while (i > 0 && entries.get(i - 1).orderKey > entry.orderKey) {
+                i--;
+            }
+            entries.add(i, entry);
+        }
+
+        void replace(Entry replaced, Entry entry) {
+            entries.set(entries.indexOf(replaced), entry);
+        }
+    }
+
+    private static final class HotThread {
+
+        private final long seq;
+
+        private final Checkpoint checkpoint;
+
+        private volatile long lastAccess = System.nanoTime();
+
+        HotThread(long seq, Checkpoint checkpoint) {
+            this.seq = seq;
+            this.checkpoint = checkpoint;
+        }
+    }
+
+    public static class Builder {
+
+        private Path directory;
+
+        private StateSerializer stateSerializer;
+
+        private long segmentBytes = 64L * 1024 * 1024;
+
+        private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+
+        private Duration fsyncInterval = Duration.ofSeconds(1);
+
+        private int maxCheckpointsPerThread = Integer.MAX_VALUE;
+
+        private Duration idleTimeout = Duration.ofMinutes(5);
+
+        private int maxHotThreads = 1024;
+
+        private double compactionThreshold = 0.5;
+
+        private Duration compactionInterval = Duration.ofMinutes(1);
+
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * 与图使用相同的序列化器，一般传入 {@code stateGraph.getStateSerializer()}
+         */
+        public Builder stateSerializer(StateSerializer stateSerializer) {
+            this.stateSerializer = stateSerializer;
+            return this;
+        }
+
+        public Builder segmentBytes(long segmentBytes) {
+            this.segmentBytes = segmentBytes;
+            return this;
+        }
+
+        public Builder fsyncPolicy(FsyncPolicy fsyncPolicy) {
+            this.fsyncPolicy = Objects.requireNonNull(fsyncPolicy);
+            return this;
+        }
+
+        public Builder fsyncInterval(Duration fsyncInterval) {
+            this.fsyncInterval = Objects.requireNonNull(fsyncInterval);
+            return this;
+        }
+
+        /**
+         * 每个 thread 保留的 checkpoint 数量，默认不限制（与 MemorySaver 相同）。
+         * 超出后最旧的 checkpoint 被丢弃，无法再通过 checkPointId 读取或替换
+         */
+        public Builder maxCheckpointsPerThread(int maxCheckpointsPerThread) {
+            this.maxCheckpointsPerThread = maxCheckpointsPerThread;
+            return this;
+        }
+
+        public Builder idleTimeout(Duration idleTimeout) {
+            this.idleTimeout = Objects.requireNonNull(idleTimeout);
+            return this;
+        }
+
+        public Builder maxHotThreads(int maxHotThreads) {
+            this.maxHotThreads = maxHotThreads;
+            return this;
+        }
+
+        /**
+         * 有效数据占比低于该值的旧段会被压缩
+         */
+        public Builder compactionThreshold(double compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+            return this;
+        }
+
+        public Builder compactionInterval(Duration compactionInterval) {
+            this.compactionInterval = Objects.requireNonNull(compactionInterval);
+            return this;
+        }
+
+        public LogCheckpointSaver build() {
+            try {
+                return new LogCheckpointSaver(this);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Failed to open checkpoint log at " + directory, e);
+            }
+        }
+    }
+
+}
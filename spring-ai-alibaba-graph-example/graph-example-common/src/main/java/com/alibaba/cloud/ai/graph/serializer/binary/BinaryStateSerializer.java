@@ -0,0 +1,794 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.serializer.binary;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.serializer.plain_text.PlainTextStateSerializer;
+import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
+import org.springframework.ai.chat.messages.AbstractMessage;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.content.Media;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.RecordComponent;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * 紧凑的二进制 StateSerializer，可直接替换 JSON + {@code writeUTF} 的序列化器。
+ * <p>
+ * 状态值以带类型标记的字段直接写入 checkpoint 流：字符串、数字、布尔值、字节数组、List、Set、Map 为内置类型，
+ * Spring AI 的消息类型预先注册了类型 id，应用自己的类型（record，或提供了 {@link TypeCodec} 的任意类型）用各自的 id 注册。
+ * 中间不再生成 JSON 字符串，checkpoint 也就不再受 {@code writeUTF} 64KB 的限制。
+ * <p>
+ * record 按声明顺序逐个写入字段。之后新增的字段从旧 checkpoint 读出为 {@code null}，已删除的字段读取时跳过。
+ * 未注册的 {@link Serializable} 值退回 Java 序列化，其他类型在写入时直接报错。
+ * <p>
+ * {@link #cloneObject(OverAllState)} 做结构化复制：Map、List、Set 会被复制，不可变的叶子（字符串、数字、消息）直接共享，
+ * record 只在某个字段发生变化时才重新创建。
+ */
+public class BinaryStateSerializer extends PlainTextStateSerializer {
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * 小于该值的类型 id 保留给内置的 Spring AI 类型
+     */
+    public static final int FIRST_USER_TYPE_ID = 64;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte BYTES = 8;
+    private static final byte LIST = 9;
+    private static final byte SET = 10;
+    private static final byte MAP = 11;
+    private static final byte TYPED = 12;
+    private static final byte JAVA = 13;
+    private static final byte ENUM = 14;
+
+    private final Map<Integer, Registration<?>> byId;
+
+    private final ClassValue<Registration<?>> byType;
+
+    private BinaryStateSerializer(Builder builder) {
+        super(builder.stateFactory);
+        this.byId = Map.copyOf(builder.registrations);
+        Map<Class<?>, Registration<?>> byClass = new HashMap<>();
+        for (Registration<?> registration : byId.values()) {
+            byClass.put(registration.type(), registration);
+        }
+        // 没有单独注册的子类（例如各厂商自己的 AssistantMessage）使用最近的已注册父类
+        this.byType = new ClassValue<>() {
+            @Override
+            protected Registration<?> computeValue(Class<?> type) {
+                for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                    Registration<?> registration = byClass.get(current);
+                    if (registration != null) {
+                        return registration;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    public static Builder builder(AgentStateFactory<OverAllState> stateFactory) {
+        return new Builder(stateFactory);
+    }
+
+    @Override
+    public void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
+        Encoder encoder = new Encoder(out);
+        encoder.writeVarInt(FORMAT_VERSION);
+        encoder.writeVarInt(data.size());
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            encoder.writeString(entry.getKey());
+            encoder.writeValue(entry.getValue());
+        }
+    }
+
+    @Override
+    public Map<String, Object> readData(ObjectInput in) throws IOException, ClassNotFoundException {
+        Decoder decoder = new Decoder(in);
+        int version = decoder.readVarInt();
+        if (version != FORMAT_VERSION) {
+            throw new StreamCorruptedException("Unsupported binary state format version: " + version);
+        }
+        int size = decoder.readVarInt();
+        Map<String, Object> data = new HashMap<>(capacity(size));
+        for (int i = 0; i < size; i++) {
+            data.put(decoder.readString(), decoder.readValue());
+        }
+        return data;
+    }
+
+    @Override
+    public OverAllState cloneObject(OverAllState state) throws IOException {
+        Map<String, Object> data = state.data();
+        Map<String, Object> copy = new HashMap<>(capacity(data.size()));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return stateFactory().apply(copy);
+    }
+
+    private Object copyValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Enum<?>) {
+            return value;
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.clone();
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof Set<?> set) {
+            Set<Object> copy = new LinkedHashSet<>(capacity(set.size()));
+            for (Object element : set) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(capacity(map.size()));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+        Registration<?> registration = byType.get(value.getClass());
+        if (registration != null) {
+            return registration.copy(value, this::copyValue);
+        }
+        // 未知类型无法结构化复制，与其他不可变的叶子一样直接共享
+        return value;
+    }
+
+    private static int capacity(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+
+    /**
+     * 一个已注册类型的编解码器，必须无状态且线程安全
+     */
+    public interface TypeCodec<T> {
+
+        void write(T value, Encoder out) throws IOException;
+
+        T read(Decoder in) throws IOException, ClassNotFoundException;
+
+        /**
+         * {@code cloneObject} 使用的复制方法，默认直接共享原值，适用于不可变类型
+         *
+         * @param copier 结构化复制嵌套的值
+         */
+        default T copy(T value, UnaryOperator<Object> copier) {
+            return value;
+        }
+    }
+
+    private record Registration<T>(int id, Class<T> type, TypeCodec<T> codec) {
+
+        void write(Object value, Encoder out) throws IOException {
+            codec.write(type.cast(value), out);
+        }
+
+        Object copy(Object value, UnaryOperator<Object> copier) {
+            return codec.copy(type.cast(value), copier);
+        }
+    }
+
+    /**
+     * 把带类型标记的值直接写入底层流，字符串以长度前缀 + UTF-8 写入，没有长度限制
+     */
+    public final class Encoder {
+
+        private final DataOutput out;
+
+        private final byte[] scratch = new byte[8192];
+
+        private Encoder(DataOutput out) {
+            this.out = out;
+        }
+
+        public void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            }
+            else if (value instanceof String s) {
+                out.writeByte(STRING);
+                writeString(s);
+            }
+            else if (value instanceof Integer i) {
+                out.writeByte(INT);
+                writeVarLong(zigZag(i));
+            }
+            else if (value instanceof Long l) {
+                out.writeByte(LONG);
+                writeVarLong(zigZag(l));
+            }
+            else if (value instanceof Double d) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            }
+            else if (value instanceof Float f) {
+                out.writeByte(FLOAT);
+                out.writeFloat(f);
+            }
+            else if (value instanceof Boolean b) {
+                out.writeByte(b ? TRUE : FALSE);
+            }
+            else if (value instanceof byte[] bytes) {
+                out.writeByte(BYTES);
+                writeBytes(bytes);
+            }
+            else if (value instanceof List<?> list) {
+                out.writeByte(LIST);
+                writeElements(list);
+            }
+            else if (value instanceof Set<?> set) {
+                out.writeByte(SET);
+                writeElements(set);
+            }
+            else if (value instanceof Enum<?> e) {
+                out.writeByte(ENUM);
+                writeString(e.getDeclaringClass().getName());
+                writeString(e.name());
+            }
+            else if (value instanceof Map<?, ?> map) {
+                out.writeByte(MAP);
+                writeVarInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            }
+            else {
+                Registration<?> registration = byType.get(value.getClass());
+                if (registration != null) {
+                    out.writeByte(TYPED);
+                    writeVarInt(registration.id());
+                    registration.write(value, this);
+                }
+                else if (value instanceof Serializable) {
+                    out.writeByte(JAVA);
+                    writeBytes(javaSerialize(value));
+                }
+                else {
+                    throw new NotSerializableException(value.getClass().getName()
+                            + " is neither registered with BinaryStateSerializer nor Serializable");
+                }
+            }
+        }
+
+        public void writeString(String value) throws IOException {
+            int length = value.length();
+            // 每个字符最多 3 个字节，放得下时直接编码到复用的缓冲区，不额外分配
+            if (length * 3 <= scratch.length) {
+                int size = encodeUtf8(value, scratch);
+                writeVarInt(size);
+                out.write(scratch, 0, size);
+            }
+            else {
+                writeBytes(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        public void writeVarInt(int value) throws IOException {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeElements(Collection<?> elements) throws IOException {
+            writeVarInt(elements.size());
+            for (Object element : elements) {
+                writeValue(element);
+            }
+        }
+    }
+
+    /**
+     * 读取 {@link Encoder} 写入的值
+     */
+    public final class Decoder {
+
+        private final DataInput in;
+
+        private byte[] scratch = new byte[256];
+
+        private Decoder(DataInput in) {
+            this.in = in;
+        }
+
+        public Object readValue() throws IOException, ClassNotFoundException {
+            byte tag = in.readByte();
+            return switch (tag) {
+                case NULL -> null;
+                case STRING -> readString();
+                case INT -> (int) unZigZag(readVarLong());
+                case LONG -> unZigZag(readVarLong());
+                case DOUBLE -> in.readDouble();
+                case FLOAT -> in.readFloat();
+                case TRUE -> Boolean.TRUE;
+                case FALSE -> Boolean.FALSE;
+                case BYTES -> readBytes();
+                case LIST -> {
+                    int size = readVarInt();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    yield list;
+                }
+                case SET -> {
+                    int size = readVarInt();
+                    Set<Object> set = new LinkedHashSet<>(capacity(size));
+                    for (int i = 0; i < size; i++) {
+                        set.add(readValue());
+                    }
+                    yield set;
+                }
+                case MAP -> {
+                    int size = readVarInt();
+                    Map<Object, Object> map = new LinkedHashMap<>(capacity(size));
+                    for (int i = 0; i < size; i++) {
+                        map.put(readValue(), readValue());
+                    }
+                    yield map;
+                }
+                case TYPED -> {
+                    int id = readVarInt();
+                    Registration<?> registration = byId.get(id);
+                    if (registration == null) {
+                        throw new StreamCorruptedException("Unknown type id " + id
+                                + ", register it with BinaryStateSerializer.Builder");
+                    }
+                    yield registration.codec().read(this);
+                }
+                case JAVA -> javaDeserialize(readBytes());
+                case ENUM -> readEnum(readString(), readString());
+                default -> throw new StreamCorruptedException("Unknown value tag " + tag);
+            };
+        }
+
+        public String readString() throws IOException {
+            int size = readVarInt();
+            if (size > scratch.length) {
+                scratch = new byte[Math.max(size, scratch.length * 2)];
+            }
+            in.readFully(scratch, 0, size);
+            return new String(scratch, 0, size, StandardCharsets.UTF_8);
+        }
+
+        public int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed varint");
+        }
+
+        private byte[] readBytes() throws IOException {
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int encodeUtf8(String value, byte[] buffer) {
+        int position = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符，与 String.getBytes 一样替换为 '?'
+                buffer[position++] = '?';
+            }
+            else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object readEnum(String type, String name) throws ClassNotFoundException {
+        Class<?> enumType = Class.forName(type, false, BinaryStateSerializer.class.getClassLoader());
+        if (!enumType.isEnum()) {
+            throw new ClassNotFoundException(type + " is not an enum");
+        }
+        return Enum.valueOf((Class<? extends Enum>) enumType, name);
+    }
+
+    private static byte[] javaSerialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object javaDeserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * record 的编解码器：先写字段个数，再按声明顺序写入各字段
+     */
+    private static final class RecordCodec<R extends Record> implements TypeCodec<R> {
+
+        private final Class<R> type;
+
+        private final MethodHandle[] accessors;
+
+        private final Class<?>[] componentTypes;
+
+        private final MethodHandle constructor;
+
+        RecordCodec(Class<R> type) {
+            this.type = type;
+            RecordComponent[] components = type.getRecordComponents();
+            this.accessors = new MethodHandle[components.length];
+            this.componentTypes = new Class<?>[components.length];
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                for (int i = 0; i < components.length; i++) {
+                    components[i].getAccessor().setAccessible(true);
+                    accessors[i] = lookup.unreflect(components[i].getAccessor());
+                    componentTypes[i] = components[i].getType();
+                }
+                var canonical = type.getDeclaredConstructor(componentTypes);
+                canonical.setAccessible(true);
+                this.constructor = lookup.unreflectConstructor(canonical)
+                        .asSpreader(Object[].class, components.length);
+            }
+            catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot access record " + type.getName(), e);
+            }
+        }
+
+        @Override
+        public void write(R value, Encoder out) throws IOException {
+            out.writeVarInt(accessors.length);
+            for (MethodHandle accessor : accessors) {
+                out.writeValue(get(accessor, value));
+            }
+        }
+
+        @Override
+        public R read(Decoder in) throws IOException, ClassNotFoundException {
+            int stored = in.readVarInt();
+            Object[] values = new Object[accessors.length];
+            for (int i = 0; i < stored; i++) {
+                Object value = in.readValue();
+                if (i < values.length) {
+                    values[i] = value;
+                }
+            }
+            for (int i = stored; i < values.length; i++) {
+                values[i] = defaultValue(componentTypes[i]);
+            }
+            return construct(values);
+        }
+
+        @Override
+        public R copy(R value, UnaryOperator<Object> copier) {
+            Object[] values = new Object[accessors.length];
+            boolean changed = false;
+            for (int i = 0; i < accessors.length; i++) {
+                Object original = get(accessors[i], value);
+                values[i] = copier.apply(original);
+                changed |= values[i] != original;
+            }
+            return changed ? construct(values) : value;
+        }
+
+        private static Object get(MethodHandle accessor, Object value) {
+            try {
+                return accessor.invoke(value);
+            }
+            catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private R construct(Object[] values) {
+            try {
+                return type.cast(constructor.invoke(values));
+            }
+            catch (Throwable e) {
+                throw new IllegalStateException("Cannot create record " + type.getName(), e);
+            }
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return null;
+            }
+            if (type == boolean.class) {
+                return false;
+            }
+            if (type == char.class) {
+                return '\0';
+            }
+            if (type == long.class) {
+                return 0L;
+            }
+            if (type == double.class) {
+                return 0d;
+            }
+            if (type == float.class) {
+                return 0f;
+            }
+            if (type == byte.class) {
+                return (byte) 0;
+            }
+            if (type == short.class) {
+                return (short) 0;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * messageType 这一项由消息的构造方法补回，不必随每条消息保存
+     */
+    private static void writeMetadata(Map<String, Object> metadata, Encoder out) throws IOException {
+        if (metadata.containsKey(AbstractMessage.MESSAGE_TYPE)) {
+            metadata = new LinkedHashMap<>(metadata);
+            metadata.remove(AbstractMessage.MESSAGE_TYPE);
+        }
+        out.writeValue(metadata);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readMetadata(Decoder in) throws IOException, ClassNotFoundException {
+        Object metadata = in.readValue();
+        return metadata == null ? new HashMap<>() : (Map<String, Object>) metadata;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> readList(Decoder in) throws IOException, ClassNotFoundException {
+        Object list = in.readValue();
+        return list == null ? List.of() : (List<T>) list;
+    }
+
+    private static final TypeCodec<UserMessage> USER_MESSAGE = new TypeCodec<>() {
+        @Override
+        public void write(UserMessage value, Encoder out) throws IOException {
+            out.writeValue(value.getText());
+            writeMetadata(value.getMetadata(), out);
+            out.writeValue(value.getMedia());
+        }
+
+        @Override
+        public UserMessage read(Decoder in) throws IOException, ClassNotFoundException {
+            return UserMessage.builder()
+                    .text((String) in.readValue())
+                    .metadata(readMetadata(in))
+                    .media(BinaryStateSerializer.<Media>readList(in))
+                    .build();
+        }
+    };
+
+    private static final TypeCodec<SystemMessage> SYSTEM_MESSAGE = new TypeCodec<>() {
+        @Override
+        public void write(SystemMessage value, Encoder out) throws IOException {
+            out.writeValue(value.getText());
+            writeMetadata(value.getMetadata(), out);
+        }
+
+        @Override
+        public SystemMessage read(Decoder in) throws IOException, ClassNotFoundException {
+            return SystemMessage.builder().text((String) in.readValue()).metadata(readMetadata(in)).build();
+        }
+    };
+
+    private static final TypeCodec<AssistantMessage> ASSISTANT_MESSAGE = new TypeCodec<>() {
+        @Override
+        public void write(AssistantMessage value, Encoder out) throws IOException {
+            out.writeValue(value.getText());
+            writeMetadata(value.getMetadata(), out);
+            out.writeValue(value.getToolCalls());
+            out.writeValue(value.getMedia());
+        }
+
+        @Override
+        public AssistantMessage read(Decoder in) throws IOException, ClassNotFoundException {
+            return AssistantMessage.builder()
+                    .content((String) in.readValue())
+                    .properties(readMetadata(in))
+                    .toolCalls(BinaryStateSerializer.<AssistantMessage.ToolCall>readList(in))
+                    .media(BinaryStateSerializer.<Media>readList(in))
+                    .build();
+        }
+    };
+
+    private static final TypeCodec<ToolResponseMessage> TOOL_RESPONSE_MESSAGE = new TypeCodec<>() {
+        @Override
+        public void write(ToolResponseMessage value, Encoder out) throws IOException {
+            out.writeValue(value.getResponses());
+            writeMetadata(value.getMetadata(), out);
+        }
+
+        @Override
+        public ToolResponseMessage read(Decoder in) throws IOException, ClassNotFoundException {
+            return ToolResponseMessage.builder()
+                    .responses(BinaryStateSerializer.<ToolResponseMessage.ToolResponse>readList(in))
+                    .metadata(readMetadata(in))
+                    .build();
+        }
+    };
+
+    private static final TypeCodec<Media> MEDIA = new TypeCodec<>() {
+        @Override
+        public void write(Media value, Encoder out) throws IOException {
+            out.writeValue(value.getMimeType().toString());
+            Object data = value.getData();
+            out.writeValue(data instanceof URI uri ? uri.toString() : data);
+            out.writeValue(value.getId());
+            out.writeValue(value.getName());
+        }
+
+        @Override
+        public Media read(Decoder in) throws IOException, ClassNotFoundException {
+            return Media.builder()
+                    .mimeType(MimeTypeUtils.parseMimeType((String) in.readValue()))
+                    .data(in.readValue())
+                    .id((String) in.readValue())
+                    .name((String) in.readValue())
+                    .build();
+        }
+    };
+
+    public static class Builder {
+
+        private final AgentStateFactory<OverAllState> stateFactory;
+
+        private final Map<Integer, Registration<?>> registrations = new HashMap<>();
+
+        private Builder(AgentStateFactory<OverAllState> stateFactory) {
+            this.stateFactory = stateFactory;
+            put(1, UserMessage.class, USER_MESSAGE);
+            put(2, SystemMessage.class, SYSTEM_MESSAGE);
+            put(3, AssistantMessage.class, ASSISTANT_MESSAGE);
+            put(4, ToolResponseMessage.class, TOOL_RESPONSE_MESSAGE);
+            put(5, AssistantMessage.ToolCall.class, new RecordCodec<>(AssistantMessage.ToolCall.class));
+            put(6, ToolResponseMessage.ToolResponse.class, new RecordCodec<>(ToolResponseMessage.ToolResponse.class));
+            put(7, Media.class, MEDIA);
+        }
+
+        /**
+         * 注册 record 类型。id 会写入每个 checkpoint，注册后不能再改
+         */
+        public <R extends Record> Builder registerRecord(int id, Class<R> type) {
+            return register(id, type, new RecordCodec<>(type));
+        }
+
+        /**
+         * 用自定义编解码器注册类型。id 会写入每个 checkpoint，注册后不能再改
+         */
+        public <T> Builder register(int id, Class<T> type, TypeCodec<T> codec) {
+            if (id < FIRST_USER_TYPE_ID) {
+                throw new IllegalArgumentException("Type ids below " + FIRST_USER_TYPE_ID + " are reserved: " + id);
+            }
+            return put(id, type, codec);
+        }
+
+        private <T> Builder put(int id, Class<T> type, TypeCodec<T> codec) {
+            for (Registration<?> registration : registrations.values()) {
+                if (registration.type() == type) {
+                    throw new IllegalArgumentException(type.getName() + " is already registered with id "
+                            + registration.id());
+                }
+            }
+            Registration<?> previous = registrations.putIfAbsent(id, new Registration<>(id, type, codec));
+            if (previous != null) {
+                throw new IllegalArgumentException("Type id " + id + " is already registered for "
+                        + previous.type().getName());
+            }
+            return this;
+        }
+
+        public BinaryStateSerializer build() {
+            return new BinaryStateSerializer(this);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.sse;
+
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.NodeOutput;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.streaming.StreamingOutput;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * 把图的 NodeOutput 流桥接为 SSE：
+ * <ul>
+ *     <li>直接返回由 {@link CompiledGraph#stream} 派生的 Flux，不再额外订阅再转发到无界 Sink，
+ *     客户端断开时取消信号沿链路传到图的执行，正在进行的大模型流式调用随之取消；</li>
+ *     <li>客户端消费跟不上时最多缓冲 maxBufferedEvents 个事件，超出后取消图的执行，已缓冲的事件发送完后以溢出错误结束，
+ *     慢客户端不会撑大堆内存；</li>
+ *     <li>事件格式由 {@link NodeOutputMapper} 决定，默认的 {@link #chatMessage} 对节点输出只发送与上一次相比发生变化的
+ *     state key（被删除的 key 值为 null），流式 chunk 原样发送；</li>
+ *     <li>每个事件只序列化一次，缓冲区中保存的是序列化后的 JSON，序列化复用 Jackson 自带的缓冲区回收。</li>
+ * </ul>
+ */
+public class GraphProcess {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphProcess.class);
+
+    public static final int DEFAULT_MAX_BUFFERED_EVENTS = 256;
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder()
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .findAndAddModules()
+            .build();
+
+    private final CompiledGraph compiledGraph;
+
+    private final int maxBufferedEvents;
+
+    private final NodeOutputMapper mapper;
+
+    public GraphProcess(CompiledGraph compiledGraph) {
+        this(compiledGraph, DEFAULT_MAX_BUFFERED_EVENTS);
+    }
+
+    public GraphProcess(CompiledGraph compiledGraph, int maxBufferedEvents) {
+        this(compiledGraph, maxBufferedEvents, GraphProcess::chatMessage);
+    }
+
+    public GraphProcess(CompiledGraph compiledGraph, int maxBufferedEvents, NodeOutputMapper mapper) {
+        if (maxBufferedEvents <= 0) {
+            throw new IllegalArgumentException("maxBufferedEvents must be positive");
+        }
+        this.compiledGraph = compiledGraph;
+        this.maxBufferedEvents = maxBufferedEvents;
+        this.mapper = mapper;
+    }
+
+    /**
+     * 执行图并返回 SSE 流，inputs 为 null 时从 config 对应的 checkpoint 继续执行
+     */
+    public Flux<ServerSentEvent<String>> stream(Map<String, Object> inputs, RunnableConfig config) {
+        return processStream(Flux.defer(() -> compiledGraph.stream(inputs, config)));
+    }
+
+    public Flux<ServerSentEvent<String>> processStream(Flux<NodeOutput> nodeOutputFlux) {
+        return Flux.defer(() -> {
+            // 每个订阅单独记录已发送的 state，用于计算增量
+            StateDelta delta = new StateDelta();
+            return nodeOutputFlux
+                    .<ServerSentEvent<String>>handle((output, sink) -> {
+                        Object event = mapper.map(output, delta);
+                        if (event == null) {
+                            return;
+                        }
+                        try {
+                            sink.next(ServerSentEvent.builder(OBJECT_MAPPER.writeValueAsString(event)).build());
+                        }
+                        catch (JsonProcessingException e) {
+                            sink.error(e);
+                        }
+                    })
+                    .onBackpressureBuffer(maxBufferedEvents,
+                            dropped -> logger.warn("Client is too slow, more than {} events buffered, closing stream",
+                                    maxBufferedEvents),
+                            BufferOverflowStrategy.ERROR)
+                    .doOnCancel(() -> logger.info("Client disconnected from stream, graph run cancelled"))
+                    .doOnError(e -> logger.error("Error occurred during streaming", e));
+        });
+    }
+
+    /**
+     * 默认的事件格式：{"node_name": 节点名, "type": 流式 chunk 或 state 增量}，空 chunk 跳过
+     */
+    public static ChatMessage chatMessage(NodeOutput output, StateDelta delta) {
+        String nodeName = output.node();
+        if (output instanceof StreamingOutput<?> streamingOutput) {
+            String chunk = streamingOutput.chunk();
+            return chunk == null || chunk.isEmpty() ? null : new ChatMessage(nodeName, chunk);
+        }
+        OverAllState state = output.state();
+        return new ChatMessage(nodeName, delta.diff(state == null ? Map.of() : state.data()));
+    }
+
+    public record ChatMessage(@JsonProperty("node_name") String nodeName, @JsonProperty("type") Object data) {
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.sse;
+
+import com.alibaba.cloud.ai.graph.NodeOutput;
+
+/**
+ * 把一个 {@link NodeOutput} 转换为要发送的事件，返回 null 表示跳过该输出
+ */
+@FunctionalInterface
+public interface NodeOutputMapper {
+
+    /**
+     * @param delta 当前订阅的 state 增量，节点输出事件用它只发送变化的 key
+     */
+    Object map(NodeOutput output, StateDelta delta);
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.sse;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 记录上一次发送的 state，只返回之后发生变化的 key，被删除的 key 值为 null。
+ * 值引用相同的 key 直接跳过，不做深比较。每个 SSE 订阅使用一个实例，非线程安全。
+ */
+public final class StateDelta {
+
+    private Map<String, Object> last = Map.of();
+
+    public Map<String, Object> diff(Map<String, Object> current) {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            Object previous = last.get(entry.getKey());
+            Object value = entry.getValue();
+            if (previous != value && (!Objects.equals(previous, value) || !last.containsKey(entry.getKey()))) {
+                changed.put(entry.getKey(), value);
+            }
+        }
+        for (String key : last.keySet()) {
+            if (!current.containsKey(key)) {
+                changed.put(key, null);
+            }
+        }
+        last = new HashMap<>(current);
+        return changed;
+    }
+}
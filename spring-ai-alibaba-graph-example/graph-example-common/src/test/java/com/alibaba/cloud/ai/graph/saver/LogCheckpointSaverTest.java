@@ -0,0 +1,202 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.saver;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogCheckpointSaverTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void behavesLikeMemorySaver() throws Exception {
+        try (LogCheckpointSaver saver = saver().build()) {
+            RunnableConfig config = RunnableConfig.builder().threadId("t1").build();
+            saver.put(config, checkpoint("c1", "expander"));
+            saver.put(config, checkpoint("c2", "human_feedback"));
+
+            assertThat(saver.get(config)).map(Checkpoint::getId).contains("c2");
+            assertThat(saver.list(config)).extracting(Checkpoint::getId).containsExactly("c2", "c1");
+            assertThat(saver.get(RunnableConfig.builder(config).checkPointId("c1").build()))
+                    .map(Checkpoint::getNodeId).contains("expander");
+            assertThat(saver.get(RunnableConfig.builder(config).checkPointId("missing").build())).isEmpty();
+
+            // 带 checkPointId 时替换原位置的 checkpoint
+            RunnableConfig replaced = saver.put(RunnableConfig.builder(config).checkPointId("c1").build(),
+                    checkpoint("c1b", "expander"));
+            assertThat(replaced.checkPointId()).contains("c1b");
+            assertThat(saver.list(config)).extracting(Checkpoint::getId).containsExactly("c2", "c1b");
+            assertThatThrownBy(() -> saver.put(RunnableConfig.builder(config).checkPointId("missing").build(),
+                    checkpoint("x", "expander"))).isInstanceOf(NoSuchElementException.class);
+
+            BaseCheckpointSaver.Tag tag = saver.release(config);
+            assertThat(tag.checkpoints()).extracting(Checkpoint::getId).containsExactly("c2", "c1b");
+            assertThat(saver.get(config)).isEmpty();
+            assertThat(saver.threadCount()).isZero();
+        }
+    }
+
+    @Test
+    void recoversAfterRestart() throws Exception {
+        RunnableConfig paused = RunnableConfig.builder().threadId("paused").build();
+        RunnableConfig released = RunnableConfig.builder().threadId("released").build();
+        try (LogCheckpointSaver saver = saver().build()) {
+            saver.put(paused, checkpoint("p1", "expander"));
+            saver.put(paused, checkpoint("p2", "human_feedback"));
+            saver.put(RunnableConfig.builder(paused).checkPointId("p1").build(), checkpoint("p1b", "expander"));
+            saver.put(released, checkpoint("r1", "expander"));
+            saver.release(released);
+            saver.put(released, checkpoint("r2", "translate"));
+        }
+
+        try (LogCheckpointSaver saver = saver().build()) {
+            assertThat(saver.list(paused)).extracting(Checkpoint::getId).containsExactly("p2", "p1b");
+            assertThat(saver.get(paused)).map(c -> c.getState().get("query")).contains("query of p2");
+            assertThat(saver.list(released)).extracting(Checkpoint::getId).containsExactly("r2");
+        }
+    }
+
+    @Test
+    void truncatesTornRecord() throws Exception {
+        RunnableConfig config = RunnableConfig.builder().threadId("t1").build();
+        try (LogCheckpointSaver saver = saver().build()) {
+            saver.put(config, checkpoint("c1", "expander"));
+            saver.put(config, checkpoint("c2", "human_feedback"));
+        }
+        Path segment = segments().findFirst().orElseThrow();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (LogCheckpointSaver saver = saver().build()) {
+            assertThat(saver.list(config)).extracting(Checkpoint::getId).containsExactly("c1");
+            saver.put(config, checkpoint("c3", "human_feedback"));
+        }
+        try (LogCheckpointSaver saver = saver().build()) {
+            assertThat(saver.list(config)).extracting(Checkpoint::getId).containsExactly("c3", "c1");
+        }
+    }
+
+    @Test
+    void compactionReclaimsReleasedThreads() throws Exception {
+        try (LogCheckpointSaver saver = saver().segmentBytes(4 * 1024).build()) {
+            for (int i = 0; i < 200; i++) {
+                RunnableConfig config = RunnableConfig.builder().threadId("t" + i).build();
+                saver.put(config, checkpoint("c" + i, "human_feedback"));
+                if (i % 10 != 0) {
+                    saver.release(config);
+                }
+            }
+            long before = segments().count();
+            saver.compact();
+
+            assertThat(segments().count()).isLessThan(before);
+            assertThat(saver.threadCount()).isEqualTo(20);
+            for (int i = 0; i < 200; i += 10) {
+                assertThat(saver.get(RunnableConfig.builder().threadId("t" + i).build()))
+                        .map(Checkpoint::getId).contains("c" + i);
+            }
+        }
+
+        try (LogCheckpointSaver saver = saver().segmentBytes(4 * 1024).build()) {
+            assertThat(saver.threadCount()).isEqualTo(20);
+            assertThat(saver.get(RunnableConfig.builder().threadId("t190").build()))
+                    .map(Checkpoint::getId).contains("c190");
+            assertThat(saver.get(RunnableConfig.builder().threadId("t191").build())).isEmpty();
+        }
+    }
+
+    @Test
+    void retentionLimitDropsOldestCheckpoints() throws Exception {
+        RunnableConfig config = RunnableConfig.builder().threadId("t1").build();
+        try (LogCheckpointSaver saver = saver().maxCheckpointsPerThread(2).build()) {
+            saver.put(config, checkpoint("c1", "expander"));
+            saver.put(config, checkpoint("c2", "human_feedback"));
+            saver.put(config, checkpoint("c3", "translate"));
+
+            // 与 MemorySaver 不同，超出保留数量的 checkpoint 被丢弃
+            assertThat(saver.list(config)).extracting(Checkpoint::getId).containsExactly("c3", "c2");
+            assertThat(saver.get(RunnableConfig.builder(config).checkPointId("c1").build())).isEmpty();
+            assertThatThrownBy(() -> saver.put(RunnableConfig.builder(config).checkPointId("c1").build(),
+                    checkpoint("c1b", "expander"))).isInstanceOf(NoSuchElementException.class);
+        }
+
+        // 重放时按同样的数量截断
+        try (LogCheckpointSaver saver = saver().maxCheckpointsPerThread(1).build()) {
+            assertThat(saver.list(config)).extracting(Checkpoint::getId).containsExactly("c3");
+        }
+        try (LogCheckpointSaver saver = saver().build()) {
+            assertThat(saver.list(config)).extracting(Checkpoint::getId).containsExactly("c3", "c2", "c1");
+        }
+    }
+
+    @Test
+    void hotCacheIsBounded() throws Exception {
+        try (LogCheckpointSaver saver = saver().maxHotThreads(16).build()) {
+            for (int i = 0; i < 100; i++) {
+                saver.put(RunnableConfig.builder().threadId("t" + i).build(), checkpoint("c" + i, "human_feedback"));
+            }
+            assertThat(saver.hotThreadCount()).isLessThanOrEqualTo(16);
+            // 淘汰出缓存的 thread 从磁盘读取
+            assertThat(saver.get(RunnableConfig.builder().threadId("t0").build()))
+                    .map(c -> c.getState().get("query")).contains("query of c0");
+        }
+    }
+
+    private LogCheckpointSaver.Builder saver() {
+        return LogCheckpointSaver.builder()
+                .directory(directory)
+                .stateSerializer(StateGraph.DEFAULT_JACKSON_SERIALIZER)
+                .fsyncPolicy(LogCheckpointSaver.FsyncPolicy.NEVER)
+                .compactionInterval(Duration.ofHours(1));
+    }
+
+    private Stream<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList().stream();
+        }
+    }
+
+    private static Checkpoint checkpoint(String id, String nextNodeId) {
+        return Checkpoint.builder()
+                .id(id)
+                .nodeId("expander")
+                .nextNodeId(nextNodeId)
+                .state(Map.of("query", "query of " + id, "expander_number", 3))
+                .build();
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.serializer.binary;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryStateSerializerTest {
+
+    private final BinaryStateSerializer serializer = BinaryStateSerializer.builder(OverAllState::new)
+            .registerRecord(BinaryStateSerializer.FIRST_USER_TYPE_ID, Product.class)
+            .build();
+
+    @Test
+    void roundTripsProductsAndMessages() throws Exception {
+        Product product = new Product("Stay warm", "wool", List.of("red", "grey"), "winter");
+        AssistantMessage assistant = AssistantMessage.builder()
+                .content("calling tool")
+                .properties(Map.of("model", "qwen-max"))
+                .toolCalls(List.of(new AssistantMessage.ToolCall("1", "function", "save", "{\"a\":1}")))
+                .build();
+        ToolResponseMessage toolResponse = ToolResponseMessage.builder()
+                .responses(List.of(new ToolResponseMessage.ToolResponse("1", "save", "ok")))
+                .build();
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("productDesc", "A warm sweater");
+        data.put("productSpec", product);
+        data.put("messages", List.of(new UserMessage("hi"), assistant, toolResponse));
+        data.put("count", 3);
+        data.put("total", 42L);
+        data.put("score", 0.5);
+        data.put("done", true);
+        data.put("nested", Map.of("type", MessageType.USER, "empty", List.of()));
+
+        Map<String, Object> read = serializer.dataFromBytes(serializer.dataToBytes(data));
+
+        assertThat(read.get("productSpec")).isEqualTo(product);
+        assertThat(read).containsEntry("productDesc", "A warm sweater").containsEntry("count", 3)
+                .containsEntry("total", 42L).containsEntry("score", 0.5).containsEntry("done", true)
+                .containsEntry("nested", Map.of("type", MessageType.USER, "empty", List.of()));
+        List<?> messages = (List<?>) read.get("messages");
+        assertThat(((UserMessage) messages.get(0)).getText()).isEqualTo("hi");
+        assertThat(messages.get(1)).isEqualTo(assistant);
+        assertThat(messages.get(2)).isEqualTo(toolResponse);
+    }
+
+    @Test
+    void supportsStatesLargerThan64KB() throws Exception {
+        String text = "商品描述".repeat(100_000);
+        Map<String, Object> read = serializer.dataFromBytes(serializer.dataToBytes(Map.of("productDesc", text)));
+        assertThat(read.get("productDesc")).isEqualTo(text);
+    }
+
+    @Test
+    void cloneCopiesContainersAndSharesImmutableLeaves() throws Exception {
+        List<String> colors = new ArrayList<>(List.of("red"));
+        UserMessage message = new UserMessage("hi");
+        Map<String, Object> data = new HashMap<>();
+        data.put("productSpec", new Product("slogan", "cotton", colors, "summer"));
+        data.put("history", new ArrayList<>(List.of(message)));
+
+        OverAllState original = new OverAllState(data);
+        OverAllState clone = serializer.cloneObject(original);
+        colors.add("blue");
+        @SuppressWarnings("unchecked")
+        List<Object> history = (List<Object>) original.data().get("history");
+        history.add(new UserMessage("again"));
+
+        Product copied = (Product) clone.value("productSpec").orElseThrow();
+        assertThat(copied.colors()).containsExactly("red");
+        assertThat((List<?>) clone.value("history").orElseThrow()).hasSize(1).first().isSameAs(message);
+    }
+
+    @Test
+    void rejectsUnregisteredTypes() {
+        Map<String, Object> data = Map.of("value", new Object());
+        assertThatThrownBy(() -> serializer.dataToBytes(data)).isInstanceOf(NotSerializableException.class);
+        assertThatThrownBy(() -> BinaryStateSerializer.builder(OverAllState::new).registerRecord(1, Product.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    record Product(String slogan, String material, List<String> colors, String season) {
+    }
+
+}
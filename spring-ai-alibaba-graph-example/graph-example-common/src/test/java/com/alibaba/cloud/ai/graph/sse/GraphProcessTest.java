@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.sse;
+
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphProcessTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void emitsOnlyChangedStateKeys() throws Exception {
+        CompiledGraph graph = graph(state -> Map.of("expander_content", "a\nb\nc"),
+                state -> Map.of("translate_content", "done"));
+
+        List<JsonNode> events = new ArrayList<>();
+        for (ServerSentEvent<String> event : new GraphProcess(graph).stream(Map.of("query", "hello"), config())
+                .collectList().block(Duration.ofSeconds(10))) {
+            events.add(OBJECT_MAPPER.readTree(event.data()));
+        }
+
+        // 第一个事件包含完整的初始 state，之后只发送发生变化的 key
+        assertThat(fieldNames(find(events, StateGraph.START))).containsExactly("query");
+        assertThat(fieldNames(find(events, StateGraph.END)))
+                .containsExactlyInAnyOrder("expander_content", "translate_content");
+    }
+
+    @Test
+    void cancellationReachesInFlightStream() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Flux<ChatResponse> llm = Flux.interval(Duration.ofMillis(10))
+                .map(i -> chunk("token-" + i))
+                .doOnCancel(cancelled::countDown);
+        CompiledGraph graph = graph(state -> Map.of("expander_content", llm),
+                state -> Map.of("translate_content", "done"));
+
+        List<String> chunks = new GraphProcess(graph).stream(Map.of("query", "hello"), config())
+                .map(ServerSentEvent::data)
+                .filter(data -> data.contains("token-"))
+                .take(3)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(chunks).hasSize(3);
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void slowClientIsDisconnectedInsteadOfBuffering() throws Exception {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Flux<ChatResponse> llm = Flux.range(0, 10_000)
+                .map(i -> chunk("token-" + i))
+                .doOnCancel(cancelled::countDown);
+        CompiledGraph graph = graph(state -> Map.of("expander_content", llm),
+                state -> Map.of("translate_content", "done"));
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch terminated = new CountDownLatch(1);
+        BaseSubscriber<ServerSentEvent<String>> browser = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // 只请求一个事件，模拟不再读取的浏览器
+                request(1);
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                error.set(throwable);
+                terminated.countDown();
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                terminated.countDown();
+            }
+        };
+        new GraphProcess(graph, 16).stream(Map.of("query", "hello"), config()).subscribe(browser);
+
+        // 缓冲区满后图的执行被取消，不会继续消费 LLM 输出
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        // 浏览器恢复读取时先收到已缓冲的事件，然后是溢出错误
+        browser.request(Long.MAX_VALUE);
+        assertThat(terminated.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(error.get()).matches(Exceptions::isOverflow);
+    }
+
+    @Test
+    void customMapperDecidesEventFormat() throws Exception {
+        CompiledGraph graph = graph(state -> Map.of("expander_content", "a"),
+                state -> Map.of("translate_content", "done"));
+
+        // 只发送 translator 节点的增量，其余输出跳过
+        NodeOutputMapper mapper = (output, delta) -> {
+            Map<String, Object> changed = delta.diff(output.state().data());
+            return "translator".equals(output.node()) ? Map.of("changed", changed.keySet()) : null;
+        };
+        List<String> events = new GraphProcess(graph, 16, mapper).stream(Map.of("query", "hello"), config())
+                .map(ServerSentEvent::data)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(events).containsExactly("{\"changed\":[\"translate_content\"]}");
+    }
+
+    @Test
+    void stateDeltaReportsChangedAndRemovedKeys() {
+        StateDelta delta = new StateDelta();
+        List<String> messages = List.of("m1");
+
+        assertThat(delta.diff(Map.of("a", 1, "messages", messages))).containsOnlyKeys("a", "messages");
+        assertThat(delta.diff(Map.of("a", 1, "messages", messages))).isEmpty();
+
+        Map<String, Object> changed = delta.diff(Map.of("a", 2));
+        assertThat(changed).containsEntry("a", 2).containsKey("messages");
+        assertThat(changed.get("messages")).isNull();
+    }
+
+    private static CompiledGraph graph(NodeAction expander, NodeAction translator) throws Exception {
+        KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
+                .addPatternStrategy("query", new ReplaceStrategy())
+                .addPatternStrategy("expander_content", new ReplaceStrategy())
+                .addPatternStrategy("translate_content", new ReplaceStrategy())
+                .build();
+        return new StateGraph(keyStrategyFactory)
+                .addNode("expander", node_async(expander))
+                .addNode("translator", node_async(translator))
+                .addEdge(StateGraph.START, "expander")
+                .addEdge("expander", "translator")
+                .addEdge("translator", StateGraph.END)
+                .compile();
+    }
+
+    private static RunnableConfig config() {
+        return RunnableConfig.builder().threadId(UUID.randomUUID().toString()).build();
+    }
+
+    private static ChatResponse chunk(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private static JsonNode find(List<JsonNode> events, String node) {
+        return events.stream()
+                .filter(event -> node.equals(event.get("node_name").asText()))
+                .reduce((first, second) -> second)
+                .map(event -> event.get("type"))
+                .orElseThrow();
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+}
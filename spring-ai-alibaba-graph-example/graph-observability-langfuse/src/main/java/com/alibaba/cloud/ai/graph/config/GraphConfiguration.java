@@ -27,6 +27,8 @@ import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
 import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
 import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.metrics.GraphMetricsAdvisor;
+import com.alibaba.cloud.ai.graph.metrics.GraphMetricsListener;
 import com.alibaba.cloud.ai.graph.node.ChatNode;
 import com.alibaba.cloud.ai.graph.node.MergeNode;
 import com.alibaba.cloud.ai.graph.node.SimpleSubGraph;
@@ -43,6 +45,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -92,15 +95,17 @@ public class GraphConfiguration {
 	}
 
 	/**
-	 * Configure ChatClient with logging advisor
+	 * Configure ChatClient with logging advisor, plus the metrics advisor when graph
+	 * metrics are enabled
 	 * @param chatModel the chat model to use
+	 * @param graphMetricsAdvisor the metrics advisor, if enabled
 	 * @return configured ChatClient
 	 */
 	@Bean
-	public ChatClient chatClient(ChatModel chatModel) {
-		return ChatClient.builder(chatModel)
-				.defaultAdvisors(new SimpleLoggerAdvisor())
-				.build();
+	public ChatClient chatClient(ChatModel chatModel, ObjectProvider<GraphMetricsAdvisor> graphMetricsAdvisor) {
+		ChatClient.Builder builder = ChatClient.builder(chatModel).defaultAdvisors(new SimpleLoggerAdvisor());
+		graphMetricsAdvisor.ifAvailable(builder::defaultAdvisors);
+		return builder.build();
 	}
 
 	/**
@@ -208,17 +213,22 @@ public class GraphConfiguration {
 	 * Compile the graph with observability configuration
 	 * @param observabilityGraph the state graph to compile
 	 * @param observationCompileConfig the compile configuration
+	 * @param graphMetricsListener the metrics listener, if enabled
 	 * @return compiled graph
 	 * @throws GraphStateException if compilation fails
 	 */
 	@Bean
-	public CompiledGraph compiledGraph(StateGraph observabilityGraph, CompileConfig observationCompileConfig)
-			throws GraphStateException {
+	public CompiledGraph compiledGraph(StateGraph observabilityGraph, CompileConfig observationCompileConfig,
+			ObjectProvider<GraphMetricsListener> graphMetricsListener) throws GraphStateException {
 		// 为子图添加 checkpoint saver 配置，确保子图能正确接收输入
 		CompileConfig subgraphCompileConfig = CompileConfig.builder(observationCompileConfig)
 				.saverConfig(SaverConfig.builder().register(MemorySaver.builder().build()).build())
 				.build();
 
+		GraphMetricsListener listener = graphMetricsListener.getIfAvailable();
+		if (listener != null) {
+			subgraphCompileConfig = listener.attach(subgraphCompileConfig);
+		}
 		return observabilityGraph.compile(subgraphCompileConfig);
 	}
 
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.config;
+
+import com.alibaba.cloud.ai.graph.metrics.GraphMetricsAdvisor;
+import com.alibaba.cloud.ai.graph.metrics.GraphMetricsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Graph Metrics Configuration
+ *
+ * Registers the graph metrics listener and ChatClient advisor when
+ * {@code graph.metrics.enabled=true}. Without the property neither bean exists, the graph
+ * is compiled without the listener and the ChatClient without the advisor.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "graph.metrics", name = "enabled", havingValue = "true")
+public class GraphMetricsConfiguration {
+
+	@Bean
+	public GraphMetricsListener graphMetricsListener(MeterRegistry meterRegistry,
+			ObjectProvider<ObservationRegistry> observationRegistry,
+			@Value("${graph.metrics.max-run-age:PT30M}") Duration maxRunAge) {
+		return new GraphMetricsListener("observability", meterRegistry,
+				observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP), maxRunAge);
+	}
+
+	@Bean
+	public GraphMetricsAdvisor graphMetricsAdvisor(MeterRegistry meterRegistry) {
+		return new GraphMetricsAdvisor(meterRegistry);
+	}
+
+}
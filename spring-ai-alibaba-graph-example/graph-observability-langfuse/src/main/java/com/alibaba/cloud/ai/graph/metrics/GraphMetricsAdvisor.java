@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Graph Metrics Advisor
+ *
+ * ChatClient advisor recording LLM metrics per graph node. Nodes identify themselves with
+ * the {@value #NODE} advisor parameter:
+ *
+ * <pre>
+ * chatClient.prompt().advisors(a -&gt; a.param(GraphMetricsAdvisor.NODE, nodeName))
+ * </pre>
+ *
+ * - {@value #TOKENS}: prompt and completion tokens, tagged with {@code type}
+ *
+ * - {@value #FIRST_CHUNK}: time from the streaming request to its first chunk
+ *
+ * Requests without the parameter are recorded under the {@code unknown} node.
+ */
+public class GraphMetricsAdvisor implements CallAdvisor, StreamAdvisor {
+
+	public static final String NODE = "graph.node";
+
+	public static final String TOKENS = "graph.llm.tokens";
+
+	public static final String FIRST_CHUNK = "graph.llm.first.chunk";
+
+	private static final String UNKNOWN_NODE = "unknown";
+
+	private final MeterRegistry meterRegistry;
+
+	private final LongSupplier clock;
+
+	/**
+	 * Constructor for GraphMetricsAdvisor
+	 * @param meterRegistry registry for token counters and first chunk timers
+	 */
+	public GraphMetricsAdvisor(MeterRegistry meterRegistry) {
+		this(meterRegistry, System::nanoTime);
+	}
+
+	GraphMetricsAdvisor(MeterRegistry meterRegistry, LongSupplier clock) {
+		this.meterRegistry = meterRegistry;
+		this.clock = clock;
+	}
+
+	@Override
+	public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+		ChatClientResponse response = chain.nextCall(request);
+		recordUsage(node(request), response.chatResponse());
+		return response;
+	}
+
+	@Override
+	public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+		String node = node(request);
+		return Flux.defer(() -> {
+			long start = clock.getAsLong();
+			AtomicBoolean first = new AtomicBoolean(true);
+			AtomicReference<ChatResponse> lastWithUsage = new AtomicReference<>();
+			return chain.nextStream(request).doOnNext(response -> {
+				if (first.compareAndSet(true, false)) {
+					Timer.builder(FIRST_CHUNK)
+						.description("Time from a streaming LLM request to its first chunk")
+						.tag("node", node)
+						.register(meterRegistry)
+						.record(clock.getAsLong() - start, TimeUnit.NANOSECONDS);
+				}
+				// Usage is reported on the last chunk(s); keep the latest one that has it
+				ChatResponse chatResponse = response.chatResponse();
+				Usage usage = usage(chatResponse);
+				if (usage != null && usage.getTotalTokens() != null && usage.getTotalTokens() > 0) {
+					lastWithUsage.set(chatResponse);
+				}
+			}).doOnComplete(() -> recordUsage(node, lastWithUsage.get()));
+		});
+	}
+
+	private void recordUsage(String node, ChatResponse chatResponse) {
+		Usage usage = usage(chatResponse);
+		if (usage == null) {
+			return;
+		}
+		increment(node, "prompt", usage.getPromptTokens());
+		increment(node, "completion", usage.getCompletionTokens());
+	}
+
+	private void increment(String node, String type, Integer tokens) {
+		if (tokens == null || tokens <= 0) {
+			return;
+		}
+		Counter.builder(TOKENS)
+			.description("LLM tokens used by graph nodes")
+			.tags("node", node, "type", type)
+			.register(meterRegistry)
+			.increment(tokens);
+	}
+
+	private static Usage usage(ChatResponse chatResponse) {
+		if (chatResponse == null || chatResponse.getMetadata() == null) {
+			return null;
+		}
+		return chatResponse.getMetadata().getUsage();
+	}
+
+	private static String node(ChatClientRequest request) {
+		Object node = request.context().get(NODE);
+		return node != null ? node.toString() : UNKNOWN_NODE;
+	}
+
+	@Override
+	public String getName() {
+		return "GraphMetricsAdvisor";
+	}
+
+	@Override
+	public int getOrder() {
+		// Run right before the model call so the first chunk timer measures the model only
+		return Ordered.LOWEST_PRECEDENCE - 1;
+	}
+
+}
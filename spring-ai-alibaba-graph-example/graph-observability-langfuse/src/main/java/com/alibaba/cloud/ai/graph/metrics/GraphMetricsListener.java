@@ -0,0 +1,337 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.metrics;
+
+import com.alibaba.cloud.ai.graph.CompileConfig;
+import com.alibaba.cloud.ai.graph.GraphLifecycleListener;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.internal.node.ParallelNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.content.Content;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Graph Metrics Listener
+ *
+ * A {@link GraphLifecycleListener} that can be attached to any {@code StateGraph} at
+ * compile time (see {@link #attach(CompileConfig)}) and records where the wall time of a
+ * graph run goes:
+ *
+ * - {@value #NODE_EXECUTION}: one observation per node execution, which becomes a timer
+ * through the meter observation handler and a span through the tracing handler
+ *
+ * - {@value #JOIN_WAIT}: for every branch of a parallel group, the time between the branch
+ * finishing and the slowest sibling finishing, i.e. how long its result waited before
+ * the join node could run
+ *
+ * - {@value #STATE_SIZE}: estimated state size (characters) after each node
+ *
+ * - {@value #RUN}: total duration of a graph run, tagged with its outcome
+ *
+ * LLM tokens and time to first chunk are recorded by {@link GraphMetricsAdvisor}. When
+ * metrics are disabled the listener is simply not registered, so graph runs pay nothing
+ * for it.
+ *
+ * Every run gets its own id in {@link #onStart}, stored in the run's
+ * {@link RunnableConfig#context()} under {@value #RUN_ID}, so concurrent runs are kept
+ * apart even when they share a thread id. The id travels with the config the graph copies
+ * for each node; a {@code RunnableConfig} instance should therefore not be shared by two
+ * invocations running at the same time.
+ *
+ * A run whose stream is cancelled or abandoned never reaches {@link #onComplete} or
+ * {@link #onError}. Runs still in flight after {@code maxRunAge} are therefore removed
+ * the next time a run starts, and recorded under the {@code abandoned} outcome.
+ */
+public class GraphMetricsListener implements GraphLifecycleListener {
+
+	public static final String NODE_EXECUTION = "graph.node.execution";
+
+	public static final String JOIN_WAIT = "graph.node.join.wait";
+
+	public static final String STATE_SIZE = "graph.state.size";
+
+	public static final String RUN = "graph.run";
+
+	/**
+	 * Context key holding the id of the run a config belongs to
+	 */
+	public static final String RUN_ID = "graph.metrics.run.id";
+
+	/**
+	 * Default age after which an unfinished run is considered abandoned
+	 */
+	public static final Duration DEFAULT_MAX_RUN_AGE = Duration.ofMinutes(30);
+
+	private static final int MAX_SIZE_DEPTH = 3;
+
+	private final String graphName;
+
+	private final MeterRegistry meterRegistry;
+
+	private final ObservationRegistry observationRegistry;
+
+	private final LongSupplier clock;
+
+	private final long maxRunAgeNanos;
+
+	private final Map<String, Run> runs = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor for GraphMetricsListener
+	 * @param graphName value of the {@code graph} tag on every metric
+	 * @param meterRegistry registry for timers and distribution summaries
+	 * @param observationRegistry registry for node observations (timers and spans)
+	 */
+	public GraphMetricsListener(String graphName, MeterRegistry meterRegistry,
+			ObservationRegistry observationRegistry) {
+		this(graphName, meterRegistry, observationRegistry, DEFAULT_MAX_RUN_AGE);
+	}
+
+	/**
+	 * Constructor for GraphMetricsListener
+	 * @param graphName value of the {@code graph} tag on every metric
+	 * @param meterRegistry registry for timers and distribution summaries
+	 * @param observationRegistry registry for node observations (timers and spans)
+	 * @param maxRunAge age after which an unfinished run is dropped as abandoned
+	 */
+	public GraphMetricsListener(String graphName, MeterRegistry meterRegistry,
+			ObservationRegistry observationRegistry, Duration maxRunAge) {
+		this(graphName, meterRegistry, observationRegistry, maxRunAge, System::nanoTime);
+	}
+
+	GraphMetricsListener(String graphName, MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+			Duration maxRunAge, LongSupplier clock) {
+		this.graphName = graphName;
+		this.meterRegistry = meterRegistry;
+		this.observationRegistry = observationRegistry;
+		this.maxRunAgeNanos = maxRunAge.toNanos();
+		this.clock = clock;
+	}
+
+	/**
+	 * Add this listener to a compile configuration
+	 * @param config the configuration to extend
+	 * @return a copy of the configuration with this listener registered
+	 */
+	public CompileConfig attach(CompileConfig config) {
+		return CompileConfig.builder(config).withLifecycleListener(this).build();
+	}
+
+	@Override
+	public void onStart(String nodeId, Map<String, Object> state, RunnableConfig config) {
+		if (config == null) {
+			return;
+		}
+		// Subgraphs compiled with the same configuration report their own start and end
+		// with a config copied from the parent run
+		Run parent = runs.get(runKey(config));
+		if (parent != null) {
+			parent.depth.incrementAndGet();
+			return;
+		}
+		long now = clock.getAsLong();
+		expireAbandonedRuns(now);
+		String runId = UUID.randomUUID().toString();
+		config.context().put(RUN_ID, runId);
+		Run run = new Run(now);
+		run.depth.incrementAndGet();
+		runs.put(runId, run);
+	}
+
+	@Override
+	public void before(String nodeId, Map<String, Object> state, RunnableConfig config, Long curTime) {
+		Run run = runs.get(runKey(config));
+		if (run == null) {
+			return;
+		}
+		if (nodeId.startsWith(ParallelNode.PARALLEL_PREFIX)) {
+			run.branchEnds.clear();
+			run.parallelGroup = nodeId;
+		}
+		Observation observation = Observation.createNotStarted(NODE_EXECUTION, observationRegistry)
+			.lowCardinalityKeyValue("graph", graphName)
+			.lowCardinalityKeyValue("node", nodeId)
+			.start();
+		run.nodes.put(nodeId, observation);
+	}
+
+	@Override
+	public void after(String nodeId, Map<String, Object> state, RunnableConfig config, Long curTime) {
+		Run run = runs.get(runKey(config));
+		if (run == null) {
+			return;
+		}
+		long now = clock.getAsLong();
+		long stateSize = estimateSize(state, 0);
+		DistributionSummary.builder(STATE_SIZE)
+			.description("Estimated state size in characters after the node ran")
+			.baseUnit("chars")
+			.tags("graph", graphName, "node", nodeId)
+			.register(meterRegistry)
+			.record(stateSize);
+
+		if (nodeId.equals(run.parallelGroup)) {
+			run.branchEnds.forEach((branch, end) -> Timer.builder(JOIN_WAIT)
+				.description("Time a parallel branch result waited for its slowest sibling")
+				.tags("graph", graphName, "node", branch)
+				.register(meterRegistry)
+				.record(now - end, TimeUnit.NANOSECONDS));
+			run.branchEnds.clear();
+			run.parallelGroup = null;
+		}
+		else if (run.parallelGroup != null) {
+			run.branchEnds.put(nodeId, now);
+		}
+
+		Observation observation = run.nodes.remove(nodeId);
+		if (observation != null) {
+			observation.highCardinalityKeyValue("state.size", String.valueOf(stateSize)).stop();
+		}
+	}
+
+	@Override
+	public void onError(String nodeId, Map<String, Object> state, Throwable ex, RunnableConfig config) {
+		Run run = runs.remove(runKey(config));
+		if (run == null) {
+			return;
+		}
+		run.nodes.values().forEach(observation -> observation.error(ex).stop());
+		recordRun(run, "error");
+	}
+
+	@Override
+	public void onComplete(String nodeId, Map<String, Object> state, RunnableConfig config) {
+		String key = runKey(config);
+		Run run = runs.get(key);
+		if (run == null || run.depth.decrementAndGet() > 0 || !runs.remove(key, run)) {
+			return;
+		}
+		run.nodes.values().forEach(Observation::stop);
+		recordRun(run, "success");
+	}
+
+	/**
+	 * Drop runs that started more than {@code maxRunAge} ago and never finished, e.g.
+	 * because the client cancelled the stream
+	 */
+	private void expireAbandonedRuns(long now) {
+		runs.forEach((runId, run) -> {
+			if (now - run.startNanos > maxRunAgeNanos && runs.remove(runId, run)) {
+				run.nodes.values().forEach(Observation::stop);
+				recordRun(run, "abandoned");
+			}
+		});
+	}
+
+	/**
+	 * Number of runs currently tracked
+	 */
+	int activeRuns() {
+		return runs.size();
+	}
+
+	private void recordRun(Run run, String outcome) {
+		Timer.builder(RUN)
+			.description("Graph run duration")
+			.tags("graph", graphName, "outcome", outcome)
+			.register(meterRegistry)
+			.record(clock.getAsLong() - run.startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Id assigned in {@link #onStart}, or an empty key that matches no run
+	 */
+	private static String runKey(RunnableConfig config) {
+		Object runId = config == null ? null : config.context().get(RUN_ID);
+		return runId instanceof String id ? id : "";
+	}
+
+	/**
+	 * Estimate the size of a state value without serializing it: text and messages count
+	 * their length, collections and maps are walked a few levels deep, anything else
+	 * counts as a small constant.
+	 */
+	static long estimateSize(Object value, int depth) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof CharSequence text) {
+			return text.length();
+		}
+		if (value instanceof Content content) {
+			return content.getText() == null ? 0 : content.getText().length();
+		}
+		if (value instanceof Number || value instanceof Boolean) {
+			return 8;
+		}
+		if (depth >= MAX_SIZE_DEPTH) {
+			return 16;
+		}
+		if (value instanceof Map<?, ?> map) {
+			long size = 0;
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				size += estimateSize(entry.getKey(), depth + 1) + estimateSize(entry.getValue(), depth + 1);
+			}
+			return size;
+		}
+		if (value instanceof Collection<?> collection) {
+			long size = 0;
+			for (Object element : collection) {
+				size += estimateSize(element, depth + 1);
+			}
+			return size;
+		}
+		return 16;
+	}
+
+	/**
+	 * In-flight state of one graph run
+	 */
+	private static final class Run {
+
+		private final long startNanos;
+
+		private final AtomicInteger depth = new AtomicInteger();
+
+		private final Map<String, Observation> nodes = new ConcurrentHashMap<>();
+
+		/**
+		 * End time of every finished branch of the currently running parallel group
+		 */
+		private final Map<String, Long> branchEnds = new ConcurrentHashMap<>();
+
+		private volatile String parallelGroup;
+
+		private Run(long startNanos) {
+			this.startNanos = startNanos;
+		}
+
+	}
+
+}
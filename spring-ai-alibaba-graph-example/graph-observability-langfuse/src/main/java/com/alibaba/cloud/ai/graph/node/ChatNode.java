@@ -18,7 +18,7 @@ package com.alibaba.cloud.ai.graph.node;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
-import com.alibaba.fastjson.JSON;
+import com.alibaba.cloud.ai.graph.metrics.GraphMetricsAdvisor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
@@ -72,13 +72,17 @@ public class ChatNode implements NodeAction {
 		// Get input data
 		String inputData = state.value(inputKey).map(Object::toString).orElse("Default input");
 
-		logger.info("{} is running, inputKey:{}, inputData:{}, state: {}", nodeName, inputKey, inputData,
-				JSON.toJSONString(state));
+		logger.info("{} is running, inputKey:{}", nodeName, inputKey);
+		logger.debug("{} inputData:{}", nodeName, inputData);
 
 		// Process using ChatClient
 		String result;
 		try {
-			result = chatClient.prompt().user(prompt + " Input content: " + inputData).call().content();
+			result = chatClient.prompt()
+				.user(prompt + " Input content: " + inputData)
+				.advisors(advisor -> advisor.param(GraphMetricsAdvisor.NODE, nodeName))
+				.call()
+				.content();
 		}
 		catch (Exception e) {
 			// If ChatClient call fails, use simulated result
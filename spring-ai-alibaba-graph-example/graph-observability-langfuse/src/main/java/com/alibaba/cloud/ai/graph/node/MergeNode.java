@@ -18,7 +18,6 @@ package com.alibaba.cloud.ai.graph.node;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
-import com.alibaba.fastjson.JSON;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,12 +43,12 @@ public class MergeNode implements NodeAction {
 
 	@Override
 	public Map<String, Object> apply(OverAllState state) {
-		logger.info("MergeNode is running, inputKeys:{} outputKey:{}, state: {}", JSON.toJSONString(inputKeys),
-				outputKey, JSON.toJSONString(state));
+		// 只记录 key，避免每次执行都序列化整个 state
+		logger.info("MergeNode is running, inputKeys:{} outputKey:{}", inputKeys, outputKey);
 		StringBuilder merged = new StringBuilder();
 		for (String inputKey : inputKeys) {
 			String s = state.value(inputKey).map(Object::toString).orElse("");
-			logger.info("Merging inputKey: {}, value: {}", inputKey, s);
+			logger.debug("Merging inputKey: {}, value: {}", inputKey, s);
 			merged.append(s).append("\n");
 		}
 
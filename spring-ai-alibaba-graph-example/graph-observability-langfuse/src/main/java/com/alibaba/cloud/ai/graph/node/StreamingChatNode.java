@@ -18,6 +18,7 @@ package com.alibaba.cloud.ai.graph.node;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.metrics.GraphMetricsAdvisor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
@@ -88,10 +89,11 @@ public class StreamingChatNode implements NodeAction {
 			// 框架会自动将 Flux<ChatResponse> 转换为 StreamingOutput
 			Flux<ChatResponse> chatResponseFlux = chatClient.prompt()
 				.user(fullPrompt)
+				.advisors(advisor -> advisor.param(GraphMetricsAdvisor.NODE, nodeName))
 				.stream()
 				.chatResponse()
 				.doOnSubscribe(sub -> logger.info("{}: chatResponseFlux subscribed", nodeName))
-				.doOnNext(resp -> logger.info("{}: chatResponseFlux emit: {}", nodeName, resp))
+				.doOnNext(resp -> logger.debug("{}: chatResponseFlux emit: {}", nodeName, resp))
 				.doOnError(e -> logger.error("{}: chatResponseFlux error", nodeName, e))
 				.doOnComplete(() -> logger.info("{}: chatResponseFlux complete", nodeName))
 				.timeout(java.time.Duration.ofMinutes(2))
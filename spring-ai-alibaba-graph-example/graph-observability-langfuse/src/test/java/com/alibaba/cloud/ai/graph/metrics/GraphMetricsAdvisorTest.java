@@ -0,0 +1,153 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the advisor with a stub chain and checks the token counters and first chunk
+ * timer it registers, including their tags.
+ */
+class GraphMetricsAdvisorTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final GraphMetricsAdvisor advisor = new GraphMetricsAdvisor(meterRegistry, clock::get);
+
+	@Test
+	void callRecordsTokensPerNodeAndType() {
+		StubChain chain = new StubChain(response("answer", 12, 34));
+
+		advisor.adviseCall(request("translator"), chain);
+
+		assertThat(tokens("translator", "prompt")).isEqualTo(12);
+		assertThat(tokens("translator", "completion")).isEqualTo(34);
+		assertThat(meterRegistry.find(GraphMetricsAdvisor.FIRST_CHUNK).timer()).isNull();
+	}
+
+	@Test
+	void streamRecordsFirstChunkAndUsageOfLastChunk() {
+		// Every chunk advances the clock; only the first one is timed
+		StubChain chain = new StubChain(response("a", 0, 0), response("b", 0, 0), response("", 7, 9));
+
+		advisor.adviseStream(request("expander"), chain).collectList().block();
+
+		Timer firstChunk = meterRegistry.get(GraphMetricsAdvisor.FIRST_CHUNK).tag("node", "expander").timer();
+		assertThat(firstChunk.count()).isEqualTo(1);
+		assertThat(firstChunk.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+		assertThat(tokens("expander", "prompt")).isEqualTo(7);
+		assertThat(tokens("expander", "completion")).isEqualTo(9);
+	}
+
+	@Test
+	void cancelledStreamRecordsNoTokens() {
+		StubChain chain = new StubChain(response("a", 0, 0), response("", 7, 9));
+
+		advisor.adviseStream(request("expander"), chain).take(1).blockLast();
+
+		assertThat(meterRegistry.find(GraphMetricsAdvisor.TOKENS).counters()).isEmpty();
+	}
+
+	@Test
+	void requestWithoutNodeIsRecordedAsUnknown() {
+		ChatClientRequest request = ChatClientRequest.builder().prompt(new Prompt("hello")).context(Map.of()).build();
+
+		advisor.adviseCall(request, new StubChain(response("answer", 1, 2)));
+
+		assertThat(tokens("unknown", "prompt")).isEqualTo(1);
+		assertThat(tokens("unknown", "completion")).isEqualTo(2);
+	}
+
+	private double tokens(String node, String type) {
+		return meterRegistry.get(GraphMetricsAdvisor.TOKENS).tags("node", node, "type", type).counter().count();
+	}
+
+	private static ChatClientRequest request(String node) {
+		return ChatClientRequest.builder()
+			.prompt(new Prompt("hello"))
+			.context(Map.of(GraphMetricsAdvisor.NODE, node))
+			.build();
+	}
+
+	private static ChatClientResponse response(String text, int promptTokens, int completionTokens) {
+		ChatResponse chatResponse = ChatResponse.builder()
+			.generations(List.of(new Generation(new AssistantMessage(text))))
+			.metadata(ChatResponseMetadata.builder().usage(new DefaultUsage(promptTokens, completionTokens)).build())
+			.build();
+		return ChatClientResponse.builder().chatResponse(chatResponse).build();
+	}
+
+	private final class StubChain implements CallAdvisorChain, StreamAdvisorChain {
+
+		private final List<ChatClientResponse> responses;
+
+		private StubChain(ChatClientResponse... responses) {
+			this.responses = List.of(responses);
+		}
+
+		@Override
+		public ChatClientResponse nextCall(ChatClientRequest request) {
+			return responses.get(responses.size() - 1);
+		}
+
+		@Override
+		public Flux<ChatClientResponse> nextStream(ChatClientRequest request) {
+			return Flux.fromIterable(responses).doOnNext(response -> clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5)));
+		}
+
+		@Override
+		public List<CallAdvisor> getCallAdvisors() {
+			return List.of();
+		}
+
+		@Override
+		public CallAdvisorChain copy(CallAdvisor after) {
+			return this;
+		}
+
+		@Override
+		public List<StreamAdvisor> getStreamAdvisors() {
+			return List.of();
+		}
+
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.metrics;
+
+import com.alibaba.cloud.ai.graph.CompileConfig;
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.alibaba.cloud.ai.graph.StateGraph.END;
+import static com.alibaba.cloud.ai.graph.StateGraph.START;
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs a small graph with a parallel fan-out (start -> fast / slow -> merge) and checks the
+ * recorded metrics.
+ */
+class GraphMetricsListenerTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+
+	private final GraphMetricsListener listener;
+
+	GraphMetricsListenerTest() {
+		observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+		listener = new GraphMetricsListener("test", meterRegistry, observationRegistry);
+	}
+
+	@Test
+	void recordsNodeTimesJoinWaitAndStateSize() throws Exception {
+		CompiledGraph graph = graph(sleep("slow_output", 200));
+
+		graph.invoke(Map.of("input", "hello"), config()).orElseThrow();
+
+		for (String node : List.of("start", "fast", "slow", "merge")) {
+			assertThat(nodeTimer(node).count()).as(node).isEqualTo(1);
+			assertThat(meterRegistry.get(GraphMetricsListener.STATE_SIZE).tag("node", node).summary().count())
+				.as(node)
+				.isEqualTo(1);
+		}
+		assertThat(nodeTimer("slow").totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(200);
+
+		// The fast branch result waits for the slow one before merge can run
+		double fastWait = joinWait("fast").totalTime(TimeUnit.MILLISECONDS);
+		double slowWait = joinWait("slow").totalTime(TimeUnit.MILLISECONDS);
+		assertThat(fastWait).isGreaterThan(100);
+		assertThat(slowWait).isLessThan(fastWait);
+
+		double stateAfterMerge = meterRegistry.get(GraphMetricsListener.STATE_SIZE)
+			.tag("node", "merge")
+			.summary()
+			.totalAmount();
+		assertThat(stateAfterMerge).isGreaterThanOrEqualTo("hello".length() + "fast_output".length());
+
+		assertThat(meterRegistry.get(GraphMetricsListener.RUN).tag("outcome", "success").timer().count())
+			.isEqualTo(1);
+	}
+
+	@Test
+	void keepsOverlappingRunsApart() throws Exception {
+		// Both runs are inside the slow branch at the same time
+		CyclicBarrier bothRunning = new CyclicBarrier(2);
+		CompiledGraph graph = graph(state -> {
+			bothRunning.await(5, TimeUnit.SECONDS);
+			return Map.of("slow_output", "slow_output");
+		});
+
+		// No thread id, as GraphController runs the graph
+		CompletableFuture<?> first = CompletableFuture
+			.runAsync(() -> graph.invoke(Map.of("input", "first"), RunnableConfig.builder().build()).orElseThrow());
+		CompletableFuture<?> second = CompletableFuture
+			.runAsync(() -> graph.invoke(Map.of("input", "second"), RunnableConfig.builder().build()).orElseThrow());
+		CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+
+		for (String node : List.of("start", "fast", "slow", "merge")) {
+			assertThat(nodeTimer(node).count()).as(node).isEqualTo(2);
+		}
+		assertThat(joinWait("fast").count()).isEqualTo(2);
+		assertThat(joinWait("slow").count()).isEqualTo(2);
+		assertThat(meterRegistry.get(GraphMetricsListener.RUN).tag("outcome", "success").timer().count())
+			.isEqualTo(2);
+	}
+
+	@Test
+	void recordsFailedRuns() throws Exception {
+		CompiledGraph graph = graph(state -> {
+			throw new IllegalStateException("slow failed");
+		});
+
+		assertThatThrownBy(() -> graph.invoke(Map.of("input", "hello"), config()).orElseThrow())
+			.hasStackTraceContaining("slow failed");
+
+		assertThat(meterRegistry.get(GraphMetricsListener.RUN).tag("outcome", "error").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void dropsAbandonedRunsWhenTheNextRunStarts() {
+		AtomicLong clock = new AtomicLong();
+		GraphMetricsListener expiring = new GraphMetricsListener("test", meterRegistry, observationRegistry,
+				Duration.ofMinutes(1), clock::get);
+
+		// A cancelled stream stops after the node started: neither onComplete nor onError follows
+		RunnableConfig abandoned = config();
+		expiring.onStart(START, Map.of(), abandoned);
+		expiring.before("start", Map.of(), abandoned, 0L);
+		assertThat(expiring.activeRuns()).isEqualTo(1);
+
+		clock.set(Duration.ofSeconds(30).toNanos());
+		expiring.onStart(START, Map.of(), config());
+		assertThat(expiring.activeRuns()).isEqualTo(2);
+
+		// Only the first run is older than a minute
+		clock.set(Duration.ofSeconds(70).toNanos());
+		RunnableConfig next = config();
+		expiring.onStart(START, Map.of(), next);
+		assertThat(expiring.activeRuns()).isEqualTo(2);
+		assertThat(nodeTimer("start").count()).isEqualTo(1);
+		Timer abandonedRuns = meterRegistry.get(GraphMetricsListener.RUN).tag("outcome", "abandoned").timer();
+		assertThat(abandonedRuns.count()).isEqualTo(1);
+		assertThat(abandonedRuns.totalTime(TimeUnit.SECONDS)).isEqualTo(70);
+
+		expiring.onComplete(END, Map.of(), next);
+		assertThat(expiring.activeRuns()).isEqualTo(1);
+	}
+
+	@Test
+	void estimatesStateSizeWithoutSerializing() {
+		Map<String, Object> state = Map.of("text", "abcd", "list", List.of("ab", "cd"), "count", 1);
+
+		assertThat(GraphMetricsListener.estimateSize(state, 0))
+			.isEqualTo("text".length() + 4 + "list".length() + 4 + "count".length() + 8);
+		assertThat(GraphMetricsListener.estimateSize(new Object(), 0)).isEqualTo(16);
+	}
+
+	private Timer nodeTimer(String node) {
+		return meterRegistry.get(GraphMetricsListener.NODE_EXECUTION).tag("node", node).timer();
+	}
+
+	private Timer joinWait(String node) {
+		return meterRegistry.get(GraphMetricsListener.JOIN_WAIT).tag("node", node).timer();
+	}
+
+	private CompiledGraph graph(NodeAction slow) throws Exception {
+		KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
+			.addPatternStrategy("input", new ReplaceStrategy())
+			.addPatternStrategy("start_output", new ReplaceStrategy())
+			.addPatternStrategy("fast_output", new ReplaceStrategy())
+			.addPatternStrategy("slow_output", new ReplaceStrategy())
+			.addPatternStrategy("merge_output", new ReplaceStrategy())
+			.build();
+
+		return new StateGraph(keyStrategyFactory).addNode("start", node_async(sleep("start_output", 0)))
+			.addNode("fast", node_async(sleep("fast_output", 0)))
+			.addNode("slow", node_async(slow))
+			.addNode("merge", node_async(sleep("merge_output", 0)))
+			.addEdge(START, "start")
+			.addEdge("start", "fast")
+			.addEdge("start", "slow")
+			.addEdge("fast", "merge")
+			.addEdge("slow", "merge")
+			.addEdge("merge", END)
+			.compile(listener.attach(CompileConfig.builder().build()));
+	}
+
+	private static NodeAction sleep(String outputKey, long millis) {
+		return state -> {
+			Thread.sleep(millis);
+			return Map.of(outputKey, outputKey);
+		};
+	}
+
+	private static RunnableConfig config() {
+		return RunnableConfig.builder().threadId(UUID.randomUUID().toString()).build();
+	}
+
+}
@@ -27,13 +27,17 @@ import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.alibaba.cloud.ai.graph.node.ExpanderNode;
 import com.alibaba.cloud.ai.graph.node.HumanFeedbackNode;
 import com.alibaba.cloud.ai.graph.node.TranslateNode;
+import com.alibaba.cloud.ai.graph.saver.LogCheckpointSaver;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -81,4 +85,18 @@ public class GraphHumanConfiguration {
 
         return stateGraph;
     }
+
+    /**
+     * 暂停等待人工反馈的工作流写入磁盘日志，服务重启后仍可 resume；内存中只保留索引和最近活跃 thread 的最新状态
+     */
+    @Bean(destroyMethod = "close")
+    public LogCheckpointSaver humanCheckpointSaver(@Qualifier("humanGraph") StateGraph humanGraph,
+                                                   @Value("${graph.checkpoint.directory:${java.io.tmpdir}/human-node/checkpoints}") String directory,
+                                                   @Value("${graph.checkpoint.fsync-policy:INTERVAL}") LogCheckpointSaver.FsyncPolicy fsyncPolicy) {
+        return LogCheckpointSaver.builder()
+                .directory(Path.of(directory))
+                .stateSerializer(humanGraph.getStateSerializer())
+                .fsyncPolicy(fsyncPolicy)
+                .build();
+    }
 }
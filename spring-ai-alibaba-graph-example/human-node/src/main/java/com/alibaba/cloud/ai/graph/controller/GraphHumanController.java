@@ -18,16 +18,15 @@ package com.alibaba.cloud.ai.graph.controller;
 
 import com.alibaba.cloud.ai.graph.CompileConfig;
 import com.alibaba.cloud.ai.graph.CompiledGraph;
-import com.alibaba.cloud.ai.graph.NodeOutput;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
 import com.alibaba.cloud.ai.graph.checkpoint.constant.SaverEnum;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
-import com.alibaba.cloud.ai.graph.controller.GraphProcess.GraphProcess;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.saver.LogCheckpointSaver;
+import com.alibaba.cloud.ai.graph.sse.GraphProcess;
 import com.alibaba.cloud.ai.graph.state.StateSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +39,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -58,14 +56,19 @@ public class GraphHumanController {
 
     private final CompiledGraph compiledGraph;
 
+    private final GraphProcess graphProcess;
+
     @Autowired
-    public GraphHumanController(@Qualifier("humanGraph") StateGraph stateGraph) throws GraphStateException {
-        SaverConfig saverConfig = SaverConfig.builder().register(new MemorySaver()).build();
+    public GraphHumanController(@Qualifier("humanGraph") StateGraph stateGraph,
+                                LogCheckpointSaver humanCheckpointSaver) throws GraphStateException {
+        SaverConfig saverConfig = SaverConfig.builder().register(humanCheckpointSaver).build();
         this.compiledGraph = stateGraph
-                .compile(CompileConfig.builder().saverConfig(saverConfig).interruptBefore("human_feedback").build());    }
+                .compile(CompileConfig.builder().saverConfig(saverConfig).interruptBefore("human_feedback").build());
+        this.graphProcess = new GraphProcess(this.compiledGraph);
+    }
 
     @GetMapping(value = "/expand", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<ServerSentEvent<GraphProcess.ChatMessage>> expand(@RequestParam(value = "query", defaultValue = "你好，很高兴认识你，能简单介绍一下自己吗？", required = false) String query,
+    public Flux<ServerSentEvent<String>> expand(@RequestParam(value = "query", defaultValue = "你好，很高兴认识你，能简单介绍一下自己吗？", required = false) String query,
                                                                   @RequestParam(value = "expander_number", defaultValue = "3", required = false) Integer expanderNumber,
                                                                   @RequestParam(value = "thread_id", defaultValue = "yingzi", required = false) String threadId) throws GraphRunnerException {
         RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
@@ -73,18 +76,11 @@ public class GraphHumanController {
         objectMap.put("query", query);
         objectMap.put("expander_number", expanderNumber);
 
-        GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
-        Sinks.Many<ServerSentEvent<GraphProcess.ChatMessage>> sink = Sinks.many().unicast().onBackpressureBuffer();
-        Flux<NodeOutput> nodeOutputFlux = compiledGraph.stream(objectMap, runnableConfig);
-        graphProcess.processStream(nodeOutputFlux, sink);
-
-        return sink.asFlux()
-                .doOnCancel(() -> logger.info("Client disconnected from stream"))
-                .doOnError(e -> logger.error("Error occurred during streaming", e));
+        return graphProcess.stream(objectMap, runnableConfig);
     }
 
     @GetMapping(value = "/resume", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<ServerSentEvent<GraphProcess.ChatMessage>> resume(@RequestParam(value = "thread_id", defaultValue = "yingzi", required = false) String threadId,
+    public Flux<ServerSentEvent<String>> resume(@RequestParam(value = "thread_id", defaultValue = "yingzi", required = false) String threadId,
                                       @RequestParam(value = "feed_back", defaultValue = "true", required = false) boolean feedBack) throws GraphRunnerException {
         RunnableConfig config = RunnableConfig.builder().threadId(threadId).build();
         Optional<StateSnapshot> stateSnapshot = this.compiledGraph.stateOf(config);
@@ -95,14 +91,7 @@ public class GraphHumanController {
                         "feed_back", feedBack
                 ), null);
                 // 从中断点继续执行工作流
-                GraphProcess graphProcess = new GraphProcess(this.compiledGraph);
-                Sinks.Many<ServerSentEvent<GraphProcess.ChatMessage>> sink = Sinks.many().unicast().onBackpressureBuffer();
-                Flux<NodeOutput> nodeOutputFlux = compiledGraph.stream(null, runnableConfig);
-                graphProcess.processStream(nodeOutputFlux, sink);
-
-                return sink.asFlux()
-                        .doOnCancel(() -> logger.info("Client disconnected from stream"))
-                        .doOnError(e -> logger.error("Error occurred during streaming", e));
+                return graphProcess.stream(null, runnableConfig);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -24,11 +24,16 @@ import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.alibaba.cloud.ai.graph.interruptable.node.FinalProcessNode;
 import com.alibaba.cloud.ai.graph.interruptable.node.OrderApprovalNode;
 import com.alibaba.cloud.ai.graph.interruptable.node.SensitiveOperationNode;
+import com.alibaba.cloud.ai.graph.saver.LogCheckpointSaver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+
 /**
  * @author Libres-coder
  * @since 2025/10/31
@@ -102,6 +107,38 @@ public class InterruptableGraphConfiguration {
         return graph;
     }
 
+    /**
+     * 订单审批工作流的 checkpoint 存储，等待审批的工作流写入磁盘日志，服务重启后仍可恢复
+     */
+    @Bean(destroyMethod = "close")
+    public LogCheckpointSaver orderApprovalCheckpointSaver(
+            @Qualifier("orderApprovalGraph") StateGraph orderApprovalGraph,
+            @Value("${graph.checkpoint.directory:${java.io.tmpdir}/interruptable-action-example/checkpoints}") String directory,
+            @Value("${graph.checkpoint.fsync-policy:INTERVAL}") LogCheckpointSaver.FsyncPolicy fsyncPolicy) {
+        return checkpointSaver(orderApprovalGraph, Path.of(directory, "order-approval"), fsyncPolicy);
+    }
+
+    /**
+     * 敏感操作工作流的 checkpoint 存储。两个工作流的状态 key 不同，各自使用自己的序列化器和目录，
+     * 相同的 thread id 也不会读到另一个工作流的 checkpoint
+     */
+    @Bean(destroyMethod = "close")
+    public LogCheckpointSaver sensitiveOperationCheckpointSaver(
+            @Qualifier("sensitiveOperationGraph") StateGraph sensitiveOperationGraph,
+            @Value("${graph.checkpoint.directory:${java.io.tmpdir}/interruptable-action-example/checkpoints}") String directory,
+            @Value("${graph.checkpoint.fsync-policy:INTERVAL}") LogCheckpointSaver.FsyncPolicy fsyncPolicy) {
+        return checkpointSaver(sensitiveOperationGraph, Path.of(directory, "sensitive-operation"), fsyncPolicy);
+    }
+
+    private static LogCheckpointSaver checkpointSaver(StateGraph graph, Path directory,
+            LogCheckpointSaver.FsyncPolicy fsyncPolicy) {
+        return LogCheckpointSaver.builder()
+            .directory(directory)
+            .stateSerializer(graph.getStateSerializer())
+            .fsyncPolicy(fsyncPolicy)
+            .build();
+    }
+
     private void printGraphRepresentation(StateGraph graph, String graphName) {
         try {
             GraphRepresentation representation = graph.getGraph(
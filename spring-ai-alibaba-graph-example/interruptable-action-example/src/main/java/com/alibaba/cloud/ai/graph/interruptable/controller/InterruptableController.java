@@ -17,15 +17,14 @@ package com.alibaba.cloud.ai.graph.interruptable.controller;
 
 import com.alibaba.cloud.ai.graph.CompileConfig;
 import com.alibaba.cloud.ai.graph.CompiledGraph;
-import com.alibaba.cloud.ai.graph.NodeOutput;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
-import com.alibaba.cloud.ai.graph.action.InterruptionMetadata;
 import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
-import com.alibaba.cloud.ai.graph.checkpoint.savers.MemorySaver;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.saver.LogCheckpointSaver;
+import com.alibaba.cloud.ai.graph.sse.GraphProcess;
 import com.alibaba.cloud.ai.graph.state.StateSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,11 +33,9 @@ import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * @author Libres-coder
@@ -55,25 +52,23 @@ public class InterruptableController {
 
     public InterruptableController(
             @Qualifier("orderApprovalGraph") StateGraph orderApprovalGraph,
-            @Qualifier("sensitiveOperationGraph") StateGraph sensitiveOperationGraph) 
+            @Qualifier("sensitiveOperationGraph") StateGraph sensitiveOperationGraph,
+            @Qualifier("orderApprovalCheckpointSaver") LogCheckpointSaver orderApprovalCheckpointSaver,
+            @Qualifier("sensitiveOperationCheckpointSaver") LogCheckpointSaver sensitiveOperationCheckpointSaver)
             throws GraphStateException {
-        
-        SaverConfig saverConfig = SaverConfig.builder()
-            .register(new MemorySaver())
-            .build();
 
         this.orderApprovalCompiledGraph = orderApprovalGraph.compile(
             CompileConfig.builder()
-                .saverConfig(saverConfig)
+                .saverConfig(SaverConfig.builder().register(orderApprovalCheckpointSaver).build())
                 .build()
         );
 
         this.sensitiveOperationCompiledGraph = sensitiveOperationGraph.compile(
             CompileConfig.builder()
-                .saverConfig(saverConfig)
+                .saverConfig(SaverConfig.builder().register(sensitiveOperationCheckpointSaver).build())
                 .build()
         );
-        
+
         logger.info("InterruptableController initialized");
     }
 
@@ -94,15 +89,7 @@ public class InterruptableController {
             .threadId(threadId)
             .build();
 
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
-
-        Flux<NodeOutput> nodeOutputFlux = orderApprovalCompiledGraph.stream(initialState, config);
-        
-        processStream(nodeOutputFlux, sink, "Order Processing");
-
-        return sink.asFlux()
-            .doOnCancel(() -> logger.info("Client disconnected"))
-            .doOnError(e -> logger.error("Error during streaming", e));
+        return stream(orderApprovalCompiledGraph, initialState, config, "Order Processing");
     }
 
     @PostMapping(value = "/order/resume", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -135,15 +122,7 @@ public class InterruptableController {
             .addMetadata(RunnableConfig.STATE_UPDATE_METADATA_KEY, stateUpdate)
             .build();
 
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
-
-        Flux<NodeOutput> nodeOutputFlux = orderApprovalCompiledGraph.stream(null, resumeConfig);
-        
-        processStream(nodeOutputFlux, sink, "Order Resume");
-
-        return sink.asFlux()
-            .doOnCancel(() -> logger.info("Client disconnected"))
-            .doOnError(e -> logger.error("Error during streaming", e));
+        return stream(orderApprovalCompiledGraph, null, resumeConfig, "Order Resume");
     }
 
     @PostMapping(value = "/operation/execute", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -174,15 +153,7 @@ public class InterruptableController {
             .threadId(threadId)
             .build();
 
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
-
-        Flux<NodeOutput> nodeOutputFlux = sensitiveOperationCompiledGraph.stream(initialState, config);
-        
-        processStream(nodeOutputFlux, sink, "Operation Execution");
-
-        return sink.asFlux()
-            .doOnCancel(() -> logger.info("Client disconnected"))
-            .doOnError(e -> logger.error("Error during streaming", e));
+        return stream(sensitiveOperationCompiledGraph, initialState, config, "Operation Execution");
     }
 
     @PostMapping(value = "/operation/confirm", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
@@ -211,86 +182,14 @@ public class InterruptableController {
             .addMetadata(RunnableConfig.HUMAN_FEEDBACK_METADATA_KEY, feedback)
             .build();
 
-        Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().unicast().onBackpressureBuffer();
-
-        Flux<NodeOutput> nodeOutputFlux = sensitiveOperationCompiledGraph.stream(null, resumeConfig);
-        
-        processStream(nodeOutputFlux, sink, "Operation Confirmation");
-
-        return sink.asFlux()
-            .doOnCancel(() -> logger.info("Client disconnected"))
-            .doOnError(e -> logger.error("Error during streaming", e));
-    }
-
-    private void processStream(
-            Flux<NodeOutput> nodeOutputFlux, 
-            Sinks.Many<ServerSentEvent<String>> sink,
-            String workflowName) {
-        
-        nodeOutputFlux.subscribe(
-            output -> {
-                try {
-                    logger.info("Workflow [{}] output from node: {}", workflowName, output.node());
-                    
-                    String data;
-                    if (output instanceof InterruptionMetadata) {
-                        InterruptionMetadata metadata = (InterruptionMetadata) output;
-                        data = formatInterruptionMetadata(metadata);
-                        logger.info("Workflow [{}] interrupted, waiting for human action", workflowName);
-                    } else {
-                        data = formatNodeOutput(output);
-                    }
-                    
-                    sink.tryEmitNext(ServerSentEvent.<String>builder().data(data).build());
-                    
-                } catch (Exception e) {
-                    logger.error("Error processing output", e);
-                    sink.tryEmitError(e);
-                }
-            },
-            error -> {
-                logger.error("Workflow [{}] error", workflowName, error);
-                sink.tryEmitError(error);
-            },
-            () -> {
-                logger.info("Workflow [{}] completed", workflowName);
-                sink.tryEmitComplete();
-            }
-        );
-    }
-
-    private String formatInterruptionMetadata(InterruptionMetadata metadata) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n");
-        sb.append("  \"type\": \"interruption\",\n");
-        sb.append("  \"node\": \"").append(metadata.node()).append("\",\n");
-        
-        Optional<Map<String, Object>> metaOpt = metadata.metadata();
-        if (metaOpt.isPresent()) {
-            Map<String, Object> meta = metaOpt.get();
-            sb.append("  \"metadata\": {\n");
-            meta.forEach((key, value) -> {
-                sb.append("    \"").append(key).append("\": \"").append(value).append("\",\n");
-            });
-            if (!meta.isEmpty()) {
-                sb.setLength(sb.length() - 2);
-                sb.append("\n");
-            }
-            sb.append("  },\n");
-        }
-        
-        sb.append("  \"message\": \"工作流已中断，请处理后继续\"\n");
-        sb.append("}");
-        return sb.toString();
+        return stream(sensitiveOperationCompiledGraph, null, resumeConfig, "Operation Confirmation");
     }
 
-    private String formatNodeOutput(NodeOutput output) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n");
-        sb.append("  \"type\": \"node_output\",\n");
-        sb.append("  \"node\": \"").append(output.node()).append("\",\n");
-        sb.append("  \"state\": ").append(output.state().data()).append("\n");
-        sb.append("}");
-        return sb.toString();
+    private static Flux<ServerSentEvent<String>> stream(CompiledGraph graph, Map<String, Object> inputs,
+                                                        RunnableConfig config, String workflowName) {
+        return new GraphProcess(graph, GraphProcess.DEFAULT_MAX_BUFFERED_EVENTS,
+                new InterruptableEvents(workflowName))
+                .stream(inputs, config)
+                .doOnComplete(() -> logger.info("Workflow [{}] completed", workflowName));
     }
 }
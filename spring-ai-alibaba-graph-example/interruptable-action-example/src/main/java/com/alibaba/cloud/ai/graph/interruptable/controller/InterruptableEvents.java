@@ -0,0 +1,71 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.graph.interruptable.controller;
+
+import com.alibaba.cloud.ai.graph.NodeOutput;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.InterruptionMetadata;
+import com.alibaba.cloud.ai.graph.sse.NodeOutputMapper;
+import com.alibaba.cloud.ai.graph.sse.StateDelta;
+import com.alibaba.cloud.ai.graph.streaming.StreamingOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 可中断工作流的 SSE 事件格式：interruption、chunk 和 node_output（只包含变化的 state key）
+ */
+class InterruptableEvents implements NodeOutputMapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(InterruptableEvents.class);
+
+    private final String workflowName;
+
+    InterruptableEvents(String workflowName) {
+        this.workflowName = workflowName;
+    }
+
+    @Override
+    public Map<String, Object> map(NodeOutput output, StateDelta delta) {
+        logger.info("Workflow [{}] output from node: {}", workflowName, output.node());
+        Map<String, Object> event = new LinkedHashMap<>();
+        if (output instanceof InterruptionMetadata metadata) {
+            logger.info("Workflow [{}] interrupted, waiting for human action", workflowName);
+            event.put("type", "interruption");
+            event.put("node", metadata.node());
+            metadata.metadata().ifPresent(meta -> event.put("metadata", meta));
+            event.put("message", "工作流已中断，请处理后继续");
+            return event;
+        }
+        if (output instanceof StreamingOutput<?> streamingOutput) {
+            String chunk = streamingOutput.chunk();
+            if (chunk == null || chunk.isEmpty()) {
+                return null;
+            }
+            event.put("type", "chunk");
+            event.put("node", output.node());
+            event.put("chunk", chunk);
+            return event;
+        }
+        OverAllState state = output.state();
+        event.put("type", "node_output");
+        event.put("node", output.node());
+        event.put("state", delta.diff(state == null ? Map.of() : state.data()));
+        return event;
+    }
+}
@@ -22,13 +22,18 @@ import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.streaming.StreamingOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -57,7 +62,30 @@ public class McpController {
         Map<String, Object> objectMap = new HashMap<>();
         objectMap.put("query", query);
         Optional<OverAllState> invoke = this.compiledGraph.invoke(objectMap, runnableConfig);
-        return invoke.map(OverAllState::data).orElse(new HashMap<>());
+        Map<String, Object> result = invoke.map(state -> new HashMap<>(state.data())).orElse(new HashMap<>());
+        // mcp_content 在 state 中是流式聚合后的 AssistantMessage，这里仍然返回文本
+        if (result.get("mcp_content") instanceof AssistantMessage assistantMessage) {
+            result.put("mcp_content", assistantMessage.getText());
+        }
+        return result;
+    }
+
+    /**
+     * 以 SSE 逐块返回 mcp_content，模型每输出一块就发送一次
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> stream(@RequestParam(value = "query", defaultValue = "北京时间现在几点钟", required = false) String query,
+                                                @RequestParam(value = "thread_id", defaultValue = "yingzi", required = false) String threadId) {
+        RunnableConfig runnableConfig = RunnableConfig.builder().threadId(threadId).build();
+        Map<String, Object> objectMap = new HashMap<>();
+        objectMap.put("query", query);
+        return Flux.defer(() -> this.compiledGraph.stream(objectMap, runnableConfig))
+                .ofType(StreamingOutput.class)
+                .map(StreamingOutput::chunk)
+                .filter(chunk -> chunk != null && !chunk.isEmpty())
+                .map(chunk -> ServerSentEvent.builder(chunk).event("mcp_content").build())
+                .doOnCancel(() -> logger.info("Client disconnected from stream"))
+                .doOnError(e -> logger.error("Error occurred during streaming", e));
     }
 
 }
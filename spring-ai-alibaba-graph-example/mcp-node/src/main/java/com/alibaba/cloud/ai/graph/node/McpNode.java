@@ -22,10 +22,10 @@ import com.alibaba.cloud.ai.graph.tool.McpClientToolCallbackProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.tool.ToolCallback;
 import reactor.core.publisher.Flux;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -54,15 +54,14 @@ public class McpNode implements NodeAction {
     }
 
 
+    /**
+     * 直接返回模型的流，不在节点线程上等待。graph 订阅后把每个分块作为 StreamingOutput 输出，
+     * 结束时把完整的回答写回 mcp_content。
+     */
     @Override
     public Map<String, Object> apply(OverAllState state) {
         String query = state.value("query", "");
-        Flux<String> streamResult = chatClient.prompt(query).stream().content();
-        String result = streamResult.reduce("", (acc, item) -> acc + item).block();
-
-        HashMap<String, Object> resultMap = new HashMap<>();
-        resultMap.put("mcp_content", result);
-
-        return resultMap;
+        Flux<ChatResponse> chatResponseFlux = chatClient.prompt(query).stream().chatResponse();
+        return Map.of("mcp_content", chatResponseFlux);
     }
 }
@@ -21,13 +21,17 @@ import org.springframework.ai.mcp.McpToolUtils;
 import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpClientCommonProperties;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
-import org.springframework.ai.tool.definition.ToolDefinition;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author yingzi
@@ -42,6 +46,10 @@ public class McpClientToolCallbackProvider {
 
     private final McpNodeProperties mcpNodeProperties;
 
+    private final Map<String, Set<ToolCallback>> nodeToolCallbacks = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Set<ToolCallback>> serverToolCallbacks;
+
     public McpClientToolCallbackProvider(ToolCallbackProvider toolCallbackProvider,
                                          McpClientCommonProperties commonProperties, McpNodeProperties mcpNodeProperties) {
         this.toolCallbackProvider = toolCallbackProvider;
@@ -49,33 +57,78 @@ public class McpClientToolCallbackProvider {
         this.mcpNodeProperties = mcpNodeProperties;
     }
 
+    /**
+     * 返回分配给该节点的 MCP server 的所有 ToolCallback，每个节点只计算一次
+     */
     public Set<ToolCallback> findToolCallbacks(String nodeName) {
-        Set<ToolCallback> defineCallback = new HashSet<>();
-        Set<String> mcpClients = mcpNodeProperties.getNode2servers().get(nodeName);
+        Set<String> mcpClients = node2servers().get(nodeName);
         if (mcpClients == null || mcpClients.isEmpty()) {
-            return defineCallback;
+            return Set.of();
         }
 
-        List<String> exceptMcpClientNames = new ArrayList<>();
-        for (String mcpClient : mcpClients) {
-            // my-mcp-client
-            String name = commonProperties.getName();
-            // my_mcp_client_server1
-            String prefixedMcpClientName = McpToolUtils.prefixedToolName(name, mcpClient);
-            exceptMcpClientNames.add(prefixedMcpClientName);
+        return nodeToolCallbacks.computeIfAbsent(nodeName, name -> {
+            Map<String, Set<ToolCallback>> byServer = serverToolCallbacks();
+            Set<ToolCallback> defineCallback = new LinkedHashSet<>();
+            for (String mcpClient : mcpClients) {
+                defineCallback.addAll(byServer.getOrDefault(mcpClient, Set.of()));
+            }
+            return Collections.unmodifiableSet(defineCallback);
+        });
+    }
+
+    /**
+     * 按工具名前缀把所有 ToolCallback 归到配置的 MCP server 下。前缀按长度建索引，
+     * 每个工具只需要按几个前缀长度各查一次 map，不再对每个工具扫描所有前缀。
+     */
+    private Map<String, Set<ToolCallback>> serverToolCallbacks() {
+        Map<String, Set<ToolCallback>> byServer = serverToolCallbacks;
+        if (byServer != null) {
+            return byServer;
         }
 
-        ToolCallback[] toolCallbacks = toolCallbackProvider.getToolCallbacks();
-        for (ToolCallback toolCallback : toolCallbacks) {
-            ToolDefinition toolDefinition = toolCallback.getToolDefinition();
-            // my_mcp_client_server1_getCityTimeMethod
-            String name = toolDefinition.name();
-            for (String exceptMcpClientName : exceptMcpClientNames) {
-                if (name.startsWith(exceptMcpClientName)) {
-                    defineCallback.add(toolCallback);
+        synchronized (this) {
+            if (serverToolCallbacks != null) {
+                return serverToolCallbacks;
+            }
+
+            // my-mcp-client
+            String clientName = commonProperties.getName();
+            Map<String, Set<String>> serversByPrefix = new HashMap<>();
+            for (Set<String> servers : node2servers().values()) {
+                for (String server : servers) {
+                    // my_mcp_client_server1
+                    String prefix = McpToolUtils.prefixedToolName(clientName, server);
+                    serversByPrefix.computeIfAbsent(prefix, key -> new HashSet<>()).add(server);
+                }
+            }
+            SortedSet<Integer> prefixLengths = new TreeSet<>();
+            serversByPrefix.keySet().forEach(prefix -> prefixLengths.add(prefix.length()));
+
+            byServer = new HashMap<>();
+            for (ToolCallback toolCallback : toolCallbackProvider.getToolCallbacks()) {
+                // my_mcp_client_server1_getCityTimeMethod
+                String name = toolCallback.getToolDefinition().name();
+                for (int length : prefixLengths) {
+                    if (length > name.length()) {
+                        break;
+                    }
+                    Set<String> servers = serversByPrefix.get(name.substring(0, length));
+                    if (servers == null) {
+                        continue;
+                    }
+                    for (String server : servers) {
+                        byServer.computeIfAbsent(server, key -> new LinkedHashSet<>()).add(toolCallback);
+                    }
                 }
             }
+
+            serverToolCallbacks = byServer;
+            return byServer;
         }
-        return defineCallback;
+    }
+
+    private Map<String, Set<String>> node2servers() {
+        Map<String, Set<String>> node2servers = mcpNodeProperties.getNode2servers();
+        return node2servers == null ? Map.of() : node2servers;
     }
 }
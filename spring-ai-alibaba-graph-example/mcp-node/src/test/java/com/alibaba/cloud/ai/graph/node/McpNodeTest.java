@@ -0,0 +1,214 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
+import com.alibaba.cloud.ai.graph.NodeOutput;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.config.McpNodeProperties;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.alibaba.cloud.ai.graph.streaming.StreamingOutput;
+import com.alibaba.cloud.ai.graph.tool.McpClientToolCallbackProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpClientCommonProperties;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class McpNodeTest {
+
+    private static final String CLIENT_NAME = "my-mcp-client";
+
+    @Test
+    void streamsChunksWithoutBlockingNodeThread() throws Exception {
+        Sinks.Many<ChatResponse> llm = Sinks.many().unicast().onBackpressureBuffer();
+        McpNode mcpNode = new McpNode(ChatClient.builder(new StreamingChatModel(llm.asFlux())), provider(Map.of()));
+
+        // apply 不等待模型输出，直接返回流
+        Map<String, Object> result = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> mcpNode.apply(new OverAllState(Map.of("query", "hello"))));
+        assertThat(result.get("mcp_content")).isInstanceOf(Flux.class);
+
+        Sinks.Many<ChatResponse> graphLlm = Sinks.many().unicast().onBackpressureBuffer();
+        CompiledGraph graph = graph(new McpNode(ChatClient.builder(new StreamingChatModel(graphLlm.asFlux())),
+                provider(Map.of())));
+        BlockingQueue<NodeOutput> outputs = new LinkedBlockingQueue<>();
+        Disposable run = graph.stream(Map.of("query", "hello"), config()).subscribe(outputs::add);
+
+        try {
+            // 每个分块在模型给出下一块之前就已经送达
+            graphLlm.tryEmitNext(chunk("He"));
+            assertThat(nextChunk(outputs)).isEqualTo("He");
+            assertThat(blockedThreads()).isEmpty();
+
+            graphLlm.tryEmitNext(chunk("llo"));
+            assertThat(nextChunk(outputs)).isEqualTo("llo");
+            graphLlm.tryEmitComplete();
+
+            // 流结束后 mcp_content 为完整的回答
+            NodeOutput last = null;
+            for (NodeOutput output = outputs.poll(5, TimeUnit.SECONDS); output != null;
+                    output = outputs.poll(1, TimeUnit.SECONDS)) {
+                last = output;
+            }
+            assertThat(last).isNotNull();
+            assertThat(last.state().value("mcp_content")).get()
+                    .isInstanceOfSatisfying(AssistantMessage.class,
+                            message -> assertThat(message.getText()).isEqualTo("Hello"));
+        }
+        finally {
+            run.dispose();
+        }
+    }
+
+    @Test
+    void resolvesToolsByServerPrefixOncePerNode() {
+        ToolCallback time = tool(McpToolUtils.prefixedToolName(CLIENT_NAME, "server1") + "_getCityTime");
+        ToolCallback weather = tool(McpToolUtils.prefixedToolName(CLIENT_NAME, "server2") + "_getWeather");
+        ToolCallback other = tool(McpToolUtils.prefixedToolName(CLIENT_NAME, "server3") + "_other");
+        AtomicInteger scans = new AtomicInteger();
+        ToolCallbackProvider toolCallbackProvider = () -> {
+            scans.incrementAndGet();
+            return new ToolCallback[] { time, weather, other };
+        };
+        McpClientToolCallbackProvider provider = provider(toolCallbackProvider,
+                Map.of("mcp-node", Set.of("server1", "server2"), "time-node", Set.of("server1")));
+
+        Set<ToolCallback> mcpNodeTools = provider.findToolCallbacks("mcp-node");
+        assertThat(mcpNodeTools).containsExactlyInAnyOrder(time, weather);
+        assertThat(provider.findToolCallbacks("time-node")).containsExactly(time);
+        assertThat(provider.findToolCallbacks("unknown")).isEmpty();
+
+        // 工具列表只扫描一次，同一个节点返回缓存的结果
+        assertThat(provider.findToolCallbacks("mcp-node")).isSameAs(mcpNodeTools);
+        assertThat(scans).hasValue(1);
+    }
+
+    private static CompiledGraph graph(McpNode mcpNode) throws Exception {
+        KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
+                .addPatternStrategy("query", new ReplaceStrategy())
+                .addPatternStrategy("mcp_content", new ReplaceStrategy())
+                .build();
+        return new StateGraph(keyStrategyFactory)
+                .addNode("mcp", node_async(mcpNode))
+                .addEdge(StateGraph.START, "mcp")
+                .addEdge("mcp", StateGraph.END)
+                .compile();
+    }
+
+    private static String nextChunk(BlockingQueue<NodeOutput> outputs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            NodeOutput output = outputs.poll(100, TimeUnit.MILLISECONDS);
+            if (output instanceof StreamingOutput<?> streamingOutput) {
+                return streamingOutput.chunk();
+            }
+        }
+        throw new AssertionError("no chunk received");
+    }
+
+    /**
+     * 正在 McpNode 中等待或在 Reactor 的 block() 中等待的线程
+     */
+    private static List<String> blockedThreads() {
+        return Thread.getAllStackTraces().entrySet().stream()
+                .filter(entry -> Arrays.stream(entry.getValue())
+                        .anyMatch(frame -> frame.getClassName().equals(McpNode.class.getName())
+                                || frame.getClassName().startsWith("reactor.core.publisher.BlockingSingleSubscriber")))
+                .map(entry -> entry.getKey().getName())
+                .toList();
+    }
+
+    private static McpClientToolCallbackProvider provider(Map<String, Set<String>> node2servers) {
+        return provider(() -> new ToolCallback[0], node2servers);
+    }
+
+    private static McpClientToolCallbackProvider provider(ToolCallbackProvider toolCallbackProvider,
+                                                          Map<String, Set<String>> node2servers) {
+        McpClientCommonProperties commonProperties = new McpClientCommonProperties();
+        commonProperties.setName(CLIENT_NAME);
+        McpNodeProperties mcpNodeProperties = new McpNodeProperties();
+        mcpNodeProperties.setNode2servers(node2servers);
+        return new McpClientToolCallbackProvider(toolCallbackProvider, commonProperties, mcpNodeProperties);
+    }
+
+    private static ToolCallback tool(String name) {
+        ToolDefinition toolDefinition = ToolDefinition.builder().name(name).description(name).inputSchema("{}").build();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return toolDefinition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                return name;
+            }
+        };
+    }
+
+    private static RunnableConfig config() {
+        return RunnableConfig.builder().threadId(UUID.randomUUID().toString()).build();
+    }
+
+    private static ChatResponse chunk(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private record StreamingChatModel(Flux<ChatResponse> responses) implements ChatModel {
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            throw new UnsupportedOperationException("McpNode should only stream");
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return responses;
+        }
+    }
+
+}
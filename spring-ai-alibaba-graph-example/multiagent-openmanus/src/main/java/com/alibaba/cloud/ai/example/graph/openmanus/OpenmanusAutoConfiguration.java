@@ -50,7 +50,7 @@ public class OpenmanusAutoConfiguration {
 	@ConditionalOnMissingBean
 	@Description(PlanningTool.description)
 	public PlanningTool planningToolFunction() {
-		return new PlanningTool();
+		return PlanningTool.INSTANCE;
 	}
 
 	@Bean(name = "pythonExecuteFunction")
@@ -17,9 +17,12 @@
 package com.alibaba.cloud.ai.example.graph.openmanus;
 
 import java.util.Map;
+import java.util.UUID;
 
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.BrowserUseTool;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.Builder;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanningTool;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.SessionContext;
 import com.alibaba.cloud.ai.graph.*;
 import com.alibaba.cloud.ai.graph.agent.ReactAgent;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
@@ -32,6 +35,7 @@ import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import static com.alibaba.cloud.ai.example.graph.openmanus.OpenManusPrompt.PLANNING_SYSTEM_PROMPT;
@@ -85,6 +89,7 @@ public class OpenmanusController {
 			state.registerKeyAndStrategy("step_prompt", new ReplaceStrategy());
 			state.registerKeyAndStrategy("step_output", new ReplaceStrategy());
 			state.registerKeyAndStrategy("final_output", new ReplaceStrategy());
+			state.registerKeyAndStrategy(SessionContext.SESSION_ID, new ReplaceStrategy());
 
 			return state;
 		};
@@ -97,9 +102,11 @@ public class OpenmanusController {
 		stepAgent.getAndCompileGraph();
 
 		StateGraph graph = new StateGraph(stateFactory)
-			.addNode("planning_agent", planningAgent.asAsyncNodeAction("input", "plan"))
+			.addNode("planning_agent",
+					node_async(SessionContext.scoped(planningAgent.asNodeAction("input", "plan"))))
 			.addNode("supervisor_agent", node_async(supervisorAgent))
-			.addNode("step_executing_agent", stepAgent.asAsyncNodeAction("step_prompt", "step_output"))
+			.addNode("step_executing_agent",
+					node_async(SessionContext.scoped(stepAgent.asNodeAction("step_prompt", "step_output"))))
 
 			.addEdge(START, "planning_agent")
 			.addEdge("planning_agent", "supervisor_agent")
@@ -116,12 +123,22 @@ public class OpenmanusController {
 	}
 
 	/**
-	 * ChatClient 简单调用
+	 * ChatClient 简单调用，不同 sessionId 的计划互相隔离
 	 */
 	@GetMapping("/chat")
-	public String simpleChat(String query) throws GraphRunnerException {
-
-		return compiledGraph.invoke(Map.of("input", query)).get().data().toString();
+	public String simpleChat(String query, @RequestParam(required = false) String sessionId)
+			throws GraphRunnerException {
+
+		String session = sessionId != null ? sessionId : UUID.randomUUID().toString();
+		try {
+			return compiledGraph.invoke(Map.of("input", query, SessionContext.SESSION_ID, session))
+				.get()
+				.data()
+				.toString();
+		}
+		finally {
+			BrowserUseTool.INSTANCE.endSession(session);
+		}
 	}
 
 }
@@ -20,6 +20,7 @@ import java.util.Optional;
 
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.Plan;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanningTool;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.SessionContext;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
 import com.alibaba.fastjson.JSON;
@@ -37,7 +38,8 @@ public class SupervisorAgent implements NodeAction {
 
 		String planStr = (String) t.value("plan").orElseThrow();
 		Plan tempPlan = parsePlan(planStr);
-		Plan plan = planningTool.getGraphPlan(tempPlan.getPlan_id());
+		String sessionId = SessionContext.sessionId(t);
+		Plan plan = planningTool.getGraphPlan(sessionId, tempPlan.getPlan_id());
 
 		Optional<Object> optionalOutput = t.value("step_output");
 
@@ -53,6 +55,7 @@ public class SupervisorAgent implements NodeAction {
 		}
 		else {
 			promptForNextStep = "Plan completed.";
+			planningTool.completePlan(sessionId, plan.getPlan_id());
 		}
 
 		return Map.of("step_prompt", promptForNextStep);
@@ -20,7 +20,9 @@ import java.util.Map;
 import java.util.Optional;
 
 import com.alibaba.cloud.ai.example.graph.openmanus.SupervisorAgent;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.BrowserUseTool;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanningTool;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.SessionContext;
 import com.alibaba.cloud.ai.graph.*;
 import com.alibaba.cloud.ai.graph.agent.ReactAgent;
 import com.alibaba.cloud.ai.graph.exception.GraphRunnerException;
@@ -47,6 +49,11 @@ import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
 @RequestMapping("/manus/human")
 public class OpenmanusHumanController {
 
+	/**
+	 * 人工审批流程所在的 thread，同时作为浏览器会话 ID
+	 */
+	private static final String THREAD_ID = "1";
+
 	String planningPrompt = "Your are a task planner, please analyze the task and plan the steps.";
 
 	String stepPrompt = "Tools available: xxx";
@@ -60,7 +67,7 @@ public class OpenmanusHumanController {
 
 	private CompiledGraph compiledGraph;
 
-	private PlanningTool planningTool = new PlanningTool();
+	private PlanningTool planningTool = PlanningTool.INSTANCE;
 
 	// 也可以使用如下的方式注入 ChatClient
 	public OpenmanusHumanController(ChatModel chatModel) {
@@ -85,6 +92,7 @@ public class OpenmanusHumanController {
 			state.registerKeyAndStrategy("step_prompt", (o1, o2) -> o2);
 			state.registerKeyAndStrategy("step_output", (o1, o2) -> o2);
 			state.registerKeyAndStrategy("final_output", (o1, o2) -> o2);
+			state.registerKeyAndStrategy(SessionContext.SESSION_ID, (o1, o2) -> o2);
 
 			return state;
 		};
@@ -97,10 +105,12 @@ public class OpenmanusHumanController {
 		HumanNode humanNode = new HumanNode();
 
 		StateGraph graph2 = new StateGraph(stateFactory)
-			.addNode("planning_agent", planningAgent.asAsyncNodeAction("input", "plan"))
+			.addNode("planning_agent",
+					node_async(SessionContext.scoped(planningAgent.asNodeAction("input", "plan"))))
 			.addNode("human", node_async(humanNode))
 			.addNode("supervisor_agent", node_async(supervisorAgent))
-			.addNode("step_executing_agent", stepAgent.asAsyncNodeAction("step_prompt", "step_output"))
+			.addNode("step_executing_agent",
+					node_async(SessionContext.scoped(stepAgent.asNodeAction("step_prompt", "step_output"))))
 
 			.addEdge(START, "planning_agent")
 			.addEdge("planning_agent", "human")
@@ -118,12 +128,16 @@ public class OpenmanusHumanController {
 		System.out.println("\n\n");
 	}
 
+	/**
+	 * 开始新的流程，上一次没有走完的流程视为放弃，先释放其浏览器会话
+	 */
 	@GetMapping("/chat")
 	public String simpleChat(String query) throws GraphRunnerException {
-		RunnableConfig runnableConfig = RunnableConfig.builder().threadId("1").build();
-		Optional<OverAllState> result = compiledGraph.invoke(Map.of("input", query), runnableConfig);
+		BrowserUseTool.INSTANCE.endSession(THREAD_ID);
+		RunnableConfig runnableConfig = RunnableConfig.builder().threadId(THREAD_ID).build();
+		Map<String, Object> inputs = Map.of("input", query, SessionContext.SESSION_ID, THREAD_ID);
 		// send back to user and wait for plan approval
-		return result.get().data().toString();
+		return run(() -> compiledGraph.invoke(inputs, runnableConfig), false);
 	}
 
 	@GetMapping("/resume")
@@ -131,34 +145,56 @@ public class OpenmanusHumanController {
 		Map<String, Object> data = Map.of("input", "请帮我查询最近的新闻");
 		String nextNode = "planning_agent";
 
-		RunnableConfig runnableConfig = RunnableConfig.builder().threadId("1").build();
+		RunnableConfig runnableConfig = RunnableConfig.builder().threadId(THREAD_ID).build();
 
 		StateSnapshot stateSnapshot = compiledGraph.getState(runnableConfig);
 		OverAllState state = stateSnapshot.state();
 		state.withResume();
 		state.withHumanFeedback(new OverAllState.HumanFeedback(data, nextNode));
 
-		Optional<OverAllState> result = compiledGraph.invoke(state, runnableConfig);
-		// send back to user and wait for plan approval
-
-		return result.get().data().toString();
+		// 重新规划后回到 human 节点，send back to user and wait for plan approval
+		return run(() -> compiledGraph.invoke(state, runnableConfig), false);
 	}
 
+	/**
+	 * 审批通过后由 supervisor 执行完全部步骤，之后不再经过 human 节点，流程结束
+	 */
 	@GetMapping("/resume-to-next-step")
 	public String resumeToNextStep() throws GraphRunnerException {
 		String nextNode = "supervisor_agent";
 
-		RunnableConfig runnableConfig = RunnableConfig.builder().threadId("1").build();
+		RunnableConfig runnableConfig = RunnableConfig.builder().threadId(THREAD_ID).build();
 
 		StateSnapshot stateSnapshot = compiledGraph.getState(runnableConfig);
 		OverAllState state = stateSnapshot.state();
 		state.withResume();
 		state.withHumanFeedback(new OverAllState.HumanFeedback(Map.of(), nextNode));
 
-		Optional<OverAllState> result = compiledGraph.invoke(state, runnableConfig);
-		// send back to user and wait for plan approval
+		return run(() -> compiledGraph.invoke(state, runnableConfig), true);
+	}
+
+	/**
+	 * 执行一段流程；流程走完或执行失败时释放浏览器会话，停在 human 节点等待审批时保留
+	 */
+	private String run(GraphCall call, boolean finishes) throws GraphRunnerException {
+		boolean waitingForHuman = false;
+		try {
+			Optional<OverAllState> result = call.invoke();
+			waitingForHuman = !finishes;
+			return result.get().data().toString();
+		}
+		finally {
+			if (!waitingForHuman) {
+				BrowserUseTool.INSTANCE.endSession(THREAD_ID);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface GraphCall {
+
+		Optional<OverAllState> invoke() throws GraphRunnerException;
 
-		return result.get().data().toString();
 	}
 
 }
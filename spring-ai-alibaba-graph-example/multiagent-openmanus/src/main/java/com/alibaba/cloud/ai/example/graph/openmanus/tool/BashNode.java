@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.ProcessExecutor;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.llmbash.BashProcess;
+import com.alibaba.cloud.ai.graph.NodeOutput;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.async.FlowGenerator;
+import com.alibaba.cloud.ai.graph.streaming.StreamingOutput;
+import org.apache.commons.lang3.StringUtils;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+
+/**
+ * 以图节点执行 Bash 命令：命令取自 state 中的 {@code inputKey}。{@link ProcessExecutor#stream} 返回的输出块
+ * 映射为 {@link StreamingOutput}，放在 {@code outputKey} 下由图逐块发出；进程结束后格式化的结果写入
+ * {@code outputKey}。
+ */
+public class BashNode implements NodeAction {
+
+	private final String nodeId;
+
+	private final String inputKey;
+
+	private final String outputKey;
+
+	private final File workingDirectory;
+
+	private final ProcessExecutor executor;
+
+	public BashNode(String nodeId, String inputKey, String outputKey, String workingDirectoryPath) {
+		this(nodeId, inputKey, outputKey, workingDirectoryPath, ProcessExecutor.INSTANCE);
+	}
+
+	public BashNode(String nodeId, String inputKey, String outputKey, String workingDirectoryPath,
+			ProcessExecutor executor) {
+		this.nodeId = nodeId;
+		this.inputKey = inputKey;
+		this.outputKey = outputKey;
+		this.workingDirectory = StringUtils.isEmpty(workingDirectoryPath) ? null : new File(workingDirectoryPath);
+		this.executor = executor;
+	}
+
+	@Override
+	public Map<String, Object> apply(OverAllState state) {
+		String command = state.value(inputKey, String.class)
+			.orElseThrow(() -> new IllegalArgumentException("No bash command in state key " + inputKey));
+		ProcessExecutor.Request request = ProcessExecutor.Request.of("bash", "-c", command)
+			.withWorkingDirectory(workingDirectory);
+		AtomicReference<String> output = new AtomicReference<>();
+		Flux<NodeOutput> chunks = executor
+			.stream(request, result -> output.set(BashProcess.format(command, result)))
+			.map(chunk -> new StreamingOutput(chunk.text(), nodeId, state));
+		// 当前 graph-core 通过状态中的 AsyncGenerator 发出节点的流式输出
+		return Map.of(outputKey, FlowGenerator.fromPublisher(JdkFlowAdapter.publisherToFlowPublisher(chunks),
+				() -> Map.of(outputKey, output.get())));
+	}
+
+}
@@ -15,6 +15,8 @@
  */
 package com.alibaba.cloud.ai.example.graph.openmanus.tool;
 
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.BrowserSessionPool;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.SessionContext;
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.ToolExecuteResult;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
@@ -34,19 +36,82 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
 
+import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.ai.tool.function.FunctionToolCallback;
 
-public class BrowserUseTool implements Function<String, ToolExecuteResult> {
+public class BrowserUseTool implements BiFunction<String, ToolContext, ToolExecuteResult> {
 
 	private static final Logger log = LoggerFactory.getLogger(BrowserUseTool.class);
 
-	private WebDriver driver;
-
-	private static final int MAX_LENGTH = 3000;
+	private final BrowserSessionPool pool;
+
+	static final int MAX_LENGTH = 3000;
+
+	/**
+	 * 在浏览器内遍历 DOM，输出够 limit 个字符就停止，返回 [内容, 是否截断]，完整的 HTML 或文本不会被构造和传输。
+	 */
+	static final String EXTRACT_SCRIPT = """
+			const limit = arguments[0], asHtml = arguments[1];
+			const voids = new Set(['area', 'base', 'br', 'col', 'embed', 'hr', 'img', 'input', 'link', 'meta',
+			    'source', 'track', 'wbr']);
+			const skipped = new Set(['SCRIPT', 'STYLE', 'NOSCRIPT', 'TEMPLATE']);
+			let out = '', truncated = false;
+			function push(s) {
+			    if (out.length + s.length > limit) {
+			        out += s.substring(0, limit - out.length);
+			        truncated = true;
+			        return false;
+			    }
+			    out += s;
+			    return true;
+			}
+			function escape(s) {
+			    return s.replace(/&/g, '&amp;').replace(/</g, '&lt;').replace(/>/g, '&gt;');
+			}
+			function html(node) {
+			    if (node.nodeType === Node.TEXT_NODE) {
+			        return push(escape(node.data));
+			    }
+			    if (node.nodeType !== Node.ELEMENT_NODE) {
+			        return true;
+			    }
+			    const tag = node.localName;
+			    let open = '<' + tag;
+			    for (const attribute of node.attributes) {
+			        open += ' ' + attribute.name + '="' + attribute.value.replace(/"/g, '&quot;') + '"';
+			    }
+			    if (!push(open + '>')) {
+			        return false;
+			    }
+			    for (let child = node.firstChild; child; child = child.nextSibling) {
+			        if (!html(child)) {
+			            return false;
+			        }
+			    }
+			    return voids.has(tag) || push('</' + tag + '>');
+			}
+			if (asHtml) {
+			    html(document.documentElement);
+			}
+			else if (document.body) {
+			    const walker = document.createTreeWalker(document.body, NodeFilter.SHOW_TEXT, {
+			        acceptNode: node => skipped.has(node.parentNode.nodeName) ? NodeFilter.FILTER_REJECT
+			            : NodeFilter.FILTER_ACCEPT
+			    });
+			    for (let node = walker.nextNode(); node && !truncated; node = walker.nextNode()) {
+			        const text = node.data.replace(/\\s+/g, ' ').trim();
+			        if (text) {
+			            push(out ? ' ' + text : text);
+			        }
+			    }
+			}
+			return [out, truncated];
+			""";
 
 	public static final String PARAMETERS = """
 			{
@@ -156,16 +221,24 @@ public class BrowserUseTool implements Function<String, ToolExecuteResult> {
 	}
 
 	public static FunctionToolCallback getFunctionToolCallback() {
-		return FunctionToolCallback.builder(name, browserUseTool)
+		return FunctionToolCallback.builder(name, INSTANCE)
 			.description(description)
 			.inputSchema(PARAMETERS)
 			.inputType(String.class)
 			.build();
 	}
 
-	private static final BrowserUseTool browserUseTool = new BrowserUseTool();
+	public static final BrowserUseTool INSTANCE = new BrowserUseTool();
 
 	public BrowserUseTool() {
+		this(BrowserSessionPool.builder(BrowserUseTool::newChromeDriver).build());
+	}
+
+	public BrowserUseTool(BrowserSessionPool pool) {
+		this.pool = pool;
+	}
+
+	private static WebDriver newChromeDriver() {
 		ChromeOptions options = new ChromeOptions();
 		options.addArguments("--remote-allow-origins=*");
 		// options.setPageLoadStrategy(PageLoadStrategy.EAGER);
@@ -174,11 +247,18 @@ public class BrowserUseTool implements Function<String, ToolExecuteResult> {
 		// options.addArguments("--no-sandbox");
 		// options.addArguments("--disable-extensions");
 		// options.addArguments("--start-maximized");
-		driver = new ChromeDriver(options);
+		return new ChromeDriver(options);
 	}
 
 	public ToolExecuteResult run(String toolInput) {
-		log.info("BrowserUseTool toolInput:{}", toolInput);
+		return run(toolInput, SessionContext.DEFAULT_SESSION);
+	}
+
+	/**
+	 * 在会话自己的浏览器中执行，同一会话的调用共享页面和标签页。
+	 */
+	public ToolExecuteResult run(String toolInput, String sessionId) {
+		log.info("BrowserUseTool session:{} toolInput:{}", sessionId, toolInput);
 		Map<String, Object> toolInputMap = JSON.parseObject(toolInput, new TypeReference<Map<String, Object>>() {
 		});
 
@@ -210,7 +290,19 @@ public class BrowserUseTool implements Function<String, ToolExecuteResult> {
 		if (toolInputMap.get("tab_id") != null) {
 			tabId = (Integer) toolInputMap.get("tab_id");
 		}
+		BrowserSessionPool.Lease lease;
 		try {
+			lease = pool.acquire(sessionId);
+		}
+		catch (TimeoutException e) {
+			return new ToolExecuteResult("Browser action '" + action + "' failed: " + e.getMessage());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new ToolExecuteResult("Browser action '" + action + "' interrupted", true);
+		}
+		try (lease) {
+			WebDriver driver = lease.driver();
 			switch (action) {
 				case "navigate":
 					if (url == null) {
@@ -254,18 +346,16 @@ public class BrowserUseTool implements Function<String, ToolExecuteResult> {
 							"Screenshot captured (base64 length: " + base64Screenshot.length() + ")");
 
 				case "get_html":
-					String html = driver.getPageSource();
-					return new ToolExecuteResult(
-							html.length() > MAX_LENGTH ? html.substring(0, MAX_LENGTH) + "..." : html);
+					return new ToolExecuteResult(extract(driver, true));
 
 				case "get_text":
 					int counter = 0;
-					String body = driver.findElement(By.tagName("body")).getText();
+					String body = extract(driver, false);
 					log.info("get_text body is {}", body);
 					if (body != null && body.contains("我们的系统检测到您的计算机网络中存在异常流量")) {
 						while (counter++ < 5) {
 							Thread.sleep(10000);
-							body = driver.findElement(By.tagName("body")).getText();
+							body = extract(driver, false);
 							log.info("retry {} get_text body is {}", counter, body);
 							if (body != null && body.contains("我们的系统检测到您的计算机网络中存在异常流量")) {
 								continue;
@@ -343,25 +433,34 @@ public class BrowserUseTool implements Function<String, ToolExecuteResult> {
 		}
 	}
 
-	public void close() {
-		if (driver != null) {
-			driver.quit();
-			driver = null;
+	/**
+	 * 前 {@link #MAX_LENGTH} 个字符的页面 HTML 或文本，超出部分以 "..." 表示。
+	 */
+	private static String extract(WebDriver driver, boolean html) {
+		if (driver instanceof JavascriptExecutor jsExecutor) {
+			List<?> result = (List<?>) jsExecutor.executeScript(EXTRACT_SCRIPT, MAX_LENGTH, html);
+			String content = (String) result.get(0);
+			return Boolean.TRUE.equals(result.get(1)) ? content + "..." : content;
 		}
-		System.out.println("Browser resources have been cleaned up.");
+		String content = html ? driver.getPageSource() : driver.findElement(By.tagName("body")).getText();
+		return content.length() > MAX_LENGTH ? content.substring(0, MAX_LENGTH) + "..." : content;
 	}
 
-	public WebDriver getDriver() {
-		return driver;
+	/**
+	 * 会话结束，浏览器清空后交还给池。
+	 */
+	public void endSession(String sessionId) {
+		pool.release(sessionId);
 	}
 
-	public void setDriver(WebDriver driver) {
-		this.driver = driver;
+	public void close() {
+		pool.close();
+		System.out.println("Browser resources have been cleaned up.");
 	}
 
 	@Override
-	public ToolExecuteResult apply(@ToolParam(description = BrowserUseTool.PARAMETERS) String s) {
-		return run(s);
+	public ToolExecuteResult apply(@ToolParam(description = BrowserUseTool.PARAMETERS) String s, ToolContext context) {
+		return run(s, SessionContext.sessionId(context));
 	}
 
 }
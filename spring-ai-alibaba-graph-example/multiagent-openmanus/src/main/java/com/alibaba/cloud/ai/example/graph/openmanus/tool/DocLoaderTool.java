@@ -70,7 +70,7 @@ public class DocLoaderTool implements Function<String, ToolExecuteResult> {
 	}
 
 	public static FunctionToolCallback getFunctionToolCallback() {
-		return FunctionToolCallback.builder(name, new BrowserUseTool())
+		return FunctionToolCallback.builder(name, BrowserUseTool.INSTANCE)
 			.description(description)
 			.inputSchema(PARAMETERS)
 			.inputType(String.class)
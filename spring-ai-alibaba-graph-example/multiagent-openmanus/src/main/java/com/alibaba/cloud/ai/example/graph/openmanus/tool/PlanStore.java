@@ -0,0 +1,303 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 按会话（session / thread id）隔离的计划存储，可被多个 OpenManus 会话并发访问。
+ * <p>
+ * 每个计划的内容是不可变的 {@link Snapshot}，步骤状态、标题等修改都通过 CAS 替换快照完成，不加锁；
+ * 读操作总能拿到一致的快照。计划（无论是否完成）在最后一次写入 {@code ttl} 之后被清理，避免被放弃的计划一直占用内存；
+ * 清理在写操作中顺带进行，同一时刻最多一个线程执行。
+ */
+public class PlanStore {
+
+	public static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+
+	private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+	private final long ttlNanos;
+
+	private final LongSupplier clock;
+
+	private final AtomicLong nextSweep;
+
+	public PlanStore() {
+		this(DEFAULT_TTL, System::nanoTime);
+	}
+
+	public PlanStore(Duration ttl, LongSupplier clock) {
+		this.ttlNanos = ttl.toNanos();
+		this.clock = clock;
+		this.nextSweep = new AtomicLong(clock.getAsLong() + ttlNanos);
+	}
+
+	/**
+	 * 创建计划并设为该会话的当前计划，同一会话内 planId 已存在时抛出异常。
+	 */
+	public Snapshot create(String sessionId, String planId, String title, List<String> steps, Plan graphPlan) {
+		Entry entry = new Entry(Snapshot.of(planId, title, steps, clock.getAsLong()), graphPlan);
+		// compute 与清理时删除空会话的 computeIfPresent 互斥，避免把计划放进已被移除的会话
+		sessions.compute(sessionId, (id, session) -> {
+			Session target = session != null ? session : new Session();
+			if (target.plans.putIfAbsent(planId, entry) != null) {
+				throw new IllegalStateException(
+						"A plan with ID '" + planId + "' already exists. Use 'update' to modify existing plans.");
+			}
+			target.activePlanId.set(planId);
+			return target;
+		});
+		sweepIfDue();
+		return entry.snapshot.get();
+	}
+
+	public Snapshot update(String sessionId, String planId, UnaryOperator<Snapshot> change) {
+		Entry entry = entry(sessionId, planId);
+		Snapshot updated = entry.snapshot.updateAndGet(current -> change.apply(current).withUpdatedAt(clock.getAsLong()));
+		sweepIfDue();
+		return updated;
+	}
+
+	public Snapshot get(String sessionId, String planId) {
+		return entry(sessionId, planId).snapshot.get();
+	}
+
+	public Plan graphPlan(String sessionId, String planId) {
+		return entry(sessionId, planId).graphPlan;
+	}
+
+	public List<Snapshot> list(String sessionId) {
+		Session session = sessions.get(sessionId);
+		if (session == null) {
+			return List.of();
+		}
+		List<Snapshot> snapshots = new ArrayList<>();
+		session.plans.values().forEach(entry -> snapshots.add(entry.snapshot.get()));
+		return snapshots;
+	}
+
+	public String activePlanId(String sessionId) {
+		Session session = sessions.get(sessionId);
+		return session == null ? null : session.activePlanId.get();
+	}
+
+	public void setActive(String sessionId, String planId) {
+		Session session = sessions.get(sessionId);
+		if (session == null || !session.plans.containsKey(planId)) {
+			throw new IllegalArgumentException("No plan found with ID: " + planId);
+		}
+		session.activePlanId.set(planId);
+	}
+
+	public void delete(String sessionId, String planId) {
+		Session session = sessions.get(sessionId);
+		if (session == null || session.plans.remove(planId) == null) {
+			throw new IllegalArgumentException("No plan found with ID: " + planId);
+		}
+		session.activePlanId.compareAndSet(planId, null);
+		sessions.computeIfPresent(sessionId, (id, current) -> current.plans.isEmpty() ? null : current);
+	}
+
+	/**
+	 * 把计划的所有步骤标记为完成。
+	 */
+	public void complete(String sessionId, String planId) {
+		update(sessionId, planId, Snapshot::completeAll);
+	}
+
+	public int size() {
+		return sessions.values().stream().mapToInt(session -> session.plans.size()).sum();
+	}
+
+	/**
+	 * 清理超过 TTL 未被修改的计划，以及因此变空的会话。
+	 * @return 清理掉的计划数
+	 */
+	public int evictExpired() {
+		long now = clock.getAsLong();
+		int evicted = 0;
+		for (Map.Entry<String, Session> e : sessions.entrySet()) {
+			Session session = e.getValue();
+			for (Map.Entry<String, Entry> plan : session.plans.entrySet()) {
+				Snapshot snapshot = plan.getValue().snapshot.get();
+				if (now - snapshot.updatedAt >= ttlNanos
+						&& session.plans.remove(plan.getKey(), plan.getValue())) {
+					session.activePlanId.compareAndSet(plan.getKey(), null);
+					evicted++;
+				}
+			}
+			sessions.computeIfPresent(e.getKey(), (id, current) -> current.plans.isEmpty() ? null : current);
+		}
+		return evicted;
+	}
+
+	private void sweepIfDue() {
+		long now = clock.getAsLong();
+		long due = nextSweep.get();
+		if (now - due >= 0 && nextSweep.compareAndSet(due, now + Math.max(ttlNanos / 4, 1))) {
+			evictExpired();
+		}
+	}
+
+	private Entry entry(String sessionId, String planId) {
+		Session session = sessions.get(sessionId);
+		Entry entry = session == null ? null : session.plans.get(planId);
+		if (entry == null) {
+			throw new IllegalArgumentException("No plan found with ID: " + planId);
+		}
+		return entry;
+	}
+
+	public enum StepStatus {
+
+		NOT_STARTED("not_started", "[ ]"), IN_PROGRESS("in_progress", "[→]"), COMPLETED("completed", "[✓]"),
+		BLOCKED("blocked", "[!]");
+
+		private final String value;
+
+		private final String symbol;
+
+		StepStatus(String value, String symbol) {
+			this.value = value;
+			this.symbol = symbol;
+		}
+
+		public String value() {
+			return value;
+		}
+
+		public String symbol() {
+			return symbol;
+		}
+
+		public static StepStatus of(String value) {
+			for (StepStatus status : values()) {
+				if (status.value.equals(value)) {
+					return status;
+				}
+			}
+			throw new IllegalArgumentException("Invalid step_status: " + value
+					+ ". Valid statuses are: not_started, in_progress, completed, blocked");
+		}
+
+	}
+
+	/**
+	 * 计划在某一时刻的不可变快照。{@code updatedAt} 为最后一次创建或修改时的时钟读数。
+	 */
+	public record Snapshot(String planId, String title, List<String> steps, List<StepStatus> statuses,
+			List<String> notes, long updatedAt) {
+
+		static Snapshot of(String planId, String title, List<String> steps, long createdAt) {
+			return new Snapshot(planId, title, List.copyOf(steps),
+					Collections.nCopies(steps.size(), StepStatus.NOT_STARTED), Collections.nCopies(steps.size(), ""),
+					createdAt);
+		}
+
+		public Snapshot withTitle(String title) {
+			return new Snapshot(planId, title, steps, statuses, notes, updatedAt);
+		}
+
+		/**
+		 * 替换步骤列表，与原步骤相同位置、相同内容的步骤保留状态和备注。
+		 */
+		public Snapshot withSteps(List<String> newSteps) {
+			List<StepStatus> newStatuses = new ArrayList<>(newSteps.size());
+			List<String> newNotes = new ArrayList<>(newSteps.size());
+			for (int i = 0; i < newSteps.size(); i++) {
+				boolean kept = i < steps.size() && newSteps.get(i).equals(steps.get(i));
+				newStatuses.add(kept ? statuses.get(i) : StepStatus.NOT_STARTED);
+				newNotes.add(kept ? notes.get(i) : "");
+			}
+			return new Snapshot(planId, title, List.copyOf(newSteps), List.copyOf(newStatuses), List.copyOf(newNotes),
+					updatedAt);
+		}
+
+		public Snapshot withStep(int index, StepStatus status, String note) {
+			if (index < 0 || index >= steps.size()) {
+				throw new IllegalArgumentException("Invalid step_index: " + index + ". Valid indices range from 0 to "
+						+ (steps.size() - 1) + ".");
+			}
+			List<StepStatus> newStatuses = statuses;
+			if (status != null) {
+				newStatuses = new ArrayList<>(statuses);
+				newStatuses.set(index, status);
+				newStatuses = Collections.unmodifiableList(newStatuses);
+			}
+			List<String> newNotes = notes;
+			if (note != null) {
+				newNotes = new ArrayList<>(notes);
+				newNotes.set(index, note);
+				newNotes = Collections.unmodifiableList(newNotes);
+			}
+			return new Snapshot(planId, title, steps, newStatuses, newNotes, updatedAt);
+		}
+
+		Snapshot completeAll() {
+			return new Snapshot(planId, title, steps, Collections.nCopies(steps.size(), StepStatus.COMPLETED), notes,
+					updatedAt);
+		}
+
+		Snapshot withUpdatedAt(long time) {
+			return new Snapshot(planId, title, steps, statuses, notes, time);
+		}
+
+		public long count(StepStatus status) {
+			return statuses.stream().filter(s -> s == status).count();
+		}
+
+		public boolean isCompleted() {
+			return isCompleted(statuses);
+		}
+
+		private static boolean isCompleted(List<StepStatus> statuses) {
+			return !statuses.isEmpty() && statuses.stream().allMatch(s -> s == StepStatus.COMPLETED);
+		}
+
+	}
+
+	private static final class Session {
+
+		final Map<String, Entry> plans = new ConcurrentHashMap<>();
+
+		final AtomicReference<String> activePlanId = new AtomicReference<>();
+
+	}
+
+	private static final class Entry {
+
+		final AtomicReference<Snapshot> snapshot;
+
+		final Plan graphPlan;
+
+		Entry(Snapshot snapshot, Plan graphPlan) {
+			this.snapshot = new AtomicReference<>(snapshot);
+			this.graphPlan = graphPlan;
+		}
+
+	}
+
+}
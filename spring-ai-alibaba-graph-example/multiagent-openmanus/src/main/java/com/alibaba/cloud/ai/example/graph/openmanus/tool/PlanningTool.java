@@ -16,10 +16,12 @@
 package com.alibaba.cloud.ai.example.graph.openmanus.tool;
 
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.PlanToolExecuteResult;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.SessionContext;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.TypeReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.model.ToolContext;
@@ -31,7 +33,9 @@ import org.springframework.ai.tool.metadata.ToolMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.BiFunction;
 
 public class PlanningTool implements BiFunction<String, ToolContext, String> {
@@ -105,55 +109,55 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 
 	public static final PlanningTool INSTANCE = new PlanningTool();
 
-	private Map<String, Map<String, Object>> plans = new HashMap<>();
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+		.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-	private Map<String, Plan> graphPlans = new HashMap<>();
+	private final PlanStore store;
 
-	private String currentPlanId;
+	public PlanningTool() {
+		this(new PlanStore());
+	}
+
+	public PlanningTool(PlanStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * 工具输入，直接由 JSON 反序列化得到。
+	 */
+	public record Command(String command, @JsonProperty("plan_id") String planId, String title, List<String> steps,
+			@JsonProperty("step_index") Integer stepIndex, @JsonProperty("step_status") String stepStatus,
+			@JsonProperty("step_notes") String stepNotes) {
+	}
 
 	public String run(String toolInput, ToolContext context) {
 		try {
 			log.info("PlanningTool toolInput:{}", toolInput);
-			Map<String, Object> toolInputMap = JSON.parseObject(toolInput, new TypeReference<Map<String, Object>>() {
-			});
+			Command input = MAPPER.readValue(toolInput, Command.class);
+			String sessionId = SessionContext.sessionId(context);
 
-			String command = null;
-			if (toolInputMap.get("command") != null) {
-				command = (String) toolInputMap.get("command");
-			}
-			String planId = null;
-			if (toolInputMap.get("plan_id") != null) {
-				planId = (String) toolInputMap.get("plan_id");
-			}
-			else {
-				planId = "G_" + UUID.randomUUID().toString();
-			}
-			String title = null;
-			if (toolInputMap.get("title") != null) {
-				title = (String) toolInputMap.get("title");
-			}
-			List<String> steps = null;
-			if (toolInputMap.get("steps") != null) {
-				steps = (List<String>) toolInputMap.get("steps");
-			}
-			Integer stepIndex = null;
-			if (toolInputMap.get("step_index") != null) {
-				stepIndex = (Integer) toolInputMap.get("step_index");
-			}
-			String stepStatus = null;
-			if (toolInputMap.get("step_status") != null) {
-				stepStatus = (String) toolInputMap.get("step_status");
+			if (input.command() == null) {
+				throw new RuntimeException("Parameter `command` is required");
 			}
-			String stepNotes = null;
-			if (toolInputMap.get("step_notes") != null) {
-				stepNotes = (String) toolInputMap.get("step_notes");
-			}
-
-			switch (command) {
+			switch (input.command()) {
 				case "create":
-					return createPlan(planId, title, steps, context);
+					String planId = input.planId() != null ? input.planId() : "G_" + UUID.randomUUID();
+					return createPlan(sessionId, planId, input.title(), input.steps(), context);
+				case "update":
+					return updatePlan(sessionId, input.planId(), input.title(), input.steps()).getOutput();
+				case "list":
+					return listPlans(sessionId).getOutput();
+				case "get":
+					return getPlan(sessionId, input.planId()).getOutput();
+				case "set_active":
+					return setActivePlan(sessionId, input.planId()).getOutput();
+				case "mark_step":
+					return markStep(sessionId, input.planId(), input.stepIndex(), input.stepStatus(), input.stepNotes())
+						.getOutput();
+				case "delete":
+					return deletePlan(sessionId, input.planId()).getOutput();
 				default:
-					throw new RuntimeException("Unrecognized command: " + command
+					throw new RuntimeException("Unrecognized command: " + input.command()
 							+ ". Allowed commands are: create, update, list, get, set_active, mark_step, delete");
 			}
 		}
@@ -162,109 +166,68 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 		}
 	}
 
-	public String createPlan(String planId, String title, List<String> steps, ToolContext context) {
-		OverAllState state = (OverAllState) context.getContext().get("state");
-
+	public String createPlan(String sessionId, String planId, String title, List<String> steps, ToolContext context) {
 		if (planId == null || planId.isEmpty()) {
 			throw new RuntimeException("Parameter `plan_id` is required for command: create");
 		}
 
-		if (plans.containsKey(planId)) {
-			throw new RuntimeException(
-					"A plan with ID '" + planId + "' already exists. Use 'update' to modify existing plans.");
-		}
-
 		if (title == null || title.isEmpty()) {
 			throw new RuntimeException("Parameter `title` is required for command: create");
 		}
 
-		if (steps == null || steps.isEmpty() || !steps.stream().allMatch(step -> step instanceof String)) {
+		if (steps == null || steps.isEmpty()) {
 			throw new RuntimeException("Parameter `steps` must be a non-empty list of strings for command: create");
 		}
 
-		Map<String, Object> plan = new HashMap<>();
-		plan.put("plan_id", planId);
-		plan.put("title", title);
-		plan.put("steps", steps);
-		plan.put("step_statuses", new ArrayList<>(Collections.nCopies(steps.size(), "not_started")));
-		plan.put("step_notes", new ArrayList<>(Collections.nCopies(steps.size(), "")));
-
-		plans.put(planId, plan);
-		this.currentPlanId = planId; // Set as active plan
-
-		List<Message> messages = (List<Message>) state.value("messages").get();
-		Plan plan2 = new Plan(messages.get(0).getText(), planId, steps);
-		graphPlans.put(planId, plan2);
+		String task = title;
+		Object state = context == null ? null : context.getContext().get("state");
+		if (state instanceof OverAllState overAllState) {
+			Optional<List<Message>> messages = overAllState.value("messages");
+			if (messages.isPresent() && !messages.get().isEmpty()) {
+				task = messages.get().get(0).getText();
+			}
+		}
 
+		store.create(sessionId, planId, title, steps, new Plan(task, planId, steps));
 		return planId;
 	}
 
-	public PlanToolExecuteResult updatePlan(String planId, String title, List<String> steps) {
+	public PlanToolExecuteResult updatePlan(String sessionId, String planId, String title, List<String> steps) {
 		if (planId == null || planId.isEmpty()) {
 			throw new RuntimeException("Parameter `plan_id` is required for command: update");
 		}
 
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
-
-		Map<String, Object> plan = plans.get(planId);
-
-		if (title != null && !title.isEmpty()) {
-			plan.put("title", title);
-		}
-
-		if (steps != null) {
-			if (!steps.stream().allMatch(step -> step instanceof String)) {
-				throw new RuntimeException("Parameter `steps` must be a list of strings for command: update");
+		PlanStore.Snapshot plan = store.update(sessionId, planId, current -> {
+			PlanStore.Snapshot next = current;
+			if (title != null && !title.isEmpty()) {
+				next = next.withTitle(title);
 			}
-
-			List<String> oldSteps = (List<String>) plan.get("steps");
-			List<String> oldStatuses = (List<String>) plan.get("step_statuses");
-			List<String> oldNotes = (List<String>) plan.get("step_notes");
-
-			List<String> newStatuses = new ArrayList<>();
-			List<String> newNotes = new ArrayList<>();
-
-			for (int i = 0; i < steps.size(); i++) {
-				String step = steps.get(i);
-				if (i < oldSteps.size() && step.equals(oldSteps.get(i))) {
-					newStatuses.add(oldStatuses.get(i));
-					newNotes.add(oldNotes.get(i));
-				}
-				else {
-					newStatuses.add("not_started");
-					newNotes.add("");
-				}
+			if (steps != null) {
+				next = next.withSteps(steps);
 			}
-
-			plan.put("steps", steps);
-			plan.put("step_statuses", newStatuses);
-			plan.put("step_notes", newNotes);
-		}
+			return next;
+		});
 
 		return new PlanToolExecuteResult("Plan updated successfully: " + planId + "\n\n" + formatPlan(plan), planId);
 	}
 
-	public PlanToolExecuteResult listPlans() {
+	public PlanToolExecuteResult listPlans(String sessionId) {
+		List<PlanStore.Snapshot> plans = store.list(sessionId);
 		if (plans.isEmpty()) {
 			return new PlanToolExecuteResult("No plans available. Create a plan with the 'create' command.", "");
 		}
 
+		String currentPlanId = store.activePlanId(sessionId);
 		StringBuilder output = new StringBuilder("Available plans:\n");
-		for (String planId : plans.keySet()) {
-			Map<String, Object> plan = plans.get(planId);
-			String currentMarker = planId.equals(currentPlanId) ? " (active)" : "";
-			long completed = ((List<String>) plan.get("step_statuses")).stream()
-				.filter(status -> "completed".equals(status))
-				.count();
-			int total = ((List<String>) plan.get("steps")).size();
-			String progress = completed + "/" + total + " steps completed";
+		for (PlanStore.Snapshot plan : plans) {
+			String currentMarker = plan.planId().equals(currentPlanId) ? " (active)" : "";
+			String progress = plan.count(PlanStore.StepStatus.COMPLETED) + "/" + plan.steps().size()
+					+ " steps completed";
 			output.append("• ")
-				.append(planId)
+				.append(plan.planId())
 				.append(currentMarker)
 				.append(": ")
-				.append(plan.get("title"))
+				.append(plan.title())
 				.append(" - ")
 				.append(progress)
 				.append("\n");
@@ -273,133 +236,80 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 		return new PlanToolExecuteResult(output.toString(), "");
 	}
 
-	public Plan getGraphPlan(String planId) {
-		if (planId == null || planId.isEmpty()) {
-			if (currentPlanId == null) {
-				throw new RuntimeException("No active plan. Please specify a plan_id or set an active plan.");
-			}
-			planId = currentPlanId;
-		}
-
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
-
-		return graphPlans.get(planId);
+	public Plan getGraphPlan(String sessionId, String planId) {
+		return store.graphPlan(sessionId, resolvePlanId(sessionId, planId));
 	}
 
-	public PlanToolExecuteResult getPlan(String planId) {
-		if (planId == null || planId.isEmpty()) {
-			if (currentPlanId == null) {
-				throw new RuntimeException("No active plan. Please specify a plan_id or set an active plan.");
-			}
-			planId = currentPlanId;
-		}
-
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
-
-		Map<String, Object> plan = plans.get(planId);
-		return new PlanToolExecuteResult(formatPlan(plan), planId);
+	public PlanToolExecuteResult getPlan(String sessionId, String planId) {
+		planId = resolvePlanId(sessionId, planId);
+		return new PlanToolExecuteResult(formatPlan(store.get(sessionId, planId)), planId);
 	}
 
-	public PlanToolExecuteResult setActivePlan(String planId) {
+	public PlanToolExecuteResult setActivePlan(String sessionId, String planId) {
 		if (planId == null || planId.isEmpty()) {
 			throw new RuntimeException("Parameter `plan_id` is required for command: set_active");
 		}
 
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
-
-		currentPlanId = planId;
+		store.setActive(sessionId, planId);
 		return new PlanToolExecuteResult(
-				"Plan '" + planId + "' is now the active plan.\n\n" + formatPlan(plans.get(planId)), planId);
+				"Plan '" + planId + "' is now the active plan.\n\n" + formatPlan(store.get(sessionId, planId)), planId);
 	}
 
-	public PlanToolExecuteResult markStep(String planId, Integer stepIndex, String stepStatus, String stepNotes) {
-		if (planId == null || planId.isEmpty()) {
-			if (currentPlanId == null) {
-				throw new RuntimeException("No active plan. Please specify a plan_id or set an active plan.");
-			}
-			planId = currentPlanId;
-		}
-
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
+	public PlanToolExecuteResult markStep(String sessionId, String planId, Integer stepIndex, String stepStatus,
+			String stepNotes) {
+		planId = resolvePlanId(sessionId, planId);
 
 		if (stepIndex == null) {
 			throw new RuntimeException("Parameter `step_index` is required for command: mark_step");
 		}
 
-		Map<String, Object> plan = plans.get(planId);
-		List<String> steps = (List<String>) plan.get("steps");
-
-		if (stepIndex < 0 || stepIndex >= steps.size()) {
-			throw new RuntimeException(
-					"Invalid step_index: " + stepIndex + ". Valid indices range from 0 to " + (steps.size() - 1) + ".");
-		}
-
-		List<String> stepStatuses = (List<String>) plan.get("step_statuses");
-		List<String> stepNotesList = (List<String>) plan.get("step_notes");
-
-		if (stepStatus != null
-				&& !Arrays.asList("not_started", "in_progress", "completed", "blocked").contains(stepStatus)) {
-			throw new RuntimeException("Invalid step_status: " + stepStatus
-					+ ". Valid statuses are: not_started, in_progress, completed, blocked");
-		}
-
-		if (stepStatus != null) {
-			stepStatuses.set(stepIndex, stepStatus);
-		}
-
-		if (stepNotes != null) {
-			stepNotesList.set(stepIndex, stepNotes);
-		}
+		PlanStore.StepStatus status = stepStatus == null ? null : PlanStore.StepStatus.of(stepStatus);
+		PlanStore.Snapshot plan = store.update(sessionId, planId,
+				current -> current.withStep(stepIndex, status, stepNotes));
 
 		String result = "Step " + stepIndex + " updated in plan '" + planId + "'.\n\n" + formatPlan(plan);
 		log.info(result);
 		return new PlanToolExecuteResult(result, planId);
 	}
 
-	public PlanToolExecuteResult deletePlan(String planId) {
+	/**
+	 * 计划执行结束，所有步骤标记为完成，之后按 TTL 被清理。
+	 */
+	public void completePlan(String sessionId, String planId) {
+		store.complete(sessionId, planId);
+	}
+
+	public PlanToolExecuteResult deletePlan(String sessionId, String planId) {
 		if (planId == null || planId.isEmpty()) {
 			throw new RuntimeException("Parameter `plan_id` is required for command: delete");
 		}
 
-		if (!plans.containsKey(planId)) {
-			throw new RuntimeException("No plan found with ID: " + planId);
-		}
-
-		plans.remove(planId);
+		store.delete(sessionId, planId);
+		return new PlanToolExecuteResult("Plan '" + planId + "' has been deleted.", planId);
+	}
 
-		if (planId.equals(currentPlanId)) {
-			currentPlanId = null;
+	private String resolvePlanId(String sessionId, String planId) {
+		if (planId == null || planId.isEmpty()) {
+			planId = store.activePlanId(sessionId);
+			if (planId == null) {
+				throw new RuntimeException("No active plan. Please specify a plan_id or set an active plan.");
+			}
 		}
-
-		return new PlanToolExecuteResult("Plan '" + planId + "' has been deleted.", planId);
+		return planId;
 	}
 
-	private String formatPlan(Map<String, Object> plan) {
+	private String formatPlan(PlanStore.Snapshot plan) {
 		StringBuilder output = new StringBuilder();
-		String planTitle = (String) plan.get("title");
-		String planId = (String) plan.get("plan_id");
 
-		output.append("Plan: ").append(planTitle).append(" (ID: ").append(planId).append(")\n");
+		output.append("Plan: ").append(plan.title()).append(" (ID: ").append(plan.planId()).append(")\n");
 		output.append(repeatString("=", output.length())).append("\n\n");
 
 		// Calculate progress statistics
-		List<String> steps = (List<String>) plan.get("steps");
-		List<String> stepStatuses = (List<String>) plan.get("step_statuses");
-		List<String> stepNotes = (List<String>) plan.get("step_notes");
-
-		int totalSteps = steps.size();
-		long completed = stepStatuses.stream().filter(status -> "completed".equals(status)).count();
-		long inProgress = stepStatuses.stream().filter(status -> "in_progress".equals(status)).count();
-		long blocked = stepStatuses.stream().filter(status -> "blocked".equals(status)).count();
-		long notStarted = stepStatuses.stream().filter(status -> "not_started".equals(status)).count();
+		int totalSteps = plan.steps().size();
+		long completed = plan.count(PlanStore.StepStatus.COMPLETED);
+		long inProgress = plan.count(PlanStore.StepStatus.IN_PROGRESS);
+		long blocked = plan.count(PlanStore.StepStatus.BLOCKED);
+		long notStarted = plan.count(PlanStore.StepStatus.NOT_STARTED);
 
 		output.append("Progress: ").append(completed).append("/").append(totalSteps).append(" steps completed ");
 		if (totalSteps > 0) {
@@ -423,26 +333,13 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 
 		// Add each step with its status and notes
 		for (int i = 0; i < totalSteps; i++) {
-			String step = steps.get(i);
-			String status = stepStatuses.get(i);
-			String notes = stepNotes.get(i);
-
-			String statusSymbol;
-			switch (status) {
-				case "in_progress":
-					statusSymbol = "[→]";
-					break;
-				case "completed":
-					statusSymbol = "[✓]";
-					break;
-				case "blocked":
-					statusSymbol = "[!]";
-					break;
-				default:
-					statusSymbol = "[ ]";
-			}
-
-			output.append(i).append(". ").append(statusSymbol).append(" ").append(step).append("\n");
+			String notes = plan.notes().get(i);
+			output.append(i)
+				.append(". ")
+				.append(plan.statuses().get(i).symbol())
+				.append(" ")
+				.append(plan.steps().get(i))
+				.append("\n");
 			if (notes != null && !notes.isEmpty()) {
 				output.append("   Notes: ").append(notes).append("\n");
 			}
@@ -459,22 +356,6 @@ public class PlanningTool implements BiFunction<String, ToolContext, String> {
 		return repeated.toString();
 	}
 
-	public Map<String, Map<String, Object>> getPlans() {
-		return plans;
-	}
-
-	public void setPlans(Map<String, Map<String, Object>> plans) {
-		this.plans = plans;
-	}
-
-	public String getCurrentPlanId() {
-		return currentPlanId;
-	}
-
-	public void setCurrentPlanId(String currentPlanId) {
-		this.currentPlanId = currentPlanId;
-	}
-
 	@Override
 	public String apply(@ToolParam(description = PARAMETERS) String s, ToolContext context) {
 		return run(s, context);
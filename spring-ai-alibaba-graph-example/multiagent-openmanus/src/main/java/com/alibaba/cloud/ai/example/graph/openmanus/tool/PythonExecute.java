@@ -17,7 +17,6 @@ package com.alibaba.cloud.ai.example.graph.openmanus.tool;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 import java.util.function.BiFunction;
 
 import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.CodeExecutionResult;
@@ -37,8 +36,6 @@ public class PythonExecute implements BiFunction<String, ToolContext, ToolExecut
 
 	private static final Logger log = LoggerFactory.getLogger(PythonExecute.class);
 
-	private UUID uuid = UUID.randomUUID();
-
 	private Boolean arm64 = true;
 
 	public static final String LLMMATH_PYTHON_CODE = "import sys; import math; import numpy as np; import numexpr as ne; input = '%s'; res = ne.evaluate(input); print(res)";
@@ -82,8 +79,7 @@ public class PythonExecute implements BiFunction<String, ToolContext, ToolExecut
 		});
 		String code = (String) toolInputMap.get("code");
 		// String result = PythonUtils.invokePythonCodeWithArch(code, arm64);
-		CodeExecutionResult codeExecutionResult = CodeUtils.executeCode(code, "python",
-				"tmp_" + uuid.toString() + ".py", arm64, new HashMap<>());
+		CodeExecutionResult codeExecutionResult = CodeUtils.executeCode(code, "python", null, arm64, new HashMap<>());
 		String result = codeExecutionResult.getLogs();
 		return new ToolExecuteResult(result);
 	}
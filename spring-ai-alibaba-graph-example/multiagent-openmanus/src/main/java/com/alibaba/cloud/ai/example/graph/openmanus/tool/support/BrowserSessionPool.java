@@ -0,0 +1,569 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 浏览器会话池。
+ * <p>
+ * <ul>
+ * <li>会话亲和：同一会话（agent / thread id）总是拿到同一个浏览器，页面、标签页和 cookie 在多次工具调用间保留；
+ * 同一会话的并发调用排队执行，不同会话并行。</li>
+ * <li>预热：后台保持 {@code warmInstances} 个已启动、未绑定会话的浏览器，新会话不必等待冷启动。</li>
+ * <li>健康检查：复用浏览器前先检查，失效的浏览器被替换。</li>
+ * <li>空闲回收：超过 {@code idleTimeout} 未使用的会话浏览器被关闭，多余的预热浏览器同样被关闭。</li>
+ * <li>并发上限：同时存在的浏览器不超过 {@code maxSessions}；满额时新会话复用最久未使用的空闲会话的浏览器
+ * （清空其页面和 cookie），都在使用中则等待，超过 {@code acquireTimeout} 抛出 {@link TimeoutException}。</li>
+ * </ul>
+ * 池内状态由一把锁保护，启动、检查、关闭浏览器等耗时操作都在锁外进行。
+ */
+public class BrowserSessionPool implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(BrowserSessionPool.class);
+
+	private final Supplier<WebDriver> driverFactory;
+
+	private final Predicate<WebDriver> healthCheck;
+
+	private final int maxSessions;
+
+	private final int warmInstances;
+
+	private final long idleTimeoutNanos;
+
+	private final long acquireTimeoutNanos;
+
+	private final LongSupplier clock;
+
+	private final ScheduledExecutorService maintenance;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition changed = lock.newCondition();
+
+	private final Map<String, Slot> sessions = new HashMap<>();
+
+	private final Deque<Slot> warm = new ArrayDeque<>();
+
+	/**
+	 * 已启动或正在启动的浏览器数。
+	 */
+	private int live;
+
+	private int warming;
+
+	private boolean closed;
+
+	private BrowserSessionPool(Builder builder) {
+		this.driverFactory = builder.driverFactory;
+		this.healthCheck = builder.healthCheck;
+		this.maxSessions = builder.maxSessions;
+		this.warmInstances = Math.min(builder.warmInstances, builder.maxSessions);
+		this.idleTimeoutNanos = builder.idleTimeout.toNanos();
+		this.acquireTimeoutNanos = builder.acquireTimeout.toNanos();
+		this.clock = builder.clock;
+		this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "browser-session-pool");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(idleTimeoutNanos / 2, TimeUnit.SECONDS.toNanos(1));
+		this.maintenance.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+		this.maintenance.execute(this::warmUp);
+	}
+
+	public static Builder builder(Supplier<WebDriver> driverFactory) {
+		return new Builder(driverFactory);
+	}
+
+	/**
+	 * 获取会话的浏览器，用完后关闭返回的 {@link Lease}。
+	 */
+	public Lease acquire(String sessionId) throws InterruptedException, TimeoutException {
+		long deadline = clock.getAsLong() + acquireTimeoutNanos;
+		Slot slot;
+		boolean reset = false;
+		boolean refill;
+		lock.lock();
+		try {
+			while (true) {
+				if (closed) {
+					throw new IllegalStateException("Browser session pool is closed");
+				}
+				slot = sessions.get(sessionId);
+				if (slot != null) {
+					if (!slot.busy) {
+						break;
+					}
+				}
+				else if ((slot = warm.pollFirst()) != null) {
+					break;
+				}
+				else if (live < maxSessions) {
+					// 占位，浏览器在锁外启动，同一会话的其他调用会等待它
+					live++;
+					slot = new Slot(null);
+					break;
+				}
+				else if ((slot = leastRecentlyUsedIdle()) != null) {
+					sessions.remove(slot.sessionId);
+					reset = true;
+					break;
+				}
+				long remaining = deadline - clock.getAsLong();
+				if (remaining <= 0) {
+					throw new TimeoutException(
+							"No browser available for session " + sessionId + ", all " + maxSessions + " are in use");
+				}
+				changed.awaitNanos(remaining);
+			}
+			slot.sessionId = sessionId;
+			slot.busy = true;
+			sessions.put(sessionId, slot);
+			refill = warm.size() + warming < warmInstances && live < maxSessions;
+		}
+		finally {
+			lock.unlock();
+		}
+
+		try {
+			prepare(slot, reset);
+		}
+		catch (RuntimeException | Error e) {
+			discard(slot);
+			throw e;
+		}
+		if (refill) {
+			scheduleWarmUp();
+		}
+		return new Lease(slot);
+	}
+
+	/**
+	 * 结束会话：浏览器清空后回到预热池，预热池已满时关闭。
+	 */
+	public void release(String sessionId) {
+		Slot slot;
+		lock.lock();
+		try {
+			slot = sessions.get(sessionId);
+			if (slot == null) {
+				return;
+			}
+			if (slot.busy) {
+				slot.released = true;
+				return;
+			}
+			sessions.remove(sessionId);
+			slot.busy = true;
+		}
+		finally {
+			lock.unlock();
+		}
+		recycle(slot);
+	}
+
+	/**
+	 * 关闭空闲超时的会话浏览器，以及超过 {@code warmInstances} 的空闲预热浏览器。
+	 * @return 关闭的浏览器数
+	 */
+	public int evictIdle() {
+		List<Slot> evicted = new ArrayList<>();
+		lock.lock();
+		try {
+			long now = clock.getAsLong();
+			for (Iterator<Slot> it = sessions.values().iterator(); it.hasNext();) {
+				Slot slot = it.next();
+				if (!slot.busy && now - slot.lastUsed >= idleTimeoutNanos) {
+					it.remove();
+					evicted.add(slot);
+				}
+			}
+			for (Iterator<Slot> it = warm.iterator(); it.hasNext() && warm.size() > warmInstances;) {
+				Slot slot = it.next();
+				if (now - slot.lastUsed >= idleTimeoutNanos) {
+					it.remove();
+					evicted.add(slot);
+				}
+			}
+			live -= evicted.size();
+			if (!evicted.isEmpty()) {
+				changed.signalAll();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		evicted.forEach(slot -> quit(slot.driver));
+		if (!evicted.isEmpty()) {
+			log.info("Evicted {} idle browser(s)", evicted.size());
+		}
+		warmUp();
+		return evicted.size();
+	}
+
+	public Stats stats() {
+		lock.lock();
+		try {
+			int busy = (int) sessions.values().stream().filter(slot -> slot.busy).count();
+			return new Stats(live, warm.size(), sessions.size(), busy);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close() {
+		List<Slot> slots = new ArrayList<>();
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			slots.addAll(sessions.values());
+			slots.addAll(warm);
+			sessions.clear();
+			warm.clear();
+			live = 0;
+			changed.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		maintenance.shutdownNow();
+		slots.forEach(slot -> quit(slot.driver));
+	}
+
+	private void prepare(Slot slot, boolean reset) {
+		if (slot.driver == null) {
+			slot.driver = driverFactory.get();
+			return;
+		}
+		if (!healthCheck.test(slot.driver)) {
+			log.warn("Browser for session {} failed health check, replacing it", slot.sessionId);
+			quit(slot.driver);
+			slot.driver = driverFactory.get();
+			return;
+		}
+		if (reset) {
+			reset(slot.driver);
+		}
+	}
+
+	private Slot leastRecentlyUsedIdle() {
+		Slot candidate = null;
+		for (Slot slot : sessions.values()) {
+			if (!slot.busy && (candidate == null || slot.lastUsed < candidate.lastUsed)) {
+				candidate = slot;
+			}
+		}
+		return candidate;
+	}
+
+	private void giveBack(Slot slot) {
+		boolean recycle;
+		boolean quit;
+		lock.lock();
+		try {
+			slot.lastUsed = clock.getAsLong();
+			// 使用期间池被关闭，close() 可能没来得及关闭这个浏览器
+			quit = closed;
+			recycle = !closed && slot.released && sessions.get(slot.sessionId) == slot;
+			if (recycle) {
+				sessions.remove(slot.sessionId);
+			}
+			else {
+				slot.busy = false;
+			}
+			changed.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		if (quit) {
+			quit(slot.driver);
+		}
+		else if (recycle) {
+			recycle(slot);
+		}
+	}
+
+	private void recycle(Slot slot) {
+		boolean keep = false;
+		try {
+			reset(slot.driver);
+			keep = true;
+		}
+		catch (RuntimeException e) {
+			log.warn("Failed to reset browser of session {}", slot.sessionId, e);
+		}
+		lock.lock();
+		try {
+			slot.sessionId = null;
+			slot.released = false;
+			slot.busy = false;
+			slot.lastUsed = clock.getAsLong();
+			keep = keep && !closed && warm.size() < warmInstances;
+			if (keep) {
+				warm.addLast(slot);
+			}
+			else if (!closed) {
+				live--;
+			}
+			changed.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		if (!keep) {
+			quit(slot.driver);
+		}
+	}
+
+	private void discard(Slot slot) {
+		lock.lock();
+		try {
+			if (sessions.get(slot.sessionId) == slot) {
+				sessions.remove(slot.sessionId);
+			}
+			if (!closed) {
+				live--;
+			}
+			changed.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		quit(slot.driver);
+	}
+
+	private void scheduleWarmUp() {
+		try {
+			maintenance.execute(this::warmUp);
+		}
+		catch (RuntimeException e) {
+			// 池已关闭
+		}
+	}
+
+	private void warmUp() {
+		while (true) {
+			lock.lock();
+			try {
+				if (closed || warm.size() + warming >= warmInstances || live >= maxSessions) {
+					return;
+				}
+				live++;
+				warming++;
+			}
+			finally {
+				lock.unlock();
+			}
+
+			WebDriver driver = null;
+			try {
+				driver = driverFactory.get();
+			}
+			catch (RuntimeException e) {
+				log.warn("Failed to start a warm browser", e);
+			}
+			lock.lock();
+			try {
+				warming--;
+				if (driver == null || closed) {
+					if (!closed) {
+						live--;
+					}
+				}
+				else {
+					Slot slot = new Slot(driver);
+					slot.lastUsed = clock.getAsLong();
+					warm.addLast(slot);
+					driver = null;
+				}
+				changed.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+			if (driver != null) {
+				quit(driver);
+				return;
+			}
+		}
+	}
+
+	private static void reset(WebDriver driver) {
+		driver.manage().deleteAllCookies();
+		driver.get("about:blank");
+	}
+
+	private static void quit(WebDriver driver) {
+		if (driver == null) {
+			return;
+		}
+		try {
+			driver.quit();
+		}
+		catch (RuntimeException e) {
+			log.debug("Failed to quit browser", e);
+		}
+	}
+
+	private static boolean isResponsive(WebDriver driver) {
+		try {
+			driver.getWindowHandles();
+			return true;
+		}
+		catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 池的当前状态：浏览器总数、预热中的空闲浏览器数、绑定会话数、正在使用的会话数。
+	 */
+	public record Stats(int live, int warm, int sessions, int busy) {
+	}
+
+	/**
+	 * 一次工具调用对浏览器的独占使用。
+	 */
+	public final class Lease implements AutoCloseable {
+
+		private final Slot slot;
+
+		private boolean closed;
+
+		private Lease(Slot slot) {
+			this.slot = slot;
+		}
+
+		public WebDriver driver() {
+			return slot.driver;
+		}
+
+		@Override
+		public void close() {
+			if (!closed) {
+				closed = true;
+				giveBack(slot);
+			}
+		}
+
+	}
+
+	private static final class Slot {
+
+		WebDriver driver;
+
+		String sessionId;
+
+		boolean busy;
+
+		boolean released;
+
+		long lastUsed;
+
+		Slot(WebDriver driver) {
+			this.driver = driver;
+		}
+
+	}
+
+	public static final class Builder {
+
+		private final Supplier<WebDriver> driverFactory;
+
+		private Predicate<WebDriver> healthCheck = BrowserSessionPool::isResponsive;
+
+		private int maxSessions = 4;
+
+		private int warmInstances = 1;
+
+		private Duration idleTimeout = Duration.ofMinutes(10);
+
+		private Duration acquireTimeout = Duration.ofMinutes(2);
+
+		private LongSupplier clock = System::nanoTime;
+
+		private Builder(Supplier<WebDriver> driverFactory) {
+			this.driverFactory = driverFactory;
+		}
+
+		public Builder maxSessions(int maxSessions) {
+			this.maxSessions = maxSessions;
+			return this;
+		}
+
+		public Builder warmInstances(int warmInstances) {
+			this.warmInstances = warmInstances;
+			return this;
+		}
+
+		public Builder idleTimeout(Duration idleTimeout) {
+			this.idleTimeout = idleTimeout;
+			return this;
+		}
+
+		public Builder acquireTimeout(Duration acquireTimeout) {
+			this.acquireTimeout = acquireTimeout;
+			return this;
+		}
+
+		public Builder healthCheck(Predicate<WebDriver> healthCheck) {
+			this.healthCheck = healthCheck;
+			return this;
+		}
+
+		public Builder clock(LongSupplier clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		public BrowserSessionPool build() {
+			if (maxSessions < 1) {
+				throw new IllegalArgumentException("maxSessions must be positive");
+			}
+			return new BrowserSessionPool(this);
+		}
+
+	}
+
+}
@@ -15,26 +15,22 @@
  */
 package com.alibaba.cloud.ai.example.graph.openmanus.tool.support;
 
-import java.io.BufferedReader;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static org.apache.commons.lang3.StringUtils.EMPTY;
-
 public class CodeUtils {
 
 	private static final Logger log = LoggerFactory.getLogger(CodeUtils.class);
@@ -92,6 +88,10 @@ public class CodeUtils {
 		return rst;
 	}
 
+	/**
+	 * 执行代码。只给出 code 时代码经标准输入交给解释器，不再为每次调用写临时文件；给出 filename 时写入该文件后执行。
+	 * 超时取 kwargs 中的 {@code timeout}（秒），默认 {@value #DEFAULT_TIMEOUT} 秒，超时后结束进程树。
+	 */
 	public static CodeExecutionResult executeCode(String code, String lang, String filename, Boolean arm64,
 			Map<String, Object> kwargs) {
 		log.info("code:{}, lang:{}, filename:{}, arm64:{}, kwargs:{}", code, lang, filename, arm64, kwargs);
@@ -103,58 +103,54 @@ public class CodeUtils {
 		}
 
 		String workDir = kwargs.containsKey("work_dir") ? (String) kwargs.get("work_dir") : null;
+		Object timeout = kwargs.get("timeout");
+		Duration timeoutDuration = Duration
+			.ofSeconds(timeout instanceof Number number ? number.longValue() : DEFAULT_TIMEOUT);
 
-		// timeout = timeout != null ? timeout : DEFAULT_TIMEOUT;
-		// String original_filename = filename;
-		// if (WIN32 && Arrays.asList("sh", "shell").contains(lang) && !useDocker) {
-		// lang = "ps1";
-		// }
-
-		if (filename == null) {
-			String code_hash = md5(code);
-			filename = String.format("tmp_code_%s.%s", code_hash, lang.startsWith("python") ? "py" : lang);
-		}
 		if (workDir == null) {
 			workDir = WORKING_DIR;
 		}
-		String filepath = Paths.get(workDir, filename).toString();
-		String file_dir = Paths.get(filepath).getParent().toString();
-		try {
-			Files.createDirectories(Paths.get(file_dir));
-		}
-		catch (IOException e) {
-			e.printStackTrace();
-		}
-
-		if (code != null) {
+		String filepath = null;
+		if (filename != null) {
+			filepath = Paths.get(workDir, filename).toString();
 			try {
-				FileWriter fout = new FileWriter(filepath);
-				fout.write(code);
-				fout.close();
+				Files.createDirectories(Paths.get(filepath).getParent());
+				if (code != null) {
+					Files.writeString(Paths.get(filepath), code);
+				}
 			}
 			catch (IOException e) {
-				e.printStackTrace();
+				log.error("Failed to write code to {}", filepath, e);
 			}
+			log.info("filepath:{}", filepath);
 		}
 
-		log.info("filepath:{}", filepath);
-
-		ExecuteCommandResult executeCommandResult = null;
-		if (lang.equals("python")) {
-			List<String> cmds = new ArrayList<>();
+		List<String> cmds = new ArrayList<>();
+		if (lang.startsWith("python")) {
 			if (arm64 != null) {
 				cmds.add("arch");
 				cmds.add(arm64 ? "-arm64" : "-x86_64");
 			}
 			cmds.add("python3");
-			cmds.add(filepath);
-			executeCommandResult = CodeUtils.executeCommand(cmds.toArray(new String[] {}));
+			cmds.add(filepath != null ? filepath : "-");
 		}
 		else if (lang.equals("sh")) {
-			String[] cmd = { "sh", filepath, };
-			executeCommandResult = CodeUtils.executeCommand(cmd);
+			cmds.add("sh");
+			cmds.add(filepath != null ? filepath : "-s");
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported language: " + lang);
 		}
 
+		ProcessExecutor.Request request = ProcessExecutor.Request.of(cmds).withTimeout(timeoutDuration);
+		if (filepath == null) {
+			request = request.withStdin(code);
+		}
+		if (Files.isDirectory(Paths.get(workDir))) {
+			request = request.withWorkingDirectory(new File(workDir));
+		}
+		ExecuteCommandResult executeCommandResult = executeCommand(request);
+
 		CodeExecutionResult codeExecutionResult = new CodeExecutionResult();
 		codeExecutionResult.setExitcode(executeCommandResult.getExitCode());
 		codeExecutionResult.setLogs(executeCommandResult.getOutput());
@@ -166,53 +162,32 @@ public class CodeUtils {
 	}
 
 	public static ExecuteCommandResult executeCommand(String... command) {
-		try {
-			Process process = new ProcessBuilder(command).start();
-
-			BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-			String errorResult = read(errorReader);
-			log.info("read python error={}", errorResult);
-
-			int exitCode = process.waitFor();
-
-			if (exitCode == 0) {
-				BufferedReader inputReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-				String successResult = read(inputReader);
-				log.info("read python success={}", successResult);
-
-				exitCode = process.waitFor();
-
-				ExecuteCommandResult executeCommandResult = new ExecuteCommandResult();
-				executeCommandResult.setExitCode(exitCode);
-				executeCommandResult.setOutput(successResult);
-				return executeCommandResult;
-			}
+		return executeCommand(ProcessExecutor.Request.of(command).withTimeout(Duration.ofSeconds(DEFAULT_TIMEOUT)));
+	}
 
-			ExecuteCommandResult executeCommandResult = new ExecuteCommandResult();
-			executeCommandResult.setExitCode(exitCode);
-			executeCommandResult.setOutput(errorResult);
-			return executeCommandResult;
+	/**
+	 * 在共享的 {@link ProcessExecutor} 上执行。成功时返回 stdout，失败时返回 stdout 与 stderr。
+	 */
+	static ExecuteCommandResult executeCommand(ProcessExecutor.Request request) {
+		ExecuteCommandResult executeCommandResult = new ExecuteCommandResult();
+		try {
+			ProcessExecutor.Result result = ProcessExecutor.INSTANCE.run(request);
+			log.info("execute {} exit={} timedOut={} in {}", request.command(), result.exitCode(), result.timedOut(),
+					result.duration());
+			executeCommandResult.setExitCode(result.exitCode());
+			executeCommandResult.setOutput(result.succeeded() ? result.stdout() : result.output());
 		}
-		catch (Exception e) {
-			log.error("executePythonCode error", e);
-			return null;
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			executeCommandResult.setExitCode(-1);
+			executeCommandResult.setOutput("Interrupted");
 		}
-	}
-
-	private static String read(BufferedReader reader) {
-		List<String> resultList = new ArrayList<>();
-		String response = EMPTY;
-		while (true) {
-			try {
-				if (!((response = reader.readLine()) != null)) {
-					break;
-				}
-			}
-			catch (IOException e) {
-			}
-			resultList.add(response);
+		catch (RuntimeException e) {
+			log.error("executeCommand error", e);
+			executeCommandResult.setExitCode(-1);
+			executeCommandResult.setOutput("Failed to execute: " + e.getMessage());
 		}
-		return resultList.stream().collect(Collectors.joining("\n"));
+		return executeCommandResult;
 	}
 
 }
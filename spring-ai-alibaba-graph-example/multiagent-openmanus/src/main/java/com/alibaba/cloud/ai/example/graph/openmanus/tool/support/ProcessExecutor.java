@@ -0,0 +1,516 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+/**
+ * Bash、PythonExecute 等工具共用的子进程执行器。
+ * <p>
+ * <ul>
+ * <li>并发上限：进程在 {@code maxConcurrent} 个工作线程上执行，排队超过 {@code queueCapacity} 的请求被拒绝。</li>
+ * <li>输出：stdout 与 stderr 由独立线程同时读取，不会因一端管道写满而互相阻塞；每一路只保留开头
+ * {@code headLimit} 与末尾 {@code tailLimit} 个字符（末尾用环形缓冲区），中间部分以截断提示代替。</li>
+ * <li>超时：超过请求的超时时间后强制结束进程及其全部子孙进程；调用方被中断或取消时同样结束进程树。</li>
+ * <li>流式：读到的输出块实时交给回调（{@link #run(Request, Consumer)}、{@link #submit}），或经 {@link #stream}
+ * 以 {@link Flux} 返回，供图节点作为流式输出。</li>
+ * </ul>
+ */
+public class ProcessExecutor implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(ProcessExecutor.class);
+
+	public static final ProcessExecutor INSTANCE = builder().build();
+
+	private static final int READ_BUFFER = 8192;
+
+	private final ThreadPoolExecutor workers;
+
+	private final ExecutorService drainers;
+
+	private final Duration defaultTimeout;
+
+	private final int headLimit;
+
+	private final int tailLimit;
+
+	private final long killGraceNanos;
+
+	private final int streamCapacity;
+
+	private ProcessExecutor(Builder builder) {
+		this.workers = new ThreadPoolExecutor(builder.maxConcurrent, builder.maxConcurrent, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(builder.queueCapacity), daemon("process-executor"));
+		this.workers.allowCoreThreadTimeOut(true);
+		// 读取线程数随运行中的进程数变化，最多 2 * maxConcurrent
+		this.drainers = Executors.newCachedThreadPool(daemon("process-output"));
+		this.defaultTimeout = builder.defaultTimeout;
+		this.headLimit = builder.headLimit;
+		this.tailLimit = builder.tailLimit;
+		this.killGraceNanos = builder.killGrace.toNanos();
+		this.streamCapacity = builder.streamCapacity;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * 执行并等待结果。等待期间被中断时结束进程树并抛出 {@link InterruptedException}。
+	 * @throws java.util.concurrent.RejectedExecutionException 排队的请求已满
+	 */
+	public Result run(Request request) throws InterruptedException {
+		return run(request, chunk -> {
+		});
+	}
+
+	public Result run(Request request, Consumer<Chunk> listener) throws InterruptedException {
+		Future<Result> future = submit(request, listener);
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Failed to execute " + request.command(), cause);
+		}
+	}
+
+	/**
+	 * 提交到工作线程执行。取消返回的 Future（{@code mayInterruptIfRunning = true}）会结束进程树。
+	 */
+	public Future<Result> submit(Request request, Consumer<Chunk> listener) {
+		return workers.submit(() -> execute(request, listener));
+	}
+
+	/**
+	 * 以 {@link Flux} 返回输出块：订阅时提交执行，进程结束后完成，取消订阅会结束进程树。完成之前把执行结果交给
+	 * {@code onResult}。下游跟不上时最多缓存 {@code streamCapacity} 个输出块，其余丢弃（结果中的首尾输出不受影响）。
+	 */
+	public Flux<Chunk> stream(Request request, Consumer<Result> onResult) {
+		Flux<Chunk> chunks = Flux.create(sink -> {
+			Future<Result> future = submit(request, sink::next);
+			sink.onCancel(() -> future.cancel(true));
+			drainers.execute(() -> {
+				try {
+					onResult.accept(future.get());
+					sink.complete();
+				}
+				catch (CancellationException e) {
+					// 订阅已取消，不再发出信号
+				}
+				catch (ExecutionException e) {
+					sink.error(e.getCause());
+				}
+				catch (InterruptedException e) {
+					future.cancel(true);
+					sink.error(e);
+				}
+				catch (RuntimeException e) {
+					sink.error(e);
+				}
+			});
+		});
+		return chunks.onBackpressureBuffer(streamCapacity,
+				chunk -> log.debug("Dropped {} chunk of {}", chunk.stream(), request.command()),
+				BufferOverflowStrategy.DROP_LATEST);
+	}
+
+	private Result execute(Request request, Consumer<Chunk> listener) throws IOException, InterruptedException {
+		ProcessBuilder builder = new ProcessBuilder(request.command());
+		if (request.workingDirectory() != null) {
+			builder.directory(request.workingDirectory());
+		}
+		Duration timeout = request.timeout() != null ? request.timeout() : defaultTimeout;
+		long start = System.nanoTime();
+		Process process = builder.start();
+		OutputBuffer stdout = new OutputBuffer(headLimit, tailLimit);
+		OutputBuffer stderr = new OutputBuffer(headLimit, tailLimit);
+		Future<?> stdoutDrain = drainers.submit(
+				() -> drain(process.getInputStream(), Chunk.Stream.STDOUT, stdout, listener));
+		Future<?> stderrDrain = drainers.submit(
+				() -> drain(process.getErrorStream(), Chunk.Stream.STDERR, stderr, listener));
+		boolean timedOut = false;
+		try {
+			writeStdin(process, request.stdin());
+			if (!process.waitFor(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+				timedOut = true;
+				log.warn("Process {} timed out after {}, killing process tree", request.command(), timeout);
+				killTree(process);
+				process.waitFor(killGraceNanos, TimeUnit.NANOSECONDS);
+			}
+			awaitDrain(process, stdoutDrain, stderrDrain);
+		}
+		catch (InterruptedException e) {
+			killTree(process);
+			closeStreams(process);
+			throw e;
+		}
+		int exitCode = process.isAlive() ? -1 : process.exitValue();
+		return new Result(exitCode, stdout.toString(), stderr.toString(), timedOut,
+				Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	private void writeStdin(Process process, String stdin) {
+		if (stdin == null) {
+			closeQuietly(process.getOutputStream());
+			return;
+		}
+		// 进程不读 stdin 时写入可能阻塞，交给读取线程池写
+		drainers.execute(() -> {
+			try (OutputStream out = process.getOutputStream()) {
+				out.write(stdin.getBytes(StandardCharsets.UTF_8));
+			}
+			catch (IOException e) {
+				log.debug("Process closed stdin early", e);
+			}
+		});
+	}
+
+	private void drain(InputStream in, Chunk.Stream stream, OutputBuffer buffer, Consumer<Chunk> listener) {
+		char[] chars = new char[READ_BUFFER];
+		try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			int read;
+			while ((read = reader.read(chars)) != -1) {
+				buffer.append(chars, 0, read);
+				try {
+					listener.accept(new Chunk(stream, new String(chars, 0, read)));
+				}
+				catch (RuntimeException e) {
+					log.warn("Process output listener failed", e);
+				}
+			}
+		}
+		catch (IOException e) {
+			// 进程被结束或流被关闭
+			log.debug("Stopped reading process {}", stream, e);
+		}
+	}
+
+	/**
+	 * 进程退出后等待输出读完。后台子进程可能继承管道一直不关闭，超过宽限时间后直接关闭管道。
+	 */
+	private void awaitDrain(Process process, Future<?>... drains) throws InterruptedException {
+		long deadline = System.nanoTime() + killGraceNanos;
+		for (Future<?> drain : drains) {
+			try {
+				drain.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			}
+			catch (TimeoutException e) {
+				closeStreams(process);
+				drain.cancel(true);
+			}
+			catch (ExecutionException e) {
+				log.warn("Failed to read process output", e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * 先记录子孙进程再结束父进程，避免子进程被过继后漏掉。
+	 */
+	static void killTree(Process process) {
+		List<ProcessHandle> descendants = process.descendants().toList();
+		process.destroyForcibly();
+		descendants.forEach(ProcessHandle::destroyForcibly);
+	}
+
+	private static void closeStreams(Process process) {
+		closeQuietly(process.getInputStream());
+		closeQuietly(process.getErrorStream());
+		closeQuietly(process.getOutputStream());
+	}
+
+	private static void closeQuietly(AutoCloseable closeable) {
+		try {
+			closeable.close();
+		}
+		catch (Exception e) {
+			log.debug("Failed to close process stream", e);
+		}
+	}
+
+	private static ThreadFactory daemon(String name) {
+		AtomicInteger index = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + index.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	public int activeCount() {
+		return workers.getActiveCount();
+	}
+
+	/**
+	 * 不再接受新请求，并结束正在运行的进程。
+	 */
+	@Override
+	public void close() {
+		workers.shutdownNow();
+		drainers.shutdown();
+	}
+
+	/**
+	 * 一次执行请求。{@code stdin} 为 null 时立即关闭进程的标准输入；{@code timeout} 为 null 时使用执行器的默认超时。
+	 */
+	public record Request(List<String> command, File workingDirectory, String stdin, Duration timeout) {
+
+		public Request {
+			command = List.copyOf(command);
+		}
+
+		public static Request of(List<String> command) {
+			return new Request(command, null, null, null);
+		}
+
+		public static Request of(String... command) {
+			return of(List.of(command));
+		}
+
+		public Request withWorkingDirectory(File workingDirectory) {
+			return new Request(command, workingDirectory, stdin, timeout);
+		}
+
+		public Request withStdin(String stdin) {
+			return new Request(command, workingDirectory, stdin, timeout);
+		}
+
+		public Request withTimeout(Duration timeout) {
+			return new Request(command, workingDirectory, stdin, timeout);
+		}
+
+	}
+
+	/**
+	 * 执行结果。超时被结束时 {@code timedOut} 为 true，{@code exitCode} 为被强制结束后的退出码。
+	 */
+	public record Result(int exitCode, String stdout, String stderr, boolean timedOut, Duration duration) {
+
+		public boolean succeeded() {
+			return exitCode == 0 && !timedOut;
+		}
+
+		/**
+		 * stdout 与 stderr 拼接后的输出，超时时追加提示。
+		 */
+		public String output() {
+			StringBuilder output = new StringBuilder(stdout);
+			if (!stderr.isEmpty()) {
+				if (!output.isEmpty() && output.charAt(output.length() - 1) != '\n') {
+					output.append('\n');
+				}
+				output.append(stderr);
+			}
+			if (timedOut) {
+				if (!output.isEmpty() && output.charAt(output.length() - 1) != '\n') {
+					output.append('\n');
+				}
+				output.append("Command timed out after ").append(duration.toSeconds()).append("s and was killed.");
+			}
+			return output.toString();
+		}
+
+	}
+
+	/**
+	 * 一次读到的输出块。
+	 */
+	public record Chunk(Stream stream, String text) {
+
+		public enum Stream {
+
+			STDOUT, STDERR
+
+		}
+
+	}
+
+	/**
+	 * 只保留开头 {@code headLimit} 与末尾 {@code tailLimit} 个字符的输出缓冲区，末尾部分是一个环形缓冲区。
+	 */
+	static final class OutputBuffer {
+
+		private final char[] head;
+
+		private final char[] tail;
+
+		private int headSize;
+
+		/**
+		 * 环形缓冲区中最旧字符的位置。
+		 */
+		private int tailStart;
+
+		private int tailSize;
+
+		private long total;
+
+		OutputBuffer(int headLimit, int tailLimit) {
+			this.head = new char[headLimit];
+			this.tail = new char[tailLimit];
+		}
+
+		synchronized void append(char[] chars, int offset, int length) {
+			total += length;
+			int toHead = Math.min(length, head.length - headSize);
+			System.arraycopy(chars, offset, head, headSize, toHead);
+			headSize += toHead;
+			offset += toHead;
+			length -= toHead;
+			if (length == 0 || tail.length == 0) {
+				return;
+			}
+			if (length >= tail.length) {
+				System.arraycopy(chars, offset + length - tail.length, tail, 0, tail.length);
+				tailStart = 0;
+				tailSize = tail.length;
+				return;
+			}
+			int end = (tailStart + tailSize) % tail.length;
+			int first = Math.min(length, tail.length - end);
+			System.arraycopy(chars, offset, tail, end, first);
+			System.arraycopy(chars, offset + first, tail, 0, length - first);
+			int overflow = tailSize + length - tail.length;
+			if (overflow > 0) {
+				tailStart = (tailStart + overflow) % tail.length;
+				tailSize = tail.length;
+			}
+			else {
+				tailSize += length;
+			}
+		}
+
+		@Override
+		public synchronized String toString() {
+			StringBuilder out = new StringBuilder(headSize + tailSize + 64);
+			out.append(head, 0, headSize);
+			long omitted = total - headSize - tailSize;
+			if (omitted > 0) {
+				out.append("\n... [").append(omitted).append(" characters truncated] ...\n");
+			}
+			int first = Math.min(tailSize, tail.length - tailStart);
+			out.append(tail, tailStart, first);
+			out.append(tail, 0, tailSize - first);
+			return out.toString();
+		}
+
+	}
+
+	public static final class Builder {
+
+		private int maxConcurrent = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+		private int queueCapacity = 64;
+
+		private Duration defaultTimeout = Duration.ofMinutes(10);
+
+		private int headLimit = 4000;
+
+		private int tailLimit = 4000;
+
+		private Duration killGrace = Duration.ofSeconds(2);
+
+		private int streamCapacity = 256;
+
+		private Builder() {
+		}
+
+		public Builder maxConcurrent(int maxConcurrent) {
+			this.maxConcurrent = maxConcurrent;
+			return this;
+		}
+
+		public Builder queueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		public Builder defaultTimeout(Duration defaultTimeout) {
+			this.defaultTimeout = defaultTimeout;
+			return this;
+		}
+
+		/**
+		 * stdout、stderr 各自保留的开头与末尾字符数。
+		 */
+		public Builder outputLimit(int headLimit, int tailLimit) {
+			this.headLimit = headLimit;
+			this.tailLimit = tailLimit;
+			return this;
+		}
+
+		/**
+		 * 结束进程后等待其退出、以及进程退出后等待输出读完的时间。
+		 */
+		public Builder killGrace(Duration killGrace) {
+			this.killGrace = killGrace;
+			return this;
+		}
+
+		/**
+		 * {@link #stream} 中下游尚未消费的输出块上限。
+		 */
+		public Builder streamCapacity(int streamCapacity) {
+			this.streamCapacity = streamCapacity;
+			return this;
+		}
+
+		public ProcessExecutor build() {
+			if (maxConcurrent < 1 || queueCapacity < 1 || streamCapacity < 1) {
+				throw new IllegalArgumentException("maxConcurrent, queueCapacity and streamCapacity must be positive");
+			}
+			if (headLimit < 0 || tailLimit < 0) {
+				throw new IllegalArgumentException("Output limits must not be negative");
+			}
+			return new ProcessExecutor(this);
+		}
+
+	}
+
+}
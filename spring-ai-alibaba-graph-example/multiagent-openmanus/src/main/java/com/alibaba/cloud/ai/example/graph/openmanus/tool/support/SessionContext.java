@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+
+import org.springframework.ai.chat.model.ToolContext;
+
+/**
+ * 工具调用所属的会话（session / thread id）。
+ * <p>
+ * ReactAgent 的子图只把 messages 传给工具节点，父图中的会话 ID 需要通过 {@link #scoped(NodeAction)}
+ * 绑定到执行子图的线程上，工具再用 {@link #sessionId(ToolContext)} 读取。
+ */
+public final class SessionContext {
+
+	/**
+	 * 会话 ID 在 ToolContext 或 OverAllState 中的 key。
+	 */
+	public static final String SESSION_ID = "session_id";
+
+	public static final String DEFAULT_SESSION = "default";
+
+	private static final ThreadLocal<String> BOUND_SESSION = new ThreadLocal<>();
+
+	private SessionContext() {
+	}
+
+	/**
+	 * 包装一个节点，在其执行期间把父图状态中的 {@value #SESSION_ID} 绑定到当前线程，供子图内的工具调用读取。
+	 */
+	public static NodeAction scoped(NodeAction action) {
+		return state -> {
+			String previous = BOUND_SESSION.get();
+			BOUND_SESSION.set(sessionId(state));
+			try {
+				return action.apply(state);
+			}
+			finally {
+				if (previous == null) {
+					BOUND_SESSION.remove();
+				}
+				else {
+					BOUND_SESSION.set(previous);
+				}
+			}
+		};
+	}
+
+	/**
+	 * 读取状态中的会话 ID，没有时使用 {@link #DEFAULT_SESSION}。
+	 */
+	public static String sessionId(OverAllState state) {
+		return state.value(SESSION_ID).map(Object::toString).orElse(DEFAULT_SESSION);
+	}
+
+	/**
+	 * 依次从 ToolContext、其中的 state、当前线程绑定的会话中读取会话 ID，都没有时使用 {@link #DEFAULT_SESSION}。
+	 */
+	public static String sessionId(ToolContext context) {
+		if (context != null) {
+			Object sessionId = context.getContext().get(SESSION_ID);
+			if (sessionId != null) {
+				return sessionId.toString();
+			}
+			if (context.getContext().get("state") instanceof OverAllState state && state.value(SESSION_ID).isPresent()) {
+				return sessionId(state);
+			}
+		}
+		String bound = BOUND_SESSION.get();
+		return bound != null ? bound : DEFAULT_SESSION;
+	}
+
+}
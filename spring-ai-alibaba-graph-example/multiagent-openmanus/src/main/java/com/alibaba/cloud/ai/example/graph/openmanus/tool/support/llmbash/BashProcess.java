@@ -15,12 +15,15 @@
  */
 package com.alibaba.cloud.ai.example.graph.openmanus.tool.support.llmbash;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.ProcessExecutor;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,42 +39,53 @@ public class BashProcess {
 	 * @return
 	 */
 	public static List<String> executeCommand(List<String> commandList, String workingDirectoryPath) {
-		return commandList.stream().map(commandLine -> {
-			try {
-				ProcessBuilder pb = new ProcessBuilder("bash", "-c", commandLine);
-				if (!StringUtils.isEmpty(workingDirectoryPath)) {
-					pb.directory(new File(workingDirectoryPath));
-				}
-
-				// 启动进程
-				Process process = pb.start();
-
-				// 获取命令输出
-				BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-				StringBuilder builder = new StringBuilder();
-				String line;
-				while ((line = reader.readLine()) != null) {
-					log.warn(line);
-					builder.append(line);
-					builder.append("\n");
-				}
-
-				// 等待命令执行完成
-				int exitCode = process.waitFor();
+		return executeCommand(ProcessExecutor.INSTANCE, commandList, workingDirectoryPath, chunk -> {
+		});
+	}
 
-				if (exitCode == 0) {
-					log.warn("Bash command executed successfully.");
-				}
-				else {
-					log.error("Failed to execute Bash command.");
-				}
-				return builder.toString();
+	/**
+	 * 在执行器上并发执行各条命令，按输入顺序返回每条命令的输出（stdout 与 stderr，首尾截断）。
+	 * @param listener 实时接收输出块
+	 */
+	public static List<String> executeCommand(ProcessExecutor executor, List<String> commandList,
+			String workingDirectoryPath, Consumer<ProcessExecutor.Chunk> listener) {
+		File workingDirectory = StringUtils.isEmpty(workingDirectoryPath) ? null : new File(workingDirectoryPath);
+		List<Future<ProcessExecutor.Result>> futures = new ArrayList<>();
+		List<String> results = new ArrayList<>();
+		try {
+			for (String commandLine : commandList) {
+				futures.add(executor.submit(
+						ProcessExecutor.Request.of("bash", "-c", commandLine).withWorkingDirectory(workingDirectory),
+						listener));
 			}
-			catch (Throwable e) {
-				e.printStackTrace();
+			for (int i = 0; i < futures.size(); i++) {
+				results.add(format(commandList.get(i), futures.get(i).get()));
 			}
-			return null;
-		}).collect(Collectors.toList());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			futures.forEach(future -> future.cancel(true));
+			results.add("Interrupted");
+		}
+		catch (ExecutionException | RejectedExecutionException e) {
+			log.error("Failed to execute Bash command", e);
+			futures.forEach(future -> future.cancel(true));
+			results.add("Failed to execute Bash command: " + e.getMessage());
+		}
+		return results;
+	}
+
+	/**
+	 * 命令的输出，失败时追加退出码
+	 */
+	public static String format(String commandLine, ProcessExecutor.Result result) {
+		if (result.succeeded()) {
+			log.info("Bash command executed successfully in {}: {}", result.duration(), commandLine);
+			return result.output();
+		}
+		log.warn("Bash command exited with {}{}: {}", result.exitCode(), result.timedOut() ? " (timed out)" : "",
+				commandLine);
+		return result.output() + "\nExit code: " + result.exitCode();
 	}
 
 }
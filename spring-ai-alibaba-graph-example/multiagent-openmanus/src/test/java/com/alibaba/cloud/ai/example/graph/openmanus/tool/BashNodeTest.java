@@ -0,0 +1,73 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.ProcessExecutor;
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.NodeOutput;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.alibaba.cloud.ai.graph.streaming.StreamingOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.alibaba.cloud.ai.graph.StateGraph.END;
+import static com.alibaba.cloud.ai.graph.StateGraph.START;
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BashNodeTest {
+
+	private final ProcessExecutor executor = ProcessExecutor.builder().build();
+
+	@AfterEach
+	void close() {
+		executor.close();
+	}
+
+	@Test
+	void streamsCommandOutputThroughGraph() throws Exception {
+		CompiledGraph graph = new StateGraph(() -> {
+			OverAllState state = new OverAllState();
+			state.registerKeyAndStrategy("command", new ReplaceStrategy());
+			state.registerKeyAndStrategy("command_output", new ReplaceStrategy());
+			return state;
+		}).addNode("bash", node_async(new BashNode("bash", "command", "command_output", null, executor)))
+			.addEdge(START, "bash")
+			.addEdge("bash", END)
+			.compile();
+
+		List<String> chunks = new ArrayList<>();
+		NodeOutput last = null;
+		for (NodeOutput output : graph.stream(Map.of("command", "echo one; sleep 0.2; echo two >&2; exit 3"))) {
+			if (output instanceof StreamingOutput streamingOutput) {
+				assertThat(output.node()).isEqualTo("bash");
+				chunks.add(streamingOutput.chunk());
+			}
+			last = output;
+		}
+
+		// 输出在进程运行过程中逐块到达，结束后格式化的结果写入状态
+		assertThat(chunks).containsExactly("one\n", "two\n");
+		assertThat(last.state().value("command_output")).contains("one\ntwo\n\nExit code: 3");
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.BrowserSessionPool;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.SessionContext;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.StubWebDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.chat.model.ToolContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BrowserUseToolTest {
+
+	private final List<StubWebDriver> drivers = new CopyOnWriteArrayList<>();
+
+	private final BrowserUseTool tool = new BrowserUseTool(BrowserSessionPool.builder(() -> {
+		StubWebDriver driver = new StubWebDriver(drivers.size());
+		drivers.add(driver);
+		return driver;
+	}).warmInstances(0).build());
+
+	@AfterEach
+	void close() {
+		tool.close();
+	}
+
+	@Test
+	void eachSessionBrowsesInItsOwnBrowser() {
+		assertThat(tool.apply("{\"action\": \"navigate\", \"url\": \"https://example.com/a\"}", session("a"))
+			.getOutput()).isEqualTo("Navigated to https://example.com/a");
+		tool.apply("{\"action\": \"navigate\", \"url\": \"https://example.com/b\"}", session("b"));
+
+		assertThat(drivers).extracting(StubWebDriver::getCurrentUrl)
+			.containsExactly("https://example.com/a", "https://example.com/b");
+
+		drivers.get(0).page("page of a");
+		assertThat(tool.apply("{\"action\": \"get_text\"}", session("a")).getOutput()).isEqualTo("page of a");
+	}
+
+	@Test
+	void truncatesExtractedContent() {
+		tool.run("{\"action\": \"navigate\", \"url\": \"https://example.com\"}");
+		StubWebDriver driver = drivers.get(0);
+		driver.page("x".repeat(BrowserUseTool.MAX_LENGTH * 4));
+
+		String text = tool.run("{\"action\": \"get_text\"}").getOutput();
+		assertThat(text).hasSize(BrowserUseTool.MAX_LENGTH + 3).endsWith("x...");
+		assertThat(driver.lastScriptArgs).containsExactly(BrowserUseTool.MAX_LENGTH, false);
+
+		String html = tool.run("{\"action\": \"get_html\"}").getOutput();
+		assertThat(html).hasSize(BrowserUseTool.MAX_LENGTH + 3).startsWith("<html><body>xxx");
+		assertThat(driver.lastScriptArgs).containsExactly(BrowserUseTool.MAX_LENGTH, true);
+
+		driver.page("short");
+		assertThat(tool.run("{\"action\": \"get_text\"}").getOutput()).isEqualTo("short");
+	}
+
+	private static ToolContext session(String sessionId) {
+		return new ToolContext(Map.of(SessionContext.SESSION_ID, sessionId));
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.PlanStore.StepStatus;
+import com.alibaba.cloud.ai.example.graph.openmanus.tool.support.SessionContext;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ToolContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PlanningToolTest {
+
+	private static final int SESSIONS = 400;
+
+	private static final int STEPS = 8;
+
+	@Test
+	void concurrentSessionsAreIsolated() throws Exception {
+		PlanStore store = new PlanStore();
+		PlanningTool tool = new PlanningTool(store);
+		ExecutorService executor = Executors.newFixedThreadPool(32);
+		try {
+			// 所有会话使用同一个 plan_id，只有按会话隔离时才不会互相覆盖
+			run(executor, tasks(SESSIONS, session -> tool.run("""
+					{"command": "create", "plan_id": "plan", "title": "title-%d", "steps": %s}
+					""".formatted(session, json(steps(session))), context(session))));
+
+			// 每个步骤的 mark_step 和标题修改作为独立任务打乱后并发执行，同一计划上会发生 CAS 竞争
+			List<Runnable> updates = new ArrayList<>();
+			for (int session = 0; session < SESSIONS; session++) {
+				int s = session;
+				for (int step = 0; step < STEPS; step++) {
+					int i = step;
+					updates.add(() -> tool.run("""
+							{"command": "mark_step", "step_index": %d, "step_status": "completed", "step_notes": "%d-%d"}
+							""".formatted(i, s, i), context(s)));
+				}
+				updates.add(() -> tool.run("""
+						{"command": "update", "plan_id": "plan", "title": "renamed-%d"}
+						""".formatted(s), context(s)));
+			}
+			Collections.shuffle(updates, new Random(42));
+			run(executor, updates);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(store.size()).isEqualTo(SESSIONS);
+		for (int session = 0; session < SESSIONS; session++) {
+			String id = "session-" + session;
+			PlanStore.Snapshot plan = store.get(id, "plan");
+			assertThat(plan.title()).isEqualTo("renamed-" + session);
+			assertThat(plan.steps()).isEqualTo(steps(session));
+			assertThat(plan.statuses()).containsOnly(StepStatus.COMPLETED);
+			for (int step = 0; step < STEPS; step++) {
+				assertThat(plan.notes().get(step)).isEqualTo(session + "-" + step);
+			}
+			assertThat(plan.isCompleted()).isTrue();
+			assertThat(store.list(id)).hasSize(1);
+			assertThat(store.activePlanId(id)).isEqualTo("plan");
+		}
+	}
+
+	@Test
+	void parsesTypedCommands() {
+		PlanningTool tool = new PlanningTool(new PlanStore());
+		OverAllState state = new OverAllState(Map.of("messages", List.of(new UserMessage("查询最近的新闻"))));
+		ToolContext context = new ToolContext(Map.of("state", state, SessionContext.SESSION_ID, "a"));
+
+		String planId = tool.run("""
+				{"command": "create", "title": "news", "steps": ["search", "summarize"], "unknown": true}
+				""", context);
+		assertThat(planId).startsWith("G_");
+		assertThat(tool.getGraphPlan("a", planId).nextStepPrompt()).contains("查询最近的新闻", "search");
+
+		String marked = tool.run("""
+				{"command": "mark_step", "step_index": 1, "step_status": "in_progress"}
+				""", context);
+		assertThat(marked).contains("1. [→] summarize");
+		assertThat(tool.run("{\"command\": \"list\"}", context)).contains(planId + " (active): news - 0/2");
+
+		assertThatThrownBy(() -> tool.run("""
+				{"command": "mark_step", "step_index": 0, "step_status": "done"}
+				""", context)).hasMessageContaining("Invalid step_status: done");
+		assertThatThrownBy(() -> tool.run("""
+				{"command": "mark_step", "step_index": 2, "step_status": "completed"}
+				""", context)).hasMessageContaining("Invalid step_index: 2");
+		assertThatThrownBy(() -> tool.run("{\"command\": \"get\"}", context(1)))
+			.hasMessageContaining("No active plan");
+	}
+
+	@Test
+	void evictsPlansNotUpdatedWithinTtl() {
+		AtomicLong clock = new AtomicLong();
+		PlanStore store = new PlanStore(Duration.ofSeconds(10), clock::get);
+		PlanningTool tool = new PlanningTool(store);
+
+		tool.createPlan("a", "done", "done", List.of("one", "two"), null);
+		tool.createPlan("a", "abandoned", "abandoned", List.of("one", "two"), null);
+		tool.createPlan("a", "running", "running", List.of("one", "two"), null);
+		tool.completePlan("a", "done");
+		tool.markStep("a", "abandoned", 0, "in_progress", null);
+
+		clock.addAndGet(Duration.ofSeconds(5).toNanos());
+		tool.markStep("a", "running", 0, "completed", null);
+
+		// 完成与否不影响过期，只看最后一次修改的时间
+		clock.addAndGet(Duration.ofSeconds(4).toNanos());
+		assertThat(store.evictExpired()).isZero();
+		clock.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertThat(store.evictExpired()).isEqualTo(2);
+		assertThat(store.list("a")).extracting(PlanStore.Snapshot::planId).containsExactly("running");
+		assertThat(store.activePlanId("a")).isEqualTo("running");
+
+		// 读操作不延长计划的有效期；写操作会顺带触发清理
+		clock.addAndGet(Duration.ofSeconds(4).toNanos());
+		tool.getPlan("a", "running");
+		clock.addAndGet(Duration.ofSeconds(1).toNanos());
+		tool.createPlan("b", "other", "other", List.of("one"), null);
+		assertThat(store.list("a")).isEmpty();
+		assertThat(store.activePlanId("a")).isNull();
+		assertThat(store.size()).isEqualTo(1);
+	}
+
+	private static List<String> steps(int session) {
+		List<String> steps = new ArrayList<>();
+		for (int step = 0; step < STEPS; step++) {
+			steps.add("step " + step + " of session " + session);
+		}
+		return steps;
+	}
+
+	private static String json(List<String> values) {
+		return "[\"" + String.join("\", \"", values) + "\"]";
+	}
+
+	private static ToolContext context(int session) {
+		return new ToolContext(Map.of(SessionContext.SESSION_ID, "session-" + session));
+	}
+
+	private static List<Runnable> tasks(int count, IntConsumer task) {
+		List<Runnable> tasks = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			int index = i;
+			tasks.add(() -> task.accept(index));
+		}
+		return tasks;
+	}
+
+	private static void run(ExecutorService executor, List<Runnable> tasks) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (Runnable task : tasks) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				task.run();
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BrowserSessionPoolTest {
+
+	private final List<StubWebDriver> drivers = new CopyOnWriteArrayList<>();
+
+	private BrowserSessionPool pool;
+
+	@AfterEach
+	void close() {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Test
+	void keepsSessionAffinity() throws Exception {
+		pool = builder().warmInstances(0).build();
+
+		try (BrowserSessionPool.Lease lease = pool.acquire("a")) {
+			lease.driver().get("https://example.com/a");
+		}
+		try (BrowserSessionPool.Lease a = pool.acquire("a"); BrowserSessionPool.Lease b = pool.acquire("b")) {
+			assertThat(a.driver().getCurrentUrl()).isEqualTo("https://example.com/a");
+			assertThat(b.driver()).isNotSameAs(a.driver());
+			assertThat(b.driver().getCurrentUrl()).isEqualTo("about:blank");
+		}
+		assertThat(drivers).hasSize(2);
+		assertThat(pool.stats()).isEqualTo(new BrowserSessionPool.Stats(2, 0, 2, 0));
+	}
+
+	@Test
+	void prestartsWarmInstances() throws Exception {
+		pool = builder().warmInstances(2).build();
+		awaitWarm(2);
+
+		try (BrowserSessionPool.Lease lease = pool.acquire("a")) {
+			assertThat(drivers).contains((StubWebDriver) lease.driver());
+		}
+		// 被取走的预热实例在后台补齐
+		awaitWarm(2);
+		assertThat(drivers).hasSize(3);
+		assertThat(pool.stats().live()).isEqualTo(3);
+	}
+
+	@Test
+	void limitsConcurrentBrowsers() throws Exception {
+		pool = builder().maxSessions(3).warmInstances(1).build();
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger maxConcurrent = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(12);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int session = 0; session < 12; session++) {
+				String id = "session-" + session;
+				futures.add(executor.submit(() -> {
+					for (int call = 0; call < 5; call++) {
+						try (BrowserSessionPool.Lease lease = pool.acquire(id)) {
+							StubWebDriver driver = (StubWebDriver) lease.driver();
+							assertThat(driver.inUse.incrementAndGet()).isEqualTo(1);
+							maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+							driver.get("https://example.com/" + id);
+							Thread.sleep(2);
+							assertThat(driver.getCurrentUrl()).isEqualTo("https://example.com/" + id);
+							concurrent.decrementAndGet();
+							driver.inUse.decrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(maxConcurrent.get()).isBetween(1, 3);
+		assertThat(drivers).hasSizeLessThanOrEqualTo(3);
+		// 满额时复用其他会话的浏览器前会清空 cookie
+		assertThat(drivers.stream().mapToInt(driver -> driver.cookiesCleared.get()).sum()).isPositive();
+		assertThat(pool.stats().busy()).isZero();
+	}
+
+	@Test
+	void replacesUnhealthyBrowsers() throws Exception {
+		pool = builder().warmInstances(0).build();
+		StubWebDriver first;
+		try (BrowserSessionPool.Lease lease = pool.acquire("a")) {
+			first = (StubWebDriver) lease.driver();
+		}
+		first.crash();
+
+		try (BrowserSessionPool.Lease lease = pool.acquire("a")) {
+			assertThat(lease.driver()).isNotSameAs(first);
+			assertThat(lease.driver().getCurrentUrl()).isEqualTo("about:blank");
+		}
+		assertThat(first.isQuit()).isTrue();
+		assertThat(pool.stats().live()).isEqualTo(1);
+	}
+
+	@Test
+	void evictsIdleSessions() throws Exception {
+		AtomicLong clock = new AtomicLong();
+		pool = builder().warmInstances(0).idleTimeout(Duration.ofMinutes(10)).clock(clock::get).build();
+		pool.acquire("a").close();
+		clock.addAndGet(Duration.ofMinutes(6).toNanos());
+		BrowserSessionPool.Lease busy = pool.acquire("b");
+
+		clock.addAndGet(Duration.ofMinutes(6).toNanos());
+		assertThat(pool.evictIdle()).isEqualTo(1);
+		assertThat(drivers.get(0).isQuit()).isTrue();
+
+		// 正在使用的会话不会被回收
+		clock.addAndGet(Duration.ofMinutes(20).toNanos());
+		assertThat(pool.evictIdle()).isZero();
+		busy.close();
+		clock.addAndGet(Duration.ofMinutes(10).toNanos());
+		assertThat(pool.evictIdle()).isEqualTo(1);
+		assertThat(pool.stats()).isEqualTo(new BrowserSessionPool.Stats(0, 0, 0, 0));
+	}
+
+	@Test
+	void timesOutWhenAllBrowsersAreBusy() throws Exception {
+		pool = builder().maxSessions(1).warmInstances(0).acquireTimeout(Duration.ofMillis(100)).build();
+
+		try (BrowserSessionPool.Lease lease = pool.acquire("a")) {
+			assertThatThrownBy(() -> pool.acquire("b")).isInstanceOf(TimeoutException.class);
+		}
+		try (BrowserSessionPool.Lease lease = pool.acquire("b")) {
+			assertThat(lease.driver()).isSameAs(drivers.get(0));
+		}
+	}
+
+	@Test
+	void releasedSessionReturnsBrowserToWarmPool() throws Exception {
+		pool = builder().maxSessions(1).warmInstances(1).build();
+		awaitWarm(1);
+		StubWebDriver driver;
+		try (BrowserSessionPool.Lease lease = pool.acquire("a")) {
+			driver = (StubWebDriver) lease.driver();
+			driver.get("https://example.com/a");
+			// 使用中结束会话，在归还时回收
+			pool.release("a");
+		}
+		awaitWarm(1);
+
+		assertThat(driver.getCurrentUrl()).isEqualTo("about:blank");
+		assertThat(driver.cookiesCleared).hasValue(1);
+		assertThat(pool.stats().sessions()).isZero();
+	}
+
+	private BrowserSessionPool.Builder builder() {
+		return BrowserSessionPool.builder(() -> {
+			StubWebDriver driver = new StubWebDriver(drivers.size());
+			drivers.add(driver);
+			return driver;
+		});
+	}
+
+	private void awaitWarm(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (pool.stats().warm() < count && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(pool.stats().warm()).isEqualTo(count);
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProcessExecutorTest {
+
+	private ProcessExecutor executor;
+
+	@AfterEach
+	void close() {
+		if (executor != null) {
+			executor.close();
+		}
+	}
+
+	@Test
+	void keepsHeadAndTailOfLargeOutput() {
+		ProcessExecutor.OutputBuffer buffer = new ProcessExecutor.OutputBuffer(4, 6);
+		for (char c = 'a'; c <= 'z'; c++) {
+			buffer.append(new char[] { c }, 0, 1);
+		}
+		assertThat(buffer).hasToString("abcd\n... [16 characters truncated] ...\nuvwxyz");
+
+		ProcessExecutor.OutputBuffer bulk = new ProcessExecutor.OutputBuffer(4, 6);
+		char[] chars = "0123456789abcdefghij".toCharArray();
+		bulk.append(chars, 0, 7);
+		bulk.append(chars, 7, 13);
+		assertThat(bulk).hasToString("0123\n... [10 characters truncated] ...\nefghij");
+
+		ProcessExecutor.OutputBuffer small = new ProcessExecutor.OutputBuffer(4, 6);
+		small.append(chars, 0, 10);
+		assertThat(small).hasToString("0123456789");
+	}
+
+	@Test
+	void drainsStdoutAndStderrConcurrently() throws Exception {
+		executor = ProcessExecutor.builder().outputLimit(100, 100).defaultTimeout(Duration.ofSeconds(30)).build();
+
+		// 先写满 stderr 再写 stdout，只读一路的实现会在这里死锁
+		ProcessExecutor.Result result = executor.run(ProcessExecutor.Request.of("bash", "-c",
+				"head -c 2000000 /dev/zero | tr '\\0' e >&2; seq 1 100000; echo done >&2"));
+
+		assertThat(result.succeeded()).isTrue();
+		assertThat(result.stdout()).startsWith("1\n2\n3\n").endsWith("99999\n100000\n").contains("characters truncated");
+		assertThat(result.stdout().length()).isLessThan(300);
+		assertThat(result.stderr()).startsWith("eeee").endsWith("eeeedone\n");
+	}
+
+	@Test
+	void killsProcessTreeOnTimeout() throws Exception {
+		executor = ProcessExecutor.builder().killGrace(Duration.ofMillis(500)).build();
+
+		ProcessExecutor.Result result = executor.run(ProcessExecutor.Request
+			.of("bash", "-c", "sleep 30 & echo $!; sleep 30")
+			.withTimeout(Duration.ofMillis(500)));
+
+		assertThat(result.timedOut()).isTrue();
+		assertThat(result.succeeded()).isFalse();
+		assertThat(result.duration()).isLessThan(Duration.ofSeconds(10));
+		assertThat(result.output()).contains("Command timed out");
+		long child = Long.parseLong(result.stdout().trim());
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (ProcessHandle.of(child).map(ProcessHandle::isAlive).orElse(false) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(ProcessHandle.of(child).map(ProcessHandle::isAlive).orElse(false)).isFalse();
+	}
+
+	@Test
+	void boundsConcurrentProcesses() throws Exception {
+		executor = ProcessExecutor.builder().maxConcurrent(2).queueCapacity(4).build();
+
+		long start = System.nanoTime();
+		List<Future<ProcessExecutor.Result>> futures = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			futures.add(executor.submit(ProcessExecutor.Request.of("bash", "-c", "sleep 0.3; echo " + i), chunk -> {
+			}));
+		}
+		assertThatThrownBy(() -> executor.submit(ProcessExecutor.Request.of("true"), chunk -> {
+		})).isInstanceOf(RejectedExecutionException.class);
+		for (int i = 0; i < futures.size(); i++) {
+			assertThat(futures.get(i).get(30, TimeUnit.SECONDS).stdout()).isEqualTo(i + "\n");
+		}
+
+		// 6 个 0.3 秒的进程在 2 个工作线程上至少需要 3 轮
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(850));
+	}
+
+	@Test
+	void passesStdinToProcess() throws Exception {
+		executor = ProcessExecutor.builder().build();
+
+		ProcessExecutor.Result result = executor.run(ProcessExecutor.Request.of("cat").withStdin("print('hi')\n"));
+
+		assertThat(result.stdout()).isEqualTo("print('hi')\n");
+		assertThat(executor.run(ProcessExecutor.Request.of("cat")).stdout()).isEmpty();
+	}
+
+	@Test
+	void deliversOutputChunksWhileProcessRuns() throws Exception {
+		executor = ProcessExecutor.builder().build();
+		BlockingQueue<ProcessExecutor.Chunk> chunks = new LinkedBlockingQueue<>();
+
+		Future<ProcessExecutor.Result> future = executor.submit(
+				ProcessExecutor.Request.of("bash", "-c", "echo one; sleep 2; echo two"), chunks::add);
+
+		// 第一块在进程结束前就已送达
+		assertThat(chunks.poll(5, TimeUnit.SECONDS))
+			.isEqualTo(new ProcessExecutor.Chunk(ProcessExecutor.Chunk.Stream.STDOUT, "one\n"));
+		assertThat(future.isDone()).isFalse();
+		assertThat(chunks.poll(5, TimeUnit.SECONDS))
+			.isEqualTo(new ProcessExecutor.Chunk(ProcessExecutor.Chunk.Stream.STDOUT, "two\n"));
+		assertThat(future.get(5, TimeUnit.SECONDS).stdout()).isEqualTo("one\ntwo\n");
+	}
+
+	@Test
+	void streamsChunksAndHandsOverResult() {
+		executor = ProcessExecutor.builder().build();
+		AtomicReference<ProcessExecutor.Result> result = new AtomicReference<>();
+
+		List<String> chunks = executor
+			.stream(ProcessExecutor.Request.of("bash", "-c", "echo one; sleep 0.2; echo two"), result::set)
+			.map(ProcessExecutor.Chunk::text)
+			.collectList()
+			.block(Duration.ofSeconds(10));
+
+		assertThat(chunks).containsExactly("one\n", "two\n");
+		assertThat(result.get().stdout()).isEqualTo("one\ntwo\n");
+	}
+
+	@Test
+	void cancellingStreamKillsProcess() throws Exception {
+		executor = ProcessExecutor.builder().build();
+		BlockingQueue<String> chunks = new LinkedBlockingQueue<>();
+
+		Disposable subscription = executor
+			.stream(ProcessExecutor.Request.of("bash", "-c", "echo $$; sleep 30"), result -> {
+			})
+			.subscribe(chunk -> chunks.add(chunk.text()));
+		long pid = Long.parseLong(chunks.poll(5, TimeUnit.SECONDS).trim());
+		subscription.dispose();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)).isFalse();
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.graph.openmanus.tool.support;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * 测试用的无界面浏览器替身：记录当前地址和页面文本，不启动真实浏览器。
+ * <p>
+ * 两个参数（长度上限、是否 HTML）的脚本按 BrowserUseTool 的提取脚本处理，返回截断后的页面内容。
+ */
+public class StubWebDriver implements WebDriver, JavascriptExecutor {
+
+	private final int id;
+
+	/**
+	 * 同时持有该浏览器的调用数，池正确时不会超过 1。
+	 */
+	public final AtomicInteger inUse = new AtomicInteger();
+
+	public final AtomicInteger cookiesCleared = new AtomicInteger();
+
+	public volatile Object[] lastScriptArgs;
+
+	private volatile String url = "about:blank";
+
+	private volatile String text = "";
+
+	private volatile boolean crashed;
+
+	private volatile boolean quit;
+
+	public StubWebDriver(int id) {
+		this.id = id;
+	}
+
+	public int id() {
+		return id;
+	}
+
+	public void page(String text) {
+		this.text = text;
+	}
+
+	public void crash() {
+		crashed = true;
+	}
+
+	public boolean isQuit() {
+		return quit;
+	}
+
+	@Override
+	public void get(String url) {
+		check();
+		this.url = url;
+		if ("about:blank".equals(url)) {
+			text = "";
+		}
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		check();
+		return url;
+	}
+
+	@Override
+	public String getTitle() {
+		check();
+		return url;
+	}
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		check();
+		return List.of();
+	}
+
+	@Override
+	public WebElement findElement(By by) {
+		check();
+		throw new NoSuchElementException(by.toString());
+	}
+
+	@Override
+	public String getPageSource() {
+		check();
+		return "<html><body>" + text + "</body></html>";
+	}
+
+	@Override
+	public void close() {
+		check();
+	}
+
+	@Override
+	public void quit() {
+		quit = true;
+	}
+
+	@Override
+	public Set<String> getWindowHandles() {
+		check();
+		return Set.of(getWindowHandle());
+	}
+
+	@Override
+	public String getWindowHandle() {
+		check();
+		return "window-" + id;
+	}
+
+	@Override
+	public TargetLocator switchTo() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Navigation navigate() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Options manage() {
+		check();
+		return (Options) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Options.class },
+				(proxy, method, args) -> {
+					if ("deleteAllCookies".equals(method.getName())) {
+						cookiesCleared.incrementAndGet();
+					}
+					return null;
+				});
+	}
+
+	@Override
+	public Object executeScript(String script, Object... args) {
+		check();
+		lastScriptArgs = args;
+		if (args.length == 2 && args[0] instanceof Integer limit && args[1] instanceof Boolean html) {
+			String content = html ? getPageSource() : text;
+			boolean truncated = content.length() > limit;
+			return List.of(truncated ? content.substring(0, limit) : content, truncated);
+		}
+		return null;
+	}
+
+	@Override
+	public Object executeAsyncScript(String script, Object... args) {
+		throw new UnsupportedOperationException();
+	}
+
+	private void check() {
+		if (crashed || quit) {
+			throw new NoSuchSessionException("Browser " + id + " is gone");
+		}
+	}
+
+}
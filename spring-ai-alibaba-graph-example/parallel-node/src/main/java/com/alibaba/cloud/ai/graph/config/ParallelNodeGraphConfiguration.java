@@ -23,9 +23,11 @@ import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.dispatcher.CollectorDispatcher;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
-import com.alibaba.cloud.ai.graph.node.CollectorNode;
+import com.alibaba.cloud.ai.graph.node.BranchExecutor;
+import com.alibaba.cloud.ai.graph.node.BranchNode;
 import com.alibaba.cloud.ai.graph.node.DispatcherNode;
 import com.alibaba.cloud.ai.graph.node.ExpanderNode;
+import com.alibaba.cloud.ai.graph.node.JoinNode;
 import com.alibaba.cloud.ai.graph.node.TranslateNode;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import org.slf4j.Logger;
@@ -36,6 +38,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -53,8 +56,26 @@ public class ParallelNodeGraphConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(ParallelNodeGraphConfiguration.class);
 
+    private static final Duration BRANCH_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * 每次运行两个分支，最多同时执行 8 次运行，更多的分支排队
+     */
+    private static final int BRANCH_THREADS = 16;
+
+    private static final int BRANCH_QUEUE_CAPACITY = 64;
+
+    /**
+     * 容器关闭时调用 close，中断仍在执行的分支
+     */
+    @Bean
+    public BranchExecutor branchExecutor() {
+        return new BranchExecutor(BRANCH_THREADS, BRANCH_QUEUE_CAPACITY);
+    }
+
     @Bean
-    public StateGraph parallelNodeGraph(ChatClient.Builder chatClientBuilder) throws GraphStateException {
+    public StateGraph parallelNodeGraph(ChatClient.Builder chatClientBuilder, BranchExecutor branchExecutor)
+            throws GraphStateException {
         KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
                 .addPatternStrategy("query", new ReplaceStrategy())
                 .addPatternStrategy("expander_number", new ReplaceStrategy())
@@ -64,13 +85,27 @@ public class ParallelNodeGraphConfiguration {
                 .addPatternStrategy("collector_next_node", new ReplaceStrategy())
                 .addPatternStrategy("expand_status", new ReplaceStrategy())
                 .addPatternStrategy("translate_status", new ReplaceStrategy())
+                .addPatternStrategy(JoinNode.MISSING_KEY, new ReplaceStrategy())
+                .addPatternStrategy(JoinNode.ATTEMPTS_KEY, new ReplaceStrategy())
+                .build();
+
+        // 两个分支都有结果后立即结束；缺失的分支重新分派一次，仍然缺失则带着已有结果结束
+        JoinNode collector = JoinNode.builder()
+                .branch("translate_content")
+                .branch("expander_content")
+                .nextNodeKey("collector_next_node")
+                .retryNode("dispatcher")
+                .maxRetries(1)
+                .policy(JoinNode.PartialResultPolicy.RETRY_MISSING)
                 .build();
 
         StateGraph stateGraph = new StateGraph(keyStrategyFactory)
                 .addNode("dispatcher", node_async(new DispatcherNode()))
-                .addNode("translator", node_async(new TranslateNode(chatClientBuilder)))
-                .addNode("expander", node_async(new ExpanderNode(chatClientBuilder)))
-                .addNode("collector", node_async(new CollectorNode()))
+                .addNode("translator", node_async(BranchNode.of("translate_content",
+                        new TranslateNode(chatClientBuilder), BRANCH_TIMEOUT, branchExecutor)))
+                .addNode("expander", node_async(BranchNode.of("expander_content",
+                        new ExpanderNode(chatClientBuilder), BRANCH_TIMEOUT, branchExecutor)))
+                .addNode("collector", node_async(collector))
                 
                 // 并行边
                 .addEdge("dispatcher", "translator")
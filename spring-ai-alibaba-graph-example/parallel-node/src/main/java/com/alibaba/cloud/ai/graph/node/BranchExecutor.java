@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.node;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link BranchNode} 执行分支所用的有界线程池，由 Spring 容器或图的创建方持有，关闭时中断仍在执行的分支。
+ * <p>
+ * 超时的分支只能被中断：不响应中断的分支会继续占用线程直到自行结束，但线程数不会超过 maxThreads；
+ * 线程和队列都已占满时提交会被拒绝，BranchNode 将该分支视为缺失。
+ */
+public class BranchExecutor implements AutoCloseable {
+
+    private final ThreadPoolExecutor executor;
+
+    public BranchExecutor(int maxThreads, int queueCapacity) {
+        if (maxThreads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("maxThreads and queueCapacity must be positive");
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "graph-branch-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // 空闲时不保留线程
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @throws RejectedExecutionException 线程和队列已满或已经关闭
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 并行分支的包装，与 {@link JoinNode} 配合使用：
+ * <ul>
+ *     <li>结果 key 已经有值时直接跳过，重试时不会重复执行已经成功的分支；</li>
+ *     <li>分支超过 timeout 未返回时放弃该分支，结果 key 保持缺失，由 JoinNode 的策略处理；</li>
+ *     <li>分支返回流式结果（Flux）时，超时从分支开始计算，到期后流提前结束，保留已经输出的内容。</li>
+ * </ul>
+ * 分支抛出的异常同样视为缺失，不会中断其他分支。分支在 {@link BranchExecutor} 上执行，线程池已满时该分支同样视为缺失。
+ */
+public class BranchNode implements NodeAction {
+
+    private static final Logger logger = LoggerFactory.getLogger(BranchNode.class);
+
+    private final String resultKey;
+
+    private final NodeAction action;
+
+    private final Duration timeout;
+
+    /**
+     * 超时控制需要在独立线程上执行分支
+     */
+    private final BranchExecutor executor;
+
+    private BranchNode(String resultKey, NodeAction action, Duration timeout, BranchExecutor executor) {
+        this.resultKey = Objects.requireNonNull(resultKey, "resultKey must not be null");
+        this.action = Objects.requireNonNull(action, "action must not be null");
+        this.timeout = Objects.requireNonNull(timeout, "timeout must not be null");
+        this.executor = Objects.requireNonNull(executor, "executor must not be null");
+    }
+
+    public static BranchNode of(String resultKey, NodeAction action, Duration timeout, BranchExecutor executor) {
+        return new BranchNode(resultKey, action, timeout, executor);
+    }
+
+    @Override
+    public Map<String, Object> apply(OverAllState state) throws Exception {
+        if (state.value(resultKey).isPresent()) {
+            logger.info("branch {} already succeeded, skipping", resultKey);
+            return Map.of();
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Future<Map<String, Object>> future;
+        try {
+            future = executor.submit(() -> action.apply(state));
+        }
+        catch (RejectedExecutionException e) {
+            logger.warn("branch {} rejected, branch executor is full or closed", resultKey);
+            return Map.of();
+        }
+        Map<String, Object> result;
+        try {
+            result = future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException e) {
+            // 只能中断，不响应中断的分支继续占用 BranchExecutor 的线程直到结束
+            future.cancel(true);
+            logger.warn("branch {} timed out after {} ms", resultKey, timeout.toMillis());
+            return Map.of();
+        }
+        catch (ExecutionException e) {
+            logger.warn("branch {} failed: {}", resultKey, e.getCause().getMessage(), e.getCause());
+            return Map.of();
+        }
+
+        if (!(result.get(resultKey) instanceof Flux<?> flux)) {
+            return result;
+        }
+        // 流式结果在节点返回后才开始消费，剩余时间用于限制整个流
+        Duration remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+        Map<String, Object> bounded = new HashMap<>(result);
+        bounded.put(resultKey, flux.takeUntilOther(Mono.delay(remaining).doOnNext(tick ->
+                logger.warn("branch {} stream timed out after {} ms, keeping partial output", resultKey,
+                        timeout.toMillis()))));
+        return bounded;
+    }
+}
@@ -39,20 +39,19 @@ public class DispatcherNode implements NodeAction {
         
         Map<String, Object> updated = new HashMap<>();
         
-        String expandStatus = state.value("expand_status", "");
-        if (expandStatus.isEmpty()) {
+        // 只分派还没有结果的分支，重试时已经成功的分支不会再次执行
+        if (state.value("expander_content").isEmpty()) {
             updated.put("expand_status", "assigned");
             logger.info("Set expand_status to assigned");
         } else {
-            logger.info("expand_status already set to: {}", expandStatus);
+            logger.info("expander_content already present, skip expander");
         }
         
-        String translateStatus = state.value("translate_status", "");
-        if (translateStatus.isEmpty()) {
+        if (state.value("translate_content").isEmpty()) {
             updated.put("translate_status", "assigned");
             logger.info("Set translate_status to assigned");
         } else {
-            logger.info("translate_status already set to: {}", translateStatus);
+            logger.info("translate_content already present, skip translator");
         }
         
         return updated;
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 并行分支的汇合节点（join / barrier）。
+ * <p>
+ * 并行边上的所有分支结束后图才会执行到该节点，因此不需要等待或轮询：声明的分支结果 key 全部存在时立即走向 END。
+ * 有分支缺失（失败或超时，见 {@link BranchNode}）时按 {@link PartialResultPolicy} 处理：
+ * <ul>
+ *     <li>{@code RETRY_MISSING}：回到 retryNode 重新分派，只有缺失的分支会再次执行，超过 maxRetries 后按 PARTIAL 处理；</li>
+ *     <li>{@code PARTIAL}：带着已有结果结束，缺失的分支写入 {@code join_missing}；</li>
+ *     <li>{@code FAIL}：抛出异常终止工作流。</li>
+ * </ul>
+ * 下一个节点写入 nextNodeKey，由条件边读取。
+ */
+public class JoinNode implements NodeAction {
+
+    private static final Logger logger = LoggerFactory.getLogger(JoinNode.class);
+
+    public static final String MISSING_KEY = "join_missing";
+
+    public static final String ATTEMPTS_KEY = "join_attempts";
+
+    public enum PartialResultPolicy {
+
+        RETRY_MISSING,
+
+        PARTIAL,
+
+        FAIL
+    }
+
+    private final List<String> branchKeys;
+
+    private final String nextNodeKey;
+
+    private final String retryNode;
+
+    private final int maxRetries;
+
+    private final PartialResultPolicy policy;
+
+    private JoinNode(Builder builder) {
+        if (builder.branchKeys.isEmpty()) {
+            throw new IllegalArgumentException("at least one branch key must be declared");
+        }
+        if (builder.policy == PartialResultPolicy.RETRY_MISSING && builder.retryNode == null) {
+            throw new IllegalArgumentException("retryNode is required for RETRY_MISSING");
+        }
+        this.branchKeys = List.copyOf(builder.branchKeys);
+        this.nextNodeKey = Objects.requireNonNull(builder.nextNodeKey, "nextNodeKey must not be null");
+        this.retryNode = builder.retryNode;
+        this.maxRetries = builder.maxRetries;
+        this.policy = builder.policy;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public Map<String, Object> apply(OverAllState state) {
+        List<String> missing = new ArrayList<>();
+        for (String key : branchKeys) {
+            if (state.value(key).isEmpty()) {
+                missing.add(key);
+            }
+        }
+
+        Map<String, Object> updated = new HashMap<>();
+        updated.put(MISSING_KEY, missing);
+        if (missing.isEmpty()) {
+            logger.info("join node: all {} branches present -> {}", branchKeys.size(), StateGraph.END);
+            updated.put(nextNodeKey, StateGraph.END);
+            return updated;
+        }
+
+        int attempts = state.value(ATTEMPTS_KEY, 0);
+        if (policy == PartialResultPolicy.RETRY_MISSING && attempts < maxRetries) {
+            logger.info("join node: missing {}, retry {}/{} -> {}", missing, attempts + 1, maxRetries, retryNode);
+            updated.put(ATTEMPTS_KEY, attempts + 1);
+            updated.put(nextNodeKey, retryNode);
+            return updated;
+        }
+        if (policy == PartialResultPolicy.FAIL) {
+            throw new IllegalStateException("Parallel branches did not produce " + missing);
+        }
+
+        logger.warn("join node: finishing with partial results, missing {}", missing);
+        updated.put(nextNodeKey, StateGraph.END);
+        return updated;
+    }
+
+    public List<String> branchKeys() {
+        return branchKeys;
+    }
+
+    public static class Builder {
+
+        private final Set<String> branchKeys = new LinkedHashSet<>();
+
+        private String nextNodeKey;
+
+        private String retryNode;
+
+        private int maxRetries = 1;
+
+        private PartialResultPolicy policy = PartialResultPolicy.PARTIAL;
+
+        /**
+         * 声明一个分支的结果 key，该 key 有值即视为分支成功
+         */
+        public Builder branch(String resultKey) {
+            this.branchKeys.add(resultKey);
+            return this;
+        }
+
+        public Builder nextNodeKey(String nextNodeKey) {
+            this.nextNodeKey = nextNodeKey;
+            return this;
+        }
+
+        public Builder retryNode(String retryNode) {
+            this.retryNode = retryNode;
+            return this;
+        }
+
+        public Builder maxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Builder policy(PartialResultPolicy policy) {
+            this.policy = Objects.requireNonNull(policy);
+            return this;
+        }
+
+        public JoinNode build() {
+            return new JoinNode(this);
+        }
+    }
+}
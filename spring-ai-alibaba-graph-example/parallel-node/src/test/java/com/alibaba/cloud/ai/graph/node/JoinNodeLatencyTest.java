@@ -0,0 +1,224 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.graph.node;
+
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.dispatcher.CollectorDispatcher;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.alibaba.cloud.ai.graph.StateGraph.END;
+import static com.alibaba.cloud.ai.graph.action.AsyncEdgeAction.edge_async;
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 与 parallel-node 相同的拓扑（dispatcher -> translator / expander -> collector），分支用固定耗时的节点代替 LLM 调用。
+ */
+class JoinNodeLatencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JoinNodeLatencyTest.class);
+
+    private static final long BRANCH_MILLIS = 50;
+
+    private final BranchExecutor executor = new BranchExecutor(4, 16);
+
+    @AfterEach
+    void closeExecutor() {
+        executor.close();
+    }
+
+    @Test
+    void joinDoesNotWaitForBranchTimeout() throws Exception {
+        AtomicInteger translations = new AtomicInteger();
+        AtomicInteger expansions = new AtomicInteger();
+        Duration timeout = Duration.ofSeconds(5);
+        CompiledGraph graph = graph(
+                branch("translate_content", BRANCH_MILLIS, translations),
+                branch("expander_content", BRANCH_MILLIS, expansions),
+                JoinNode.PartialResultPolicy.RETRY_MISSING, timeout);
+
+        long start = System.nanoTime();
+        OverAllState state = run(graph);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(state.value(JoinNode.MISSING_KEY)).contains(List.of());
+        assertThat(translations).hasValue(1);
+        assertThat(expansions).hasValue(1);
+        // 之前的 CollectorNode 固定等待 5 秒；上限放宽到超时的一半，避免慢机器上误报
+        assertThat(elapsed).isLessThan(timeout.dividedBy(2));
+    }
+
+    /**
+     * 计时结果与机器有关，只在 -Dbenchmark=true 时运行
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void fanInOverheadBenchmark() throws Exception {
+        AtomicInteger translations = new AtomicInteger();
+        AtomicInteger expansions = new AtomicInteger();
+        CompiledGraph graph = graph(
+                branch("translate_content", BRANCH_MILLIS, translations),
+                branch("expander_content", BRANCH_MILLIS, expansions),
+                JoinNode.PartialResultPolicy.RETRY_MISSING, Duration.ofSeconds(5));
+
+        // 预热
+        run(graph);
+
+        int rounds = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            run(graph);
+        }
+        double perRunMillis = (System.nanoTime() - start) / 1e6 / rounds;
+        double overheadMillis = perRunMillis - BRANCH_MILLIS;
+        logger.info("parallel run {} ms, fan-in overhead {} ms (branches take {} ms)",
+                String.format("%.1f", perRunMillis), String.format("%.1f", overheadMillis), BRANCH_MILLIS);
+
+        assertThat(overheadMillis).isLessThan(200);
+    }
+
+    @Test
+    void slowBranchTimesOutAndSucceededBranchIsNotRerun() throws Exception {
+        AtomicInteger translations = new AtomicInteger();
+        AtomicInteger expansions = new AtomicInteger();
+        CountDownLatch interrupted = new CountDownLatch(2);
+        CompiledGraph graph = graph(
+                branch("translate_content", BRANCH_MILLIS, translations),
+                state -> {
+                    expansions.incrementAndGet();
+                    try {
+                        // 从不返回，只能被超时中断
+                        new CountDownLatch(1).await();
+                    }
+                    catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return Map.of();
+                },
+                JoinNode.PartialResultPolicy.RETRY_MISSING, Duration.ofMillis(200));
+
+        OverAllState state = run(graph);
+
+        assertThat(state.value(JoinNode.MISSING_KEY)).contains(List.of("expander_content"));
+        assertThat(state.value("translate_content")).contains("translate_content-done");
+        // 第一次执行加一次重试，两次都超时；翻译分支只执行一次
+        assertThat(expansions).hasValue(2);
+        assertThat(translations).hasValue(1);
+        // 超时的分支被中断，不会一直占用线程
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void rejectedBranchIsTreatedAsMissing() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        executor.close();
+        CompiledGraph graph = graph(
+                branch("translate_content", 0, calls),
+                branch("expander_content", 0, calls),
+                JoinNode.PartialResultPolicy.PARTIAL, Duration.ofSeconds(1));
+
+        OverAllState state = run(graph);
+
+        assertThat(state.value(JoinNode.MISSING_KEY)).contains(List.of("translate_content", "expander_content"));
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void failPolicyStopsTheGraph() throws Exception {
+        CompiledGraph graph = graph(
+                branch("translate_content", 0, new AtomicInteger()),
+                state -> {
+                    throw new IllegalStateException("expander failed");
+                },
+                JoinNode.PartialResultPolicy.FAIL, Duration.ofSeconds(1));
+
+        assertThatThrownBy(() -> run(graph)).hasStackTraceContaining("expander_content");
+    }
+
+    private static OverAllState run(CompiledGraph graph) throws Exception {
+        // 每次使用新的 thread，避免复用上一次运行的状态
+        RunnableConfig config = RunnableConfig.builder().threadId(UUID.randomUUID().toString()).build();
+        return graph.invoke(Map.of("query", "hello"), config).orElseThrow();
+    }
+
+    private static NodeAction branch(String key, long millis, AtomicInteger calls) {
+        return state -> {
+            calls.incrementAndGet();
+            Thread.sleep(millis);
+            return Map.of(key, key + "-done");
+        };
+    }
+
+    private CompiledGraph graph(NodeAction translator, NodeAction expander,
+                                       JoinNode.PartialResultPolicy policy, Duration timeout) throws Exception {
+        KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
+                .addPatternStrategy("query", new ReplaceStrategy())
+                .addPatternStrategy("expander_content", new ReplaceStrategy())
+                .addPatternStrategy("translate_content", new ReplaceStrategy())
+                .addPatternStrategy("collector_next_node", new ReplaceStrategy())
+                .addPatternStrategy("expand_status", new ReplaceStrategy())
+                .addPatternStrategy("translate_status", new ReplaceStrategy())
+                .addPatternStrategy(JoinNode.MISSING_KEY, new ReplaceStrategy())
+                .addPatternStrategy(JoinNode.ATTEMPTS_KEY, new ReplaceStrategy())
+                .build();
+
+        JoinNode collector = JoinNode.builder()
+                .branch("translate_content")
+                .branch("expander_content")
+                .nextNodeKey("collector_next_node")
+                .retryNode("dispatcher")
+                .maxRetries(1)
+                .policy(policy)
+                .build();
+
+        return new StateGraph(keyStrategyFactory)
+                .addNode("dispatcher", node_async(new DispatcherNode()))
+                .addNode("translator", node_async(BranchNode.of("translate_content", translator, timeout, executor)))
+                .addNode("expander", node_async(BranchNode.of("expander_content", expander, timeout, executor)))
+                .addNode("collector", node_async(collector))
+                .addEdge(StateGraph.START, "dispatcher")
+                .addEdge("dispatcher", "translator")
+                .addEdge("dispatcher", "expander")
+                .addEdge("translator", "collector")
+                .addEdge("expander", "collector")
+                .addConditionalEdges("collector", edge_async(new CollectorDispatcher()),
+                        Map.of("dispatcher", "dispatcher", END, END))
+                .compile();
+    }
+
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.batch;
+
+import java.time.Duration;
+
+/**
+ * Summary of a batch run. Throughput and cost per product only count enriched products; tokens
+ * spent by graph runs that failed are not reported by the model and are not counted.
+ */
+public record BatchReport(long products, long failed, long graphRuns, long promptTokens, long completionTokens,
+                          Duration elapsed, double productsPerMinute, double cost, double costPerProduct) {
+}
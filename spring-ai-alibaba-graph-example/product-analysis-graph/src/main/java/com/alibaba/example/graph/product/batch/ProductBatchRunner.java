@@ -0,0 +1,224 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.batch;
+
+import com.alibaba.cloud.ai.graph.CompileConfig;
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.example.graph.product.conf.ProductBatchProperties;
+import com.alibaba.example.graph.product.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the batch product analysis graph over a stream of product descriptions.
+ *
+ * Descriptions are grouped into micro-batches of {@code batchSize} (or whatever arrived within
+ * {@code maxWait}), each batch is one graph run, and up to {@code concurrency} runs are in
+ * flight at a time. Results go to the sink as soon as their batch is done.
+ *
+ * A batch that fails with a transient error (timeout, rate limit, server error) is retried
+ * up to {@code maxAttempts} times with a doubling backoff, and its products are marked
+ * failed if it still fails. Any other failure splits the batch in halves to isolate the bad
+ * product. The tokens of every attempt are reported, including the failed ones.
+ */
+public class ProductBatchRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductBatchRunner.class);
+
+    private final CompiledGraph compiledGraph;
+
+    private final ProductBatchProperties properties;
+
+    public ProductBatchRunner(StateGraph productBatchAnalysisGraph, ProductBatchProperties properties)
+            throws GraphStateException {
+        // Every batch runs on its own thread id, drop its checkpoints once the run is over
+        this.compiledGraph = productBatchAnalysisGraph.compile(CompileConfig.builder().releaseThread(true).build());
+        this.properties = properties;
+    }
+
+    /**
+     * Run the whole stream and wait for the report
+     */
+    public BatchReport run(Flux<String> productDescs, ProductSink sink) {
+        return execute(productDescs, sink).block();
+    }
+
+    /**
+     * Run the stream when the returned Mono is subscribed. Cancelling the subscription stops
+     * taking new batches, and batches that are running stop before their next graph run.
+     */
+    public Mono<BatchReport> execute(Flux<String> productDescs, ProductSink sink) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Totals totals = new Totals();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            return productDescs.index((index, productDesc) -> new Item(index, productDesc))
+                    .bufferTimeout(properties.getBatchSize(), properties.getMaxWait())
+                    .flatMap(batch -> Mono.fromCallable(() -> enrich(batch, cancelled))
+                            .subscribeOn(Schedulers.boundedElastic()), properties.getConcurrency())
+                    // flatMap emits one outcome at a time, so the sink and the totals are never called concurrently
+                    .doOnNext(outcome -> totals.add(outcome, sink))
+                    .doOnCancel(() -> {
+                        cancelled.set(true);
+                        logger.info("Batch run cancelled");
+                    })
+                    .then(Mono.fromSupplier(() -> {
+                        BatchReport report = totals.report(Duration.ofNanos(System.nanoTime() - start));
+                        logger.info("Batch run done: {}", report);
+                        return report;
+                    }));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Outcome enrich(List<Item> batch, AtomicBoolean cancelled) throws InterruptedException {
+        List<String> descs = batch.stream().map(Item::productDesc).toList();
+        // Shared by all attempts, so the tokens of failed attempts are reported too
+        TokenMeter meter = new TokenMeter();
+        Duration backoff = properties.getRetryBackoff();
+        for (int attempt = 1; ; attempt++) {
+            if (cancelled.get()) {
+                return new Outcome(List.of(), meter.usage(), attempt - 1);
+            }
+            try {
+                RunnableConfig config = RunnableConfig.builder().threadId(UUID.randomUUID().toString()).build();
+                config.context().put(TokenMeter.CONTEXT_KEY, meter);
+                OverAllState state = compiledGraph.invoke(Map.of("productDescs", descs), config).orElseThrow();
+                List<Product> products = (List<Product>) state.value("finalProducts").orElseThrow();
+                List<ProductResult> results = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    results.add(ProductResult.success(batch.get(i).index(), descs.get(i), products.get(i)));
+                }
+                return new Outcome(results, meter.usage(), attempt);
+            }
+            catch (Exception ex) {
+                boolean transientError = isTransient(ex);
+                if (transientError && attempt < properties.getMaxAttempts()) {
+                    logger.warn("Batch of {} products failed (attempt {}), retrying in {}: {}", batch.size(), attempt,
+                            backoff, ex.getMessage());
+                    Thread.sleep(backoff.toMillis());
+                    backoff = backoff.multipliedBy(2);
+                    continue;
+                }
+                Outcome attempts = new Outcome(List.of(), meter.usage(), attempt);
+                if (batch.size() == 1 || transientError) {
+                    // A smaller batch does not help against timeouts or rate limits
+                    logger.warn("Batch of {} products failed: {}", batch.size(), ex.getMessage());
+                    List<ProductResult> failures = new ArrayList<>(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        failures.add(ProductResult.failure(batch.get(i).index(), descs.get(i), ex));
+                    }
+                    return attempts.plus(new Outcome(failures, TokenUsage.EMPTY, 0));
+                }
+                // One bad description or a malformed combined answer fails the whole batch,
+                // split it in halves to keep the rest and isolate the failing product
+                int middle = batch.size() / 2;
+                return attempts.plus(enrich(batch.subList(0, middle), cancelled))
+                        .plus(enrich(batch.subList(middle, batch.size()), cancelled));
+            }
+        }
+    }
+
+    /**
+     * Timeouts, rate limits and server errors anywhere in the cause chain
+     */
+    static boolean isTransient(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientAiException || cause instanceof TimeoutException
+                    || cause instanceof SocketTimeoutException || cause instanceof ResourceAccessException) {
+                return true;
+            }
+            if (cause instanceof RestClientResponseException response
+                    && (response.getStatusCode().value() == 429 || response.getStatusCode().is5xxServerError())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Item(long index, String productDesc) {
+    }
+
+    private record Outcome(List<ProductResult> results, TokenUsage usage, long graphRuns) {
+
+        Outcome plus(Outcome other) {
+            List<ProductResult> merged = new ArrayList<>(results);
+            merged.addAll(other.results);
+            return new Outcome(merged, usage.plus(other.usage), graphRuns + other.graphRuns);
+        }
+
+    }
+
+    private final class Totals {
+
+        private long products;
+
+        private long failed;
+
+        private long graphRuns;
+
+        private TokenUsage usage = TokenUsage.EMPTY;
+
+        void add(Outcome outcome, ProductSink sink) {
+            for (ProductResult result : outcome.results()) {
+                try {
+                    sink.write(result);
+                }
+                catch (IOException ex) {
+                    throw Exceptions.propagate(ex);
+                }
+                if (result.succeeded()) {
+                    products++;
+                }
+                else {
+                    failed++;
+                }
+            }
+            graphRuns += outcome.graphRuns();
+            usage = usage.plus(outcome.usage());
+        }
+
+        BatchReport report(Duration elapsed) {
+            double cost = usage.promptTokens() / 1000.0 * properties.getPromptPricePer1kTokens()
+                    + usage.completionTokens() / 1000.0 * properties.getCompletionPricePer1kTokens();
+            double minutes = elapsed.toNanos() / 60_000_000_000.0;
+            return new BatchReport(products, failed, graphRuns, usage.promptTokens(), usage.completionTokens(),
+                    elapsed, minutes > 0 ? products / minutes : 0, cost, products > 0 ? cost / products : 0);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.batch;
+
+import com.alibaba.example.graph.product.model.Product;
+
+/**
+ * Outcome for one product description of a batch run: either the enriched product or the
+ * error that prevented it. {@code index} is the position of the description in the input.
+ */
+public record ProductResult(long index, String productDesc, Product product, String error) {
+
+    public static ProductResult success(long index, String productDesc, Product product) {
+        return new ProductResult(index, productDesc, product, null);
+    }
+
+    public static ProductResult failure(long index, String productDesc, Throwable error) {
+        return new ProductResult(index, productDesc, null, String.valueOf(error.getMessage()));
+    }
+
+    public boolean succeeded() {
+        return product != null;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.batch;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import org.springframework.ai.chat.model.ChatResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tokens used by the runs of one batch. The runner puts the meter into the
+ * {@link RunnableConfig#context()} of every run, and the nodes record each answer as soon
+ * as it arrives. Answers that are rejected later (malformed JSON, wrong number of entries)
+ * and runs that fail in another node are therefore still counted.
+ */
+public final class TokenMeter {
+
+    public static final String CONTEXT_KEY = "product.batch.tokenMeter";
+
+    private final AtomicReference<TokenUsage> usage = new AtomicReference<>(TokenUsage.EMPTY);
+
+    /**
+     * The meter of the run, or a detached one when the graph runs outside the batch runner
+     */
+    public static TokenMeter of(RunnableConfig config) {
+        return config.context().get(CONTEXT_KEY) instanceof TokenMeter meter ? meter : new TokenMeter();
+    }
+
+    public void record(ChatResponse response) {
+        usage.accumulateAndGet(TokenUsage.of(response), TokenUsage::plus);
+    }
+
+    public TokenUsage usage() {
+        return usage.get();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.conf;
+
+import com.alibaba.cloud.ai.graph.KeyStrategyFactory;
+import com.alibaba.cloud.ai.graph.KeyStrategyFactoryBuilder;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeActionWithConfig;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.action.NodeActionWithConfig;
+import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.serializer.plain_text.PlainTextStateSerializer;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.alibaba.example.graph.product.batch.ProductBatchRunner;
+import com.alibaba.example.graph.product.batch.RateLimiter;
+import com.alibaba.example.graph.product.batch.TokenMeter;
+import com.alibaba.example.graph.product.model.Product;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.alibaba.cloud.ai.graph.StateGraph.END;
+import static com.alibaba.cloud.ai.graph.StateGraph.START;
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+
+/**
+ * Batch variant of the product analysis graph: the same parallel marketingCopy /
+ * specificationExtraction / merge flow, but every node handles a list of product
+ * descriptions with one combined structured-output prompt instead of one call per product.
+ */
+@Configuration
+@EnableConfigurationProperties(ProductBatchProperties.class)
+public class ProductBatchGraphConfiguration {
+
+    @Bean
+    public RateLimiter productBatchRateLimiter(ProductBatchProperties properties) {
+        return new RateLimiter(properties.getRequestsPerSecond());
+    }
+
+    @Bean
+    public StateGraph productBatchAnalysisGraph(ChatClient.Builder chatClientBuilder,
+                                                RateLimiter productBatchRateLimiter,
+                                                PlainTextStateSerializer productStateSerializer) throws GraphStateException {
+        ChatClient client = chatClientBuilder.build();
+
+        KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
+                .addPatternStrategy("productDescs", new ReplaceStrategy())
+                .addPatternStrategy("slogans", new ReplaceStrategy())
+                .addPatternStrategy("productSpecs", new ReplaceStrategy())
+                .addPatternStrategy("finalProducts", new ReplaceStrategy())
+                .build();
+
+        BeanOutputConverter<List<String>> sloganConverter =
+                new BeanOutputConverter<>(new ParameterizedTypeReference<List<String>>() {
+                });
+        BeanOutputConverter<List<Product>> specConverter =
+                new BeanOutputConverter<>(new ParameterizedTypeReference<List<Product>>() {
+                });
+
+        NodeActionWithConfig marketingCopyNode = (state, config) -> {
+            List<String> productDescs = productDescs(state);
+            productBatchRateLimiter.acquire();
+            ChatResponse response = client.prompt()
+                    .user("Generate a catchy slogan for each of the following " + productDescs.size()
+                            + " products. Answer with exactly one slogan per product, in the same order.\n\n"
+                            + numbered(productDescs) + "\n" + sloganConverter.getFormat())
+                    .call()
+                    .chatResponse();
+            // Count the tokens before the answer is checked, a rejected answer was paid for as well
+            TokenMeter.of(config).record(response);
+            List<String> slogans = checkSize("slogans", sloganConverter.convert(text(response)), productDescs);
+            return Map.of("slogans", slogans);
+        };
+
+        NodeActionWithConfig specificationExtractionNode = (state, config) -> {
+            List<String> productDescs = productDescs(state);
+            productBatchRateLimiter.acquire();
+            ChatResponse response = client.prompt()
+                    .user("Extract product specifications from each of the following " + productDescs.size()
+                            + " product descriptions. Answer with exactly one entry per product, in the same order,"
+                            + " and leave the slogan empty.\n\n" + numbered(productDescs) + "\n"
+                            + specConverter.getFormat())
+                    .call()
+                    .chatResponse();
+            TokenMeter.of(config).record(response);
+            List<Product> productSpecs = checkSize("product specifications", specConverter.convert(text(response)),
+                    productDescs);
+            return Map.of("productSpecs", productSpecs);
+        };
+
+        NodeAction mergeNode = state -> {
+            @SuppressWarnings("unchecked")
+            List<String> slogans = (List<String>) state.value("slogans").orElseThrow();
+            @SuppressWarnings("unchecked")
+            List<Product> productSpecs = (List<Product>) state.value("productSpecs").orElseThrow();
+            List<Product> finalProducts = new ArrayList<>(slogans.size());
+            for (int i = 0; i < slogans.size(); i++) {
+                Product productSpec = productSpecs.get(i);
+                finalProducts.add(new Product(slogans.get(i), productSpec.material(), productSpec.colors(),
+                        productSpec.season()));
+            }
+            return Map.of("finalProducts", finalProducts);
+        };
+
+        StateGraph graph = new StateGraph(keyStrategyFactory, productStateSerializer);
+        graph.addNode("marketingCopy", AsyncNodeActionWithConfig.node_async(marketingCopyNode))
+                .addNode("specificationExtraction", AsyncNodeActionWithConfig.node_async(specificationExtractionNode))
+                .addNode("merge", node_async(mergeNode))
+                .addEdge(START, "marketingCopy")
+                .addEdge(START, "specificationExtraction")
+                .addEdge("marketingCopy", "merge")
+                .addEdge("specificationExtraction", "merge")
+                .addEdge("merge", END);
+        return graph;
+    }
+
+    @Bean
+    public ProductBatchRunner productBatchRunner(@Qualifier("productBatchAnalysisGraph") StateGraph productBatchAnalysisGraph,
+                                                 ProductBatchProperties properties) throws GraphStateException {
+        return new ProductBatchRunner(productBatchAnalysisGraph, properties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> productDescs(OverAllState state) {
+        return (List<String>) state.value("productDescs").orElseThrow();
+    }
+
+    private static String numbered(List<String> productDescs) {
+        StringBuilder prompt = new StringBuilder();
+        for (int i = 0; i < productDescs.size(); i++) {
+            // One line per product keeps the numbering unambiguous
+            prompt.append(i + 1).append(". ").append(productDescs.get(i).replaceAll("\\s+", " ").strip()).append('\n');
+        }
+        return prompt.toString();
+    }
+
+    private static String text(ChatResponse response) {
+        if (response == null || response.getResult() == null || response.getResult().getOutput().getText() == null) {
+            throw new IllegalStateException("Empty answer");
+        }
+        return response.getResult().getOutput().getText();
+    }
+
+    private static <T> List<T> checkSize(String what, List<T> answer, List<String> productDescs) {
+        if (answer == null || answer.size() != productDescs.size()) {
+            throw new IllegalStateException("Expected " + productDescs.size() + " " + what + " but got "
+                    + (answer == null ? 0 : answer.size()));
+        }
+        return answer;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.conf;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = ProductBatchProperties.PREFIX)
+public class ProductBatchProperties {
+
+    public static final String PREFIX = "product.batch";
+
+    /**
+     * Number of product descriptions combined into one prompt per node
+     */
+    private int batchSize = 20;
+
+    /**
+     * How long a partial batch waits for more descriptions before it is sent anyway
+     */
+    private Duration maxWait = Duration.ofSeconds(1);
+
+    /**
+     * Number of batch graph instances running at the same time
+     */
+    private int concurrency = 4;
+
+    /**
+     * Global limit of LLM requests per second, shared by all running graph instances
+     */
+    private double requestsPerSecond = 5;
+
+    /**
+     * Attempts per batch when the model call fails with a transient error (timeout, rate limit,
+     * server error); other failures split the batch instead
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Wait before the first retry of a batch, doubled for every further retry
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Price per 1000 prompt tokens, used for the cost per product in the batch report
+     */
+    private double promptPricePer1kTokens;
+
+    /**
+     * Price per 1000 completion tokens, used for the cost per product in the batch report
+     */
+    private double completionPricePer1kTokens;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public void setRetryBackoff(Duration retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public double getPromptPricePer1kTokens() {
+        return promptPricePer1kTokens;
+    }
+
+    public void setPromptPricePer1kTokens(double promptPricePer1kTokens) {
+        this.promptPricePer1kTokens = promptPricePer1kTokens;
+    }
+
+    public double getCompletionPricePer1kTokens() {
+        return completionPricePer1kTokens;
+    }
+
+    public void setCompletionPricePer1kTokens(double completionPricePer1kTokens) {
+        this.completionPricePer1kTokens = completionPricePer1kTokens;
+    }
+}
@@ -23,11 +23,14 @@ import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.serializer.binary.BinaryStateSerializer;
+import com.alibaba.cloud.ai.graph.serializer.plain_text.PlainTextStateSerializer;
 import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import com.alibaba.example.graph.product.model.Product;
 import com.alibaba.example.graph.product.serializer.ProductStateSerializer;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -40,8 +43,30 @@ import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
 @Configuration
 public class ProductGraphConfiguration {
 
+    /**
+     * State serializer shared by the product graphs, selected with {@code product.state-serializer}:
+     * <ul>
+     *     <li>{@code binary} (default): BinaryStateSerializer with registered type ids, no 64KB limit on the state;</li>
+     *     <li>{@code json}: the original ProductStateSerializer, JSON with default typing written through writeUTF.</li>
+     * </ul>
+     */
     @Bean
-    public StateGraph productAnalysisGraph(ChatClient.Builder chatClientBuilder) throws GraphStateException {
+    public PlainTextStateSerializer productStateSerializer(
+            @Value("${product.state-serializer:binary}") String stateSerializer) {
+        AgentStateFactory<OverAllState> stateFactory = OverAllState::new;
+        return switch (stateSerializer) {
+            case "binary" -> BinaryStateSerializer.builder(stateFactory)
+                    .registerRecord(BinaryStateSerializer.FIRST_USER_TYPE_ID, Product.class)
+                    .build();
+            case "json" -> new ProductStateSerializer(stateFactory);
+            default -> throw new IllegalArgumentException(
+                    "Unknown product.state-serializer '" + stateSerializer + "', expected binary or json");
+        };
+    }
+
+    @Bean
+    public StateGraph productAnalysisGraph(ChatClient.Builder chatClientBuilder,
+                                           PlainTextStateSerializer productStateSerializer) throws GraphStateException {
         ChatClient client = chatClientBuilder.build();
 
         KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
@@ -51,10 +76,6 @@ public class ProductGraphConfiguration {
                 .addPatternStrategy("finalProduct", new ReplaceStrategy())
                 .build();
 
-        // Create custom serializer to handle Product object serialization
-        AgentStateFactory<OverAllState> stateFactory = OverAllState::new;
-        ProductStateSerializer serializer = new ProductStateSerializer(stateFactory);
-
         NodeAction marketingCopyNode = state -> {
             String productDesc = (String) state.value("productDesc").orElseThrow();
             String slogan = client.prompt()
@@ -80,7 +101,7 @@ public class ProductGraphConfiguration {
             return Map.of("finalProduct", finalProduct);
         };
 
-        StateGraph graph = new StateGraph(keyStrategyFactory, serializer);
+        StateGraph graph = new StateGraph(keyStrategyFactory, productStateSerializer);
         graph.addNode("marketingCopy", node_async(marketingCopyNode))
                 .addNode("specificationExtraction", node_async(specificationExtractionNode))
                 .addNode("merge", node_async(mergeNode))
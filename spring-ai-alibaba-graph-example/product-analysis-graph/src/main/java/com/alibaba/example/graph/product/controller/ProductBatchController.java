@@ -0,0 +1,57 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.controller;
+
+import com.alibaba.example.graph.product.batch.ProductBatchRunner;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+@RestController
+public class ProductBatchController {
+
+    private final ProductBatchRunner productBatchRunner;
+
+    public ProductBatchController(ProductBatchRunner productBatchRunner) {
+        this.productBatchRunner = productBatchRunner;
+    }
+
+    /**
+     * Enrich one product description per line of the request body. Every result is sent as a
+     * {@code product} event when its batch is done, followed by a single {@code report} event.
+     */
+    @PostMapping(value = "/product/enrich/batch", consumes = MediaType.TEXT_PLAIN_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> enrichProducts(@RequestBody String productDescs) {
+        Flux<String> descs = Flux.fromStream(productDescs.lines().map(String::strip).filter(line -> !line.isEmpty()));
+        return Flux.<ServerSentEvent<Object>>create(emitter -> {
+            // Nothing blocks here: the run is a subscription, and a client disconnect disposes it,
+            // which stops taking new batches and stops running batches before their next graph run
+            Disposable run = productBatchRunner.execute(descs,
+                            result -> emitter.next(ServerSentEvent.builder((Object) result).event("product").build()))
+                    .subscribe(report -> {
+                        emitter.next(ServerSentEvent.builder((Object) report).event("report").build());
+                        emitter.complete();
+                    }, emitter::error);
+            emitter.onDispose(run);
+        });
+    }
+}
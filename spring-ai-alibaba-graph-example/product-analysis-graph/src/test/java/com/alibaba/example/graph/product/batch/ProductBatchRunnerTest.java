@@ -0,0 +1,256 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.batch;
+
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.example.graph.product.conf.ProductBatchGraphConfiguration;
+import com.alibaba.example.graph.product.conf.ProductBatchProperties;
+import com.alibaba.example.graph.product.conf.ProductGraphConfiguration;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.TransientAiException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductBatchRunnerTest {
+
+    private static final Pattern ITEM = Pattern.compile("(?m)^\\d+\\. (.*)$");
+
+    private final FakeChatModel chatModel = new FakeChatModel();
+
+    @Test
+    void enrichesMicroBatchesConcurrentlyAndReportsCost() throws Exception {
+        ProductBatchProperties properties = properties(3, 2);
+        ProductBatchRunner runner = runner(properties, new RateLimiter(1000));
+        List<String> descs = IntStream.range(0, 7).mapToObj(i -> "product " + i).toList();
+        List<ProductResult> written = new ArrayList<>();
+
+        BatchReport report = runner.run(Flux.fromIterable(descs), written::add);
+
+        // 7 products in batches of 3, 3, 1: two combined prompts per batch instead of two per product
+        assertThat(chatModel.calls.get()).isEqualTo(6);
+        assertThat(chatModel.maxInFlight.get()).isGreaterThan(1).isLessThanOrEqualTo(4);
+        assertThat(written).hasSize(7).allMatch(ProductResult::succeeded);
+        assertThat(written).extracting(ProductResult::index).containsExactlyInAnyOrder(0L, 1L, 2L, 3L, 4L, 5L, 6L);
+        for (ProductResult result : written) {
+            assertThat(result.product().slogan()).isEqualTo("Buy " + result.productDesc());
+            assertThat(result.product().material()).isEqualTo("cotton " + result.productDesc());
+        }
+
+        assertThat(report.products()).isEqualTo(7);
+        assertThat(report.failed()).isZero();
+        assertThat(report.graphRuns()).isEqualTo(3);
+        assertThat(report.promptTokens()).isEqualTo(6 * 1000);
+        assertThat(report.completionTokens()).isEqualTo(6 * 100);
+        assertThat(report.cost()).isCloseTo(6 * (1.0 * 2 + 0.1 * 10), within());
+        assertThat(report.costPerProduct()).isCloseTo(report.cost() / 7, within());
+        assertThat(report.productsPerMinute()).isPositive();
+    }
+
+    @Test
+    void splitsFailingBatchesToIsolateBadProducts() throws Exception {
+        ProductBatchRunner runner = runner(properties(4, 1), new RateLimiter(1000));
+        List<ProductResult> written = new ArrayList<>();
+
+        BatchReport report = runner.run(Flux.just("a", "b", "broken", "d"), written::add);
+
+        assertThat(written).filteredOn(ProductResult::succeeded)
+                .extracting(ProductResult::productDesc)
+                .containsExactlyInAnyOrder("a", "b", "d");
+        assertThat(written).filteredOn(result -> !result.succeeded())
+                .singleElement()
+                .satisfies(result -> {
+                    assertThat(result.index()).isEqualTo(2);
+                    assertThat(result.error()).contains("Expected 1 slogans but got 0");
+                });
+        assertThat(report.products()).isEqualTo(3);
+        assertThat(report.failed()).isEqualTo(1);
+        // [a b broken d] -> [a b] + [broken d] -> [broken] + [d]: the rejected answers are paid for too
+        assertThat(report.graphRuns()).isEqualTo(5);
+        assertThat(chatModel.calls.get()).isEqualTo(10);
+        assertThat(report.promptTokens()).isEqualTo(10 * 1000);
+    }
+
+    @Test
+    void retriesTransientErrorsWithoutSplitting() throws Exception {
+        ProductBatchRunner runner = runner(properties(4, 1), new RateLimiter(1000));
+        chatModel.transientFailures.set(1);
+        List<ProductResult> written = new ArrayList<>();
+
+        BatchReport report = runner.run(Flux.just("a", "b", "c", "d"), written::add);
+
+        assertThat(written).hasSize(4).allMatch(ProductResult::succeeded);
+        // One failed attempt and one retry of the whole batch
+        assertThat(report.graphRuns()).isEqualTo(2);
+        assertThat(chatModel.calls.get()).isEqualTo(4);
+        // The call that succeeded in the failed attempt is counted as well
+        assertThat(report.promptTokens()).isEqualTo(3 * 1000);
+    }
+
+    @Test
+    void failsBatchWhenTransientErrorsPersist() throws Exception {
+        ProductBatchRunner runner = runner(properties(4, 1), new RateLimiter(1000));
+        chatModel.transientFailures.set(Integer.MAX_VALUE);
+        List<ProductResult> written = new ArrayList<>();
+
+        BatchReport report = runner.run(Flux.just("a", "b", "c", "d"), written::add);
+
+        assertThat(written).hasSize(4).noneMatch(ProductResult::succeeded);
+        assertThat(report.graphRuns()).isEqualTo(3);
+        assertThat(chatModel.calls.get()).isEqualTo(3 * 2);
+    }
+
+    @Test
+    void cancellingStopsTheRun() throws Exception {
+        ProductBatchRunner runner = runner(properties(1, 1), new RateLimiter(1000));
+        List<String> descs = IntStream.range(0, 20).mapToObj(i -> "product " + i).toList();
+        CountDownLatch firstResult = new CountDownLatch(1);
+
+        Disposable run = runner.execute(Flux.fromIterable(descs), result -> firstResult.countDown()).subscribe();
+        assertThat(firstResult.await(5, TimeUnit.SECONDS)).isTrue();
+        run.dispose();
+        int callsAtCancel = chatModel.calls.get();
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        // At most the batch that was already running finishes, no new batch starts
+        assertThat(chatModel.calls.get()).isLessThanOrEqualTo(callsAtCancel + 2).isLessThan(descs.size() * 2);
+    }
+
+    @Test
+    void rateLimiterSpacesRequestsAcrossThreads() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(20);
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    rateLimiter.acquire();
+                    rateLimiter.acquire();
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // 6 permits at 20 per second: the last one is due 5 intervals of 50ms after the first
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(240));
+    }
+
+    private ProductBatchRunner runner(ProductBatchProperties properties, RateLimiter rateLimiter) throws Exception {
+        StateGraph graph = new ProductBatchGraphConfiguration()
+                .productBatchAnalysisGraph(ChatClient.builder(chatModel), rateLimiter,
+                        new ProductGraphConfiguration().productStateSerializer("binary"));
+        return new ProductBatchRunner(graph, properties);
+    }
+
+    private static ProductBatchProperties properties(int batchSize, int concurrency) {
+        ProductBatchProperties properties = new ProductBatchProperties();
+        properties.setBatchSize(batchSize);
+        properties.setConcurrency(concurrency);
+        properties.setMaxWait(Duration.ofMillis(50));
+        properties.setRetryBackoff(Duration.ofMillis(10));
+        properties.setPromptPricePer1kTokens(2);
+        properties.setCompletionPricePer1kTokens(10);
+        return properties;
+    }
+
+    private static Offset<Double> within() {
+        return Offset.offset(1e-9);
+    }
+
+    /**
+     * Answers the combined prompts with one JSON entry per numbered product, skipping products
+     * called "broken" in the slogan answer, and reports 1000 prompt / 100 completion tokens.
+     * The first {@code transientFailures} calls fail with a transient error.
+     */
+    private static class FakeChatModel implements ChatModel {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        private final AtomicInteger transientFailures = new AtomicInteger();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            if (transientFailures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new TransientAiException("429 Too Many Requests");
+            }
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(100);
+                String text = prompt.getContents();
+                List<String> descs = new ArrayList<>();
+                Matcher matcher = ITEM.matcher(text);
+                while (matcher.find()) {
+                    descs.add(matcher.group(1).strip());
+                }
+                String json;
+                if (text.contains("slogan for each")) {
+                    json = descs.stream()
+                            .filter(desc -> !desc.equals("broken"))
+                            .map(desc -> "\"Buy " + desc + "\"")
+                            .collect(Collectors.joining(",", "[", "]"));
+                }
+                else {
+                    json = descs.stream()
+                            .map(desc -> "{\"slogan\":\"\",\"material\":\"cotton " + desc
+                                    + "\",\"colors\":[\"red\"],\"season\":\"summer\"}")
+                            .collect(Collectors.joining(",", "[", "]"));
+                }
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(json))),
+                        ChatResponseMetadata.builder().usage(new DefaultUsage(1000, 100)).build());
+            }
+            catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+            finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
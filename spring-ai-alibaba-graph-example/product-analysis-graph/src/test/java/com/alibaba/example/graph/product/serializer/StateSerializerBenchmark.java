@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.graph.product.serializer;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.serializer.StateSerializer;
+import com.alibaba.cloud.ai.graph.serializer.binary.BinaryStateSerializer;
+import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
+import com.alibaba.example.graph.product.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Write / read / clone latency of BinaryStateSerializer against ProductStateSerializer
+ * (JSON with default typing + {@code writeUTF}). Both can be selected with {@code product.state-serializer}.
+ * <p>
+ * JMH is not part of the build, so this uses warm-up plus timed rounds. Run with:
+ * <pre>
+ * mvn test -Dtest=StateSerializerBenchmark -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StateSerializerBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(StateSerializerBenchmark.class);
+
+    /**
+     * Number of products in the state. The JSON serializer can't go past ~64KB, so the last shape is binary only.
+     */
+    private static final int[] SHAPES = {1, 20, 150, 2000};
+
+    private static final int WARMUP_ROUNDS = 20_000;
+
+    private static final int MEASURE_ROUNDS = 50_000;
+
+    @Test
+    void serializerLatency() throws Exception {
+        AgentStateFactory<OverAllState> stateFactory = OverAllState::new;
+        StateSerializer json = new ProductStateSerializer(stateFactory);
+        StateSerializer binary = BinaryStateSerializer.builder(stateFactory)
+                .registerRecord(BinaryStateSerializer.FIRST_USER_TYPE_ID, Product.class)
+                .build();
+
+        logger.info(String.format("%-9s %10s %10s %12s %12s %12s %12s %12s %12s", "products", "json(B)",
+                "binary(B)", "json-w(us)", "binary-w(us)", "json-r(us)", "binary-r(us)", "json-c(us)", "binary-c(us)"));
+        for (int products : SHAPES) {
+            OverAllState state = new OverAllState(state(products));
+            byte[] binaryBytes = binary.objectToBytes(state);
+            boolean jsonFits = products < SHAPES[SHAPES.length - 1];
+            byte[] jsonBytes = jsonFits ? json.objectToBytes(state) : new byte[0];
+
+            int scale = Math.max(1, products / 5);
+            double binaryWrite = measure(scale, () -> binary.objectToBytes(state).length);
+            double binaryRead = measure(scale, () -> binary.bytesToObject(binaryBytes).data().size());
+            double binaryClone = measure(scale, () -> binary.cloneObject(state).data().size());
+            double jsonWrite = jsonFits ? measure(scale, () -> json.objectToBytes(state).length) : Double.NaN;
+            double jsonRead = jsonFits ? measure(scale, () -> json.bytesToObject(jsonBytes).data().size()) : Double.NaN;
+            double jsonClone = jsonFits ? measure(scale, () -> json.cloneObject(state).data().size()) : Double.NaN;
+
+            logger.info(String.format("%-9d %10d %10d %12.2f %12.2f %12.2f %12.2f %12.2f %12.2f", products,
+                    jsonBytes.length, binaryBytes.length, jsonWrite, binaryWrite, jsonRead, binaryRead, jsonClone,
+                    binaryClone));
+
+            assertThat(binary.bytesToObject(binaryBytes).data()).isEqualTo(state.data());
+        }
+    }
+
+    private static double measure(int scale, Round round) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS / scale; i++) {
+            sink += round.run();
+        }
+        int rounds = MEASURE_ROUNDS / scale;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += round.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isPositive();
+        return elapsed / 1e3 / rounds;
+    }
+
+    private static Map<String, Object> state(int products) {
+        List<Product> catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            catalog.add(new Product("Slogan number " + i + " for a cosy winter sweater", "merino wool " + i,
+                    List.of("red", "grey", "navy"), i % 2 == 0 ? "winter" : "autumn"));
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("productDesc", "A warm knitted sweater made from merino wool, available in several colors");
+        data.put("slogan", "Stay warm, stay stylish");
+        data.put("productSpec", catalog.get(0));
+        data.put("catalog", catalog);
+        return data;
+    }
+
+    @FunctionalInterface
+    private interface Round {
+
+        int run() throws Exception;
+    }
+
+}
@@ -27,6 +27,8 @@ import com.alibaba.cloud.ai.graph.action.AsyncEdgeAction;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
 import com.alibaba.cloud.ai.graph.node.AnswerNode;
 import com.alibaba.cloud.ai.graph.node.ToolNode;
+import com.alibaba.cloud.ai.graph.serializer.binary.BinaryStateSerializer;
+import com.alibaba.cloud.ai.graph.serializer.plain_text.PlainTextStateSerializer;
 import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import com.alibaba.cloud.ai.graph.dispatcher.HumanFeedbackDispatcher;
@@ -45,6 +47,7 @@ import org.springframework.ai.chat.messages.ToolResponseMessage;
 import org.springframework.ai.tool.resolution.ToolCallbackResolver;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -68,7 +71,8 @@ public class SecGraphBuilder {
     public StateGraph secGraph(ChatClient.Builder chatClientBuilder,
                                @Qualifier("classificationVectorStore") VectorStore classificationVectorStore,
                                FieldSaveTool toolBack,
-                               ToolCallbackResolver toolCallbackResolver
+                               ToolCallbackResolver toolCallbackResolver,
+                               @Value("${sec.graph.state-serializer:binary}") String stateSerializer
     ) throws GraphStateException {
         KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
                 .addPatternStrategy("field", new ReplaceStrategy())
@@ -81,23 +85,7 @@ public class SecGraphBuilder {
                 .addPatternStrategy("human_next_node", new ReplaceStrategy())
                 .build();
 
-        AgentStateFactory<OverAllState> factory = OverAllState::new;
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.activateDefaultTyping(
-                mapper.getPolymorphicTypeValidator(),
-                ObjectMapper.DefaultTyping.NON_FINAL,
-                JsonTypeInfo.As.PROPERTY
-        );
-
-        // 注册反序列化器
-        SimpleModule module = new SimpleModule();
-        module.addDeserializer(AssistantMessage.class, new AssistantMessageDeserializer());
-        module.addDeserializer(ToolResponseMessage.class, new ToolResponseMessageDeserializer());
-        mapper.registerModule(module);
-
-        JsonStateSerializerWithTypeInfo serializer = new JsonStateSerializerWithTypeInfo(factory, mapper);
-
-        StateGraph stateGraph = new StateGraph(keyStrategyFactory, serializer);
+        StateGraph stateGraph = new StateGraph(keyStrategyFactory, stateSerializer(stateSerializer));
         stateGraph.addEdge(START, "sensitive")
                 .addNode("sensitive", node_async(new SensitiveWordDecNode()))
                 .addNode("answer", node_async(AnswerNode.builder().answer("您的输入{{field}}包含了敏感内容！").build()))
@@ -121,5 +109,35 @@ public class SecGraphBuilder {
         return stateGraph;
     }
 
+    /**
+     * binary（默认）：二进制序列化，AssistantMessage、ToolResponseMessage 等 Spring AI 消息已内置类型编号，状态大小不受 64KB 限制；
+     * json：原有的带类型信息的 JSON 序列化，通过 writeUTF 写入
+     */
+    private static PlainTextStateSerializer stateSerializer(String stateSerializer) {
+        AgentStateFactory<OverAllState> factory = OverAllState::new;
+        switch (stateSerializer) {
+            case "binary":
+                return BinaryStateSerializer.builder(factory).build();
+            case "json":
+                ObjectMapper mapper = new ObjectMapper();
+                mapper.activateDefaultTyping(
+                        mapper.getPolymorphicTypeValidator(),
+                        ObjectMapper.DefaultTyping.NON_FINAL,
+                        JsonTypeInfo.As.PROPERTY
+                );
+
+                // 注册反序列化器
+                SimpleModule module = new SimpleModule();
+                module.addDeserializer(AssistantMessage.class, new AssistantMessageDeserializer());
+                module.addDeserializer(ToolResponseMessage.class, new ToolResponseMessageDeserializer());
+                mapper.registerModule(module);
+
+                return new JsonStateSerializerWithTypeInfo(factory, mapper);
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown sec.graph.state-serializer '" + stateSerializer + "', expected binary or json");
+        }
+    }
+
 
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import com.alibaba.cloud.ai.mcp.nacos.service.NacosMcpOperationService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * 网关工具目录配置，聚合的 MCP Server 和 Nacos 连接都复用网关自身的配置
+ */
+@Configuration
+@EnableConfigurationProperties(GatewayCatalogProperties.class)
+public class GatewayCatalogConfiguration {
+
+    private static final String SERVICE_NAMES = "spring.ai.alibaba.mcp.gateway.nacos.service-names";
+
+    @Bean(destroyMethod = "close")
+    public McpToolCatalog mcpToolCatalog(Environment environment, GatewayCatalogProperties properties) {
+        List<String> serverNames = Binder.get(environment)
+                .bind(SERVICE_NAMES, Bindable.listOf(String.class))
+                .orElse(List.of());
+        return new McpToolCatalog(serverNames, properties.getSessionsPerInstance(),
+                McpSessionFactory.http(properties.getRequestTimeout()));
+    }
+
+    @Bean
+    public NacosMcpServerWatcher nacosMcpServerWatcher(NacosMcpOperationService nacosMcpOperationService,
+                                                       McpToolCatalog mcpToolCatalog) {
+        return new NacosMcpServerWatcher(nacosMcpOperationService, mcpToolCatalog);
+    }
+}
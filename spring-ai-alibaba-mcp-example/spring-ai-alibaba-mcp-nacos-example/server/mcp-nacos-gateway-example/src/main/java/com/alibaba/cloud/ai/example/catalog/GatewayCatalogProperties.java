@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 网关工具目录配置
+ * <p>
+ * 要聚合的 MCP Server 沿用网关的 spring.ai.alibaba.mcp.gateway.nacos.service-names，
+ * 协议和端点取自 Nacos MCP Registry，这里只配置会话池。
+ * </p>
+ */
+@ConfigurationProperties(prefix = GatewayCatalogProperties.PREFIX)
+public class GatewayCatalogProperties {
+
+    public static final String PREFIX = "gateway.catalog";
+
+    /**
+     * 每个实例保持的常驻 MCP 会话数，每个会话本身可以并发处理多个请求
+     */
+    private int sessionsPerInstance = 2;
+
+    /**
+     * 单次 MCP 请求超时时间
+     */
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    public int getSessionsPerInstance() {
+        return sessionsPerInstance;
+    }
+
+    public void setSessionsPerInstance(int sessionsPerInstance) {
+        this.sessionsPerInstance = sessionsPerInstance;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+}
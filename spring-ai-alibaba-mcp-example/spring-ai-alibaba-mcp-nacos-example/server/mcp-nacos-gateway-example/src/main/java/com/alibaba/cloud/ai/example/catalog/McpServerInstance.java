@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * MCP Server 的一个实例及其连接方式，协议和端点都取自 Nacos MCP Registry 中该 Server 的注册信息
+ *
+ * @param baseUrl  实例地址，例如 http://127.0.0.1:21000
+ * @param protocol MCP 传输协议
+ * @param endpoint SSE 端点或 Streamable HTTP 端点
+ */
+public record McpServerInstance(String baseUrl, Protocol protocol, String endpoint) {
+
+    public McpServerInstance {
+        if (!StringUtils.hasText(endpoint)) {
+            endpoint = protocol == Protocol.STREAMABLE ? "/mcp" : "/sse";
+        }
+    }
+
+    public enum Protocol {
+
+        SSE, STREAMABLE;
+
+        /**
+         * 按 Nacos 中登记的协议名解析，http、stdio 等不是远程 MCP 协议的返回 null
+         */
+        public static Protocol fromNacos(String protocol) {
+            if ("mcp-sse".equalsIgnoreCase(protocol)) {
+                return SSE;
+            }
+            if ("mcp-streamable".equalsIgnoreCase(protocol)) {
+                return STREAMABLE;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.client.transport.HttpClientStreamableHttpTransport;
+import io.modelcontextprotocol.spec.McpClientTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 建立并初始化到某个 MCP Server 实例的会话
+ */
+@FunctionalInterface
+public interface McpSessionFactory {
+
+    /**
+     * @param instance            要连接的实例
+     * @param toolsChangeConsumer 收到 tools/list_changed 通知后的回调
+     * @return 已完成 initialize 的会话
+     */
+    McpSyncClient open(McpServerInstance instance, Consumer<List<McpSchema.Tool>> toolsChangeConsumer);
+
+    /**
+     * 通过 HTTP SSE 或 Streamable HTTP 连接实例
+     */
+    static McpSessionFactory http(Duration requestTimeout) {
+        return (instance, toolsChangeConsumer) -> {
+            McpClientTransport transport = instance.protocol() == McpServerInstance.Protocol.STREAMABLE
+                    ? HttpClientStreamableHttpTransport.builder(instance.baseUrl())
+                            .endpoint(instance.endpoint())
+                            .build()
+                    : HttpClientSseClientTransport.builder(instance.baseUrl())
+                            .sseEndpoint(instance.endpoint())
+                            .build();
+            McpSyncClient client = McpClient.sync(transport)
+                    .requestTimeout(requestTimeout)
+                    .clientInfo(new McpSchema.Implementation("mcp-nacos-gateway", "1.0.0"))
+                    .toolsChangeConsumer(toolsChangeConsumer)
+                    .build();
+            try {
+                client.initialize();
+            }
+            catch (RuntimeException ex) {
+                client.close();
+                throw ex;
+            }
+            return client;
+        };
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 单个 MCP Server 的常驻会话池
+ * <p>
+ * 每个实例预先建立 {@code sessionsPerInstance} 个已初始化的 MCP 会话，请求在所有会话之间轮询。
+ * MCP 会话按 JSON-RPC id 复用，一个会话可以同时承载多个请求，所以会话数只需覆盖单连接的吞吐瓶颈。
+ * 连接出错的会话会被关闭，下次轮到它时再重新建立。
+ * </p>
+ */
+public class McpSessionPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(McpSessionPool.class);
+
+    private final String serverName;
+
+    private final int sessionsPerInstance;
+
+    private final McpSessionFactory sessionFactory;
+
+    private final Consumer<List<McpSchema.Tool>> toolsChangeConsumer;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile List<Session> sessions = List.of();
+
+    public McpSessionPool(String serverName, int sessionsPerInstance, McpSessionFactory sessionFactory,
+                          Consumer<List<McpSchema.Tool>> toolsChangeConsumer) {
+        this.serverName = serverName;
+        this.sessionsPerInstance = Math.max(1, sessionsPerInstance);
+        this.sessionFactory = sessionFactory;
+        this.toolsChangeConsumer = toolsChangeConsumer;
+    }
+
+    /**
+     * 按最新的实例列表增删会话：保留仍然存在的实例的会话，为新实例建立并预热会话，关闭已下线实例的会话。
+     * 地址不变但协议或端点变化的实例按新实例处理
+     *
+     * @return 实例列表是否有变化
+     */
+    public synchronized boolean updateInstances(Collection<McpServerInstance> instances) {
+        Set<McpServerInstance> current = new LinkedHashSet<>(instances);
+        List<Session> kept = new ArrayList<>();
+        Set<McpServerInstance> existing = new LinkedHashSet<>();
+        for (Session session : sessions) {
+            if (current.contains(session.instance)) {
+                kept.add(session);
+                existing.add(session.instance);
+            }
+            else {
+                session.close();
+            }
+        }
+        boolean changed = kept.size() != sessions.size();
+        for (McpServerInstance instance : current) {
+            if (existing.contains(instance)) {
+                continue;
+            }
+            changed = true;
+            for (int i = 0; i < sessionsPerInstance; i++) {
+                Session session = new Session(instance);
+                session.warmUp();
+                kept.add(session);
+            }
+        }
+        sessions = List.copyOf(kept);
+        if (changed) {
+            log.info("MCP server {} now has {} session(s) on {}", serverName, kept.size(),
+                    current.stream().map(McpServerInstance::baseUrl).toList());
+        }
+        return changed;
+    }
+
+    /**
+     * 在下一个会话上执行请求。连接层面的错误会让该会话在下次使用前重建，工具自身返回的 {@link McpError} 不会
+     */
+    public <T> T execute(Function<McpSyncClient, T> request) {
+        List<Session> current = sessions;
+        if (current.isEmpty()) {
+            throw new IllegalStateException("No available instance of MCP server " + serverName);
+        }
+        Session session = current.get(Math.floorMod(next.getAndIncrement(), current.size()));
+        McpSyncClient client = session.client();
+        try {
+            return request.apply(client);
+        }
+        catch (McpError ex) {
+            throw ex;
+        }
+        catch (RuntimeException ex) {
+            session.reset(client);
+            throw ex;
+        }
+    }
+
+    public List<McpSchema.Tool> listTools() {
+        return execute(client -> {
+            List<McpSchema.Tool> tools = new ArrayList<>();
+            String cursor = null;
+            do {
+                McpSchema.ListToolsResult result = cursor == null ? client.listTools() : client.listTools(cursor);
+                tools.addAll(result.tools());
+                cursor = result.nextCursor();
+            }
+            while (cursor != null);
+            return tools;
+        });
+    }
+
+    public String getServerName() {
+        return serverName;
+    }
+
+    @Override
+    public synchronized void close() {
+        sessions.forEach(Session::close);
+        sessions = List.of();
+    }
+
+    /**
+     * 一个常驻会话，连接失败或出错后在下次使用时重新建立
+     */
+    private final class Session {
+
+        private final McpServerInstance instance;
+
+        private McpSyncClient client;
+
+        private boolean closed;
+
+        private Session(McpServerInstance instance) {
+            this.instance = instance;
+        }
+
+        void warmUp() {
+            try {
+                client();
+            }
+            catch (RuntimeException ex) {
+                log.warn("Failed to open MCP session to {} ({}), will retry on first use: {}", serverName,
+                        instance.baseUrl(), ex.getMessage());
+            }
+        }
+
+        synchronized McpSyncClient client() {
+            if (closed) {
+                throw new IllegalStateException("MCP session to " + instance.baseUrl() + " is closed");
+            }
+            if (client == null) {
+                client = sessionFactory.open(instance, toolsChangeConsumer);
+            }
+            return client;
+        }
+
+        synchronized void reset(McpSyncClient failed) {
+            if (client == failed) {
+                client = null;
+                failed.close();
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (client != null) {
+                client.closeGracefully();
+                client = null;
+            }
+        }
+    }
+}
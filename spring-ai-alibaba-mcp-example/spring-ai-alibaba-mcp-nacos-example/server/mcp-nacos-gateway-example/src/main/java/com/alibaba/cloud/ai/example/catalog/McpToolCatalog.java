@@ -0,0 +1,195 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 网关侧的 MCP 工具目录
+ * <p>
+ * 缓存所有 MCP Server 的工具定义，请求只读取当前快照，不再逐个枚举远程工具。
+ * 某个 Server 的实例变化（Nacos 推送）或工具变化（MCP tools/list_changed 通知）时，只刷新该 Server 的工具，
+ * 再整体替换快照。所有刷新在同一个后台线程上串行执行。
+ * </p>
+ * <p>
+ * 工具沿用 MCP Server 自己的工具名，与网关 /mcp/messages 端点暴露的名称一致。多个 Server 有同名工具时，
+ * 按 {@code serverNames} 的顺序保留第一个。
+ * </p>
+ */
+public class McpToolCatalog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(McpToolCatalog.class);
+
+    private final List<String> serverNames;
+
+    private final int sessionsPerInstance;
+
+    private final McpSessionFactory sessionFactory;
+
+    private final Map<String, McpSessionPool> pools = new ConcurrentHashMap<>();
+
+    private final Map<String, List<PooledMcpToolCallback>> toolsByServer = new ConcurrentHashMap<>();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-tool-catalog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), List.of(), List.of());
+
+    /**
+     * @param serverNames 要聚合的 MCP Server，即 spring.ai.alibaba.mcp.gateway.nacos.service-names
+     */
+    public McpToolCatalog(List<String> serverNames, int sessionsPerInstance, McpSessionFactory sessionFactory) {
+        this.serverNames = List.copyOf(serverNames);
+        this.sessionsPerInstance = sessionsPerInstance;
+        this.sessionFactory = sessionFactory;
+    }
+
+    public List<String> serverNames() {
+        return serverNames;
+    }
+
+    /**
+     * 当前所有工具，返回的列表不可修改
+     */
+    public List<ToolCallback> toolCallbacks() {
+        return snapshot.toolCallbacks();
+    }
+
+    public Optional<ToolCallback> find(String toolName) {
+        return Optional.ofNullable(snapshot.byName().get(toolName));
+    }
+
+    /**
+     * 当前所有工具的名称、描述和所属服务
+     */
+    public List<Map<String, String>> describe() {
+        return snapshot.descriptions();
+    }
+
+    /**
+     * 在调用线程上同步刷新，用于启动时预热，保证第一个请求就能拿到工具
+     */
+    public void refreshNow(String serverName, Collection<McpServerInstance> instances) {
+        refresh(serverName, instances);
+    }
+
+    /**
+     * 实例列表变化时调用，刷新在后台线程执行
+     */
+    public void onInstancesChanged(String serverName, Collection<McpServerInstance> instances) {
+        List<McpServerInstance> current = List.copyOf(instances);
+        submit(() -> refresh(serverName, current));
+    }
+
+    private void onToolsChanged(String serverName, List<McpSchema.Tool> tools) {
+        submit(() -> {
+            McpSessionPool pool = pools.get(serverName);
+            if (pool != null) {
+                publish(serverName, pool, tools);
+            }
+        });
+    }
+
+    private void submit(Runnable task) {
+        try {
+            refresher.execute(task);
+        }
+        catch (RejectedExecutionException ex) {
+            // 目录已关闭，忽略关闭过程中到达的事件
+        }
+    }
+
+    private void refresh(String serverName, Collection<McpServerInstance> instances) {
+        if (!serverNames.contains(serverName)) {
+            return;
+        }
+        McpSessionPool pool = pools.computeIfAbsent(serverName,
+                name -> new McpSessionPool(name, sessionsPerInstance, sessionFactory,
+                        tools -> onToolsChanged(name, tools)));
+        boolean changed = pool.updateInstances(instances);
+        if (instances.isEmpty()) {
+            publish(serverName, pool, List.of());
+            return;
+        }
+        if (!changed && toolsByServer.containsKey(serverName)) {
+            return;
+        }
+        try {
+            publish(serverName, pool, pool.listTools());
+        }
+        catch (RuntimeException ex) {
+            // 保留上一次成功拉取的工具，等待下一次变更事件
+            log.warn("Failed to list tools of MCP server {}: {}", serverName, ex.getMessage());
+        }
+    }
+
+    private synchronized void publish(String serverName, McpSessionPool pool, List<McpSchema.Tool> tools) {
+        List<PooledMcpToolCallback> callbacks = tools.stream()
+                .map(tool -> new PooledMcpToolCallback(pool, tool))
+                .toList();
+        toolsByServer.put(serverName, callbacks);
+
+        Map<String, ToolCallback> byName = new LinkedHashMap<>();
+        List<Map<String, String>> descriptions = new ArrayList<>();
+        serverNames.forEach(name -> {
+            for (PooledMcpToolCallback callback : toolsByServer.getOrDefault(name, List.of())) {
+                String toolName = callback.getToolDefinition().name();
+                ToolCallback existing = byName.putIfAbsent(toolName, callback);
+                if (existing != null) {
+                    log.warn("Tool {} of MCP server {} is shadowed by the one of {}", toolName, name,
+                            ((PooledMcpToolCallback) existing).getServerName());
+                    continue;
+                }
+                descriptions.add(Map.of(
+                        "name", toolName,
+                        "description", Objects.toString(callback.getToolDefinition().description(), ""),
+                        "server", name
+                ));
+            }
+        });
+        snapshot = new Snapshot(Map.copyOf(byName), List.copyOf(byName.values()), List.copyOf(descriptions));
+        log.info("MCP server {} has {} tool(s), catalog now has {}", serverName, callbacks.size(), byName.size());
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+        pools.values().forEach(McpSessionPool::close);
+    }
+
+    private record Snapshot(Map<String, ToolCallback> byName, List<ToolCallback> toolCallbacks,
+                            List<Map<String, String>> descriptions) {
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import com.alibaba.cloud.ai.mcp.nacos.service.NacosMcpOperationService;
+import com.alibaba.nacos.api.ai.listener.AbstractNacosMcpServerListener;
+import com.alibaba.nacos.api.ai.listener.NacosMcpServerEvent;
+import com.alibaba.nacos.api.ai.model.mcp.McpServerDetailInfo;
+import com.alibaba.nacos.api.exception.NacosException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.List;
+
+/**
+ * 订阅 Nacos MCP Registry 中 MCP Server 的变化
+ * <p>
+ * 通过网关已有的 {@link NacosMcpOperationService} 读取 Server 的协议、端点和后端实例，不再单独创建 NamingService。
+ * 启动时同步拉取一次并预热工具目录，之后只在 Nacos 推送变更时刷新对应的 Server。
+ * </p>
+ */
+public class NacosMcpServerWatcher implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(NacosMcpServerWatcher.class);
+
+    private final NacosMcpOperationService operationService;
+
+    private final McpToolCatalog catalog;
+
+    private volatile boolean closed;
+
+    public NacosMcpServerWatcher(NacosMcpOperationService operationService, McpToolCatalog catalog) {
+        this.operationService = operationService;
+        this.catalog = catalog;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String serverName : catalog.serverNames()) {
+            try {
+                McpServerDetailInfo detail = operationService.getServerDetail(serverName, null);
+                catalog.refreshNow(serverName, instances(serverName, detail));
+            }
+            catch (NacosException ex) {
+                log.warn("Failed to load MCP server {}: {}", serverName, ex.getMessage());
+            }
+            try {
+                operationService.subscribeNacosMcpServer(serverName, new AbstractNacosMcpServerListener() {
+                    @Override
+                    public void onEvent(NacosMcpServerEvent event) {
+                        if (!closed) {
+                            catalog.onInstancesChanged(serverName,
+                                    instances(serverName, event.getMcpServerDetailInfo()));
+                        }
+                    }
+                });
+            }
+            catch (NacosException ex) {
+                log.warn("Failed to subscribe MCP server {}: {}", serverName, ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // 订阅随网关的 NacosMcpOperationService 一起释放
+        closed = true;
+    }
+
+    private static List<McpServerInstance> instances(String serverName, McpServerDetailInfo detail) {
+        if (detail == null || detail.getBackendEndpoints() == null) {
+            return List.of();
+        }
+        McpServerInstance.Protocol protocol = McpServerInstance.Protocol.fromNacos(detail.getProtocol());
+        if (protocol == null) {
+            log.warn("MCP server {} uses protocol {}, which the tool catalog does not pool", serverName,
+                    detail.getProtocol());
+            return List.of();
+        }
+        String endpoint = detail.getRemoteServerConfig() == null ? null
+                : detail.getRemoteServerConfig().getExportPath();
+        return detail.getBackendEndpoints().stream()
+                .map(backend -> new McpServerInstance("http://" + backend.getAddress() + ":" + backend.getPort(),
+                        protocol, endpoint))
+                .distinct()
+                .toList();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+
+/**
+ * 通过 {@link McpSessionPool} 调用远程工具的 ToolCallback，不绑定某个具体会话或实例
+ */
+public class PooledMcpToolCallback implements ToolCallback {
+
+    private final McpSessionPool pool;
+
+    private final McpSchema.Tool tool;
+
+    private final ToolDefinition toolDefinition;
+
+    public PooledMcpToolCallback(McpSessionPool pool, McpSchema.Tool tool) {
+        this.pool = pool;
+        this.tool = tool;
+        // 与网关 /mcp/messages 端点一致，直接使用 MCP Server 的工具名
+        this.toolDefinition = McpToolUtils.createToolDefinition(tool.name(), tool);
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return toolDefinition;
+    }
+
+    public String getServerName() {
+        return pool.getServerName();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return call(toolInput, null);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        Map<String, Object> arguments = ModelOptionsUtils.jsonToMap(StringUtils.hasText(toolInput) ? toolInput : "{}");
+        McpSchema.CallToolResult result;
+        try {
+            result = pool.execute(client -> client.callTool(new McpSchema.CallToolRequest(tool.name(), arguments)));
+        }
+        catch (RuntimeException ex) {
+            throw new ToolExecutionException(toolDefinition, ex);
+        }
+        if (Boolean.TRUE.equals(result.isError())) {
+            throw new ToolExecutionException(toolDefinition,
+                    new IllegalStateException("Error calling tool: " + result.content()));
+        }
+        return ModelOptionsUtils.toJsonString(result.content());
+    }
+}
@@ -1,20 +1,17 @@
 package com.alibaba.cloud.ai.example.controller;
 
+import com.alibaba.cloud.ai.example.catalog.McpToolCatalog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatModel;
-import org.springframework.ai.tool.ToolCallback;
-import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * MCP Gateway 测试控制器
@@ -30,28 +27,25 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/gateway")
 public class GatewayController {
 
-    private final ChatModel chatModel;
+    private final ChatClient chatClient;
 
-    private final ToolCallbackProvider toolCallbackProvider;
+    private final McpToolCatalog toolCatalog;
     private final static Logger log = LoggerFactory.getLogger(GatewayController.class);
 
-    public GatewayController(ChatModel chatModel, ToolCallbackProvider toolCallbackProvider) {
-        this.chatModel = chatModel;
-        this.toolCallbackProvider = toolCallbackProvider;
+    public GatewayController(ChatModel chatModel, McpToolCatalog toolCatalog) {
+        this.chatClient = ChatClient.builder(chatModel).build();
+        this.toolCatalog = toolCatalog;
     }
 
     /**
      * 列出所有从 Nacos 发现并聚合的 MCP 工具
+     * <p>
+     * 直接返回工具目录的缓存，不会逐个请求远程 MCP Server
+     * </p>
      */
     @GetMapping("/tools")
     public List<Map<String, String>> listTools() {
-        ToolCallback[] toolCallbacks = toolCallbackProvider.getToolCallbacks();
-        return Arrays.stream(toolCallbacks)
-                .map(tool -> Map.of(
-                        "name", tool.getToolDefinition().name(),
-                        "description", tool.getToolDefinition().description()
-                ))
-                .collect(Collectors.toList());
+        return toolCatalog.describe();
     }
 
     /**
@@ -66,12 +60,9 @@ public class GatewayController {
     public String chat(@RequestParam String message) {
         log.info("收到用户消息: {}", message);
 
-        ChatClient chatClient = ChatClient.builder(chatModel)
-                .defaultToolCallbacks(toolCallbackProvider.getToolCallbacks())
-                .build();
-
         String response = chatClient.prompt()
                 .user(message)
+                .toolCallbacks(toolCatalog.toolCallbacks())
                 .call()
                 .content();
 
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class McpSessionPoolTest {
+
+    private static final McpServerInstance A = new McpServerInstance("http://10.0.0.1:21000",
+            McpServerInstance.Protocol.SSE, null);
+
+    private static final McpServerInstance B = new McpServerInstance("http://10.0.0.2:21000",
+            McpServerInstance.Protocol.SSE, null);
+
+    @Test
+    void reusesWarmSessionsAcrossRequests() {
+        FakeSessions sessions = new FakeSessions();
+        try (McpSessionPool pool = new McpSessionPool("time", 2, sessions, tools -> {
+        })) {
+            assertThat(pool.updateInstances(List.of(A))).isTrue();
+            // 会话在实例上线时就已建立
+            assertThat(sessions.opened(A)).hasSize(2);
+
+            Map<McpSyncClient, Integer> uses = new ConcurrentHashMap<>();
+            for (int i = 0; i < 10; i++) {
+                uses.merge(borrow(pool), 1, Integer::sum);
+            }
+
+            // 请求在两个会话之间轮询，不会再建立新会话
+            assertThat(uses).containsOnlyKeys(sessions.opened(A)).containsValues(5, 5);
+            assertThat(pool.updateInstances(List.of(A))).isFalse();
+            assertThat(sessions.openCalls()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void closesSessionsOfRemovedInstances() {
+        FakeSessions sessions = new FakeSessions();
+        try (McpSessionPool pool = new McpSessionPool("time", 2, sessions, tools -> {
+        })) {
+            pool.updateInstances(List.of(A, B));
+            assertThat(pool.updateInstances(List.of(B))).isTrue();
+
+            sessions.opened(A).forEach(client -> verify(client).closeGracefully());
+            sessions.opened(B).forEach(client -> verify(client, never()).closeGracefully());
+            for (int i = 0; i < 4; i++) {
+                assertThat(borrow(pool)).isIn(sessions.opened(B));
+            }
+            assertThat(sessions.openCalls()).isEqualTo(4);
+
+            // 协议或端点变化的实例重新建立会话
+            McpServerInstance streamableB = new McpServerInstance(B.baseUrl(), McpServerInstance.Protocol.STREAMABLE,
+                    null);
+            assertThat(streamableB.endpoint()).isEqualTo("/mcp");
+            assertThat(pool.updateInstances(List.of(streamableB))).isTrue();
+            sessions.opened(B).forEach(client -> verify(client).closeGracefully());
+            assertThat(sessions.opened(streamableB)).hasSize(2);
+
+            pool.updateInstances(List.of());
+            assertThatThrownBy(() -> borrow(pool)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void rebuildsSessionAfterConnectionError() {
+        FakeSessions sessions = new FakeSessions();
+        try (McpSessionPool pool = new McpSessionPool("time", 1, sessions, tools -> {
+        })) {
+            pool.updateInstances(List.of(A));
+            McpSyncClient first = sessions.opened(A).get(0);
+
+            // 工具自身返回的错误不影响会话
+            assertThatThrownBy(() -> pool.execute(client -> {
+                throw McpError.builder(McpSchema.ErrorCodes.INTERNAL_ERROR).message("tool failed").build();
+            })).isInstanceOf(McpError.class);
+            assertThat(borrow(pool)).isSameAs(first);
+
+            // 连接层面的错误关闭该会话，下次使用时重建
+            assertThatThrownBy(() -> pool.execute(client -> {
+                throw new IllegalStateException("connection reset");
+            })).isInstanceOf(IllegalStateException.class);
+            verify(first).close();
+
+            McpSyncClient second = borrow(pool);
+            assertThat(second).isNotSameAs(first);
+            assertThat(borrow(pool)).isSameAs(second);
+            assertThat(sessions.opened(A)).containsExactly(first, second);
+        }
+    }
+
+    @Test
+    void concurrentRequestsShareTheSessions() throws Exception {
+        int threads = 16;
+        // 预热失败，会话在并发的第一次使用时建立
+        FakeSessions sessions = new FakeSessions(2);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (McpSessionPool pool = new McpSessionPool("time", 2, sessions, tools -> {
+        })) {
+            pool.updateInstances(List.of(A));
+            assertThat(sessions.opened(A)).isEmpty();
+
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch inFlight = new CountDownLatch(threads);
+            List<Future<McpSyncClient>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return pool.execute(client -> {
+                        // 所有请求同时占用会话，会话不是独占借出的
+                        inFlight.countDown();
+                        try {
+                            assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+                        }
+                        catch (InterruptedException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                        return client;
+                    });
+                }));
+            }
+
+            start.countDown();
+            HashSet<McpSyncClient> used = new HashSet<>();
+            for (Future<McpSyncClient> future : futures) {
+                used.add(future.get(10, TimeUnit.SECONDS));
+            }
+
+            // 每个会话只建立一次
+            assertThat(sessions.opened(A)).hasSize(2);
+            assertThat(used).containsExactlyInAnyOrderElementsOf(sessions.opened(A));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static McpSyncClient borrow(McpSessionPool pool) {
+        return pool.execute(client -> client);
+    }
+
+    /**
+     * 为每个实例记录建立过的会话，前 {@code failures} 次建立会失败
+     */
+    private static final class FakeSessions implements McpSessionFactory {
+
+        private final AtomicInteger failures;
+
+        private final AtomicInteger openCalls = new AtomicInteger();
+
+        private final Map<McpServerInstance, List<McpSyncClient>> opened = new ConcurrentHashMap<>();
+
+        FakeSessions() {
+            this(0);
+        }
+
+        FakeSessions(int failures) {
+            this.failures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public McpSyncClient open(McpServerInstance instance, Consumer<List<McpSchema.Tool>> toolsChangeConsumer) {
+            openCalls.incrementAndGet();
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("connection refused");
+            }
+            McpSyncClient client = mock(McpSyncClient.class);
+            opened.computeIfAbsent(instance, key -> new CopyOnWriteArrayList<>()).add(client);
+            return client;
+        }
+
+        List<McpSyncClient> opened(McpServerInstance instance) {
+            return opened.getOrDefault(instance, List.of());
+        }
+
+        int openCalls() {
+            return openCalls.get();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.catalog;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class McpToolCatalogTest {
+
+    private static final McpServerInstance TIME = instance("http://10.0.0.1:10018");
+
+    private static final McpServerInstance WEATHER = instance("http://10.0.0.2:10032");
+
+    @Test
+    void publishesToolsUnderTheirOwnNames() {
+        FakeServers servers = new FakeServers(Map.of(TIME, List.of("getCurrentTime"),
+                WEATHER, List.of("getWeather")));
+        try (McpToolCatalog catalog = new McpToolCatalog(List.of("time", "weather"), 1, servers)) {
+            catalog.refreshNow("time", List.of(TIME));
+            catalog.refreshNow("weather", List.of(WEATHER));
+            // 不在 service-names 中的 Server 不进入目录
+            catalog.refreshNow("unknown", List.of(TIME));
+
+            // 与网关 /mcp/messages 暴露的工具名一致，不加服务名前缀
+            assertThat(catalog.toolCallbacks()).extracting(callback -> callback.getToolDefinition().name())
+                    .containsExactly("getCurrentTime", "getWeather");
+            assertThat(catalog.describe()).containsExactly(
+                    Map.of("name", "getCurrentTime", "description", "getCurrentTime", "server", "time"),
+                    Map.of("name", "getWeather", "description", "getWeather", "server", "weather"));
+            assertThat(catalog.find("getWeather")).get()
+                    .isInstanceOfSatisfying(PooledMcpToolCallback.class,
+                            callback -> assertThat(callback.getServerName()).isEqualTo("weather"));
+        }
+    }
+
+    @Test
+    void keepsTheFirstServerOnNameClash() {
+        FakeServers servers = new FakeServers(Map.of(TIME, List.of("search"), WEATHER, List.of("search")));
+        try (McpToolCatalog catalog = new McpToolCatalog(List.of("time", "weather"), 1, servers)) {
+            catalog.refreshNow("weather", List.of(WEATHER));
+            catalog.refreshNow("time", List.of(TIME));
+
+            // 按 service-names 的顺序取第一个，与刷新顺序无关
+            assertThat(catalog.toolCallbacks()).hasSize(1);
+            assertThat(catalog.describe()).extracting(tool -> tool.get("server")).containsExactly("time");
+        }
+    }
+
+    @Test
+    void relistsToolsOnlyWhenInstancesChange() throws Exception {
+        McpServerInstance secondTime = instance("http://10.0.0.3:10018");
+        FakeServers servers = new FakeServers(Map.of(TIME, List.of("getCurrentTime"),
+                secondTime, List.of("getCurrentTime")));
+        try (McpToolCatalog catalog = new McpToolCatalog(List.of("time"), 1, servers)) {
+            catalog.refreshNow("time", List.of(TIME));
+            catalog.refreshNow("time", List.of(TIME));
+            assertThat(servers.listCalls()).isEqualTo(1);
+
+            // Nacos 推送的变化在后台刷新
+            catalog.onInstancesChanged("time", List.of(TIME, secondTime));
+            awaitListCalls(servers, 2);
+            assertThat(catalog.toolCallbacks()).hasSize(1);
+
+            catalog.onInstancesChanged("time", List.of());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!catalog.toolCallbacks().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(catalog.toolCallbacks()).isEmpty();
+            assertThat(servers.listCalls()).isEqualTo(2);
+        }
+    }
+
+    private static void awaitListCalls(FakeServers servers, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (servers.listCalls() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(servers.listCalls()).isEqualTo(expected);
+    }
+
+    private static McpServerInstance instance(String baseUrl) {
+        return new McpServerInstance(baseUrl, McpServerInstance.Protocol.SSE, "/sse");
+    }
+
+    /**
+     * 每个实例返回固定的工具列表，并统计 tools/list 的调用次数
+     */
+    private static final class FakeServers implements McpSessionFactory {
+
+        private final Map<McpServerInstance, List<String>> toolNames;
+
+        private final AtomicInteger listCalls = new AtomicInteger();
+
+        private final Map<McpServerInstance, McpSyncClient> clients = new ConcurrentHashMap<>();
+
+        FakeServers(Map<McpServerInstance, List<String>> toolNames) {
+            this.toolNames = toolNames;
+        }
+
+        @Override
+        public McpSyncClient open(McpServerInstance instance, Consumer<List<McpSchema.Tool>> toolsChangeConsumer) {
+            return clients.computeIfAbsent(instance, key -> {
+                List<McpSchema.Tool> tools = toolNames.get(key).stream()
+                        .map(name -> McpSchema.Tool.builder().name(name).description(name).build())
+                        .toList();
+                McpSyncClient client = mock(McpSyncClient.class);
+                when(client.listTools()).thenAnswer(invocation -> {
+                    listCalls.incrementAndGet();
+                    return new McpSchema.ListToolsResult(tools, null);
+                });
+                return client;
+            });
+        }
+
+        int listCalls() {
+            return listCalls.get();
+        }
+    }
+}
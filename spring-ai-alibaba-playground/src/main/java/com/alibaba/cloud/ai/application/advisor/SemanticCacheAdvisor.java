@@ -0,0 +1,235 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.hash.Hashing;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.util.StringUtils;
+
+/**
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ *
+ * 语义响应缓存：语义相近的问题直接以流的形式回放已缓存的回答，跳过模型调用。
+ * 只缓存单轮问答（无历史消息、无多模态内容），多轮对话的回答依赖上下文，不能复用。
+ * 默认排在 MessageChatMemoryAdvisor 之后，回放的回答同样会写入会话记忆。
+ */
+
+public class SemanticCacheAdvisor implements BaseAdvisor {
+
+	public static final int DEFAULT_ORDER = Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER + 1;
+
+	/**
+	 * 回放时每个 chunk 的字符数，模拟模型的流式输出
+	 */
+	private static final int REPLAY_CHUNK_SIZE = 16;
+
+	private final SemanticResponseCache cache;
+
+	private final int order;
+
+	public SemanticCacheAdvisor(SemanticResponseCache cache) {
+		this(cache, DEFAULT_ORDER);
+	}
+
+	public SemanticCacheAdvisor(SemanticResponseCache cache, Integer order) {
+		this.cache = cache;
+		this.order = order != null ? order : DEFAULT_ORDER;
+	}
+
+	@Override
+	public int getOrder() {
+
+		return this.order;
+	}
+
+	@Override
+	public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+		return chatClientRequest;
+	}
+
+	@Override
+	public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+		return chatClientResponse;
+	}
+
+	@Override
+	public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+
+		String question = cacheableQuestion(chatClientRequest.prompt());
+		if (Objects.isNull(question)) {
+			return callAdvisorChain.nextCall(chatClientRequest);
+		}
+
+		SemanticResponseCache.Lookup lookup = cache.lookup(scope(chatClientRequest.prompt()), question);
+		if (lookup.isHit()) {
+			return replay(chatClientRequest, lookup.answer());
+		}
+
+		long start = System.nanoTime();
+		ChatClientResponse response = callAdvisorChain.nextCall(chatClientRequest);
+		cache.put(lookup, text(response), System.nanoTime() - start);
+		return response;
+	}
+
+	@Override
+	public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+
+		String question = cacheableQuestion(chatClientRequest.prompt());
+		if (Objects.isNull(question)) {
+			return streamAdvisorChain.nextStream(chatClientRequest);
+		}
+
+		// embedding 是阻塞调用，放到 boundedElastic 上执行，避免占用 reactor 的事件线程
+		return Mono.fromCallable(() -> cache.lookup(scope(chatClientRequest.prompt()), question))
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMapMany(lookup -> {
+					if (lookup.isHit()) {
+						return Flux.fromIterable(chunks(lookup.answer()))
+								.map(chunk -> replay(chatClientRequest, chunk));
+					}
+					return record(lookup, streamAdvisorChain.nextStream(chatClientRequest));
+				});
+	}
+
+	/**
+	 * 聚合流式回答，只有正常结束（未取消、未出错）的回答才写入缓存。
+	 */
+	private Flux<ChatClientResponse> record(SemanticResponseCache.Lookup lookup, Flux<ChatClientResponse> responses) {
+
+		return Flux.defer(() -> {
+			long start = System.nanoTime();
+			StringBuilder answer = new StringBuilder();
+			AtomicBoolean complete = new AtomicBoolean(true);
+			return responses
+					.doOnNext(response -> {
+						String text = text(response);
+						if (Objects.nonNull(text)) {
+							answer.append(text);
+						}
+						else if (hasToolCalls(response)) {
+							complete.set(false);
+						}
+					})
+					.doOnComplete(() -> {
+						if (complete.get()) {
+							cache.put(lookup, answer.toString(), System.nanoTime() - start);
+						}
+					});
+		});
+	}
+
+	/**
+	 * @return 可以缓存的用户问题；多轮对话或多模态请求返回 null
+	 */
+	private static String cacheableQuestion(Prompt prompt) {
+
+		UserMessage question = null;
+		for (Message message : prompt.getInstructions()) {
+			if (message.getMessageType() == MessageType.SYSTEM) {
+				continue;
+			}
+			if (Objects.nonNull(question) || !(message instanceof UserMessage userMessage)
+					|| !userMessage.getMedia().isEmpty()) {
+				return null;
+			}
+			question = userMessage;
+		}
+
+		return Objects.nonNull(question) && StringUtils.hasText(question.getText()) ? question.getText() : null;
+	}
+
+	/**
+	 * 缓存作用域：相同的问题在不同模型或不同 system prompt 下回答不同，不能互相命中。
+	 */
+	private static String scope(Prompt prompt) {
+
+		String model = Objects.nonNull(prompt.getOptions()) ? prompt.getOptions().getModel() : null;
+		SystemMessage system = prompt.getSystemMessage();
+		String systemText = Objects.nonNull(system) && Objects.nonNull(system.getText()) ? system.getText() : "";
+
+		return model + ":" + Hashing.murmur3_128().hashString(systemText, StandardCharsets.UTF_8);
+	}
+
+	private static ChatClientResponse replay(ChatClientRequest request, String text) {
+
+		AssistantMessage message = AssistantMessage.builder()
+				.content(text)
+				.properties(Map.of("semanticCache", "hit"))
+				.build();
+		ChatResponse chatResponse = ChatResponse.builder().generations(List.of(new Generation(message))).build();
+
+		return ChatClientResponse.builder().context(request.context()).chatResponse(chatResponse).build();
+	}
+
+	private static List<String> chunks(String answer) {
+
+		List<String> chunks = new ArrayList<>(answer.length() / REPLAY_CHUNK_SIZE + 1);
+		int start = 0;
+		while (start < answer.length()) {
+			int end = Math.min(start + REPLAY_CHUNK_SIZE, answer.length());
+			// 不拆开代理对
+			if (end < answer.length() && Character.isHighSurrogate(answer.charAt(end - 1))) {
+				end++;
+			}
+			chunks.add(answer.substring(start, end));
+			start = end;
+		}
+		return chunks;
+	}
+
+	private static String text(ChatClientResponse response) {
+
+		ChatResponse chatResponse = response.chatResponse();
+		if (Objects.isNull(chatResponse) || Objects.isNull(chatResponse.getResult())) {
+			return null;
+		}
+		return chatResponse.getResult().getOutput().getText();
+	}
+
+	private static boolean hasToolCalls(ChatClientResponse response) {
+
+		ChatResponse chatResponse = response.chatResponse();
+		return Objects.nonNull(chatResponse) && chatResponse.hasToolCalls();
+	}
+
+}
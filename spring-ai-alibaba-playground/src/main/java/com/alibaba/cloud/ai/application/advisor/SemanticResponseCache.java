@@ -0,0 +1,191 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import com.alibaba.cloud.ai.application.vectorstore.VectorStoreSupport;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * 进程内的语义响应缓存：以 (模型, system prompt) 为作用域，按用户问题的 embedding 相似度查找已有回答。
+ * <p>
+ * 完全相同的问题（归一化后）直接命中，不需要调用 embedding 模型；条目按写入时间过期，总数超过上限时按 LRU 淘汰。
+ * <p>
+ * 语义查找是对全部条目的线性扫描，条目数不能超过 {@link #MAX_ENTRIES}：按 1536 维向量计算，
+ * 默认的 1000 条约 150 万次乘加，上限 10000 条约 1500 万次（单核几毫秒），都远小于一次 embedding 调用的耗时。
+ * 需要更多条目时应改为经向量库检索。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+public class SemanticResponseCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(SemanticResponseCache.class);
+
+	private static final String METRIC_PREFIX = "playground.semantic.cache";
+
+	/**
+	 * 条目数上限，保证线性扫描的开销有界
+	 */
+	public static final long MAX_ENTRIES = 10_000;
+
+	private final EmbeddingModel embeddingModel;
+
+	private final double similarityThreshold;
+
+	private final Cache<String, Entry> entries;
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	private final Timer latencySaved;
+
+	public SemanticResponseCache(
+			EmbeddingModel embeddingModel,
+			double similarityThreshold,
+			Duration ttl,
+			long maxEntries,
+			MeterRegistry meterRegistry
+	) {
+
+		Assert.notNull(embeddingModel, "embeddingModel must not be null");
+		Assert.isTrue(similarityThreshold > 0 && similarityThreshold <= 1, "similarityThreshold must be in (0, 1]");
+		Assert.isTrue(maxEntries > 0 && maxEntries <= MAX_ENTRIES, "maxEntries must be in (0, " + MAX_ENTRIES + "]");
+
+		this.embeddingModel = embeddingModel;
+		this.similarityThreshold = similarityThreshold;
+		this.entries = CacheBuilder.newBuilder()
+				.expireAfterWrite(ttl)
+				.maximumSize(maxEntries)
+				.build();
+
+		this.hits = Counter.builder(METRIC_PREFIX + ".requests").tag("result", "hit").register(meterRegistry);
+		this.misses = Counter.builder(METRIC_PREFIX + ".requests").tag("result", "miss").register(meterRegistry);
+		this.latencySaved = Timer.builder(METRIC_PREFIX + ".latency.saved")
+				.description("Model latency avoided by replaying a cached answer")
+				.register(meterRegistry);
+		Gauge.builder(METRIC_PREFIX + ".size", entries, Cache::size).register(meterRegistry);
+	}
+
+	/**
+	 * 查找缓存。未命中时返回的 {@link Lookup} 携带本次计算出的 embedding，供 {@link #put} 复用。
+	 */
+	public Lookup lookup(String scope, String prompt) {
+
+		String key = key(scope, prompt);
+		Entry exact = entries.getIfPresent(key);
+		if (Objects.nonNull(exact)) {
+			return hit(key, null, exact);
+		}
+
+		float[] vector;
+		try {
+			vector = VectorStoreSupport.normalize(embeddingModel.embed(prompt));
+		}
+		catch (RuntimeException e) {
+			// embedding 失败不影响正常对话，只是本次不走缓存
+			logger.warn("Failed to embed prompt for semantic cache, bypass it: {}", e.getMessage());
+			misses.increment();
+			return new Lookup(key, scope, null, null);
+		}
+
+		String bestKey = null;
+		double bestScore = similarityThreshold;
+		for (Map.Entry<String, Entry> candidate : entries.asMap().entrySet()) {
+			Entry entry = candidate.getValue();
+			if (!entry.scope().equals(scope) || entry.vector().length != vector.length) {
+				continue;
+			}
+			double score = VectorStoreSupport.dot(vector, entry.vector());
+			if (score >= bestScore) {
+				bestScore = score;
+				bestKey = candidate.getKey();
+			}
+		}
+
+		// 通过 getIfPresent 访问一次，刷新 LRU 顺序
+		Entry best = Objects.nonNull(bestKey) ? entries.getIfPresent(bestKey) : null;
+		if (Objects.nonNull(best)) {
+			logger.debug("Semantic cache hit with similarity {}", bestScore);
+			return hit(key, vector, best);
+		}
+
+		misses.increment();
+		return new Lookup(key, scope, vector, null);
+	}
+
+	/**
+	 * 写入模型的完整回答。
+	 * @param latencyNanos 模型生成该回答的耗时，命中时作为节省的延迟计入指标
+	 */
+	public void put(Lookup lookup, String answer, long latencyNanos) {
+
+		if (Objects.isNull(lookup.vector()) || !StringUtils.hasText(answer)) {
+			return;
+		}
+		entries.put(lookup.key(), new Entry(lookup.scope(), lookup.vector(), answer, latencyNanos));
+	}
+
+	public long size() {
+
+		return entries.size();
+	}
+
+	private Lookup hit(String key, float[] vector, Entry entry) {
+
+		hits.increment();
+		latencySaved.record(Duration.ofNanos(entry.latencyNanos()));
+		return new Lookup(key, entry.scope(), vector, entry.answer());
+	}
+
+	private static String key(String scope, String prompt) {
+
+		return scope + '\u0000' + prompt.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @param answer 命中时为缓存的回答，未命中时为 null
+	 */
+	public record Lookup(String key, String scope, float[] vector, String answer) {
+
+		public boolean isHit() {
+
+			return Objects.nonNull(answer);
+		}
+	}
+
+	record Entry(String scope, float[] vector, String answer, long latencyNanos) {
+	}
+
+}
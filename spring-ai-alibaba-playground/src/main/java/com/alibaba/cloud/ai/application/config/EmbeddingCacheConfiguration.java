@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config;
+
+import java.time.Duration;
+
+import com.alibaba.cloud.ai.application.config.rag.VectorStoreInitializer;
+import com.alibaba.cloud.ai.application.embedding.CachingEmbeddingModel;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 查询侧共享的 embedding 缓存，本地向量库和语义响应缓存都通过它计算查询向量。
+ * 磁盘层默认关闭，开启后最多保留 disk-max-entries 个向量文件
+ */
+
+@Configuration
+public class EmbeddingCacheConfiguration {
+
+	@Bean
+	public CachingEmbeddingModel cachingEmbeddingModel(
+			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel,
+			ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${spring.ai.dashscope.embedding.options.model:text-embedding-v1}") String modelName,
+			@Value("${spring.ai.alibaba.playground.embedding-cache.max-entries:10000}") long maxEntries,
+			@Value("${spring.ai.alibaba.playground.embedding-cache.disk-enabled:false}") boolean diskEnabled,
+			@Value("${spring.ai.alibaba.playground.embedding-cache.disk-max-entries:100000}") long diskMaxEntries,
+			@Value("${spring.ai.alibaba.playground.embedding-cache.batch-window:PT0.002S}") Duration batchWindow,
+			@Value("${spring.ai.alibaba.playground.embedding-cache.max-batch-size:10}") int maxBatchSize
+	) {
+
+		return CachingEmbeddingModel.builder(embeddingModel)
+				.modelName(modelName)
+				.maxEntries(maxEntries)
+				.diskPath(diskEnabled ? VectorStoreInitializer.defaultWorkDir().resolve("embedding-cache") : null)
+				.maxDiskEntries(diskMaxEntries)
+				.batchWindow(batchWindow)
+				.maxBatchSize(maxBatchSize)
+				.meterRegistry(meterRegistry.getIfAvailable())
+				.build();
+	}
+
+}
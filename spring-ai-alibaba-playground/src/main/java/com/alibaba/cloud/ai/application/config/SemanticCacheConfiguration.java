@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config;
+
+import java.time.Duration;
+
+import com.alibaba.cloud.ai.application.advisor.SemanticCacheAdvisor;
+import com.alibaba.cloud.ai.application.advisor.SemanticResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ *
+ * 聊天接口的语义响应缓存，通过 spring.ai.alibaba.playground.semantic-cache.enabled=false 关闭
+ */
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.ai.alibaba.playground.semantic-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SemanticCacheConfiguration {
+
+	@Bean
+	public SemanticResponseCache semanticResponseCache(
+			@Qualifier("cachingEmbeddingModel") EmbeddingModel embeddingModel,
+			ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${spring.ai.alibaba.playground.semantic-cache.similarity-threshold:0.95}") double similarityThreshold,
+			@Value("${spring.ai.alibaba.playground.semantic-cache.ttl:PT1H}") Duration ttl,
+			@Value("${spring.ai.alibaba.playground.semantic-cache.max-entries:1000}") long maxEntries
+	) {
+
+		return new SemanticResponseCache(
+				embeddingModel,
+				similarityThreshold,
+				ttl,
+				maxEntries,
+				meterRegistry.getIfAvailable(SimpleMeterRegistry::new)
+		);
+	}
+
+	@Bean
+	public SemanticCacheAdvisor semanticCacheAdvisor(SemanticResponseCache semanticResponseCache) {
+
+		return new SemanticCacheAdvisor(semanticResponseCache);
+	}
+
+}
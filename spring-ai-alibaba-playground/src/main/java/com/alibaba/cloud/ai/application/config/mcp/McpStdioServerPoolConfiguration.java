@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.mcp;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import com.alibaba.cloud.ai.application.mcp.McpServerUtils;
+import com.alibaba.cloud.ai.application.mcp.McpStdioServerPool;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ *
+ * stdio MCP Server 进程池配置，服务定义来自 mcp-config.yml
+ */
+
+@Configuration
+public class McpStdioServerPoolConfiguration {
+
+	@Bean(destroyMethod = "close")
+	public McpStdioServerPool mcpStdioServerPool(
+			@Value("${spring.ai.alibaba.playground.mcp.pool.idle-timeout:PT10M}") Duration idleTimeout,
+			@Value("${spring.ai.alibaba.playground.mcp.pool.health-check-interval:PT30S}") Duration healthCheckInterval,
+			@Value("${spring.ai.alibaba.playground.mcp.pool.request-timeout:PT30S}") Duration requestTimeout,
+			@Value("${spring.ai.alibaba.playground.mcp.pool.max-servers:8}") int maxServers,
+			@Value("${spring.ai.alibaba.playground.mcp.pool.warm-up:false}") boolean warmUp
+	) {
+
+		return McpStdioServerPool.builder()
+				.servers(() -> {
+					try {
+						return McpServerUtils.getMcpServerConfig().getMcpServers();
+					}
+					catch (IOException e) {
+						throw new SAAAppException(e.getMessage());
+					}
+				})
+				.idleTimeout(idleTimeout)
+				.healthCheckInterval(healthCheckInterval)
+				.requestTimeout(requestTimeout)
+				.maxServers(maxServers)
+				.warmUp(warmUp)
+				.build();
+	}
+
+}
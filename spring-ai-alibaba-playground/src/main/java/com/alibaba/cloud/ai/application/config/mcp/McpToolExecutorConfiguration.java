@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.mcp;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.alibaba.cloud.ai.application.mcp.McpToolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * MCP 工具并发执行配置，tool-timeouts 按工具名覆盖默认超时，tool-queue-timeout 限制等待空闲线程的时间
+ */
+
+@Configuration
+public class McpToolExecutorConfiguration {
+
+	private static final String TOOL_TIMEOUTS = "spring.ai.alibaba.playground.mcp.tool-timeouts";
+
+	@Bean(destroyMethod = "close")
+	public McpToolExecutor mcpToolExecutor(
+			Environment environment,
+			@Value("${spring.ai.alibaba.playground.mcp.tool-timeout:PT30S}") Duration toolTimeout,
+			@Value("${spring.ai.alibaba.playground.mcp.max-concurrent-tools:16}") int maxConcurrentTools,
+			@Value("${spring.ai.alibaba.playground.mcp.tool-queue-timeout:PT60S}") Duration toolQueueTimeout
+	) {
+
+		Map<String, Duration> timeouts = Binder.get(environment)
+				.bind(TOOL_TIMEOUTS, Bindable.mapOf(String.class, Duration.class))
+				.orElse(Map.of());
+
+		return McpToolExecutor.builder()
+				.defaultTimeout(toolTimeout)
+				.timeouts(timeouts)
+				.maxConcurrentTools(maxConcurrentTools)
+				.queueTimeout(toolQueueTimeout)
+				.build();
+	}
+
+}
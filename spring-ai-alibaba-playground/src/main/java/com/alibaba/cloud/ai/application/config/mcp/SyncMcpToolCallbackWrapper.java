@@ -31,6 +31,17 @@ import java.lang.reflect.Field;
 
 public class SyncMcpToolCallbackWrapper {
 
+	private static final Field MCP_CLIENT_FIELD;
+
+	static {
+		try {
+			MCP_CLIENT_FIELD = SyncMcpToolCallback.class.getDeclaredField("mcpClient");
+			MCP_CLIENT_FIELD.setAccessible(true);
+		} catch (NoSuchFieldException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
 	private final SyncMcpToolCallback callback;
 
 	public SyncMcpToolCallbackWrapper(SyncMcpToolCallback callback) {
@@ -40,10 +51,8 @@ public class SyncMcpToolCallbackWrapper {
 	public McpSyncClient getMcpClient() {
 
 		try {
-			Field field = SyncMcpToolCallback.class.getDeclaredField("mcpClient");
-			field.setAccessible(true);
-			return (McpSyncClient) field.get(callback);
-		} catch (NoSuchFieldException | IllegalAccessException e) {
+			return (McpSyncClient) MCP_CLIENT_FIELD.get(callback);
+		} catch (IllegalAccessException e) {
 			throw new RuntimeException(e);
 		}
 	}
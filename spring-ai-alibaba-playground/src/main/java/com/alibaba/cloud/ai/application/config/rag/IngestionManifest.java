@@ -0,0 +1,160 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 向量库增量导入清单：记录每个 markdown 文件的内容哈希以及其切分出的每个 chunk 的哈希与向量 id。
+ * <p>
+ * 重启时只有哈希发生变化的文件才会重新切分和 embedding，已删除文件对应的向量会被清理。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+public class IngestionManifest {
+
+	private static final Logger logger = LoggerFactory.getLogger(IngestionManifest.class);
+
+	private static final int VERSION = 1;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Path path;
+
+	private final Map<String, FileEntry> files;
+
+	private IngestionManifest(Path path, Map<String, FileEntry> files) {
+		this.path = path;
+		this.files = new ConcurrentHashMap<>(files);
+	}
+
+	public static IngestionManifest empty(Path path) {
+
+		return new IngestionManifest(path, Map.of());
+	}
+
+	/**
+	 * 读取清单文件，文件不存在、版本不一致或损坏时返回空清单（即全量导入）。
+	 */
+	public static IngestionManifest load(Path path) {
+
+		if (!Files.isRegularFile(path)) {
+			return empty(path);
+		}
+
+		try {
+			Snapshot snapshot = MAPPER.readValue(path.toFile(), Snapshot.class);
+			if (snapshot.version() != VERSION || Objects.isNull(snapshot.files())) {
+				logger.warn("Ingestion manifest {} has unsupported version {}, ignore it.", path, snapshot.version());
+				return empty(path);
+			}
+			return new IngestionManifest(path, snapshot.files());
+		}
+		catch (IOException e) {
+			logger.warn("Failed to read ingestion manifest {}, fallback to full ingestion: {}", path, e.getMessage());
+			return empty(path);
+		}
+	}
+
+	public FileEntry get(String fileKey) {
+
+		return files.get(fileKey);
+	}
+
+	public void put(String fileKey, FileEntry entry) {
+
+		files.put(fileKey, entry);
+	}
+
+	public FileEntry remove(String fileKey) {
+
+		return files.remove(fileKey);
+	}
+
+	public List<String> fileKeys() {
+
+		return new ArrayList<>(files.keySet());
+	}
+
+	public boolean isEmpty() {
+
+		return files.isEmpty();
+	}
+
+	/**
+	 * 先写临时文件再原子替换，避免进程中途退出时留下半个清单。
+	 */
+	public void save() throws IOException {
+
+		Files.createDirectories(path.getParent());
+		Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+		MAPPER.writeValue(tmp.toFile(), new Snapshot(VERSION, Map.copyOf(files)));
+		Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public static String sha256(byte[] content) {
+
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+		}
+	}
+
+	public static String sha256(String content) {
+
+		return sha256(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param hash 文件内容哈希，为 null 时表示上次导入失败，下次启动必须重新导入
+	 * @param chunks 文件切分后的 chunk 列表
+	 */
+	public record FileEntry(String hash, List<ChunkEntry> chunks) {
+
+		public List<String> chunkIds() {
+
+			return chunks.stream().map(ChunkEntry::id).toList();
+		}
+	}
+
+	public record ChunkEntry(String id, String hash) {
+	}
+
+	record Snapshot(int version, Map<String, FileEntry> files) {
+	}
+
+}
@@ -16,13 +16,16 @@
 
 package com.alibaba.cloud.ai.application.config.rag;
 
+import com.alibaba.cloud.ai.application.vectorstore.HnswVectorStore;
+import com.alibaba.cloud.ai.application.vectorstore.MappedVectorStore;
+
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -46,27 +49,54 @@ public class SimpleVectorStoreConfiguration {
 	}
 
 	/**
-	 * 提供基于内存的向量存储（SimpleVectorStore）
+	 * 提供本地向量存储，使用 mmap 二进制快照持久化，重启后无需重新 embedding
 	 * <p>
-	 * 依赖 EmbeddingModel（自动注入，Alibaba 的嵌入模型）
+	 * 依赖 EmbeddingModel（带查询缓存的 Alibaba 嵌入模型，见 EmbeddingCacheConfiguration）
 	 * @param embeddingModel
 	 * @return
 	 */
 	@Bean
 	public VectorStore simpleVectorStore(
-			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel
+			@Qualifier("cachingEmbeddingModel") EmbeddingModel embeddingModel
+	) {
+
+		return MappedVectorStore.builder(embeddingModel)
+				.snapshotPath(VectorStoreInitializer.defaultWorkDir().resolve("simple-vector-store.bin"))
+				.build();
+	}
+
+	/**
+	 * 提供基于 HNSW 图的本地近似最近邻向量存储，只有 VECTOR_STORE_TYPE=hnsw 时才创建
+	 * <p>
+	 * M / efConstruction / efSearch 可通过配置调整，召回率与延迟的权衡见 HnswVectorStoreBenchmark
+	 * @param embeddingModel
+	 * @return
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "VECTOR_STORE_TYPE", havingValue = "hnsw")
+	public VectorStore hnswVectorStore(
+			@Qualifier("cachingEmbeddingModel") EmbeddingModel embeddingModel,
+			@Value("${spring.ai.alibaba.playground.vector-store.hnsw.m:16}") int m,
+			@Value("${spring.ai.alibaba.playground.vector-store.hnsw.ef-construction:200}") int efConstruction,
+			@Value("${spring.ai.alibaba.playground.vector-store.hnsw.ef-search:64}") int efSearch
 	) {
 
-		return SimpleVectorStore.builder(embeddingModel).build();
+		return HnswVectorStore.builder(embeddingModel)
+				.m(m)
+				.efConstruction(efConstruction)
+				.efSearch(efSearch)
+				.snapshotPath(VectorStoreInitializer.defaultWorkDir().resolve("hnsw-vector-store.bin"))
+				.build();
 	}
 
 	@Bean
 	public VectorStoreDelegate vectorStoreDelegate(
 			@Qualifier("simpleVectorStore") VectorStore simpleVectorStore,
-			@Qualifier("analyticdbVectorStore") @Autowired(required = false) VectorStore analyticdbVectorStore
+			@Qualifier("analyticdbVectorStore") @Autowired(required = false) VectorStore analyticdbVectorStore,
+			@Qualifier("hnswVectorStore") @Autowired(required = false) VectorStore hnswVectorStore
 	) {
 
-		return new VectorStoreDelegate(simpleVectorStore, analyticdbVectorStore);
+		return new VectorStoreDelegate(simpleVectorStore, analyticdbVectorStore, hnswVectorStore);
 	}
 
 }
@@ -26,9 +26,16 @@ public class VectorStoreDelegate {
 
 	private VectorStore analyticdbVectorStore;
 
+	private VectorStore hnswVectorStore;
+
 	public VectorStoreDelegate(VectorStore simpleVectorStore, VectorStore analyticdbVectorStore) {
+		this(simpleVectorStore, analyticdbVectorStore, null);
+	}
+
+	public VectorStoreDelegate(VectorStore simpleVectorStore, VectorStore analyticdbVectorStore, VectorStore hnswVectorStore) {
 		this.simpleVectorStore = simpleVectorStore;
 		this.analyticdbVectorStore = analyticdbVectorStore;
+		this.hnswVectorStore = hnswVectorStore;
 	}
 
 	public VectorStore getVectorStore(String vectorStoreType) {
@@ -37,6 +44,11 @@ public class VectorStoreDelegate {
 			return analyticdbVectorStore;
 		}
 
+		// 本地 HNSW 近似检索，适合大规模语料
+		if (Objects.equals(vectorStoreType, "hnsw") && hnswVectorStore != null) {
+			return hnswVectorStore;
+		}
+
 		return simpleVectorStore;
 	}
 }
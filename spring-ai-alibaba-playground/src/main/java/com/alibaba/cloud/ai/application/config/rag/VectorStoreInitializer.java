@@ -17,23 +17,51 @@
 package com.alibaba.cloud.ai.application.config.rag;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.alibaba.cloud.ai.application.config.rag.IngestionManifest.ChunkEntry;
+import com.alibaba.cloud.ai.application.config.rag.IngestionManifest.FileEntry;
+import com.alibaba.cloud.ai.application.vectorstore.SnapshotVectorStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.ai.document.Document;
 import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
 /**
+ * 增量、并行的 markdown 文档导入。
+ * <p>
+ * 1. 每个文件计算内容哈希，与磁盘上的 {@link IngestionManifest} 比较，未变化的文件直接跳过；
+ * 2. 变化的文件重新切分，chunk id 由文件路径 + chunk 内容哈希生成，只有新增的 chunk 才会 embedding，
+ *    消失的 chunk 以及已删除文件的向量会从向量库中删除；
+ * 3. 读取、切分、embedding 在有界线程池中并行执行，embedding 批次大小按 AIMD 策略自适应调整；
+ * 4. 对于 {@link SnapshotVectorStore}，导入完成后写入快照，清单只有在快照恢复成功时才生效。
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
@@ -41,77 +69,309 @@ public class VectorStoreInitializer {
 
 	private final Logger logger = LoggerFactory.getLogger(VectorStoreInitializer.class);
 
+	private static final String MARKDOWN_DIR = "rag/markdown/";
+
+	/**
+	 * DashScope embedding 接口单次最多 25 条文本
+	 */
+	private static final int MAX_BATCH_SIZE = 25;
+
+	private static final int DEFAULT_PARALLELISM = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+	private final Path workDir;
+
+	private final int parallelism;
+
+	private final TokenTextSplitter textSplitter = new TokenTextSplitter(2000, 1024, 10, 10000, true);
+
+	private final AtomicInteger batchSize = new AtomicInteger(MAX_BATCH_SIZE);
+
+	public VectorStoreInitializer() {
+		this(defaultWorkDir(), DEFAULT_PARALLELISM);
+	}
+
+	public VectorStoreInitializer(Path workDir, int parallelism) {
+		this.workDir = workDir;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * 导入清单和本地向量库快照所在目录
+	 */
+	public static Path defaultWorkDir() {
+
+		return Paths.get(System.getProperty("user.dir"), "rag", ".ingest");
+	}
+
 	public void init(VectorStore vectorStore) throws Exception {
-		List<MarkdownDocumentReader> markdownDocumentReaderList = loadMarkdownDocuments();
 
-		int size = 0;
-		if (markdownDocumentReaderList.isEmpty()) {
+		long start = System.nanoTime();
+		Map<String, Resource> markdownResources = loadMarkdownResources();
+
+		IngestionManifest manifest = restore(vectorStore, manifestPathOf(vectorStore));
+
+		if (markdownResources.isEmpty() && manifest.isEmpty()) {
 			logger.warn("No markdown documents found in the directory.");
 			return;
 		}
 
 		logger.debug("Start to load markdown documents into vector store......");
-		for (MarkdownDocumentReader markdownDocumentReader : markdownDocumentReaderList) {
-			List<Document> documents = new TokenTextSplitter(2000, 1024, 10, 10000, true).transform(markdownDocumentReader.get());
-			size += documents.size();
-
-			// 拆分 documents 列表为最大 25 个元素的子列表
-			for (int i = 0; i < documents.size(); i += 25) {
-				int end = Math.min(i + 25, documents.size());
-				List<Document> subList = documents.subList(i, end);
-				vectorStore.add(subList);
+		IngestionStats stats = new IngestionStats();
+
+		// 已删除的文件：清理其对应的全部向量
+		for (String fileKey : manifest.fileKeys()) {
+			if (!markdownResources.containsKey(fileKey)) {
+				FileEntry removed = manifest.remove(fileKey);
+				delete(vectorStore, removed.chunkIds());
+				stats.deletedChunks.addAndGet(removed.chunks().size());
+				stats.changedFiles.incrementAndGet();
+			}
+		}
+
+		// 读取、切分是 CPU 密集型，embedding 是 IO 密集型，线程数多于 embedding 并发数以便两者重叠执行
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism * 2);
+		// 限制同时在途的 embedding 请求，避免触发模型服务限流
+		Semaphore embeddingPermits = new Semaphore(parallelism);
+		try {
+			List<CompletableFuture<Void>> futures = markdownResources.entrySet().stream()
+					.map(entry -> CompletableFuture.runAsync(
+							() -> ingest(entry.getKey(), entry.getValue(), vectorStore, manifest, embeddingPermits, stats),
+							executor))
+					.toList();
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+		}
+		finally {
+			executor.shutdown();
+			persist(vectorStore, manifest, stats);
+		}
+
+		logger.info("Load markdown documents into vector store successfully in {} ms. files: {} (changed {}, unchanged {}), "
+						+ "chunks added: {}, chunks deleted: {}.",
+				(System.nanoTime() - start) / 1_000_000, markdownResources.size(), stats.changedFiles.get(),
+				stats.unchangedFiles.get(), stats.addedChunks.get(), stats.deletedChunks.get());
+	}
+
+	private void ingest(String fileKey, Resource resource, VectorStore vectorStore, IngestionManifest manifest,
+			Semaphore embeddingPermits, IngestionStats stats) {
+
+		FileEntry previous = manifest.get(fileKey);
+		String fileHash;
+		try (InputStream in = resource.getInputStream()) {
+			fileHash = IngestionManifest.sha256(in.readAllBytes());
+		}
+		catch (IOException e) {
+			logger.error("Failed to read markdown file {}: {}", fileKey, e.getMessage());
+			return;
+		}
+
+		if (Objects.nonNull(previous) && Objects.equals(previous.hash(), fileHash)) {
+			stats.unchangedFiles.incrementAndGet();
+			return;
+		}
+		stats.changedFiles.incrementAndGet();
+
+		Map<String, Document> chunks;
+		try {
+			chunks = split(fileKey, resource);
+		}
+		catch (RuntimeException e) {
+			logger.error("Failed to split markdown file {}: {}", fileKey, e.getMessage());
+			return;
+		}
+		List<String> staleIds;
+		List<Document> newChunks;
+		if (Objects.isNull(previous)) {
+			staleIds = List.of();
+			newChunks = List.copyOf(chunks.values());
+		}
+		else if (Objects.isNull(previous.hash())) {
+			// 上次导入失败，清单中的 chunk 不一定已写入向量库：全部删除后重新写入
+			staleIds = previous.chunkIds();
+			newChunks = List.copyOf(chunks.values());
+		}
+		else {
+			Set<String> previousIds = new HashSet<>(previous.chunkIds());
+			staleIds = previousIds.stream().filter(id -> !chunks.containsKey(id)).toList();
+			newChunks = chunks.values().stream().filter(doc -> !previousIds.contains(doc.getId())).toList();
+		}
+
+		List<ChunkEntry> chunkEntries = chunks.values().stream()
+				.map(doc -> new ChunkEntry(doc.getId(), String.valueOf(doc.getMetadata().get("chunk_hash"))))
+				.toList();
+
+		try {
+			delete(vectorStore, staleIds);
+			stats.deletedChunks.addAndGet(staleIds.size());
+
+			embeddingPermits.acquire();
+			try {
+				add(vectorStore, newChunks);
+			}
+			finally {
+				embeddingPermits.release();
+			}
+			stats.addedChunks.addAndGet(newChunks.size());
+
+			manifest.put(fileKey, new FileEntry(fileHash, chunkEntries));
+		}
+		catch (Exception e) {
+			logger.error("Failed to ingest markdown file {}: {}", fileKey, e.getMessage());
+			// 记录所有可能已写入的 chunk id，哈希置空：下次启动时先删除这些 id，再重新写入全部 chunk
+			List<ChunkEntry> pending = new ArrayList<>(chunkEntries);
+			if (Objects.nonNull(previous)) {
+				previous.chunks().stream()
+						.filter(chunk -> !chunks.containsKey(chunk.id()))
+						.forEach(pending::add);
+			}
+			manifest.put(fileKey, new FileEntry(null, pending));
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
 			}
 		}
-		logger.debug("Load markdown documents into vector store successfully. Load {} documents.", size);
 	}
 
-	private List<MarkdownDocumentReader> loadMarkdownDocuments() throws IOException, URISyntaxException {
-		List<MarkdownDocumentReader> readers;
-		
+	/**
+	 * 切分文件并为每个 chunk 生成稳定的 id，相同内容的 chunk 在多次启动之间 id 不变。
+	 */
+	private Map<String, Document> split(String fileKey, Resource resource) {
+
+		List<Document> documents = textSplitter.apply(
+				new MarkdownDocumentReader(resource, MarkdownDocumentReaderConfig.defaultConfig()).get());
+
+		Map<String, Document> chunks = new LinkedHashMap<>();
+		for (Document document : documents) {
+			String chunkHash = IngestionManifest.sha256(document.getText());
+			String id = UUID.nameUUIDFromBytes((fileKey + "#" + chunkHash).getBytes(StandardCharsets.UTF_8)).toString();
+
+			Map<String, Object> metadata = new LinkedHashMap<>(document.getMetadata());
+			metadata.put("source", fileKey);
+			metadata.put("chunk_hash", chunkHash);
+
+			chunks.putIfAbsent(id, Document.builder().id(id).text(document.getText()).metadata(metadata).build());
+		}
+
+		return chunks;
+	}
+
+	/**
+	 * 自适应批量写入：成功后批次 +1，失败后批次减半并重试，直到批次为 1 仍失败才抛出异常。
+	 */
+	private void add(VectorStore vectorStore, List<Document> documents) {
+
+		int offset = 0;
+		while (offset < documents.size()) {
+			int size = batchSize.get();
+			int end = Math.min(offset + size, documents.size());
+			try {
+				vectorStore.add(documents.subList(offset, end));
+				offset = end;
+				batchSize.accumulateAndGet(size, (current, used) -> Math.min(MAX_BATCH_SIZE, Math.max(current, used + 1)));
+			}
+			catch (RuntimeException e) {
+				if (size <= 1) {
+					throw e;
+				}
+				int reduced = batchSize.accumulateAndGet(size, (current, used) -> Math.min(current, Math.max(1, used / 2)));
+				logger.warn("Embedding batch of {} documents failed, retry with batch size {}: {}", size, reduced, e.getMessage());
+			}
+		}
+	}
+
+	private void delete(VectorStore vectorStore, List<String> ids) {
+
+		if (!ids.isEmpty()) {
+			vectorStore.delete(ids);
+		}
+	}
+
+	/**
+	 * 可快照的本地向量库必须真的从快照恢复了数据，清单才可信，否则清单会误认为向量已存在。
+	 */
+	private IngestionManifest restore(VectorStore vectorStore, Path manifestPath) {
+
+		IngestionManifest manifest = IngestionManifest.load(manifestPath);
+
+		if (vectorStore instanceof SnapshotVectorStore snapshotVectorStore && !snapshotVectorStore.hasSnapshot()) {
+			return IngestionManifest.empty(manifestPath);
+		}
+
+		return manifest;
+	}
+
+	private void persist(VectorStore vectorStore, IngestionManifest manifest, IngestionStats stats) throws IOException {
+
+		if (stats.changedFiles.get() == 0 && Files.isRegularFile(manifestPathOf(vectorStore))) {
+			return;
+		}
+
+		if (vectorStore instanceof SnapshotVectorStore snapshotVectorStore) {
+			snapshotVectorStore.snapshot();
+		}
+		manifest.save();
+	}
+
+	private Path manifestPathOf(VectorStore vectorStore) {
+
+		return workDir.resolve("manifest-" + vectorStore.getName() + ".json");
+	}
+
+	/**
+	 * 返回 文件 key -> markdown 资源，key 为相对 rag/markdown 的路径，保证两种加载方式下 key 一致。
+	 */
+	private Map<String, Resource> loadMarkdownResources() throws IOException {
+
+		Map<String, Resource> resources = new LinkedHashMap<>();
+
 		// 首先检查jar包当前运行目录是否存在markdown文件
 		Path currentDirPath = Paths.get(System.getProperty("user.dir"), "rag", "markdown");
-		
+
 		if (Files.exists(currentDirPath) && Files.isDirectory(currentDirPath)) {
 			logger.debug("Found markdown directory in current running directory: {}", currentDirPath);
-			
+
 			try (Stream<Path> paths = Files.walk(currentDirPath)) {
 				List<Path> markdownFiles = paths.filter(Files::isRegularFile)
 						.filter(path -> path.toString().endsWith(".md"))
 						.collect(Collectors.toList());
-				
-				if (!markdownFiles.isEmpty()) {
-					logger.debug("Loading {} markdown files from current directory", markdownFiles.size());
-					readers = markdownFiles.stream()
-							.map(path -> {
-								String filePath = path.toAbsolutePath().toString();
-								return new MarkdownDocumentReader("file:" + filePath);
-							})
-							.collect(Collectors.toList());
-					return readers;
-				} else {
-					logger.debug("No markdown files found in current directory, falling back to resources");
+
+				for (Path path : markdownFiles) {
+					String relative = currentDirPath.relativize(path).toString().replace('\\', '/');
+					resources.put(MARKDOWN_DIR + relative, new FileSystemResource(path));
 				}
 			}
-		} else {
+
+			if (!resources.isEmpty()) {
+				logger.debug("Loading {} markdown files from current directory", resources.size());
+				return resources;
+			}
+			logger.debug("No markdown files found in current directory, falling back to resources");
+		}
+		else {
 			logger.debug("Markdown directory not found in current directory, falling back to resources");
 		}
-		
-		// 如果当前运行目录没有找到，则从resources目录加载
-		Path markdownDir = Paths.get(getClass().getClassLoader().getResource("rag/markdown").toURI());
-		logger.debug("Loading markdown files from resources directory: {}", markdownDir);
 
-		try (Stream<Path> paths = Files.walk(markdownDir)) {
-			readers = paths.filter(Files::isRegularFile)
-					.filter(path -> path.toString().endsWith(".md"))
-					.map(path -> {
-						String fileName = path.getFileName().toString();
-						String classpathPath = "classpath:rag/markdown/" + fileName;
-						return new MarkdownDocumentReader(classpathPath);
-					})
-					.collect(Collectors.toList());
+		// 如果当前运行目录没有找到，则从resources目录加载（同时支持以 jar 包方式运行）
+		Resource[] classpathResources = new PathMatchingResourcePatternResolver()
+				.getResources("classpath*:" + MARKDOWN_DIR + "**/*.md");
+		logger.debug("Loading {} markdown files from resources directory", classpathResources.length);
+
+		for (Resource resource : classpathResources) {
+			String url = resource.getURL().toString();
+			resources.put(url.substring(url.lastIndexOf(MARKDOWN_DIR)), resource);
 		}
 
-		return readers;
+		return resources;
+	}
+
+	private static final class IngestionStats {
+
+		private final AtomicInteger changedFiles = new AtomicInteger();
+
+		private final AtomicInteger unchangedFiles = new AtomicInteger();
+
+		private final AtomicInteger addedChunks = new AtomicInteger();
+
+		private final AtomicInteger deletedChunks = new AtomicInteger();
+
 	}
 
 }
@@ -16,7 +16,6 @@
 
 package com.alibaba.cloud.ai.application.controller;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,17 +23,21 @@ import java.util.Map;
 import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
 import com.alibaba.cloud.ai.application.entity.result.Result;
 import com.alibaba.cloud.ai.application.entity.tools.ToolCallResp;
-import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.application.mcp.McpServerContainer;
 import com.alibaba.cloud.ai.application.service.SAAMcpService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import reactor.core.publisher.Flux;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -65,6 +68,20 @@ public class SAAMcpController {
 		return Result.success(mcpService.chat(prompt));
 	}
 
+	/**
+	 * 工具并发执行完成后，以流的形式返回模型的最终回答
+	 */
+	@GetMapping(value = "/inner/mcp/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@Operation(summary = "DashScope MCP Chat Stream")
+	public Flux<String> mcpChatStream(
+			HttpServletResponse response,
+			@Validated @RequestParam("prompt") String prompt
+	) {
+
+		response.setCharacterEncoding("UTF-8");
+		return mcpService.chatStream(prompt);
+	}
+
 	@GetMapping("/mcp-list")
 	@Operation(summary = "MCP List")
 	public Result<List<McpServer>> mcpList() {
@@ -72,6 +89,33 @@ public class SAAMcpController {
 		return Result.success(McpServerContainer.getAllServers());
 	}
 
+	/**
+	 * MCP Server 列表变化时推送最新列表，事件 id 为注册表版本号。
+	 * 浏览器重连时带上 Last-Event-ID，版本未变化则不重复推送。
+	 */
+	@GetMapping(value = "/mcp-list/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@Operation(summary = "MCP List Changes")
+	public Flux<ServerSentEvent<List<McpServer>>> mcpListChanges(
+			@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+	) {
+
+		long knownVersion = -1L;
+		if (StringUtils.hasText(lastEventId)) {
+			try {
+				knownVersion = Long.parseLong(lastEventId.trim());
+			}
+			catch (NumberFormatException ignored) {
+				// 无法识别的 Last-Event-ID 当作首次连接
+			}
+		}
+
+		return McpServerContainer.changes(knownVersion)
+				.map(snapshot -> ServerSentEvent.<List<McpServer>>builder(snapshot.servers())
+						.id(String.valueOf(snapshot.version()))
+						.event("mcp-list")
+						.build());
+	}
+
 	@PostMapping("/mcp-run")
 	@Operation(summary = "MCP Run")
 	public Result<ToolCallResp> mcpRun(
@@ -80,6 +124,27 @@ public class SAAMcpController {
 			@RequestParam(value = "envs", required = false) String envs
 	) {
 
+		return Result.success(mcpService.run(id, parseEnvs(envs), prompt));
+	}
+
+	/**
+	 * 工具并发执行完成后，以流的形式返回模型的最终回答
+	 */
+	@PostMapping(value = "/mcp-run/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@Operation(summary = "MCP Run Stream")
+	public Flux<String> mcpRunStream(
+			HttpServletResponse response,
+			@Validated @RequestParam("id") String id,
+			@Validated @RequestParam("prompt") String prompt,
+			@RequestParam(value = "envs", required = false) String envs
+	) {
+
+		response.setCharacterEncoding("UTF-8");
+		return mcpService.runStream(id, parseEnvs(envs), prompt);
+	}
+
+	private static Map<String, String> parseEnvs(String envs) {
+
 		Map<String, String> env = new HashMap<>();
 		if (StringUtils.hasText(envs)) {
 			for (String entry : envs.split(",")) {
@@ -90,12 +155,7 @@ public class SAAMcpController {
 			}
 		}
 
-		try {
-			return Result.success(mcpService.run(id, env, prompt));
-		}
-		catch (IOException e) {
-			throw new SAAAppException(e.getMessage());
-		}
+		return env;
 	}
 }
 
@@ -0,0 +1,697 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.embedding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.util.Assert;
+
+/**
+ * 带缓存的 {@link EmbeddingModel} 装饰器，用于查询侧的 embedding（QuestionAnswerAdvisor、语义缓存等）。
+ * <p>
+ * <ul>
+ *     <li>缓存 key 为 模型名 + 归一化后的文本（去除首尾空白、合并连续空白、NFC）；</li>
+ *     <li>内存层按 key 的哈希分段（stripe），每段独立加锁并按 LRU 淘汰；</li>
+ *     <li>可选的磁盘层，每个向量一个文件，重启后仍然可以命中；文件数超过 maxDiskEntries 时删除最早写入的文件；</li>
+ *     <li>并发的相同请求只会触发一次远程调用；</li>
+ *     <li>在 batchWindow 时间窗内到达的未命中请求合并为一次批量调用。</li>
+ * </ul>
+ * 文档入库走 {@link #embed(List, EmbeddingOptions, BatchingStrategy)}，直接透传给被装饰的模型，不占用缓存；
+ * 显式指定了 model 或 dimensions 的请求同样透传。
+ */
+
+public class CachingEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(CachingEmbeddingModel.class);
+
+	private static final String METRIC_PREFIX = "embedding.cache";
+
+	private final EmbeddingModel delegate;
+
+	private final String modelName;
+
+	private final MemoryTier memory;
+
+	private final DiskTier disk;
+
+	private final long batchWindowNanos;
+
+	private final int maxBatchSize;
+
+	private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+
+	private final Object batchLock = new Object();
+
+	private List<Pending> batch = new ArrayList<>();
+
+	private final ScheduledExecutorService scheduler;
+
+	private final ExecutorService executor;
+
+	/**
+	 * 远程调用耗时的滑动平均值，命中时作为节省的延迟
+	 */
+	private final AtomicLong averageMissNanos = new AtomicLong();
+
+	private final Counter hits;
+
+	private final Counter diskHits;
+
+	private final Counter coalesced;
+
+	private final Counter misses;
+
+	private final Timer latencySaved;
+
+	private final DistributionSummary batchSize;
+
+	private CachingEmbeddingModel(Builder builder) {
+
+		this.delegate = builder.delegate;
+		this.modelName = builder.modelName;
+		this.memory = new MemoryTier(builder.stripes, builder.maxEntries);
+		this.disk = Objects.nonNull(builder.diskPath) ? new DiskTier(builder.diskPath, builder.maxDiskEntries) : null;
+		this.batchWindowNanos = builder.batchWindow.toNanos();
+		this.maxBatchSize = builder.maxBatchSize;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("embedding-cache-batch"));
+		this.executor = Executors.newFixedThreadPool(builder.maxConcurrentCalls, daemon("embedding-cache-call"));
+
+		MeterRegistry registry = builder.meterRegistry;
+		this.hits = counter(registry, "hit");
+		this.diskHits = counter(registry, "disk_hit");
+		this.coalesced = counter(registry, "coalesced");
+		this.misses = counter(registry, "miss");
+		this.latencySaved = Timer.builder(METRIC_PREFIX + ".latency.saved")
+				.description("Estimated remote embedding latency avoided by the cache")
+				.tag("model", modelName)
+				.register(registry);
+		this.batchSize = DistributionSummary.builder(METRIC_PREFIX + ".batch.size")
+				.tag("model", modelName)
+				.register(registry);
+		Gauge.builder(METRIC_PREFIX + ".hit.ratio", this, CachingEmbeddingModel::hitRatio)
+				.tag("model", modelName)
+				.register(registry);
+		Gauge.builder(METRIC_PREFIX + ".size", memory, MemoryTier::size)
+				.tag("model", modelName)
+				.register(registry);
+	}
+
+	public static Builder builder(EmbeddingModel delegate) {
+
+		return new Builder(delegate);
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+
+		if (!isDefault(request.getOptions())) {
+			return delegate.call(request);
+		}
+
+		List<String> texts = request.getInstructions();
+		List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+		List<Pending> direct = batchWindowNanos > 0 ? null : new ArrayList<>();
+		for (String text : texts) {
+			futures.add(resolve(text, direct));
+		}
+		if (Objects.nonNull(direct) && !direct.isEmpty()) {
+			embedBatch(direct);
+		}
+
+		List<Embedding> embeddings = new ArrayList<>(texts.size());
+		for (int i = 0; i < futures.size(); i++) {
+			// 缓存中的数组是共享的，调用方（例如向量库归一化查询向量）可能原地修改
+			embeddings.add(new Embedding(join(futures.get(i)).clone(), i));
+		}
+		return new EmbeddingResponse(embeddings);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+
+		return delegate.embed(document);
+	}
+
+	@Override
+	public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+
+		return delegate.embed(documents, options, batchingStrategy);
+	}
+
+	@Override
+	public int dimensions() {
+
+		return delegate.dimensions();
+	}
+
+	public double hitRatio() {
+
+		double hit = hits.count() + diskHits.count() + coalesced.count();
+		double total = hit + misses.count();
+		return total == 0 ? 0 : hit / total;
+	}
+
+	@Override
+	public void close() {
+
+		scheduler.shutdownNow();
+		executor.shutdown();
+	}
+
+	/**
+	 * @param direct 不为 null 时，未命中的请求收集到该列表由调用线程直接执行；否则进入批量窗口
+	 */
+	private CompletableFuture<float[]> resolve(String text, List<Pending> direct) {
+
+		String normalized = normalize(text);
+		String key = modelName + '\u0000' + normalized;
+
+		float[] cached = memory.get(key);
+		if (Objects.nonNull(cached)) {
+			hit(hits);
+			return CompletableFuture.completedFuture(cached);
+		}
+
+		CompletableFuture<float[]> future = new CompletableFuture<>();
+		CompletableFuture<float[]> existing = inFlight.putIfAbsent(key, future);
+		if (Objects.nonNull(existing)) {
+			hit(coalesced);
+			return existing;
+		}
+
+		if (Objects.nonNull(disk)) {
+			float[] stored = disk.get(key);
+			if (Objects.nonNull(stored)) {
+				memory.put(key, stored);
+				inFlight.remove(key, future);
+				future.complete(stored);
+				hit(diskHits);
+				return future;
+			}
+		}
+
+		misses.increment();
+		Pending pending = new Pending(key, normalized, future);
+		if (Objects.nonNull(direct)) {
+			direct.add(pending);
+		}
+		else {
+			enqueue(pending);
+		}
+		return future;
+	}
+
+	private void enqueue(Pending pending) {
+
+		List<Pending> full = null;
+		synchronized (batchLock) {
+			batch.add(pending);
+			if (batch.size() >= maxBatchSize) {
+				full = batch;
+				batch = new ArrayList<>();
+			}
+			else if (batch.size() == 1) {
+				scheduler.schedule(this::flush, batchWindowNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+		if (Objects.nonNull(full)) {
+			List<Pending> ready = full;
+			executor.execute(() -> embedBatch(ready));
+		}
+	}
+
+	private void flush() {
+
+		List<Pending> ready;
+		synchronized (batchLock) {
+			if (batch.isEmpty()) {
+				return;
+			}
+			ready = batch;
+			batch = new ArrayList<>();
+		}
+		executor.execute(() -> embedBatch(ready));
+	}
+
+	private void embedBatch(List<Pending> pending) {
+
+		batchSize.record(pending.size());
+		long start = System.nanoTime();
+		try {
+			List<String> texts = pending.stream().map(Pending::text).toList();
+			EmbeddingResponse response = delegate.call(new EmbeddingRequest(texts, EmbeddingOptions.builder().build()));
+			recordMissLatency(System.nanoTime() - start);
+
+			float[][] vectors = new float[pending.size()][];
+			for (Embedding embedding : response.getResults()) {
+				vectors[embedding.getIndex()] = embedding.getOutput();
+			}
+			for (int i = 0; i < pending.size(); i++) {
+				Pending p = pending.get(i);
+				if (Objects.isNull(vectors[i])) {
+					p.future().completeExceptionally(new IllegalStateException("No embedding returned for index " + i));
+					continue;
+				}
+				memory.put(p.key(), vectors[i]);
+				p.future().complete(vectors[i]);
+			}
+		}
+		catch (Throwable e) {
+			pending.forEach(p -> p.future().completeExceptionally(e));
+		}
+		finally {
+			pending.forEach(p -> inFlight.remove(p.key(), p.future()));
+		}
+
+		if (Objects.nonNull(disk)) {
+			for (Pending p : pending) {
+				// 失败的请求不写入磁盘，getNow 对异常完成的 future 会抛出异常
+				if (!p.future().isCompletedExceptionally()) {
+					disk.put(p.key(), p.future().getNow(null));
+				}
+			}
+		}
+	}
+
+	private void hit(Counter counter) {
+
+		counter.increment();
+		long saved = averageMissNanos.get();
+		if (saved > 0) {
+			latencySaved.record(saved, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void recordMissLatency(long nanos) {
+
+		// EWMA，alpha = 1/8
+		averageMissNanos.accumulateAndGet(nanos, (avg, sample) -> avg == 0 ? sample : avg + (sample - avg) / 8);
+	}
+
+	private static float[] join(CompletableFuture<float[]> future) {
+
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	private static boolean isDefault(EmbeddingOptions options) {
+
+		return Objects.isNull(options) || (Objects.isNull(options.getModel()) && Objects.isNull(options.getDimensions()));
+	}
+
+	private static String normalize(String text) {
+
+		return Normalizer.normalize(text.strip().replaceAll("\\s+", " "), Normalizer.Form.NFC);
+	}
+
+	private Counter counter(MeterRegistry registry, String result) {
+
+		return Counter.builder(METRIC_PREFIX + ".requests")
+				.tag("model", modelName)
+				.tag("result", result)
+				.register(registry);
+	}
+
+	private static ThreadFactory daemon(String prefix) {
+
+		AtomicInteger index = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + "-" + index.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private record Pending(String key, String text, CompletableFuture<float[]> future) {
+	}
+
+	/**
+	 * 分段 LRU：每段一个 access-order 的 LinkedHashMap，按 key 的哈希选择分段，降低锁竞争。
+	 */
+	private static final class MemoryTier {
+
+		private final Stripe[] stripes;
+
+		MemoryTier(int stripes, long maxEntries) {
+
+			int capacity = (int) Math.max(1, maxEntries / stripes);
+			this.stripes = new Stripe[stripes];
+			for (int i = 0; i < stripes; i++) {
+				this.stripes[i] = new Stripe(capacity);
+			}
+		}
+
+		float[] get(String key) {
+
+			Stripe stripe = stripe(key);
+			synchronized (stripe) {
+				return stripe.get(key);
+			}
+		}
+
+		void put(String key, float[] vector) {
+
+			Stripe stripe = stripe(key);
+			synchronized (stripe) {
+				stripe.put(key, vector);
+			}
+		}
+
+		long size() {
+
+			long size = 0;
+			for (Stripe stripe : stripes) {
+				synchronized (stripe) {
+					size += stripe.size();
+				}
+			}
+			return size;
+		}
+
+		private Stripe stripe(String key) {
+
+			int h = key.hashCode();
+			return stripes[((h ^ (h >>> 16)) & 0x7fffffff) % stripes.length];
+		}
+
+	}
+
+	private static final class Stripe extends LinkedHashMap<String, float[]> {
+
+		private final int capacity;
+
+		Stripe(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+			return size() > capacity;
+		}
+
+	}
+
+	/**
+	 * 磁盘层：每个向量一个文件，文件名为 key 的 SHA-256，前两位作为子目录。
+	 * 文件内容为 little-endian 的 float32 数组，先写临时文件再原子替换。
+	 * 文件数超过 maxEntries 时按修改时间删除最旧的文件，降到上限的 90%，避免每次写入都扫描目录。
+	 */
+	private static final class DiskTier {
+
+		private final Path root;
+
+		private final long maxEntries;
+
+		private final AtomicLong entries;
+
+		private final AtomicBoolean pruning = new AtomicBoolean();
+
+		DiskTier(Path root, long maxEntries) {
+			this.root = root;
+			this.maxEntries = maxEntries;
+			this.entries = new AtomicLong(files().size());
+		}
+
+		float[] get(String key) {
+
+			Path file = file(key);
+			if (!Files.isRegularFile(file)) {
+				return null;
+			}
+			try {
+				ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+				float[] vector = new float[buffer.remaining() / Float.BYTES];
+				buffer.asFloatBuffer().get(vector);
+				return vector;
+			}
+			catch (IOException e) {
+				logger.warn("Failed to read cached embedding {}: {}", file, e.getMessage());
+				return null;
+			}
+		}
+
+		void put(String key, float[] vector) {
+
+			Path file = file(key);
+			try {
+				Files.createDirectories(file.getParent());
+				ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+				buffer.asFloatBuffer().put(vector);
+				boolean exists = Files.exists(file);
+				Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+				Files.write(tmp, buffer.array());
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				if (!exists && entries.incrementAndGet() > maxEntries) {
+					prune();
+				}
+			}
+			catch (IOException e) {
+				logger.warn("Failed to write cached embedding {}: {}", file, e.getMessage());
+			}
+		}
+
+		private void prune() {
+
+			if (!pruning.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				List<Path> files = files();
+				long target = maxEntries - maxEntries / 10;
+				long excess = files.size() - target;
+				if (excess > 0) {
+					files.sort(Comparator.comparingLong(DiskTier::lastModified));
+					for (int i = 0; i < excess; i++) {
+						Files.deleteIfExists(files.get(i));
+					}
+				}
+				entries.set(Math.min(files.size(), target));
+			}
+			catch (IOException e) {
+				logger.warn("Failed to prune embedding cache {}: {}", root, e.getMessage());
+			}
+			finally {
+				pruning.set(false);
+			}
+		}
+
+		private List<Path> files() {
+
+			if (!Files.isDirectory(root)) {
+				return new ArrayList<>();
+			}
+			try (Stream<Path> paths = Files.walk(root, 2)) {
+				return paths.filter(path -> path.getFileName().toString().endsWith(".f32"))
+						.collect(Collectors.toCollection(ArrayList::new));
+			}
+			catch (IOException e) {
+				logger.warn("Failed to list embedding cache {}: {}", root, e.getMessage());
+				return new ArrayList<>();
+			}
+		}
+
+		private static long lastModified(Path file) {
+
+			try {
+				return Files.getLastModifiedTime(file).toMillis();
+			}
+			catch (IOException e) {
+				// 已被并发删除的文件排在最前，删除时 deleteIfExists 会跳过
+				return Long.MIN_VALUE;
+			}
+		}
+
+		private Path file(String key) {
+
+			try {
+				String hash = HexFormat.of().formatHex(
+						MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+				return root.resolve(hash.substring(0, 2)).resolve(hash + ".f32");
+			}
+			catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+			}
+		}
+
+	}
+
+	public static final class Builder {
+
+		private final EmbeddingModel delegate;
+
+		private String modelName = "default";
+
+		private int stripes = 16;
+
+		private long maxEntries = 10_000;
+
+		private Path diskPath;
+
+		private long maxDiskEntries = 100_000;
+
+		private Duration batchWindow = Duration.ofMillis(2);
+
+		private int maxBatchSize = 10;
+
+		private int maxConcurrentCalls = 4;
+
+		private MeterRegistry meterRegistry;
+
+		private Builder(EmbeddingModel delegate) {
+
+			Assert.notNull(delegate, "delegate must not be null");
+			this.delegate = delegate;
+		}
+
+		public Builder modelName(String modelName) {
+
+			Assert.hasText(modelName, "modelName must not be empty");
+			this.modelName = modelName;
+			return this;
+		}
+
+		public Builder stripes(int stripes) {
+
+			Assert.isTrue(stripes > 0, "stripes must be positive");
+			this.stripes = stripes;
+			return this;
+		}
+
+		public Builder maxEntries(long maxEntries) {
+
+			Assert.isTrue(maxEntries > 0, "maxEntries must be positive");
+			this.maxEntries = maxEntries;
+			return this;
+		}
+
+		/**
+		 * 磁盘层目录，为 null 时只使用内存层
+		 */
+		public Builder diskPath(Path diskPath) {
+
+			this.diskPath = diskPath;
+			return this;
+		}
+
+		/**
+		 * 磁盘层最多保留的向量文件数
+		 */
+		public Builder maxDiskEntries(long maxDiskEntries) {
+
+			Assert.isTrue(maxDiskEntries > 0, "maxDiskEntries must be positive");
+			this.maxDiskEntries = maxDiskEntries;
+			return this;
+		}
+
+		/**
+		 * 批量合并的时间窗，为 0 时不合并，未命中的请求由调用线程直接发起
+		 */
+		public Builder batchWindow(Duration batchWindow) {
+
+			Assert.isTrue(Objects.nonNull(batchWindow) && !batchWindow.isNegative(), "batchWindow must not be negative");
+			this.batchWindow = batchWindow;
+			return this;
+		}
+
+		/**
+		 * 单次批量调用的最大文本数，DashScope text-embedding-v3 单次最多 10 条
+		 */
+		public Builder maxBatchSize(int maxBatchSize) {
+
+			Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+			this.maxBatchSize = maxBatchSize;
+			return this;
+		}
+
+		public Builder maxConcurrentCalls(int maxConcurrentCalls) {
+
+			Assert.isTrue(maxConcurrentCalls > 0, "maxConcurrentCalls must be positive");
+			this.maxConcurrentCalls = maxConcurrentCalls;
+			return this;
+		}
+
+		public Builder meterRegistry(MeterRegistry meterRegistry) {
+
+			this.meterRegistry = meterRegistry;
+			return this;
+		}
+
+		public CachingEmbeddingModel build() {
+
+			if (Objects.isNull(meterRegistry)) {
+				meterRegistry = new SimpleMeterRegistry();
+			}
+			return new CachingEmbeddingModel(this);
+		}
+
+	}
+
+}
@@ -16,7 +16,10 @@
 
 package com.alibaba.cloud.ai.application.entity.tools;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author yuluo
@@ -66,7 +69,7 @@ public class ToolCallResp {
 	private String toolInput;
 
 	/**
-	 * 工具执行耗时
+	 * 工具执行耗时，单位毫秒，按单调时钟计算
 	 */
 	private Long toolCostTime;
 	/**
@@ -74,6 +77,16 @@ public class ToolCallResp {
 	 */
 	private String toolResponse;
 
+	/**
+	 * 同一轮中每个工具调用各自的执行记录，只有一个工具时也会填充
+	 */
+	private List<ToolCallResp> toolCalls;
+
+	/**
+	 * 开始执行时的 System.nanoTime()，只用于计算耗时，不对外输出
+	 */
+	private transient long toolStartNanos;
+
 	public enum ToolState {
 		/**
 		 * 工具执行成功
@@ -173,6 +186,14 @@ public class ToolCallResp {
 		this.toolResponse = toolResponse;
 	}
 
+	public List<ToolCallResp> getToolCalls() {
+		return toolCalls;
+	}
+
+	public void setToolCalls(List<ToolCallResp> toolCalls) {
+		this.toolCalls = toolCalls;
+	}
+
 	@Override
 	public String toString() {
 		return "ToolCallResp{" +
@@ -186,6 +207,7 @@ public class ToolCallResp {
 				", toolInput='" + toolInput + '\'' +
 				", toolCostTime=" + toolCostTime +
 				", toolResponse='" + toolResponse + '\'' +
+				", toolCalls=" + toolCalls +
 				'}';
 	}
 
@@ -203,19 +225,47 @@ public class ToolCallResp {
 		res.setToolParameters(toolParameters);
 		res.setToolInput(toolInput);
 		res.setToolStartTime(LocalDateTime.now());
+		res.toolStartNanos = System.nanoTime();
 		res.setStatus(ToolState.RUNNING);
 		return res;
 	}
 
+	/**
+	 * 结束由 {@link #startExecute} 开始的执行，记录结束时间和单调时钟耗时
+	 */
+	public ToolCallResp finishExecute(ToolState status) {
+
+		return finish(status, System.nanoTime());
+	}
+
+	/**
+	 * 同上，startNanos、endNanos 为工具实际开始、结束时的 System.nanoTime()，在执行工具的线程上记录，
+	 * 排队等待线程的时间不计入耗时
+	 */
+	public ToolCallResp finishExecute(ToolState status, long startNanos, long endNanos) {
+
+		this.setToolStartTime(getToolStartTime().plusNanos(startNanos - toolStartNanos));
+		this.toolStartNanos = startNanos;
+		return finish(status, endNanos);
+	}
+
+	private ToolCallResp finish(ToolState status, long endNanos) {
+
+		long costNanos = endNanos - toolStartNanos;
+		this.setToolEndTime(getToolStartTime().plusNanos(costNanos));
+		this.setToolCostTime(TimeUnit.NANOSECONDS.toMillis(costNanos));
+		this.setStatus(status);
+		return this;
+	}
+
 	public static ToolCallResp endExecute(ToolState status, LocalDateTime toolStartTime, String toolResult) {
 
 		var res = new ToolCallResp();
 		res.setToolResult(toolResult);
 		res.setToolEndTime(LocalDateTime.now());
 		res.setStatus(status);
-		res.setToolCostTime(
-				(long) (res.getToolEndTime().getNano() - toolStartTime.getNano())
-		);
+		// getNano() 只是秒内的纳秒部分，每秒回绕一次，必须按完整时间差计算
+		res.setToolCostTime(Duration.between(toolStartTime, res.getToolEndTime()).toMillis());
 
 		return res;
 	}
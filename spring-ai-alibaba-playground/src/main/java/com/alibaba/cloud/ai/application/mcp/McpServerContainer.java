@@ -16,34 +16,200 @@
 
 package com.alibaba.cloud.ai.application.mcp;
 
-import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
-
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ *
+ * MCP Server 注册表。读操作直接读取当前的不可变快照，按 id 和 name 建有索引，不加锁也不复制；
+ * 写操作串行执行，生成新的快照并递增版本号，然后通知订阅者（例如前端的 MCP 列表）。
+ * 同一个 name 只保留一个 MCP Server，重复添加会替换旧的记录。
+ */
+
+public final class McpServerContainer {
+
+	private static final Logger logger = LoggerFactory.getLogger(McpServerContainer.class);
+
+	private static final Object WRITE_LOCK = new Object();
+
+	private static final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+
+	private static volatile Snapshot snapshot = Snapshot.EMPTY;
 
-public class McpServerContainer {
+	private McpServerContainer() {
+	}
+
+	public static Snapshot snapshot() {
+
+		return snapshot;
+	}
+
+	public static long version() {
 
-	private static final List<McpServer> mcpServerContainer = new ArrayList<>();
+		return snapshot.version();
+	}
 
 	public static List<McpServer> getAllServers() {
-		return new ArrayList<>(mcpServerContainer);
+
+		return snapshot.servers();
 	}
 
 	public static Optional<McpServer> getServerById(String id) {
 
-		return mcpServerContainer.stream()
-				.filter(server -> server.getId().equals(id))
-				.findFirst();
+		return Optional.ofNullable(snapshot.byId().get(id));
+	}
+
+	public static Optional<McpServer> getServerByName(String name) {
+
+		return Optional.ofNullable(snapshot.byName().get(name));
 	}
 
 	public static void addServer(McpServer server) {
-		mcpServerContainer.add(server);
+
+		addServers(List.of(server));
+	}
+
+	/**
+	 * 批量添加，只生成一个新版本
+	 */
+	public static void addServers(Collection<McpServer> servers) {
+
+		update(current -> {
+			// 按现有顺序重建，新的 MCP Server 排在后面
+			Map<String, McpServer> byName = new LinkedHashMap<>();
+			current.servers().forEach(server -> byName.put(server.getName(), server));
+			for (McpServer server : servers) {
+				McpServer sameId = current.byId().get(server.getId());
+				if (Objects.nonNull(sameId)) {
+					byName.remove(sameId.getName());
+				}
+				byName.put(server.getName(), server);
+			}
+			return Snapshot.of(current.version() + 1, byName.values());
+		});
 	}
 
 	public static boolean removeServerById(String id) {
 
-		return mcpServerContainer.removeIf(server -> server.getId().equals(id));
+		return update(current -> {
+			if (!current.byId().containsKey(id)) {
+				return current;
+			}
+			List<McpServer> servers = new ArrayList<>(current.servers());
+			servers.removeIf(server -> Objects.equals(server.getId(), id));
+			return Snapshot.of(current.version() + 1, servers);
+		});
+	}
+
+	/**
+	 * 订阅注册表变化，每次变化收到新的快照，关闭返回值即取消订阅
+	 */
+	public static AutoCloseable subscribe(Consumer<Snapshot> listener) {
+
+		listeners.add(listener);
+		return () -> listeners.remove(listener);
+	}
+
+	/**
+	 * 当前快照和之后的每次变化，版本号严格递增。knownVersion 与当前版本相同时不重复发送当前快照，
+	 * 用于断线重连时带上最后收到的版本号。
+	 */
+	public static Flux<Snapshot> changes(long knownVersion) {
+
+		return Flux.create(sink -> {
+			Object lock = new Object();
+			long[] sent = {-1L};
+			Consumer<Snapshot> emit = next -> {
+				synchronized (lock) {
+					if (next.version() > sent[0]) {
+						sent[0] = next.version();
+						sink.next(next);
+					}
+				}
+			};
+
+			listeners.add(emit);
+			sink.onDispose(() -> listeners.remove(emit));
+
+			Snapshot current = snapshot;
+			synchronized (lock) {
+				if (current.version() > sent[0]) {
+					sent[0] = current.version();
+					if (current.version() != knownVersion) {
+						sink.next(current);
+					}
+				}
+			}
+		}, FluxSink.OverflowStrategy.LATEST);
+	}
+
+	static void clear() {
+
+		update(current -> Snapshot.of(current.version() + 1, List.of()));
+	}
+
+	private static boolean update(UnaryOperator<Snapshot> change) {
+
+		Snapshot next;
+		synchronized (WRITE_LOCK) {
+			Snapshot current = snapshot;
+			next = change.apply(current);
+			if (next == current) {
+				return false;
+			}
+			snapshot = next;
+			// 在锁内通知，订阅者按版本顺序收到快照
+			for (Consumer<Snapshot> listener : listeners) {
+				try {
+					listener.accept(next);
+				}
+				catch (RuntimeException e) {
+					logger.warn("McpServer listener failed, version: {}, msg: {}", next.version(), e.getMessage());
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 注册表某个版本的不可变视图
+	 */
+	public record Snapshot(long version, List<McpServer> servers, Map<String, McpServer> byId,
+			Map<String, McpServer> byName) {
+
+		static final Snapshot EMPTY = new Snapshot(0, List.of(), Map.of(), Map.of());
+
+		static Snapshot of(long version, Collection<McpServer> servers) {
+
+			Map<String, McpServer> byId = new LinkedHashMap<>();
+			Map<String, McpServer> byName = new LinkedHashMap<>();
+			for (McpServer server : servers) {
+				McpServer replaced = byName.put(server.getName(), server);
+				if (Objects.nonNull(replaced)) {
+					byId.remove(replaced.getId());
+				}
+				byId.put(server.getId(), server);
+			}
+
+			return new Snapshot(version, List.copyOf(byName.values()), Map.copyOf(byId), Map.copyOf(byName));
+		}
+
 	}
 
 }
@@ -24,6 +24,7 @@ import com.alibaba.cloud.ai.application.utils.ModelsUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.springframework.ai.mcp.SyncMcpToolCallback;
+import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpStdioClientProperties;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.core.io.ClassPathResource;
@@ -32,8 +33,13 @@ import org.springframework.core.io.Resource;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -48,15 +54,45 @@ public final class McpServerUtils {
 
 	private static final String MCP_CONFIG_FILE_PATH = "mcp-config.yml";
 
+	private static volatile CachedConfig cachedConfig;
+
 	private McpServerUtils() {
 	}
 
+	/**
+	 * 返回 mcp-config.yml 的解析结果。解析结果会被缓存，只有配置文件的修改时间变化时才重新解析；
+	 * 打包在 jar 中的配置不会变化，只解析一次。调用方会修改返回的配置，所以每次返回一份副本。
+	 */
 	public static McpServerConfig getMcpServerConfig() throws IOException {
 
+		URL resource = ModelsUtils.class.getClassLoader().getResource(MCP_CONFIG_FILE_PATH);
+		if (Objects.isNull(resource)) {
+			throw new IOException("MCP server config not found: " + MCP_CONFIG_FILE_PATH);
+		}
+
+		long lastModified = lastModified(resource);
+		CachedConfig cached = cachedConfig;
+		if (Objects.isNull(cached) || cached.lastModified() != lastModified) {
+			synchronized (McpServerUtils.class) {
+				cached = cachedConfig;
+				if (Objects.isNull(cached) || cached.lastModified() != lastModified) {
+					cached = new CachedConfig(lastModified, parseMcpServerConfig(resource));
+					cachedConfig = cached;
+				}
+			}
+		}
+
+		return copyOf(cached.config());
+	}
+
+	private static McpServerConfig parseMcpServerConfig(URL resource) throws IOException {
+
 		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-		InputStream resourceAsStream = ModelsUtils.class.getClassLoader().getResourceAsStream(MCP_CONFIG_FILE_PATH);
+		McpServerConfig mcpServerConfig;
+		try (InputStream resourceAsStream = resource.openStream()) {
+			mcpServerConfig = mapper.readValue(resourceAsStream, McpServerConfig.class);
+		}
 
-		McpServerConfig mcpServerConfig = mapper.readValue(resourceAsStream, McpServerConfig.class);
 		mcpServerConfig.getMcpServers().forEach((key, parameters) -> {
 			Map<String, String> env = parameters.env();
 			if (Objects.nonNull(env)) {
@@ -74,10 +110,37 @@ public final class McpServerUtils {
 			}
 		});
 
-
 		return mcpServerConfig;
 	}
 
+	private static long lastModified(URL resource) {
+
+		if (!"file".equals(resource.getProtocol())) {
+			return -1L;
+		}
+		try {
+			return Files.getLastModifiedTime(Paths.get(resource.toURI())).toMillis();
+		}
+		catch (IOException | URISyntaxException e) {
+			return -1L;
+		}
+	}
+
+	private static McpServerConfig copyOf(McpServerConfig config) {
+
+		Map<String, McpStdioClientProperties.Parameters> servers = new LinkedHashMap<>();
+		config.getMcpServers().forEach((name, parameters) -> servers.put(name, Objects.isNull(parameters)
+				? null
+				: new McpStdioClientProperties.Parameters(
+						parameters.command(),
+						Objects.isNull(parameters.args()) ? null : new ArrayList<>(parameters.args()),
+						Objects.isNull(parameters.env()) ? null : new HashMap<>(parameters.env()))));
+
+		McpServerConfig copy = new McpServerConfig();
+		copy.setMcpServers(servers);
+		return copy;
+	}
+
 	public static String getLibsPath(List<String> list) {
 
 		if (list != null && !list.isEmpty()) {
@@ -126,37 +189,35 @@ public final class McpServerUtils {
 		McpServerConfig mcpServerConfig = McpServerUtils.getMcpServerConfig();
 		Map<String, String> mcpServerDescMap = initMcpServerDescMap();
 
-		mcpServerConfig.getMcpServers().forEach((key, parameters) -> {
-
-			List<McpServer.Tools> toolsList = new ArrayList<>();
-			for (ToolCallback toolCallback : toolCallbackProvider.getToolCallbacks()) {
+		// 一次遍历把 tools 按 mcp server name 分组
+		Map<String, List<McpServer.Tools>> toolsByServer = new HashMap<>();
+		for (ToolCallback toolCallback : toolCallbackProvider.getToolCallbacks()) {
 
-				// todo: 拿不到 mcp client, 先用包装器拿吧
-				SyncMcpToolCallback mcpToolCallback = (SyncMcpToolCallback) toolCallback;
-				SyncMcpToolCallbackWrapper syncMcpToolCallbackWrapper = new SyncMcpToolCallbackWrapper(mcpToolCallback);
-				String currentMcpServerName = syncMcpToolCallbackWrapper.getMcpClient().getServerInfo().name();
-
-				// 按照 mcp server name 聚合 mcp server tools
-				if (Objects.equals(key, currentMcpServerName)) {
-					McpServer.Tools tool = new McpServer.Tools();
-					tool.setDesc(toolCallback.getToolDefinition().description());
-					tool.setName(toolCallback.getToolDefinition().name());
-					tool.setParams(toolCallback.getToolDefinition().inputSchema());
-
-					toolsList.add(tool);
-				}
+			// todo: 拿不到 mcp client, 先用包装器拿吧
+			if (!(toolCallback instanceof SyncMcpToolCallback mcpToolCallback)) {
+				continue;
 			}
+			String serverName = new SyncMcpToolCallbackWrapper(mcpToolCallback).getMcpClient().getServerInfo().name();
 
-			McpServerContainer.addServer(McpServer.builder()
-					.id(getId())
-					.name(key)
-					.env(parameters.env())
-					.desc(mcpServerDescMap.get(key))
-					.toolList(toolsList)
-					.build()
-			);
-		});
+			McpServer.Tools tool = new McpServer.Tools();
+			tool.setDesc(toolCallback.getToolDefinition().description());
+			tool.setName(toolCallback.getToolDefinition().name());
+			tool.setParams(toolCallback.getToolDefinition().inputSchema());
 
+			toolsByServer.computeIfAbsent(serverName, name -> new ArrayList<>()).add(tool);
+		}
+
+		List<McpServer> servers = new ArrayList<>(mcpServerConfig.getMcpServers().size());
+		mcpServerConfig.getMcpServers().forEach((key, parameters) -> servers.add(McpServer.builder()
+				.id(getId())
+				.name(key)
+				.env(parameters.env())
+				.desc(mcpServerDescMap.get(key))
+				.toolList(toolsByServer.getOrDefault(key, List.of()))
+				.build()
+		));
+
+		McpServerContainer.addServers(servers);
 	}
 
 	private static Map<String, String> initMcpServerDescMap() {
@@ -169,4 +230,7 @@ public final class McpServerUtils {
 		return map;
 	}
 
+	private record CachedConfig(long lastModified, McpServerConfig config) {
+	}
+
 }
@@ -0,0 +1,535 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.json.McpJsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
+import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpStdioClientProperties;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.util.StringUtils;
+
+/**
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ *
+ * 预先启动并复用 stdio MCP Server 进程的池。进程按 server name 和启动参数（命令、参数、环境变量）的哈希区分，
+ * 相同配置的请求共用同一个进程，JVM 实现的 MCP Server 不必每次请求都冷启动。
+ *
+ * 后台线程定期检查池中的进程：ping 失败的进程会被关闭并移除，空闲超过 idleTimeout 的进程会被回收；
+ * 开启 warmUp 时，每个 server 使用默认环境变量的进程常驻，挂掉后在下一次检查时重新启动。
+ * warmUp 默认关闭：启动时 MCP Client 已经为这些 server 拉起了 stdio 进程，再预热会多出一份重复的进程。
+ */
+
+public class McpStdioServerPool implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(McpStdioServerPool.class);
+
+	private final Supplier<Map<String, McpStdioClientProperties.Parameters>> servers;
+
+	private final Duration idleTimeout;
+
+	private final Duration requestTimeout;
+
+	private final int maxServers;
+
+	private final boolean warmUp;
+
+	private final Map<Key, CompletableFuture<PooledServer>> pool = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler;
+
+	private McpStdioServerPool(Builder builder) {
+
+		this.servers = Objects.requireNonNull(builder.servers, "servers must not be null");
+		this.idleTimeout = builder.idleTimeout;
+		this.requestTimeout = builder.requestTimeout;
+		this.maxServers = builder.maxServers;
+		this.warmUp = builder.warmUp;
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "mcp-stdio-pool");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long interval = builder.healthCheckInterval.toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::check, warmUp ? 0 : interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	public static Builder builder() {
+
+		return new Builder();
+	}
+
+	/**
+	 * 获取一个可用的 MCP Server，没有相同配置的进程时启动一个新进程。
+	 * envs 覆盖 mcp-config.yml 中同名的环境变量，使用完后必须关闭返回的 Lease。
+	 */
+	public Lease acquire(String serverName, Map<String, String> envs) {
+
+		Launch launch = launch(serverName, envs);
+		while (true) {
+			PooledServer server = getOrStart(launch);
+			if (server.lease()) {
+				return new Lease(server);
+			}
+			// 进程刚好被回收，重新获取
+		}
+	}
+
+	int size() {
+
+		return pool.size();
+	}
+
+	/**
+	 * 健康检查、空闲回收和常驻进程补齐，由后台线程定期执行
+	 */
+	void check() {
+
+		Map<Key, Launch> warmServers = warmUp ? defaultLaunches() : Map.of();
+		long idleNanos = idleTimeout.toNanos();
+
+		pool.forEach((key, future) -> {
+			PooledServer server = future.getNow(null);
+			if (Objects.isNull(server)) {
+				return;
+			}
+			if (!warmServers.containsKey(key) && server.retireIfIdle(idleNanos)) {
+				logger.info("Reaping idle MCP server {}", key);
+				remove(key, future, server);
+			}
+			else if (!healthy(server) && server.retire()) {
+				logger.warn("MCP server {} failed health check, removing it", key);
+				remove(key, future, server);
+			}
+		});
+
+		warmServers.forEach((key, launch) -> {
+			if (!pool.containsKey(key)) {
+				try {
+					getOrStart(launch);
+				}
+				catch (RuntimeException e) {
+					logger.warn("Failed to warm up MCP server {}: {}", key, e.getMessage());
+				}
+			}
+		});
+	}
+
+	private PooledServer getOrStart(Launch launch) {
+
+		CompletableFuture<PooledServer> created = new CompletableFuture<>();
+		CompletableFuture<PooledServer> existing = pool.putIfAbsent(launch.key(), created);
+		if (Objects.isNull(existing)) {
+			try {
+				makeRoom(launch.key());
+				created.complete(start(launch));
+			}
+			catch (RuntimeException e) {
+				pool.remove(launch.key(), created);
+				created.completeExceptionally(e);
+			}
+			existing = created;
+		}
+
+		try {
+			return existing.join();
+		}
+		catch (CompletionException e) {
+			Throwable cause = Objects.requireNonNullElse(e.getCause(), e);
+			throw new SAAAppException("Failed to start MCP server " + launch.key() + ": " + cause.getMessage());
+		}
+	}
+
+	private PooledServer start(Launch launch) {
+
+		long startNanos = System.nanoTime();
+		StdioClientTransport transport = new StdioClientTransport(launch.parameters(), McpJsonMapper.getDefault());
+		transport.setStdErrorHandler(line -> logger.debug("[{}] {}", launch.key(), line));
+		McpSyncClient client = McpClient.sync(transport)
+				.requestTimeout(requestTimeout)
+				.initializationTimeout(requestTimeout)
+				.build();
+
+		try {
+			client.initialize();
+			List<ToolCallback> toolCallbacks = SyncMcpToolCallbackProvider.syncToolCallbacks(List.of(client));
+			logger.info("Started MCP server {} with {} tools in {} ms", launch.key(), toolCallbacks.size(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+			return new PooledServer(launch.key(), client, toolCallbacks);
+		}
+		catch (RuntimeException e) {
+			client.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 池满时回收最久未使用的空闲进程，所有进程都在使用中时拒绝启动新进程
+	 */
+	private void makeRoom(Key starting) {
+
+		while (pool.size() > maxServers) {
+			Map.Entry<Key, CompletableFuture<PooledServer>> oldest = null;
+			long oldestUsed = Long.MAX_VALUE;
+			for (Map.Entry<Key, CompletableFuture<PooledServer>> entry : pool.entrySet()) {
+				PooledServer server = entry.getValue().getNow(null);
+				if (!entry.getKey().equals(starting) && Objects.nonNull(server) && server.idle()
+						&& server.lastUsedNanos() < oldestUsed) {
+					oldest = entry;
+					oldestUsed = server.lastUsedNanos();
+				}
+			}
+			if (Objects.isNull(oldest)) {
+				throw new SAAAppException("MCP server pool is full, max servers: " + maxServers);
+			}
+
+			PooledServer server = oldest.getValue().getNow(null);
+			if (server.retireIfIdle(0)) {
+				logger.info("Evicting MCP server {} to make room for {}", oldest.getKey(), starting);
+				remove(oldest.getKey(), oldest.getValue(), server);
+			}
+		}
+	}
+
+	private void remove(Key key, CompletableFuture<PooledServer> future, PooledServer server) {
+
+		pool.remove(key, future);
+		try {
+			if (!server.client().closeGracefully()) {
+				server.client().close();
+			}
+		}
+		catch (RuntimeException e) {
+			logger.debug("Error closing MCP server {}: {}", key, e.getMessage());
+			server.client().close();
+		}
+	}
+
+	private static boolean healthy(PooledServer server) {
+
+		try {
+			server.client().ping();
+			return true;
+		}
+		catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private Map<Key, Launch> defaultLaunches() {
+
+		Map<Key, Launch> launches = new HashMap<>();
+		for (String serverName : servers.get().keySet()) {
+			try {
+				Launch launch = launch(serverName, Map.of());
+				launches.put(launch.key(), launch);
+			}
+			catch (RuntimeException e) {
+				logger.warn("Skip warming up MCP server {}: {}", serverName, e.getMessage());
+			}
+		}
+		return launches;
+	}
+
+	private Launch launch(String serverName, Map<String, String> envs) {
+
+		McpStdioClientProperties.Parameters parameters = servers.get().get(serverName);
+		if (Objects.isNull(parameters)) {
+			throw new SAAAppException("MCP server not configured: " + serverName);
+		}
+
+		List<String> args = Objects.isNull(parameters.args()) ? new ArrayList<>() : new ArrayList<>(parameters.args());
+		if (parameters.command().startsWith("java") && !args.isEmpty()) {
+			args.set(args.size() - 1, McpServerUtils.getMcpLibsAbsPath(McpServerUtils.getLibsPath(args)));
+		}
+
+		Map<String, String> env = new TreeMap<>();
+		if (Objects.nonNull(parameters.env())) {
+			parameters.env().forEach((name, value) -> {
+				if (Objects.nonNull(value)) {
+					env.put(name, value);
+				}
+			});
+		}
+		if (Objects.nonNull(envs)) {
+			envs.forEach((name, value) -> {
+				if (StringUtils.hasText(value)) {
+					env.put(name, value);
+				}
+			});
+		}
+
+		ServerParameters serverParameters = ServerParameters.builder(parameters.command())
+				.args(args)
+				.env(env)
+				.build();
+
+		return new Launch(new Key(serverName, hash(parameters.command(), args, env)), serverParameters);
+	}
+
+	/**
+	 * 启动参数的摘要，作为池的 key 并出现在日志中，避免直接暴露环境变量中的密钥
+	 */
+	private static String hash(String command, List<String> args, Map<String, String> env) {
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(command.getBytes(StandardCharsets.UTF_8));
+			for (String arg : args) {
+				digest.update((byte) 0);
+				digest.update(arg.getBytes(StandardCharsets.UTF_8));
+			}
+			for (Map.Entry<String, String> entry : env.entrySet()) {
+				digest.update((byte) 1);
+				digest.update((entry.getKey() + "=" + entry.getValue()).getBytes(StandardCharsets.UTF_8));
+			}
+			return HexFormat.of().formatHex(digest.digest(), 0, 6);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+
+		scheduler.shutdownNow();
+		pool.forEach((key, future) -> {
+			PooledServer server = future.getNow(null);
+			if (Objects.nonNull(server) && server.retire()) {
+				remove(key, future, server);
+			}
+		});
+	}
+
+	private record Key(String serverName, String hash) {
+
+		@Override
+		public String toString() {
+
+			return serverName + "@" + hash;
+		}
+
+	}
+
+	private record Launch(Key key, ServerParameters parameters) {
+	}
+
+	private static final class PooledServer {
+
+		private final Key key;
+
+		private final McpSyncClient client;
+
+		private final List<ToolCallback> toolCallbacks;
+
+		private int leases;
+
+		private long lastUsedNanos = System.nanoTime();
+
+		private boolean retired;
+
+		private PooledServer(Key key, McpSyncClient client, List<ToolCallback> toolCallbacks) {
+
+			this.key = key;
+			this.client = client;
+			this.toolCallbacks = List.copyOf(toolCallbacks);
+		}
+
+		McpSyncClient client() {
+
+			return client;
+		}
+
+		synchronized boolean lease() {
+
+			if (retired) {
+				return false;
+			}
+			leases++;
+			lastUsedNanos = System.nanoTime();
+			return true;
+		}
+
+		synchronized void release() {
+
+			leases--;
+			lastUsedNanos = System.nanoTime();
+		}
+
+		synchronized boolean idle() {
+
+			return !retired && leases == 0;
+		}
+
+		synchronized long lastUsedNanos() {
+
+			return lastUsedNanos;
+		}
+
+		synchronized boolean retireIfIdle(long idleNanos) {
+
+			if (retired || leases > 0 || System.nanoTime() - lastUsedNanos < idleNanos) {
+				return false;
+			}
+			retired = true;
+			return true;
+		}
+
+		synchronized boolean retire() {
+
+			if (retired) {
+				return false;
+			}
+			retired = true;
+			return true;
+		}
+
+	}
+
+	/**
+	 * 一次对池中 MCP Server 的使用，关闭后进程回到池中
+	 */
+	public static final class Lease implements AutoCloseable {
+
+		private final PooledServer server;
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Lease(PooledServer server) {
+
+			this.server = server;
+		}
+
+		public String serverName() {
+
+			return server.key.serverName();
+		}
+
+		public McpSyncClient client() {
+
+			return server.client();
+		}
+
+		public List<ToolCallback> toolCallbacks() {
+
+			return server.toolCallbacks;
+		}
+
+		@Override
+		public void close() {
+
+			if (released.compareAndSet(false, true)) {
+				server.release();
+			}
+		}
+
+	}
+
+	public static final class Builder {
+
+		private Supplier<Map<String, McpStdioClientProperties.Parameters>> servers;
+
+		private Duration idleTimeout = Duration.ofMinutes(10);
+
+		private Duration healthCheckInterval = Duration.ofSeconds(30);
+
+		private Duration requestTimeout = Duration.ofSeconds(30);
+
+		private int maxServers = 8;
+
+		private boolean warmUp = false;
+
+		private Builder() {
+		}
+
+		/**
+		 * MCP Server 的启动配置，每次启动进程和检查时都会重新获取，配置文件变化后新启动的进程使用新配置
+		 */
+		public Builder servers(Supplier<Map<String, McpStdioClientProperties.Parameters>> servers) {
+
+			this.servers = servers;
+			return this;
+		}
+
+		public Builder idleTimeout(Duration idleTimeout) {
+
+			this.idleTimeout = idleTimeout;
+			return this;
+		}
+
+		public Builder healthCheckInterval(Duration healthCheckInterval) {
+
+			this.healthCheckInterval = healthCheckInterval;
+			return this;
+		}
+
+		public Builder requestTimeout(Duration requestTimeout) {
+
+			this.requestTimeout = requestTimeout;
+			return this;
+		}
+
+		public Builder maxServers(int maxServers) {
+
+			this.maxServers = maxServers;
+			return this;
+		}
+
+		public Builder warmUp(boolean warmUp) {
+
+			this.warmUp = warmUp;
+			return this;
+		}
+
+		public McpStdioServerPool build() {
+
+			return new McpStdioServerPool(this);
+		}
+
+	}
+
+}
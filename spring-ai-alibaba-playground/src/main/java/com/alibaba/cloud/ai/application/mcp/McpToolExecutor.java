@@ -0,0 +1,293 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.cloud.ai.application.entity.tools.ToolCallResp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.tool.ToolCallback;
+
+/**
+ * 并发执行一轮对话中模型请求的所有工具调用。每个工具有自己的超时时间，超时的工具会被中断并记为失败，
+ * 整轮耗时取决于最慢的工具，而不是所有工具耗时之和。
+ */
+
+public class McpToolExecutor implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(McpToolExecutor.class);
+
+	private final ExecutorService executor;
+
+	private final Duration defaultTimeout;
+
+	private final Map<String, Duration> timeouts;
+
+	private final Duration queueTimeout;
+
+	private McpToolExecutor(Builder builder) {
+
+		this.executor = Executors.newFixedThreadPool(builder.maxConcurrentTools, daemon("mcp-tool-call"));
+		this.defaultTimeout = builder.defaultTimeout;
+		this.timeouts = Map.copyOf(builder.timeouts);
+		this.queueTimeout = builder.queueTimeout;
+	}
+
+	public static Builder builder() {
+
+		return new Builder();
+	}
+
+	/**
+	 * 并发执行工具调用，返回与 toolCalls 顺序一致的执行记录。
+	 * 找不到的工具、抛出异常或超时的工具都记为 FAILURE，不影响其他工具。
+	 * 工具的超时和耗时从它在线程池中真正开始执行时算起，排队等待线程的时间只受 queueTimeout 限制。
+	 */
+	public List<ToolCallResp> execute(List<AssistantMessage.ToolCall> toolCalls, Map<String, ToolCallback> callbacks) {
+
+		List<ToolCallResp> results = new ArrayList<>(toolCalls.size());
+		List<Call> calls = new ArrayList<>(toolCalls.size());
+		for (AssistantMessage.ToolCall toolCall : toolCalls) {
+			ToolCallResp resp = ToolCallResp.startExecute(null, toolCall.name(), toolCall.arguments());
+			ToolCallback callback = callbacks.get(toolCall.name());
+			results.add(resp);
+			calls.add(Objects.isNull(callback) ? null : new Call(callback, toolCall.arguments()));
+		}
+		long queueDeadline = System.nanoTime() + queueTimeout.toNanos();
+		for (Call call : calls) {
+			if (Objects.nonNull(call)) {
+				call.queueDeadline = queueDeadline;
+				call.future = executor.submit(call);
+			}
+		}
+
+		for (int i = 0; i < toolCalls.size(); i++) {
+			ToolCallResp resp = results.get(i);
+			Call call = calls.get(i);
+			if (Objects.isNull(call)) {
+				fail(resp, "Tool not found: " + resp.getToolName());
+				continue;
+			}
+			try {
+				if (!call.started.await(Math.max(0, queueDeadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+						|| call.expired) {
+					call.future.cancel(true);
+					fail(resp, "Tool waited more than " + queueTimeout.toMillis() + " ms for a free worker");
+					continue;
+				}
+				Duration timeout = timeout(resp.getToolName());
+				long remainingNanos = call.startNanos + timeout.toNanos() - System.nanoTime();
+				try {
+					String result = call.future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+					resp.setToolResponse(result);
+					resp.finishExecute(ToolCallResp.ToolState.SUCCESS, call.startNanos, call.endNanos);
+				}
+				catch (TimeoutException e) {
+					call.future.cancel(true);
+					fail(resp, call.startNanos, "Tool timed out after " + timeout.toMillis() + " ms");
+				}
+				catch (ExecutionException e) {
+					fail(resp, call.startNanos, Objects.toString(e.getCause().getMessage(), e.getCause().toString()));
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				calls.forEach(c -> {
+					if (Objects.nonNull(c)) {
+						c.future.cancel(true);
+					}
+				});
+				throw new IllegalStateException("Interrupted while waiting for tool calls", e);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * 把执行记录转换成发给模型的工具响应，失败的工具以错误信息作为响应，让模型仍然可以给出回答
+	 */
+	public static ToolResponseMessage toResponseMessage(List<AssistantMessage.ToolCall> toolCalls,
+			List<ToolCallResp> results) {
+
+		List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(toolCalls.size());
+		for (int i = 0; i < toolCalls.size(); i++) {
+			ToolCallResp resp = results.get(i);
+			String data = resp.getStatus() == ToolCallResp.ToolState.SUCCESS
+					? resp.getToolResponse()
+					: "Error: " + resp.getErrorMessage();
+			responses.add(new ToolResponseMessage.ToolResponse(toolCalls.get(i).id(), toolCalls.get(i).name(), data));
+		}
+
+		return ToolResponseMessage.builder().responses(responses).build();
+	}
+
+	private Duration timeout(String toolName) {
+
+		return timeouts.getOrDefault(toolName, defaultTimeout);
+	}
+
+	private static void fail(ToolCallResp resp, String message) {
+
+		resp.setErrorMessage(message);
+		resp.finishExecute(ToolCallResp.ToolState.FAILURE);
+		logger.warn("Tool {} failed: {}", resp.getToolName(), message);
+	}
+
+	private static void fail(ToolCallResp resp, long startNanos, String message) {
+
+		resp.setErrorMessage(message);
+		resp.finishExecute(ToolCallResp.ToolState.FAILURE, startNanos, System.nanoTime());
+		logger.warn("Tool {} failed: {}", resp.getToolName(), message);
+	}
+
+	@Override
+	public void close() {
+
+		executor.shutdownNow();
+	}
+
+	private static ThreadFactory daemon(String prefix) {
+
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * 一次工具调用，开始和结束时间在工具线程上记录。
+	 * 排到线程时已经超过 queueDeadline 的调用不再执行，避免等待前面的工具时它在后台悄悄跑完。
+	 */
+	private static final class Call implements Callable<String> {
+
+		private final ToolCallback callback;
+
+		private final String arguments;
+
+		private final CountDownLatch started = new CountDownLatch(1);
+
+		private long queueDeadline;
+
+		private volatile boolean expired;
+
+		private volatile long startNanos;
+
+		private volatile long endNanos;
+
+		private Future<String> future;
+
+		private Call(ToolCallback callback, String arguments) {
+
+			this.callback = callback;
+			this.arguments = arguments;
+		}
+
+		@Override
+		public String call() {
+
+			startNanos = System.nanoTime();
+			expired = startNanos - queueDeadline > 0;
+			started.countDown();
+			if (expired) {
+				return null;
+			}
+			try {
+				return callback.call(arguments);
+			}
+			finally {
+				endNanos = System.nanoTime();
+			}
+		}
+
+	}
+
+	public static final class Builder {
+
+		private Duration defaultTimeout = Duration.ofSeconds(30);
+
+		private final Map<String, Duration> timeouts = new HashMap<>();
+
+		private int maxConcurrentTools = 16;
+
+		private Duration queueTimeout = Duration.ofSeconds(60);
+
+		private Builder() {
+		}
+
+		public Builder defaultTimeout(Duration defaultTimeout) {
+
+			this.defaultTimeout = defaultTimeout;
+			return this;
+		}
+
+		public Builder timeout(String toolName, Duration timeout) {
+
+			this.timeouts.put(toolName, timeout);
+			return this;
+		}
+
+		public Builder timeouts(Map<String, Duration> timeouts) {
+
+			this.timeouts.putAll(timeouts);
+			return this;
+		}
+
+		public Builder maxConcurrentTools(int maxConcurrentTools) {
+
+			this.maxConcurrentTools = maxConcurrentTools;
+			return this;
+		}
+
+		/**
+		 * 工具等待空闲线程的最长时间，与工具自身的超时分开计算
+		 */
+		public Builder queueTimeout(Duration queueTimeout) {
+
+			this.queueTimeout = queueTimeout;
+			return this;
+		}
+
+		public McpToolExecutor build() {
+
+			return new McpToolExecutor(this);
+		}
+
+	}
+
+}
@@ -16,11 +16,28 @@
 
 package com.alibaba.cloud.ai.application.modulerag;
 
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
 /**
  * iqs search properties
  *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
-public record IQSSearchProperties(String apiKey) {
+public record IQSSearchProperties(String apiKey,
+								  @DefaultValue("https://cloud-iqs.aliyuncs.com/") String baseUrl,
+								  @DefaultValue Cache cache) {
+
+	/**
+	 * @param enabled 是否缓存搜索结果
+	 * @param negativeTtl 失败结果的缓存时间
+	 * @param maxEntries 最大缓存条目数
+	 */
+	public record Cache(@DefaultValue("true") boolean enabled,
+						@DefaultValue("5s") Duration negativeTtl,
+						@DefaultValue("10000") long maxEntries) {
+	}
+
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
+import org.springframework.ai.rag.retrieval.join.DocumentJoiner;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * 并行检索：将 QueryExpander 扩展出的多个查询同时发给搜索引擎，而不是逐个串行调用。
+ * <p>
+ * 整个请求共享一个截止时间，最多 maxConcurrency 个搜索同时进行；到达截止时间后未返回的搜索被取消（没有其他请求共享时底层 HTTP 请求中断，
+ * 见 IQSSearchCache），已经返回的结果照常交给 DocumentJoiner 合并。单个查询失败只会丢掉该查询的结果，不影响其他查询。
+ */
+
+public class ParallelWebSearchRetriever implements DocumentRetriever {
+
+	private static final Logger logger = LoggerFactory.getLogger(ParallelWebSearchRetriever.class);
+
+	private final WebSearchRetriever retriever;
+
+	private final QueryExpander queryExpander;
+
+	private final DocumentJoiner documentJoiner;
+
+	private final Duration deadline;
+
+	private final int maxConcurrency;
+
+	private ParallelWebSearchRetriever(Builder builder) {
+
+		Assert.notNull(builder.retriever, "retriever must not be null");
+		Assert.notNull(builder.queryExpander, "queryExpander must not be null");
+		Assert.notNull(builder.documentJoiner, "documentJoiner must not be null");
+		Assert.isTrue(builder.deadline.toMillis() > 0, "deadline must be positive");
+		Assert.isTrue(builder.maxConcurrency > 0, "maxConcurrency must be positive");
+
+		this.retriever = builder.retriever;
+		this.queryExpander = builder.queryExpander;
+		this.documentJoiner = builder.documentJoiner;
+		this.deadline = builder.deadline;
+		this.maxConcurrency = builder.maxConcurrency;
+	}
+
+	@NotNull
+	@Override
+	public List<Document> retrieve(
+			@Nullable Query query
+	) {
+
+		Assert.notNull(query, "query cannot be null");
+
+		List<Query> queries = queryExpander.expand(query);
+		long start = System.nanoTime();
+
+		Map<Query, List<Document>> completed = retrieveAll(queries).block();
+
+		logger.debug("ParallelWebSearchRetriever#retrieve() {}/{} searches completed in {} ms",
+				Objects.isNull(completed) ? 0 : completed.size(),
+				queries.size(),
+				(System.nanoTime() - start) / 1_000_000
+		);
+
+		// 按扩展顺序组织，保证 joiner 的分配结果稳定；超时或失败的查询不出现在结果中
+		Map<Query, List<List<Document>>> documentsForQuery = new LinkedHashMap<>();
+		for (Query q : queries) {
+			List<Document> documents = Objects.isNull(completed) ? null : completed.get(q);
+			if (Objects.nonNull(documents)) {
+				documentsForQuery.put(q, List.of(documents));
+			}
+		}
+
+		return documentJoiner.join(documentsForQuery);
+	}
+
+	/**
+	 * 并发执行所有搜索，截止时间到达时 take(Duration) 结束流并取消仍在进行中的搜索。
+	 */
+	Mono<Map<Query, List<Document>>> retrieveAll(List<Query> queries) {
+
+		return Flux.fromIterable(queries)
+				.flatMap(q -> retriever.retrieveAsync(q)
+						.map(documents -> Map.entry(q, documents))
+						.onErrorResume(e -> {
+							logger.warn("Web search failed for query [{}], skip it: {}", q.text(), e.getMessage());
+							return Mono.empty();
+						}), maxConcurrency)
+				.take(deadline)
+				.collectMap(Map.Entry::getKey, Map.Entry::getValue, HashMap::new);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+
+		private WebSearchRetriever retriever;
+
+		private QueryExpander queryExpander;
+
+		private DocumentJoiner documentJoiner;
+
+		private Duration deadline = Duration.ofSeconds(8);
+
+		private int maxConcurrency = 4;
+
+		public Builder retriever(WebSearchRetriever retriever) {
+
+			this.retriever = retriever;
+			return this;
+		}
+
+		public Builder queryExpander(QueryExpander queryExpander) {
+
+			this.queryExpander = queryExpander;
+			return this;
+		}
+
+		public Builder documentJoiner(DocumentJoiner documentJoiner) {
+
+			this.documentJoiner = documentJoiner;
+			return this;
+		}
+
+		public Builder deadline(Duration deadline) {
+
+			this.deadline = deadline;
+			return this;
+		}
+
+		public Builder maxConcurrency(int maxConcurrency) {
+
+			this.maxConcurrency = maxConcurrency;
+			return this;
+		}
+
+		public ParallelWebSearchRetriever build() {
+
+			return new ParallelWebSearchRetriever(this);
+		}
+	}
+
+}
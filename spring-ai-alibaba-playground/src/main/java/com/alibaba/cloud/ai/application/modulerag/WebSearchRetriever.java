@@ -28,8 +28,8 @@ import org.springframework.ai.document.Document;
 import org.springframework.ai.rag.Query;
 import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
 import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
 
-import java.net.URISyntaxException;
 import java.util.List;
 
 /**
@@ -70,17 +70,21 @@ public class WebSearchRetriever implements DocumentRetriever {
 			throw new SAAAppException("json process error" + e.getMessage());
 		}
 
-		// 清洗数据
-        List<Document> cleanerData;
-        try {
-            cleanerData = dataCleaner.getData(searchResp);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
-        }
-        // logger.debug("cleaner data: {}", cleanerData);
-
-		// 返回结果
-		List<Document> documents = dataCleaner.limitResults(cleanerData, maxResults);
+		return toDocuments(searchResp);
+	}
+
+	/**
+	 * 非阻塞检索，供 {@link ParallelWebSearchRetriever} 并行调用。
+	 */
+	public Mono<List<Document>> retrieveAsync(Query query) {
+
+		return searchEngine.searchAsync(query.text()).map(this::toDocuments);
+	}
+
+	private List<Document> toDocuments(IQSSearchResponse searchResp) {
+
+		// 清洗数据并截取结果
+		List<Document> documents = dataCleaner.clean(searchResp, maxResults).documents();
 
 		logger.debug("WebSearchRetriever#retrieve() document size: {}, raw documents: {}",
 				documents.size(),
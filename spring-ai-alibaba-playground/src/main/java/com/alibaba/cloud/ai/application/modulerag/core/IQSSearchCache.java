@@ -0,0 +1,273 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.core;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.util.Assert;
+
+/**
+ * IQS 搜索结果缓存。
+ * <p>
+ * key 为 (归一化查询, timeRange, engineType)。成功结果的过期时间与 timeRange 对齐：取时间范围的 1/168，
+ * 即 OneWeek 的结果缓存 1 小时、OneDay 约 8.5 分钟，限制在 [1 分钟, 1 天]；失败结果只缓存 negativeTtl，
+ * 避免上游故障时的重试风暴。同一个 key 的并发请求共享同一次上游调用（single-flight）。
+ * <p>
+ * 每个调用方拿到自己的 future，取消它只影响自己；进行中的上游调用记录等待者数量，最后一个等待者取消时
+ * 上游调用随之取消，条目从缓存中移除。
+ */
+
+public class IQSSearchCache {
+
+	private static final String METRIC_PREFIX = "playground.iqs.cache";
+
+	private static final Duration MIN_TTL = Duration.ofMinutes(1);
+
+	private static final Duration MAX_TTL = Duration.ofDays(1);
+
+	private static final Map<String, Duration> TIME_RANGES = Map.of(
+			"OneDay", Duration.ofDays(1),
+			"OneWeek", Duration.ofDays(7),
+			"OneMonth", Duration.ofDays(30),
+			"OneYear", Duration.ofDays(365),
+			"NoLimit", Duration.ofDays(365)
+	);
+
+	private final boolean enabled;
+
+	private final Duration negativeTtl;
+
+	private final Cache<SearchKey, Entry> entries;
+
+	private final Counter hits;
+
+	private final Counter negativeHits;
+
+	private final Counter coalesced;
+
+	private final Counter misses;
+
+	private final Counter cancelled;
+
+	private final LongSupplier clock;
+
+	public IQSSearchCache(boolean enabled, Duration negativeTtl, long maxEntries, MeterRegistry meterRegistry) {
+
+		this(enabled, negativeTtl, maxEntries, meterRegistry, System::nanoTime);
+	}
+
+	IQSSearchCache(boolean enabled, Duration negativeTtl, long maxEntries, MeterRegistry meterRegistry,
+			LongSupplier clock) {
+
+		Assert.notNull(negativeTtl, "negativeTtl must not be null");
+		Assert.isTrue(maxEntries > 0, "maxEntries must be positive");
+
+		this.enabled = enabled;
+		this.negativeTtl = negativeTtl;
+		// 单个条目的实际过期时间由 Entry#expiresAt 决定，这里只是兜底清理
+		this.entries = CacheBuilder.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfterWrite(MAX_TTL)
+				.build();
+
+		this.hits = counter(meterRegistry, "hit");
+		this.negativeHits = counter(meterRegistry, "negative_hit");
+		this.coalesced = counter(meterRegistry, "coalesced");
+		this.misses = counter(meterRegistry, "miss");
+		this.cancelled = counter(meterRegistry, "cancelled");
+		this.clock = clock;
+		Gauge.builder(METRIC_PREFIX + ".size", entries, Cache::size).register(meterRegistry);
+	}
+
+	/**
+	 * 查询缓存，未命中时由当前线程调用 loader 发起上游请求。
+	 * <p>
+	 * 返回的 future 只属于当前调用方，可以 cancel；所有等待同一次上游调用的调用方都取消后，loader 返回的 future 被取消。
+	 */
+	public CompletableFuture<IQSSearchResponse> get(
+			SearchKey key,
+			Function<SearchKey, CompletableFuture<IQSSearchResponse>> loader
+	) {
+
+		if (!enabled) {
+			misses.increment();
+			return loader.apply(key);
+		}
+
+		Entry created = new Entry();
+		Entry entry = entries.asMap().compute(key, (k, current) -> {
+			Entry target = Objects.nonNull(current) && !current.isExpired(clock.getAsLong()) ? current : created;
+			// 与 release 在同一个 key 上互斥，不会加入一个正在被放弃的上游调用
+			target.waiters++;
+			return target;
+		});
+
+		if (entry != created) {
+			if (!entry.future().isDone()) {
+				coalesced.increment();
+			}
+			else if (entry.future().isCompletedExceptionally()) {
+				negativeHits.increment();
+			}
+			else {
+				hits.increment();
+			}
+			return view(key, entry);
+		}
+
+		misses.increment();
+		CompletableFuture<IQSSearchResponse> upstream;
+		try {
+			upstream = loader.apply(key);
+		}
+		catch (RuntimeException e) {
+			upstream = CompletableFuture.failedFuture(e);
+		}
+		created.upstream = upstream;
+		upstream.whenComplete((response, error) -> {
+			Duration ttl = Objects.isNull(error) ? ttlFor(key.timeRange()) : negativeTtl;
+			created.complete(response, error, clock.getAsLong() + ttl.toNanos());
+		});
+
+		return view(key, created);
+	}
+
+	/**
+	 * 调用方自己的 future：跟随共享结果完成，被取消时释放对上游调用的等待。
+	 */
+	private CompletableFuture<IQSSearchResponse> view(SearchKey key, Entry entry) {
+
+		CompletableFuture<IQSSearchResponse> view = new CompletableFuture<>();
+		view.whenComplete((response, error) -> {
+			if (view.isCancelled()) {
+				release(key, entry);
+			}
+		});
+		entry.future().whenComplete((response, error) -> {
+			if (Objects.isNull(error)) {
+				view.complete(response);
+			}
+			else {
+				view.completeExceptionally(error);
+			}
+		});
+		return view;
+	}
+
+	private void release(SearchKey key, Entry entry) {
+
+		boolean[] abandoned = {false};
+		entries.asMap().computeIfPresent(key, (k, current) -> {
+			if (current != entry || --entry.waiters > 0 || entry.future().isDone()) {
+				return current;
+			}
+			abandoned[0] = true;
+			return null;
+		});
+		if (abandoned[0]) {
+			cancelled.increment();
+			// 在 compute 之外取消，上游的完成回调不会在持有锁时执行
+			entry.upstream.cancel(true);
+		}
+	}
+
+	public long size() {
+
+		return entries.size();
+	}
+
+	/**
+	 * 结果的新鲜度要求与搜索的时间范围成正比：时间范围越长，结果变化越慢。
+	 */
+	static Duration ttlFor(String timeRange) {
+
+		Duration range = TIME_RANGES.getOrDefault(timeRange, Duration.ofDays(7));
+		Duration ttl = range.dividedBy(168);
+		if (ttl.compareTo(MIN_TTL) < 0) {
+			return MIN_TTL;
+		}
+		return ttl.compareTo(MAX_TTL) > 0 ? MAX_TTL : ttl;
+	}
+
+	private static Counter counter(MeterRegistry registry, String result) {
+
+		return Counter.builder(METRIC_PREFIX + ".requests").tag("result", result).register(registry);
+	}
+
+	public record SearchKey(String query, String timeRange, String engineType) {
+
+		public static SearchKey of(String query, String timeRange, String engineType) {
+
+			return new SearchKey(query.strip().replaceAll("\\s+", " "), timeRange, engineType);
+		}
+	}
+
+	private static final class Entry {
+
+		private final CompletableFuture<IQSSearchResponse> future = new CompletableFuture<>();
+
+		/**
+		 * 等待中的调用方数量，只在缓存的 compute / computeIfPresent 中读写
+		 */
+		private int waiters;
+
+		/**
+		 * loader 返回的上游调用，在条目对其他调用方可见之后才赋值
+		 */
+		private volatile CompletableFuture<IQSSearchResponse> upstream;
+
+		/**
+		 * 请求进行中时永不过期，完成后按结果设置
+		 */
+		private volatile long expiresAt = Long.MAX_VALUE;
+
+		CompletableFuture<IQSSearchResponse> future() {
+
+			return future;
+		}
+
+		boolean isExpired(long now) {
+
+			return expiresAt != Long.MAX_VALUE && now - expiresAt > 0;
+		}
+
+		void complete(IQSSearchResponse response, Throwable error, long expiresAt) {
+
+			this.expiresAt = expiresAt;
+			if (Objects.isNull(error)) {
+				future.complete(response);
+			}
+			else {
+				future.completeExceptionally(error);
+			}
+		}
+
+	}
+
+}
@@ -22,7 +22,9 @@ import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
 import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.application.modulerag.IQSSearchProperties;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -31,8 +33,13 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 /**
@@ -46,33 +53,98 @@ import java.util.function.Consumer;
 public class IQSSearchEngine {
 
 	private final RestClient restClient;
+	private final WebClient webClient;
 	private final IQSSearchProperties iqsSearchProperties;
-	private static final String BASE_URL = "https://cloud-iqs.aliyuncs.com/";
+	private final IQSSearchCache searchCache;
 	private static final String API_PATH = "/search/unified";
 	private static final String DEFAULT_TIME_RANGE = "OneWeek";
 	private static final String DEFAULT_ENGINE_TYPE = "Generic";
+	/**
+	 * 单次上游调用的最长执行时间，调用方自己没有设置截止时间时兜底
+	 */
+	private static final Duration UPSTREAM_TIMEOUT = Duration.ofSeconds(30);
 
 	public IQSSearchEngine(
 			RestClient.Builder restClientBuilder,
+			WebClient.Builder webClientBuilder,
 			WebSearchProperties webSearchProperties,
-			ResponseErrorHandler responseErrorHandler
+			ResponseErrorHandler responseErrorHandler,
+			ObjectProvider<MeterRegistry> meterRegistry
 	) {
 
 		this.iqsSearchProperties = webSearchProperties.iqs();
 		Assert.hasText(iqsSearchProperties.apiKey(), "apiKey must not be empty");
-		this.restClient = restClientBuilder.baseUrl(BASE_URL)
+		this.searchCache = new IQSSearchCache(
+				iqsSearchProperties.cache().enabled(),
+				iqsSearchProperties.cache().negativeTtl(),
+				iqsSearchProperties.cache().maxEntries(),
+				meterRegistry.getIfAvailable(SimpleMeterRegistry::new)
+		);
+		this.restClient = restClientBuilder.baseUrl(iqsSearchProperties.baseUrl())
 				.defaultHeaders(getHeaders())
 				.defaultStatusHandler(responseErrorHandler)
 				.build();
+		// WebClient.Builder 是共享的单例，clone 后再定制
+		this.webClient = webClientBuilder.clone()
+				.baseUrl(iqsSearchProperties.baseUrl())
+				.defaultHeaders(getHeaders())
+				.build();
 	}
 
 	public IQSSearchResponse search(String query) throws JsonProcessingException {
 
+		// 未命中时在当前线程同步调用上游
+		CompletableFuture<IQSSearchResponse> result = searchCache.get(searchKey(query), key -> {
+			ResponseEntity<IQSSearchResponse> response = this.restClient.post()
+					.uri(API_PATH)
+					.contentType(MediaType.APPLICATION_JSON)
+					.body(buildRequest(key))
+					.retrieve()
+					.toEntity(IQSSearchResponse.class);
+			return CompletableFuture.completedFuture(genericSearchResult(response));
+		});
+
+		try {
+			return result.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * 非阻塞搜索，用于多查询并行检索。
+	 * <p>
+	 * 上游调用可能被多个请求共享：取消订阅时当前调用方停止等待，所有共享该调用的订阅都取消后底层 HTTP 请求随之中断。
+	 */
+	public Mono<IQSSearchResponse> searchAsync(String query) {
+
+		return Mono.fromFuture(() -> searchCache.get(searchKey(query), key -> this.webClient.post()
+				.uri(API_PATH)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(buildRequest(key))
+				.retrieve()
+				.toEntity(IQSSearchResponse.class)
+				.map(this::genericSearchResult)
+				.timeout(UPSTREAM_TIMEOUT)
+				.toFuture()));
+	}
+
+	private IQSSearchCache.SearchKey searchKey(String query) {
+
+		return IQSSearchCache.SearchKey.of(query, DEFAULT_TIME_RANGE, DEFAULT_ENGINE_TYPE);
+	}
+
+	private IQSSearchRequest buildRequest(IQSSearchCache.SearchKey key) {
+
 		// String encodeQ = URLEncoder.encode(query, StandardCharsets.UTF_8);
-		final IQSSearchRequest request = IQSSearchRequest.builder()
-				.query(query)
-				.timeRange(DEFAULT_TIME_RANGE)
-				.engineType(DEFAULT_ENGINE_TYPE)
+		return IQSSearchRequest.builder()
+				.query(key.query())
+				.timeRange(key.timeRange())
+				.engineType(key.engineType())
 				.contents(IQSSearchRequest.Contents.builder()
 						.mainText(true)
 						// IQS 目前的 md 文档效果不好, 所以关闭.
@@ -80,15 +152,6 @@ public class IQSSearchEngine {
 						.rerankScore(true)
 						.build())
 				.build();
-
-		ResponseEntity<IQSSearchResponse> response = this.restClient.post()
-				.uri(API_PATH)
-				.contentType(MediaType.APPLICATION_JSON)
-				.body(request)
-				.retrieve()
-				.toEntity(IQSSearchResponse.class);
-
-		return genericSearchResult(response);
 	}
 
 	private IQSSearchResponse genericSearchResult(ResponseEntity<IQSSearchResponse> response) {
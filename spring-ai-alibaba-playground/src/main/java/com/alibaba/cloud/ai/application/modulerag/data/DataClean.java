@@ -21,126 +21,164 @@ import org.springframework.ai.document.Document;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.net.URISyntaxException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  *
  * Data Cleansing: Filters out useless data and converts it into Spring AI's Document objects
+ * <p>
+ * 无状态组件，每次调用的结果（文档与链接映射）都只属于该次请求，可以被并发调用。
  */
 
 @Component
 public class DataClean {
 
-	private static final Map<Integer, String> WebLink_MAP = new HashMap<>();
-
-	public List<Document> getData(IQSSearchResponse respData) throws URISyntaxException {
-
-		List<Document> documents = new ArrayList<>();
-		Map<String, Object> metadata = getQueryMetadata(respData);
-
-		for (int i = 0; i < respData.pageItems().size(); i++) {
+	/**
+	 * 正文长度低于该值的条目视为无效数据
+	 */
+	private static final int MIN_TEXT_LENGTH = 10;
+
+	/**
+	 * MinHash 估计的 Jaccard 相似度不低于该值时视为重复正文（转载、镜像站等）
+	 */
+	private static final double DUPLICATE_THRESHOLD = 0.8;
+
+	private static final MinHash MIN_HASH = new MinHash(64, 5, 0x5AA_DA7AL);
+
+	/**
+	 * 逐条清洗搜索结果：过滤正文过短的条目，去除近似重复的正文，收集满 maxResults 条后立即停止。
+	 *
+	 * @param respData 搜索结果
+	 * @param maxResults 最多返回的文档数
+	 * @return 本次请求的文档与链接映射
+	 */
+	public CleanedData clean(IQSSearchResponse respData, int maxResults) {
+
+		List<IQSSearchResponse.PageItem> pageItems = Objects.nonNull(respData.pageItems())
+				? respData.pageItems() : List.of();
+		int capacity = Math.min(pageItems.size(), Math.max(maxResults, 0));
+		if (capacity == 0) {
+			return new CleanedData(List.of(), Map.of());
+		}
 
-			IQSSearchResponse.PageItem pageItem = respData.pageItems().get(i);
-			Map<String, Object> pageItemMetadata = getPageItemMetadata(pageItem);
+		Map<String, Object> queryMetadata = getQueryMetadata(respData);
+		List<Document> documents = new ArrayList<>(capacity);
+		List<long[]> signatures = new ArrayList<>(capacity);
+		Map<Integer, String> webLinks = new LinkedHashMap<>();
 
-			metadata.putAll(pageItemMetadata);
+		for (IQSSearchResponse.PageItem pageItem : pageItems) {
 
-			if (!StringUtils.hasText(pageItem.mainText()) || pageItem.mainText().length() < 10) {
+			if (Objects.isNull(pageItem) || !StringUtils.hasText(pageItem.mainText())
+					|| pageItem.mainText().length() < MIN_TEXT_LENGTH) {
 				// Skip items with main text that is too short
 				continue;
 			}
 
-			Document document = Document.builder()
-					.metadata(metadata)
+			long[] signature = MIN_HASH.signature(pageItem.mainText());
+			if (isDuplicate(signature, signatures)) {
+				continue;
+			}
+			signatures.add(signature);
+
+			documents.add(Document.builder()
+					.metadata(getPageItemMetadata(queryMetadata, pageItem))
 					.text(pageItem.mainText())
 					.score(pageItem.rerankScore())
-					.build();
+					.build());
 
 			if (Objects.nonNull(pageItem.link())) {
-				int index = i;
-				WebLink_MAP.put(index + 1, pageItem.link());
+				// 引用编号从 1 开始，与文档在结果中的位置一致
+				webLinks.put(documents.size(), pageItem.link());
 			}
 
-			documents.add(document);
+			if (documents.size() >= capacity) {
+				break;
+			}
 		}
 
-		return documents;
+		return new CleanedData(Collections.unmodifiableList(documents), Collections.unmodifiableMap(webLinks));
 	}
 
-	public Map<Integer, String> getWebLink() {
+	private static boolean isDuplicate(long[] signature, List<long[]> accepted) {
 
-		return WebLink_MAP;
+		for (long[] other : accepted) {
+			if (MinHash.similarity(signature, other) >= DUPLICATE_THRESHOLD) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	private Map<String, Object> getQueryMetadata(IQSSearchResponse respData) {
 
-		HashMap<String, Object> docsMetadata = new HashMap<>();
-
-		if (Objects.nonNull(respData.queryContext())) {
-			docsMetadata.put("query", respData.queryContext().originalQuery().query());
-
-			if (Objects.nonNull(respData.queryContext().originalQuery().timeRange())) {
-				docsMetadata.put("timeRange", respData.queryContext().originalQuery().timeRange());
-			}
+		if (Objects.isNull(respData.queryContext()) || Objects.isNull(respData.queryContext().originalQuery())) {
+			return Map.of();
+		}
 
-			if (Objects.nonNull(respData.queryContext().originalQuery().timeRange())) {
-				docsMetadata.put("filters", respData.queryContext().originalQuery().timeRange());
-			}
+		IQSSearchResponse.OriginalQuery originalQuery = respData.queryContext().originalQuery();
+		Map<String, Object> docsMetadata = new HashMap<>(4);
+		if (Objects.nonNull(originalQuery.query())) {
+			docsMetadata.put("query", originalQuery.query());
+		}
+		if (Objects.nonNull(originalQuery.timeRange())) {
+			docsMetadata.put("timeRange", originalQuery.timeRange());
 		}
 
-		return docsMetadata;
+		return Map.copyOf(docsMetadata);
 	}
 
-	private Map<String, Object> getPageItemMetadata(IQSSearchResponse.PageItem pageItem) {
-
-		HashMap<String, Object> pageItemMetadata = new HashMap<>();
+	/**
+	 * 每个条目独立的 metadata：请求级字段 + 条目字段。正文已经作为 Document 的 text，不再重复放入 metadata。
+	 */
+	private Map<String, Object> getPageItemMetadata(Map<String, Object> queryMetadata, IQSSearchResponse.PageItem pageItem) {
 
-		if (Objects.nonNull(pageItem)) {
+		Map<String, Object> pageItemMetadata = new HashMap<>(queryMetadata.size() + 8);
+		pageItemMetadata.putAll(queryMetadata);
 
-			if (Objects.nonNull(pageItem.hostname())) {
-				pageItemMetadata.put("hostname", pageItem.hostname());
-			}
-
-			if (Objects.nonNull(pageItem.title())) {
-				pageItemMetadata.put("title", pageItem.title());
-			}
+		if (Objects.nonNull(pageItem.hostname())) {
+			pageItemMetadata.put("hostname", pageItem.hostname());
+		}
 
-			if (Objects.nonNull(pageItem.markdownText())) {
-				pageItemMetadata.put("markdownText", pageItem.markdownText());
-			}
+		if (Objects.nonNull(pageItem.title())) {
+			pageItemMetadata.put("title", pageItem.title());
+		}
 
-			if (Objects.nonNull(pageItem.link())) {
-				pageItemMetadata.put("link", pageItem.link());
-			}
+		if (Objects.nonNull(pageItem.markdownText())) {
+			pageItemMetadata.put("markdownText", pageItem.markdownText());
+		}
 
-			if (Objects.nonNull(pageItem.mainText())) {
-				pageItemMetadata.put("mainText", pageItem.mainText());
-			}
+		if (Objects.nonNull(pageItem.link())) {
+			pageItemMetadata.put("link", pageItem.link());
+			// 供 DocumentJoiner 按来源去重
+			pageItemMetadata.put("source", pageItem.link());
+		}
 
-			if (Objects.nonNull(pageItem.rerankScore())) {
-				pageItemMetadata.put("rerankScore", pageItem.rerankScore());
-			}
+		pageItemMetadata.put("rerankScore", pageItem.rerankScore());
 
-			if (Objects.nonNull(pageItem.publishedTime())) {
-				pageItemMetadata.put("publishedTime", pageItem.publishedTime());
-			}
+		if (Objects.nonNull(pageItem.publishedTime())) {
+			pageItemMetadata.put("publishedTime", pageItem.publishedTime());
+		}
 
-			if (Objects.nonNull(pageItem.snippet())) {
-				pageItemMetadata.put("snippet", pageItem.snippet());
-			}
+		if (Objects.nonNull(pageItem.snippet())) {
+			pageItemMetadata.put("snippet", pageItem.snippet());
 		}
 
-		return pageItemMetadata;
+		return Collections.unmodifiableMap(pageItemMetadata);
 	}
 
-	public List<Document> limitResults(List<Document> documents, int minResults) {
-
-		int limit = Math.min(documents.size(), minResults);
-
-		return documents.subList(0, limit);
+	/**
+	 * @param documents 清洗后的文档
+	 * @param webLinks 引用编号（从 1 开始）到原始链接的映射，只属于本次请求
+	 */
+	public record CleanedData(List<Document> documents, Map<Integer, String> webLinks) {
 	}
 
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.data;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 基于字符 shingle 的 MinHash 签名，用于估计两段正文的 Jaccard 相似度。
+ * <p>
+ * 按字符而非单词切分 shingle，中英文都适用；shingle 哈希用滚动多项式计算，不产生子串对象。
+ * 实例不可变，可在多线程间共享。
+ */
+
+final class MinHash {
+
+	private final int shingleSize;
+
+	private final long[] multipliers;
+
+	private final long[] increments;
+
+	MinHash(int numHashes, int shingleSize, long seed) {
+
+		this.shingleSize = shingleSize;
+		this.multipliers = new long[numHashes];
+		this.increments = new long[numHashes];
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int i = 0; i < numHashes; i++) {
+			// 奇数乘子保证在 2^64 上是双射
+			this.multipliers[i] = random.nextLong() | 1L;
+			this.increments[i] = random.nextLong();
+		}
+	}
+
+	long[] signature(CharSequence text) {
+
+		long[] signature = new long[multipliers.length];
+		Arrays.fill(signature, Long.MAX_VALUE);
+
+		int length = text.length();
+		if (length < shingleSize) {
+			update(signature, hashWindow(text, 0, length));
+			return signature;
+		}
+
+		// 31^shingleSize，用于滚动时移除窗口最左侧字符
+		long power = 1;
+		for (int i = 0; i < shingleSize; i++) {
+			power *= 31;
+		}
+
+		long hash = hashWindow(text, 0, shingleSize);
+		update(signature, hash);
+		for (int i = shingleSize; i < length; i++) {
+			hash = hash * 31 + text.charAt(i) - power * text.charAt(i - shingleSize);
+			update(signature, hash);
+		}
+		return signature;
+	}
+
+	/**
+	 * 签名中相同位置取值相等的比例，即 Jaccard 相似度的无偏估计
+	 */
+	static double similarity(long[] a, long[] b) {
+
+		int equal = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] == b[i]) {
+				equal++;
+			}
+		}
+		return (double) equal / a.length;
+	}
+
+	private void update(long[] signature, long shingle) {
+
+		long mixed = mix(shingle);
+		for (int i = 0; i < signature.length; i++) {
+			long h = mixed * multipliers[i] + increments[i];
+			if (h < signature[i]) {
+				signature[i] = h;
+			}
+		}
+	}
+
+	private static long hashWindow(CharSequence text, int from, int to) {
+
+		long hash = 0;
+		for (int i = from; i < to; i++) {
+			hash = hash * 31 + text.charAt(i);
+		}
+		return hash;
+	}
+
+	/**
+	 * SplitMix64 finalizer，打散多项式哈希的低位相关性
+	 */
+	private static long mix(long z) {
+
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
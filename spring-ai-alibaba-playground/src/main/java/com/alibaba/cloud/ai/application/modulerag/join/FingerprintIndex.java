@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.join;
+
+import java.util.Arrays;
+
+/**
+ * 64 位指纹到候选下标的开放寻址哈希表，避免 HashMap&lt;Long, ?&gt; 的装箱开销。
+ * <p>
+ * 只在单次 join 内使用，不是线程安全的。
+ */
+
+final class FingerprintIndex {
+
+	private static final int EMPTY = -1;
+
+	private long[] keys;
+
+	private int[] values;
+
+	private int size;
+
+	FingerprintIndex(int expectedSize) {
+
+		int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(this.values, EMPTY);
+	}
+
+	/**
+	 * @return 指纹对应的候选下标，不存在时返回 -1
+	 */
+	int get(long fingerprint) {
+
+		int mask = keys.length - 1;
+		for (int i = slot(fingerprint, mask); values[i] != EMPTY; i = (i + 1) & mask) {
+			if (keys[i] == fingerprint) {
+				return values[i];
+			}
+		}
+		return EMPTY;
+	}
+
+	void putIfAbsent(long fingerprint, int value) {
+
+		int mask = keys.length - 1;
+		int i = slot(fingerprint, mask);
+		for (; values[i] != EMPTY; i = (i + 1) & mask) {
+			if (keys[i] == fingerprint) {
+				return;
+			}
+		}
+		keys[i] = fingerprint;
+		values[i] = value;
+		if (++size * 2 > keys.length) {
+			resize();
+		}
+	}
+
+	private void resize() {
+
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length << 1];
+		values = new int[oldValues.length << 1];
+		Arrays.fill(values, EMPTY);
+
+		int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldValues[j] == EMPTY) {
+				continue;
+			}
+			int i = slot(oldKeys[j], mask);
+			while (values[i] != EMPTY) {
+				i = (i + 1) & mask;
+			}
+			keys[i] = oldKeys[j];
+			values[i] = oldValues[j];
+		}
+	}
+
+	/**
+	 * 指纹本身已经充分打散，直接取低位即可
+	 */
+	private static int slot(long fingerprint, int mask) {
+
+		return (int) fingerprint & mask;
+	}
+
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.join;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.join.DocumentJoiner;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * 加权 Reciprocal Rank Fusion：按文档在各个扩展查询结果中的排名融合打分，并结合搜索引擎给出的 rerankScore。
+ * <p>
+ * 文档在某个结果列表中排名为 rank（从 1 开始）时，贡献的分数为
+ * <pre>
+ * queryWeight(query) * ((1 - scoreWeight) + scoreWeight * rerankScore) / (k + rank)
+ * </pre>
+ * 同一文档在多个查询中出现时分数累加，因此被多个查询同时召回的文档排名更靠前。没有 rerankScore 的文档按纯 RRF 计算。
+ * <p>
+ * id、metadata 中的 source、file_name 任意一个相同即视为同一文档，去重使用预先计算的 64 位指纹而不是拼接字符串；
+ * 最终只用大小为 topK 的堆选出结果，不对全部候选排序。返回的文档 score 为融合后的分数。
+ */
+
+public class ReciprocalRankFusionDocumentJoiner implements DocumentJoiner {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReciprocalRankFusionDocumentJoiner.class);
+
+	static final String RERANK_SCORE = "rerankScore";
+
+	private static final long ID_SEED = 0x1D_5EEDL;
+
+	private static final long SOURCE_SEED = 0x50_C3EDL;
+
+	private static final long FILE_NAME_SEED = 0xF1_1E5EEDL;
+
+	/**
+	 * 分数相同时先出现的文档优先，保证结果稳定
+	 */
+	private static final Comparator<Candidate> WORST_FIRST = Comparator.<Candidate>comparingDouble(c -> c.score)
+			.thenComparing(Comparator.comparingInt((Candidate c) -> c.order).reversed());
+
+	private final int k;
+
+	private final int topK;
+
+	private final double scoreWeight;
+
+	private final ToDoubleFunction<Query> queryWeight;
+
+	private ReciprocalRankFusionDocumentJoiner(Builder builder) {
+
+		Assert.isTrue(builder.k > 0, "k must be positive");
+		Assert.isTrue(builder.topK > 0, "topK must be positive");
+		Assert.isTrue(builder.scoreWeight >= 0 && builder.scoreWeight <= 1, "scoreWeight must be in [0, 1]");
+		Assert.notNull(builder.queryWeight, "queryWeight must not be null");
+
+		this.k = builder.k;
+		this.topK = builder.topK;
+		this.scoreWeight = builder.scoreWeight;
+		this.queryWeight = builder.queryWeight;
+	}
+
+	@NotNull
+	@Override
+	public List<Document> join(
+			@Nullable Map<Query, List<List<Document>>> documentsForQuery
+	) {
+
+		Assert.notNull(documentsForQuery, "documentsForQuery cannot be null");
+		Assert.noNullElements(documentsForQuery.keySet(), "documentsForQuery cannot contain null keys");
+		Assert.noNullElements(documentsForQuery.values(), "documentsForQuery cannot contain null values");
+		logger.debug("Joining documents by weighted reciprocal rank fusion");
+
+		int expected = 0;
+		for (List<List<Document>> lists : documentsForQuery.values()) {
+			for (List<Document> documents : lists) {
+				expected += documents.size();
+			}
+		}
+		if (expected == 0) {
+			return List.of();
+		}
+
+		List<Candidate> candidates = new ArrayList<>(expected);
+		FingerprintIndex index = new FingerprintIndex(expected * 2);
+		long[] fingerprints = new long[3];
+		int listId = 0;
+
+		for (Map.Entry<Query, List<List<Document>>> entry : documentsForQuery.entrySet()) {
+			double weight = queryWeight.applyAsDouble(entry.getKey());
+			if (weight <= 0) {
+				continue;
+			}
+
+			for (List<Document> documents : entry.getValue()) {
+				listId++;
+				int rank = 0;
+				for (Document document : documents) {
+					if (Objects.isNull(document)) {
+						continue;
+					}
+					rank++;
+
+					int count = fingerprints(document, fingerprints);
+					Candidate candidate = null;
+					for (int i = 0; i < count && Objects.isNull(candidate); i++) {
+						int found = index.get(fingerprints[i]);
+						if (found >= 0) {
+							candidate = candidates.get(found);
+						}
+					}
+					if (Objects.isNull(candidate)) {
+						candidate = new Candidate(document, candidates.size());
+						candidates.add(candidate);
+					}
+					for (int i = 0; i < count; i++) {
+						index.putIfAbsent(fingerprints[i], candidate.order);
+					}
+
+					// 同一列表中重复出现时只计最靠前的一次
+					if (candidate.lastList == listId) {
+						continue;
+					}
+					candidate.lastList = listId;
+					candidate.score += weight * relevance(document) / (k + rank);
+				}
+			}
+		}
+
+		PriorityQueue<Candidate> heap = new PriorityQueue<>(Math.min(topK, candidates.size()) + 1, WORST_FIRST);
+		for (Candidate candidate : candidates) {
+			if (heap.size() < topK) {
+				heap.offer(candidate);
+			}
+			else if (WORST_FIRST.compare(candidate, heap.peek()) > 0) {
+				heap.poll();
+				heap.offer(candidate);
+			}
+		}
+
+		Document[] result = new Document[heap.size()];
+		for (int i = result.length - 1; i >= 0; i--) {
+			Candidate candidate = heap.poll();
+			result[i] = candidate.document.mutate().score(candidate.score).build();
+		}
+
+		logger.debug("Fused {} documents into {} candidates, returning top {}", expected, candidates.size(), result.length);
+		return List.of(result);
+	}
+
+	/**
+	 * rerankScore 归一化在 [0, 1]，缺失时返回 1，即不调整 RRF 分数
+	 */
+	private double relevance(Document document) {
+
+		Object value = document.getMetadata().get(RERANK_SCORE);
+		Double score = value instanceof Number number ? Double.valueOf(number.doubleValue()) : document.getScore();
+		if (Objects.isNull(score) || score.isNaN()) {
+			return 1.0;
+		}
+		return (1 - scoreWeight) + scoreWeight * Math.min(1.0, Math.max(0.0, score));
+	}
+
+	/**
+	 * 按 id、source、file_name 的顺序写入指纹，不同字段使用不同的种子，避免跨字段碰撞。
+	 *
+	 * @return 写入的指纹个数
+	 */
+	static int fingerprints(Document document, long[] out) {
+
+		int count = 0;
+		if (Objects.nonNull(document.getId())) {
+			out[count++] = fingerprint(ID_SEED, document.getId());
+		}
+		if (document.getMetadata().get("source") instanceof String source) {
+			out[count++] = fingerprint(SOURCE_SEED, source);
+		}
+		if (document.getMetadata().get("file_name") instanceof String fileName) {
+			out[count++] = fingerprint(FILE_NAME_SEED, fileName);
+		}
+		return count;
+	}
+
+	/**
+	 * FNV-1a 加 SplitMix64 finalizer。64 位空间内，单次 join 的几百个文档发生碰撞的概率可以忽略。
+	 */
+	static long fingerprint(long seed, String value) {
+
+		long h = 0xcbf29ce484222325L ^ seed;
+		for (int i = 0; i < value.length(); i++) {
+			h ^= value.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	private static final class Candidate {
+
+		private final Document document;
+
+		private final int order;
+
+		private double score;
+
+		private int lastList;
+
+		Candidate(Document document, int order) {
+
+			this.document = document;
+			this.order = order;
+		}
+
+	}
+
+	public static final class Builder {
+
+		private int k = 60;
+
+		private int topK = 10;
+
+		private double scoreWeight = 0.5;
+
+		private ToDoubleFunction<Query> queryWeight = query -> 1.0;
+
+		/**
+		 * RRF 平滑常数，越大则排名靠后的文档与靠前的文档差距越小
+		 */
+		public Builder k(int k) {
+
+			this.k = k;
+			return this;
+		}
+
+		public Builder topK(int topK) {
+
+			this.topK = topK;
+			return this;
+		}
+
+		/**
+		 * rerankScore 在融合分数中的权重，0 表示纯 RRF
+		 */
+		public Builder scoreWeight(double scoreWeight) {
+
+			this.scoreWeight = scoreWeight;
+			return this;
+		}
+
+		/**
+		 * 每个查询的权重，例如让原始查询比扩展出的查询权重更高；权重不大于 0 的查询会被忽略
+		 */
+		public Builder queryWeight(ToDoubleFunction<Query> queryWeight) {
+
+			this.queryWeight = queryWeight;
+			return this;
+		}
+
+		public ReciprocalRankFusionDocumentJoiner build() {
+
+			return new ReciprocalRankFusionDocumentJoiner(this);
+		}
+	}
+
+}
@@ -20,6 +20,7 @@ import java.util.Objects;
 
 import com.alibaba.cloud.ai.advisor.DocumentRetrievalAdvisor;
 import com.alibaba.cloud.ai.application.advisor.ReasoningContentAdvisor;
+import com.alibaba.cloud.ai.application.advisor.SemanticCacheAdvisor;
 import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
 import com.alibaba.cloud.ai.dashscope.api.DashScopeResponseFormat;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
@@ -36,6 +37,7 @@ import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -64,6 +66,8 @@ public class SAAChatService {
 
 	private final ReasoningContentAdvisor reasoningContentAdvisor;
 
+	private final SemanticCacheAdvisor semanticCacheAdvisor;
+
 	private DocumentRetrievalAdvisor retrievalAdvisor;
 
 	public SAAChatService(
@@ -72,7 +76,8 @@ public class SAAChatService {
 			MessageChatMemoryAdvisor messageChatMemoryAdvisor,
 			@Qualifier("dashScopeChatModel") ChatModel chatModel,
 			@Qualifier("systemPromptTemplate") PromptTemplate systemPromptTemplate,
-			@Qualifier("deepThinkPromptTemplate") PromptTemplate deepThinkPromptTemplate
+			@Qualifier("deepThinkPromptTemplate") PromptTemplate deepThinkPromptTemplate,
+			ObjectProvider<SemanticCacheAdvisor> semanticCacheAdvisor
 	) {
 		this.dashscopeApi = dashscopeApi;
 		this.chatClient = ChatClient.builder(chatModel)
@@ -85,6 +90,7 @@ public class SAAChatService {
 
 		this.deepThinkPromptTemplate = deepThinkPromptTemplate;
 		this.reasoningContentAdvisor = new ReasoningContentAdvisor(1);
+		this.semanticCacheAdvisor = semanticCacheAdvisor.getIfAvailable();
 	}
 
 	@PostConstruct
@@ -134,6 +140,10 @@ public class SAAChatService {
             clientRequestSpec.advisors(retrievalAdvisor);
         }
 
+        if (semanticCacheAdvisor != null) {
+            clientRequestSpec.advisors(semanticCacheAdvisor);
+        }
+
         return clientRequestSpec.stream().content();
 	}
 
@@ -159,6 +169,10 @@ public class SAAChatService {
             clientRequestSpec.advisors(retrievalAdvisor);
         }
 
+        if (semanticCacheAdvisor != null) {
+            clientRequestSpec.advisors(semanticCacheAdvisor);
+        }
+
         return clientRequestSpec.stream().content();
     }
 }
@@ -17,39 +17,41 @@
 package com.alibaba.cloud.ai.application.service;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 
 import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
 import com.alibaba.cloud.ai.application.entity.tools.ToolCallResp;
 import com.alibaba.cloud.ai.application.mcp.McpServerContainer;
 import com.alibaba.cloud.ai.application.mcp.McpServerUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.alibaba.cloud.ai.application.mcp.McpStdioServerPool;
+import com.alibaba.cloud.ai.application.mcp.McpToolExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.messages.AssistantMessage;
-import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpStdioClientProperties;
 import org.springframework.ai.model.tool.ToolCallingChatOptions;
-import org.springframework.ai.model.tool.ToolCallingManager;
-import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.stereotype.Service;
 
-import static com.alibaba.cloud.ai.application.mcp.McpServerUtils.getMcpLibsAbsPath;
-
 /**
  * @author brianxiadong
  *         Spring AI Alibaba MCP (Model, Chat, Prompt) Service
@@ -59,28 +61,22 @@ public class SAAMcpService {
 
 	private final ChatClient chatClient;
 
-	private final ObjectMapper objectMapper;
-
 	private final ToolCallbackProvider tools;
 
-	private final ToolCallingManager toolCallingManager;
+	private final McpToolExecutor mcpToolExecutor;
 
-	private final McpStdioClientProperties mcpStdioClientProperties;
+	private final McpStdioServerPool mcpStdioServerPool;
 
 	private static final Logger logger = LoggerFactory.getLogger(SAAMcpService.class);
 
 	public SAAMcpService(
-			ObjectMapper objectMapper,
 			ToolCallbackProvider tools,
 			SimpleLoggerAdvisor simpleLoggerAdvisor,
-			ToolCallingManager toolCallingManager,
-			McpStdioClientProperties mcpStdioClientProperties,
+			McpToolExecutor mcpToolExecutor,
+			McpStdioServerPool mcpStdioServerPool,
 			@Qualifier("openAiChatModel") ChatModel chatModel
 	) throws IOException {
 
-		this.objectMapper = objectMapper;
-		this.mcpStdioClientProperties = mcpStdioClientProperties;
-
 		// Initialize chat client with non-blocking configuration
 		this.chatClient = ChatClient.builder(chatModel)
 				.defaultAdvisors(
@@ -88,16 +84,62 @@ public class SAAMcpService {
 				).defaultToolCallbacks(tools)
 				.build();
 		this.tools = tools;
-		this.toolCallingManager = toolCallingManager;
+		this.mcpToolExecutor = mcpToolExecutor;
+		this.mcpStdioServerPool = mcpStdioServerPool;
 
 		McpServerUtils.initMcpServerContainer(tools);
 	}
 
 	public ToolCallResp chat(String prompt) {
 
+		return complete(executeTools(prompt, List.of(tools.getToolCallbacks())));
+	}
+
+	/**
+	 * 与 {@link #chat(String)} 相同，但模型的最终回答以流的形式返回，工具执行在 boundedElastic 线程上完成
+	 */
+	public Flux<String> chatStream(String prompt) {
+
+		return stream(() -> executeTools(prompt, List.of(tools.getToolCallbacks())));
+	}
+
+	private ToolCallResp complete(ToolTurn turn) {
+
+		if (turn.history().isEmpty()) {
+			return turn.resp();
+		}
+
+		// 阻塞接口直接同步调用模型，不经过 Reactor 流再 block
+		String answer = chatClient.prompt().messages(turn.history()).call().content();
+		turn.resp().setToolResult(Objects.toString(answer, ""));
+		logger.debug("End ToolCallResp: {}", turn.resp());
+
+		return turn.resp();
+	}
+
+	private Flux<String> stream(Callable<ToolTurn> executeTools) {
+
+		return Mono.fromCallable(executeTools)
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMapMany(turn -> turn.history().isEmpty()
+						? Flux.just(Objects.toString(turn.resp().getToolResult(), ""))
+						: answer(turn));
+	}
+
+	/**
+	 * 第一次调用模型拿到工具调用，然后并发执行这一轮的所有工具。
+	 * 返回的 history 为空表示模型没有请求工具，toolResult 就是模型的回答。
+	 */
+	private ToolTurn executeTools(String prompt, List<ToolCallback> toolCallbacks) {
+
+		Map<String, ToolCallback> callbacks = new LinkedHashMap<>();
+		for (ToolCallback callback : toolCallbacks) {
+			callbacks.putIfAbsent(callback.getToolDefinition().name(), callback);
+		}
+
 		// manual run tools flag
 		ChatOptions chatOptions = ToolCallingChatOptions.builder()
-				.toolCallbacks(tools.getToolCallbacks())
+				.toolCallbacks(List.copyOf(callbacks.values()))
 				.internalToolExecutionEnabled(false)
 				.build();
 
@@ -106,76 +148,63 @@ public class SAAMcpService {
 
 		logger.debug("ChatResponse: {}", response);
 		assert response != null;
-		List<AssistantMessage.ToolCall> toolCalls = response.getResult().getOutput().getToolCalls();
+		AssistantMessage output = response.getResult().getOutput();
+		List<AssistantMessage.ToolCall> toolCalls = output.getToolCalls();
 		logger.debug("ToolCalls: {}", toolCalls);
-		String responseByLLm = response.getResult().getOutput().getText();
+		String responseByLLm = output.getText();
 		logger.debug("Response by LLM: {}", responseByLLm);
 
-		// execute tools with no chat memory messages.
-		var tcr = ToolCallResp.TCR();
-		if (!toolCalls.isEmpty()) {
-
-			tcr = ToolCallResp.startExecute(
-					responseByLLm,
-					toolCalls.get(0).name(),
-					toolCalls.get(0).arguments()
-			);
-			tcr.setToolParameters(toolCalls.get(0).arguments());
-			logger.debug("Start ToolCallResp: {}", tcr);
-			ToolExecutionResult toolExecutionResult = null;
-
-			try {
-				toolExecutionResult = toolCallingManager.executeToolCalls(new Prompt(prompt, chatOptions), response);
-
-				tcr.setToolEndTime(LocalDateTime.now());
-			}
-			catch (Exception e) {
-
-				tcr.setStatus(ToolCallResp.ToolState.FAILURE);
-				tcr.setErrorMessage(e.getMessage());
-				tcr.setToolEndTime(LocalDateTime.now());
-				tcr.setToolCostTime((long) (tcr.getToolEndTime().getNano() - tcr.getToolStartTime().getNano()));
-				logger.error("Error ToolCallResp: {}, msg: {}", tcr, e.getMessage());
-				// throw new RuntimeException("Tool execution failed, please check the logs for details.");
-			}
-
-			String llmCallResponse = "";
-			if (Objects.nonNull(toolExecutionResult)) {
-//				ToolResponseMessage toolResponseMessage = (ToolResponseMessage) toolExecutionResult.conversationHistory()
-//						.get(toolExecutionResult.conversationHistory().size() - 1);
-//				llmCallResponse = toolResponseMessage.getResponses().get(0).responseData();
-				ChatResponse finalResponse = chatClient.prompt().messages(toolExecutionResult.conversationHistory())
-						.call().chatResponse();
-				if (finalResponse != null) {
-					llmCallResponse = finalResponse.getResult().getOutput().getText();
-				}
-
-				StringBuilder sb = new StringBuilder();
-				toolExecutionResult.conversationHistory().stream()
-						.filter(message -> message instanceof ToolResponseMessage)
-						.forEach(message -> {
-							ToolResponseMessage toolResponseMessage = (ToolResponseMessage) message;
-							toolResponseMessage.getResponses().forEach(tooResponse -> {
-								sb.append(tooResponse.responseData());
-							});
-						});
-				tcr.setToolResponse(sb.toString());
-			}
-
-			tcr.setStatus(ToolCallResp.ToolState.SUCCESS);
-			tcr.setToolResult(llmCallResponse);
-			tcr.setToolCostTime((long) (tcr.getToolEndTime().getNano() - tcr.getToolStartTime().getNano()));
-			logger.debug("End ToolCallResp: {}", tcr);
-		}
-		else {
+		if (toolCalls.isEmpty()) {
 			logger.debug("ToolCalls is empty, no tool execution needed.");
+			var tcr = ToolCallResp.TCR();
 			tcr.setToolResult(responseByLLm);
+			return new ToolTurn(tcr, List.of());
+		}
+
+		// execute tools with no chat memory messages.
+		var tcr = ToolCallResp.startExecute(
+				responseByLLm,
+				toolCalls.stream().map(AssistantMessage.ToolCall::name).collect(Collectors.joining(", ")),
+				toolCalls.stream().map(AssistantMessage.ToolCall::arguments).collect(Collectors.joining("\n"))
+		);
+		logger.debug("Start ToolCallResp: {}", tcr);
+
+		List<ToolCallResp> results = mcpToolExecutor.execute(toolCalls, callbacks);
+		tcr.setToolCalls(results);
+		tcr.setToolResponse(results.stream()
+				.map(ToolCallResp::getToolResponse)
+				.filter(Objects::nonNull)
+				.collect(Collectors.joining()));
+
+		// 只要有一个工具成功，模型就还能基于它给出回答
+		boolean anySucceeded = results.stream().anyMatch(r -> r.getStatus() == ToolCallResp.ToolState.SUCCESS);
+		if (results.stream().anyMatch(r -> r.getStatus() == ToolCallResp.ToolState.FAILURE)) {
+			tcr.setErrorMessage(results.stream()
+					.filter(r -> r.getStatus() == ToolCallResp.ToolState.FAILURE)
+					.map(r -> r.getToolName() + ": " + r.getErrorMessage())
+					.collect(Collectors.joining("; ")));
 		}
+		tcr.finishExecute(anySucceeded ? ToolCallResp.ToolState.SUCCESS : ToolCallResp.ToolState.FAILURE);
+		logger.debug("Tools finished in {} ms: {}", tcr.getToolCostTime(), tcr);
+
+		List<Message> history = List.of(
+				new UserMessage(prompt),
+				output,
+				McpToolExecutor.toResponseMessage(toolCalls, results)
+		);
+
+		return new ToolTurn(tcr, history);
+	}
+
+	private Flux<String> answer(ToolTurn turn) {
 
-		return tcr;
+		return chatClient.prompt().messages(turn.history()).stream().content();
 	}
 
-	public ToolCallResp run(String id, Map<String, String> envs, String prompt) throws IOException {
+	/**
+	 * 使用进程池中按 envs 启动的 MCP Server 执行，相同配置的请求复用同一个 MCP Server 进程
+	 */
+	public ToolCallResp run(String id, Map<String, String> envs, String prompt) {
 
 		Optional<McpServer> runMcpServer = McpServerContainer.getServerById(id);
 		if (runMcpServer.isEmpty()) {
@@ -183,26 +212,28 @@ public class SAAMcpService {
 			return ToolCallResp.TCR();
 		}
 
-		String runMcpServerName = runMcpServer.get().getName();
-		var mcpServerConfig = McpServerUtils.getMcpServerConfig();
-		McpStdioClientProperties.Parameters parameters = new McpStdioClientProperties.Parameters(
-				mcpServerConfig.getMcpServers().get(runMcpServerName).command(),
-				mcpServerConfig.getMcpServers().get(runMcpServerName).args(),
-				envs
-		);
+		return complete(executeTools(runMcpServer.get().getName(), envs, prompt));
+	}
 
-		if (parameters.command().startsWith("java")) {
-			String oldMcpLibsPath = McpServerUtils.getLibsPath(parameters.args());
-			String rewriteMcpLibsAbsPath = getMcpLibsAbsPath(McpServerUtils.getLibsPath(parameters.args()));
+	public Flux<String> runStream(String id, Map<String, String> envs, String prompt) {
 
-			parameters.args().remove(oldMcpLibsPath);
-			parameters.args().add(rewriteMcpLibsAbsPath);
+		Optional<McpServer> runMcpServer = McpServerContainer.getServerById(id);
+		if (runMcpServer.isEmpty()) {
+			logger.error("McpServer not found, id: {}", id);
+			return Flux.empty();
 		}
 
-		String mcpServerConfigJSON = objectMapper.writeValueAsString(mcpServerConfig);
-		mcpStdioClientProperties.setServersConfiguration(new ByteArrayResource(mcpServerConfigJSON.getBytes()));
+		return stream(() -> executeTools(runMcpServer.get().getName(), envs, prompt));
+	}
+
+	private ToolTurn executeTools(String serverName, Map<String, String> envs, String prompt) {
+
+		try (McpStdioServerPool.Lease lease = mcpStdioServerPool.acquire(serverName, envs)) {
+			return executeTools(prompt, lease.toolCallbacks());
+		}
+	}
 
-		return chat(prompt);
+	private record ToolTurn(ToolCallResp resp, List<Message> history) {
 	}
 
 }
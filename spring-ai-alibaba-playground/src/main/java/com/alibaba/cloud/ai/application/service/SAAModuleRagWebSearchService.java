@@ -19,10 +19,12 @@ package com.alibaba.cloud.ai.application.service;
 import com.alibaba.cloud.ai.application.advisor.ReasoningContentAdvisor;
 import com.alibaba.cloud.ai.application.entity.dashscope.ChatResponseDTO;
 import com.alibaba.cloud.ai.application.enums.WebSearchEnum;
+import com.alibaba.cloud.ai.application.modulerag.ParallelWebSearchRetriever;
 import com.alibaba.cloud.ai.application.modulerag.WebSearchRetriever;
 import com.alibaba.cloud.ai.application.modulerag.core.IQSSearchEngine;
 import com.alibaba.cloud.ai.application.modulerag.data.DataClean;
 import com.alibaba.cloud.ai.application.modulerag.join.ConcatenationDocumentJoiner;
+import com.alibaba.cloud.ai.application.modulerag.join.ReciprocalRankFusionDocumentJoiner;
 import com.alibaba.cloud.ai.application.modulerag.prompt.CustomContextQueryAugmenter;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 import com.alibaba.cloud.ai.dashscope.spec.DashScopeModel;
@@ -34,9 +36,12 @@ import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
 import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
 import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
+import java.time.Duration;
+
 /**
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
@@ -49,11 +54,9 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
     private final ChatClient chatClient;
 
-    private final QueryExpander queryExpander;
-
     private final QueryTransformer queryTransformer;
 
-    private final WebSearchRetriever webSearchRetriever;
+    private final ParallelWebSearchRetriever webSearchRetriever;
 
     private final SimpleLoggerAdvisor simpleLoggerAdvisor;
 
@@ -68,12 +71,13 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
             QueryTransformer queryTransformer,
             SimpleLoggerAdvisor simpleLoggerAdvisor,
             @Qualifier("dashScopeChatModel") ChatModel chatModel,
-            @Qualifier("queryArgumentPromptTemplate") PromptTemplate queryArgumentPromptTemplate
+            @Qualifier("queryArgumentPromptTemplate") PromptTemplate queryArgumentPromptTemplate,
+            @Value("${spring.ai.alibaba.playground.web-search.module-rag.deadline:PT8S}") Duration searchDeadline,
+            @Value("${spring.ai.alibaba.playground.web-search.module-rag.max-concurrency:4}") int searchConcurrency
     ) {
 
         this.dataCleaner = dataCleaner;
         this.queryTransformer = queryTransformer;
-        this.queryExpander = queryExpander;
         this.queryArgumentPromptTemplate = queryArgumentPromptTemplate;
 
         // reasoning content for DeepSeek-r1 is integrated into the output
@@ -91,10 +95,18 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
         this.simpleLoggerAdvisor = simpleLoggerAdvisor;
 
-        this.webSearchRetriever = WebSearchRetriever.builder()
-                .searchEngine(searchEngine)
-                .dataCleaner(dataCleaner)
-                .maxResults(2)
+        // 扩展出的多个查询并行搜索，截止时间内未返回的搜索被取消，已返回的部分结果照常合并
+        this.webSearchRetriever = ParallelWebSearchRetriever.builder()
+                .retriever(WebSearchRetriever.builder()
+                        .searchEngine(searchEngine)
+                        .dataCleaner(dataCleaner)
+                        .maxResults(2)
+                        .build())
+                .queryExpander(queryExpander)
+                // 按各扩展查询中的排名与 rerankScore 融合打分
+                .documentJoiner(ReciprocalRankFusionDocumentJoiner.builder().build())
+                .deadline(searchDeadline)
+                .maxConcurrency(searchConcurrency)
                 .build();
     }
 
@@ -128,8 +140,8 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
                                 queryArgumentPromptTemplate,
                                 null,
                                 true)
-                ).queryExpander(queryExpander)
-                .documentJoiner(new ConcatenationDocumentJoiner())
+                // 查询扩展与合并已经在 ParallelWebSearchRetriever 中完成
+                ).documentJoiner(new ConcatenationDocumentJoiner())
                 .build();
     }
 
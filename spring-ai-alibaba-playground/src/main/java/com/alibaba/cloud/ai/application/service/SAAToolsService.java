@@ -16,7 +16,6 @@
 
 package com.alibaba.cloud.ai.application.service;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
 
@@ -107,14 +106,12 @@ public class SAAToolsService {
 			try {
 				toolExecutionResult = toolCallingManager.executeToolCalls(new Prompt(prompt, chatOptions), response);
 
-				tcr.setToolEndTime(LocalDateTime.now());
+				tcr.finishExecute(ToolCallResp.ToolState.SUCCESS);
 			}
 			catch (Exception e) {
 
-				tcr.setStatus(ToolCallResp.ToolState.FAILURE);
 				tcr.setErrorMessage(e.getMessage());
-				tcr.setToolEndTime(LocalDateTime.now());
-				tcr.setToolCostTime((long) (tcr.getToolEndTime().getNano() - tcr.getToolStartTime().getNano()));
+				tcr.finishExecute(ToolCallResp.ToolState.FAILURE);
 				logger.error("Error ToolCallResp: {}, msg: {}", tcr, e.getMessage());
 				// throw new RuntimeException("Tool execution failed, please check the logs for details.");
 			}
@@ -128,9 +125,7 @@ public class SAAToolsService {
 				llmCallResponse = finalResponse.getResult().getOutput().getText();
 			}
 
-			tcr.setStatus(ToolCallResp.ToolState.SUCCESS);
 			tcr.setToolResult(llmCallResponse);
-			tcr.setToolCostTime((long) (tcr.getToolEndTime().getNano() - tcr.getToolStartTime().getNano()));
 			logger.debug("End ToolCallResp: {}", tcr);
 		}
 		else {
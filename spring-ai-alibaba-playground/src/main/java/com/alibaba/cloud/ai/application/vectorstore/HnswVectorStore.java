@@ -0,0 +1,670 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.util.Assert;
+
+/**
+ * 基于 HNSW（Hierarchical Navigable Small World）图的本地近似最近邻向量库。
+ * <p>
+ * - M：每个节点在上层保留的邻居数，第 0 层为 2 * M；
+ * - efConstruction：建图时的候选集大小，越大图质量越好、建图越慢；
+ * - efSearch：检索时的候选集大小，越大召回越高、延迟越高。
+ * <p>
+ * 删除只打墓碑标记，节点仍参与图导航但不会出现在结果中；写快照时如果存在墓碑会先用存活节点重建图。
+ * 持久化由两部分组成：{@link VectorStoreSnapshot} 格式的向量和文档，以及 ".graph" 后缀的邻接表，两者写入同一个随机代号，
+ * 代号不一致（例如进程在两次替换之间退出）时不加载快照。快照在第一次读写时才加载，创建实例本身不读文件。
+ */
+
+public class HnswVectorStore extends AbstractObservationVectorStore implements SnapshotVectorStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(HnswVectorStore.class);
+
+	private static final int GRAPH_MAGIC = 0x484E5357;
+
+	private static final int GRAPH_VERSION = 2;
+
+	private final int m;
+
+	private final int maxM0;
+
+	private final int efConstruction;
+
+	private final int efSearch;
+
+	private final double levelMultiplier;
+
+	private final Path snapshotPath;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final SplittableRandom random = new SplittableRandom(42);
+
+	private final List<Node> nodes = new ArrayList<>();
+
+	private final Map<String, Integer> idIndex = new HashMap<>();
+
+	private int entryPoint = -1;
+
+	private int maxLevel = -1;
+
+	private int deletedCount;
+
+	private int dimensions;
+
+	private boolean restored;
+
+	private volatile boolean loaded;
+
+	protected HnswVectorStore(Builder builder) {
+
+		super(builder);
+		Assert.isTrue(builder.m >= 2, "M must be at least 2");
+		this.m = builder.m;
+		this.maxM0 = builder.m * 2;
+		this.efConstruction = Math.max(builder.efConstruction, builder.m);
+		this.efSearch = builder.efSearch;
+		this.levelMultiplier = 1d / Math.log(builder.m);
+		this.snapshotPath = builder.snapshotPath;
+	}
+
+	public static Builder builder(EmbeddingModel embeddingModel) {
+
+		return new Builder(embeddingModel);
+	}
+
+	@Override
+	public boolean hasSnapshot() {
+
+		ensureLoaded();
+		return restored;
+	}
+
+	public int size() {
+
+		ensureLoaded();
+		lock.readLock().lock();
+		try {
+			return nodes.size() - deletedCount;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void doAdd(List<Document> documents) {
+
+		Assert.notNull(documents, "Documents list cannot be null");
+		if (documents.isEmpty()) {
+			return;
+		}
+
+		List<float[]> embeddings = this.embeddingModel.embed(documents, EmbeddingOptions.builder().build(),
+				this.batchingStrategy);
+
+		ensureLoaded();
+		lock.writeLock().lock();
+		try {
+			for (int i = 0; i < documents.size(); i++) {
+				insert(documents.get(i), VectorStoreSupport.normalize(embeddings.get(i)));
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void doDelete(List<String> idList) {
+
+		ensureLoaded();
+		lock.writeLock().lock();
+		try {
+			idList.forEach(this::markDeleted);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<Document> doSimilaritySearch(SearchRequest request) {
+
+		float[] query = VectorStoreSupport.normalize(this.embeddingModel.embed(request.getQuery()));
+		Predicate<Map<String, Object>> filter = VectorStoreSupport.filterPredicate(request);
+		int topK = request.getTopK();
+		// 有过滤条件时扩大候选集，弥补被过滤掉的结果
+		int ef = Math.max(efSearch, Objects.isNull(filter) ? topK : topK * 10);
+
+		ensureLoaded();
+		lock.readLock().lock();
+		try {
+			if (entryPoint < 0 || query.length != dimensions) {
+				return List.of();
+			}
+
+			List<Document> results = new ArrayList<>(topK);
+			for (Candidate candidate : search(query, ef)) {
+				Node node = nodes.get(candidate.node());
+				if (node.deleted || candidate.score() < request.getSimilarityThreshold()) {
+					continue;
+				}
+				if (Objects.nonNull(filter) && !filter.test(node.document.getMetadata())) {
+					continue;
+				}
+				results.add(toDocument(node.document, candidate.score()));
+				if (results.size() >= topK) {
+					break;
+				}
+			}
+			return results;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 返回按相似度降序排列的 ef 个候选节点（包含墓碑节点，由调用方过滤）。
+	 */
+	List<Candidate> search(float[] query, int ef) {
+
+		int current = entryPoint;
+		float currentScore = VectorStoreSupport.dot(query, nodes.get(current).vector);
+		for (int level = maxLevel; level > 0; level--) {
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				Node node = nodes.get(current);
+				for (int i = 0; i < node.neighborCounts[level]; i++) {
+					int neighbor = node.neighbors[level][i];
+					float score = VectorStoreSupport.dot(query, nodes.get(neighbor).vector);
+					if (score > currentScore) {
+						currentScore = score;
+						current = neighbor;
+						changed = true;
+					}
+				}
+			}
+		}
+
+		List<Candidate> candidates = searchLayer(query, new Candidate(current, currentScore), ef, 0);
+		candidates.sort((a, b) -> Float.compare(b.score(), a.score()));
+		return candidates;
+	}
+
+	private void insert(Document document, float[] vector) {
+
+		if (dimensions == 0) {
+			dimensions = vector.length;
+		}
+		Assert.isTrue(vector.length == dimensions,
+				() -> "Embedding dimensions " + vector.length + " do not match store dimensions " + dimensions);
+
+		markDeleted(document.getId());
+
+		int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+		int nodeId = nodes.size();
+		Node node = new Node(document, vector, level, m, maxM0);
+		nodes.add(node);
+		idIndex.put(document.getId(), nodeId);
+
+		if (entryPoint < 0) {
+			entryPoint = nodeId;
+			maxLevel = level;
+			return;
+		}
+
+		int current = entryPoint;
+		float currentScore = VectorStoreSupport.dot(vector, nodes.get(current).vector);
+		for (int l = maxLevel; l > level; l--) {
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				Node currentNode = nodes.get(current);
+				for (int i = 0; i < currentNode.neighborCounts[l]; i++) {
+					int neighbor = currentNode.neighbors[l][i];
+					float score = VectorStoreSupport.dot(vector, nodes.get(neighbor).vector);
+					if (score > currentScore) {
+						currentScore = score;
+						current = neighbor;
+						changed = true;
+					}
+				}
+			}
+		}
+
+		Candidate entry = new Candidate(current, currentScore);
+		for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+			List<Candidate> candidates = searchLayer(vector, entry, efConstruction, l);
+			int maxNeighbors = l == 0 ? maxM0 : m;
+			List<Candidate> selected = selectNeighbors(candidates, m);
+			for (Candidate neighbor : selected) {
+				node.addNeighbor(l, neighbor.node());
+				connect(neighbor.node(), nodeId, l, maxNeighbors);
+			}
+			entry = candidates.stream().max((a, b) -> Float.compare(a.score(), b.score())).orElse(entry);
+		}
+
+		if (level > maxLevel) {
+			maxLevel = level;
+			entryPoint = nodeId;
+		}
+	}
+
+	/**
+	 * 给已有节点增加反向连接，超出容量时用启发式规则重新挑选邻居。
+	 */
+	private void connect(int from, int to, int level, int maxNeighbors) {
+
+		Node node = nodes.get(from);
+		if (node.neighborCounts[level] < maxNeighbors) {
+			node.addNeighbor(level, to);
+			return;
+		}
+
+		List<Candidate> candidates = new ArrayList<>(maxNeighbors + 1);
+		for (int i = 0; i < node.neighborCounts[level]; i++) {
+			int neighbor = node.neighbors[level][i];
+			candidates.add(new Candidate(neighbor, VectorStoreSupport.dot(node.vector, nodes.get(neighbor).vector)));
+		}
+		candidates.add(new Candidate(to, VectorStoreSupport.dot(node.vector, nodes.get(to).vector)));
+
+		List<Candidate> selected = selectNeighbors(candidates, maxNeighbors);
+		node.neighborCounts[level] = 0;
+		for (Candidate candidate : selected) {
+			node.addNeighbor(level, candidate.node());
+		}
+	}
+
+	/**
+	 * HNSW 论文中的启发式邻居选择：候选点离查询点比离已选邻居更近时才保留，保证图在不同方向上都有连接；
+	 * 不足时按相似度补齐。
+	 */
+	private List<Candidate> selectNeighbors(List<Candidate> candidates, int maxNeighbors) {
+
+		List<Candidate> sorted = new ArrayList<>(candidates);
+		sorted.sort((a, b) -> Float.compare(b.score(), a.score()));
+
+		List<Candidate> selected = new ArrayList<>(maxNeighbors);
+		List<Candidate> discarded = new ArrayList<>();
+		for (Candidate candidate : sorted) {
+			if (selected.size() >= maxNeighbors) {
+				break;
+			}
+			float[] vector = nodes.get(candidate.node()).vector;
+			boolean keep = true;
+			for (Candidate chosen : selected) {
+				if (VectorStoreSupport.dot(vector, nodes.get(chosen.node()).vector) > candidate.score()) {
+					keep = false;
+					break;
+				}
+			}
+			if (keep) {
+				selected.add(candidate);
+			}
+			else {
+				discarded.add(candidate);
+			}
+		}
+		for (int i = 0; i < discarded.size() && selected.size() < maxNeighbors; i++) {
+			selected.add(discarded.get(i));
+		}
+		return selected;
+	}
+
+	private List<Candidate> searchLayer(float[] query, Candidate entry, int ef, int level) {
+
+		BitSet visited = new BitSet(nodes.size());
+		visited.set(entry.node());
+
+		// candidates 按相似度降序弹出，results 为最小堆，堆顶是当前最差结果
+		PriorityQueue<Candidate> candidates = new PriorityQueue<>((a, b) -> Float.compare(b.score(), a.score()));
+		PriorityQueue<Candidate> results = new PriorityQueue<>((a, b) -> Float.compare(a.score(), b.score()));
+		candidates.add(entry);
+		results.add(entry);
+
+		while (!candidates.isEmpty()) {
+			Candidate current = candidates.poll();
+			if (results.size() >= ef && current.score() < results.peek().score()) {
+				break;
+			}
+
+			Node node = nodes.get(current.node());
+			int[] neighbors = node.neighbors[level];
+			for (int i = 0; i < node.neighborCounts[level]; i++) {
+				int neighbor = neighbors[i];
+				if (visited.get(neighbor)) {
+					continue;
+				}
+				visited.set(neighbor);
+
+				float score = VectorStoreSupport.dot(query, nodes.get(neighbor).vector);
+				if (results.size() < ef || score > results.peek().score()) {
+					Candidate candidate = new Candidate(neighbor, score);
+					candidates.add(candidate);
+					results.add(candidate);
+					if (results.size() > ef) {
+						results.poll();
+					}
+				}
+			}
+		}
+
+		return new ArrayList<>(results);
+	}
+
+	private void markDeleted(String id) {
+
+		Integer nodeId = idIndex.remove(id);
+		if (Objects.nonNull(nodeId) && !nodes.get(nodeId).deleted) {
+			nodes.get(nodeId).deleted = true;
+			deletedCount++;
+		}
+	}
+
+	private static Document toDocument(Document document, float score) {
+
+		Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+		metadata.put(DocumentMetadata.DISTANCE.value(), 1 - score);
+
+		return Document.builder()
+				.id(document.getId())
+				.text(document.getText())
+				.metadata(metadata)
+				.score((double) score)
+				.build();
+	}
+
+	/**
+	 * 写入快照：存在墓碑节点时先用存活节点重建图（只重新建图，不会重新 embedding）。
+	 */
+	@Override
+	public void snapshot() throws IOException {
+
+		Assert.notNull(snapshotPath, "snapshotPath must be configured to take a snapshot");
+
+		ensureLoaded();
+		lock.writeLock().lock();
+		try {
+			if (deletedCount > 0) {
+				rebuild();
+			}
+
+			Files.createDirectories(snapshotPath.toAbsolutePath().getParent());
+			Path vectorsTmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+			Path graphPath = graphPath();
+			Path graphTmp = graphPath.resolveSibling(graphPath.getFileName() + ".tmp");
+			long generation = ThreadLocalRandom.current().nextLong();
+
+			try (VectorStoreSnapshot.Writer writer = new VectorStoreSnapshot.Writer(vectorsTmp, dimensions, nodes.size(),
+					generation)) {
+				for (Node node : nodes) {
+					writer.append(node.document.getId(), node.document.getText(), node.document.getMetadata(), node.vector);
+				}
+			}
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(graphTmp)))) {
+				out.writeInt(GRAPH_MAGIC);
+				out.writeInt(GRAPH_VERSION);
+				out.writeLong(generation);
+				out.writeInt(nodes.size());
+				out.writeInt(entryPoint);
+				out.writeInt(maxLevel);
+				for (Node node : nodes) {
+					out.writeInt(node.level);
+					for (int l = 0; l <= node.level; l++) {
+						out.writeInt(node.neighborCounts[l]);
+						for (int i = 0; i < node.neighborCounts[l]; i++) {
+							out.writeInt(node.neighbors[l][i]);
+						}
+					}
+				}
+			}
+
+			// 两个文件分别原子替换，中途退出留下的新旧混合由代号检查发现
+			Files.move(graphTmp, graphPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Files.move(vectorsTmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			logger.debug("Wrote HNSW snapshot {} with {} nodes.", snapshotPath, nodes.size());
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void rebuild() {
+
+		List<Node> live = nodes.stream().filter(node -> !node.deleted).toList();
+		nodes.clear();
+		idIndex.clear();
+		entryPoint = -1;
+		maxLevel = -1;
+		deletedCount = 0;
+		for (Node node : live) {
+			insert(node.document, node.vector);
+		}
+	}
+
+	private void ensureLoaded() {
+
+		if (loaded) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			if (!loaded) {
+				open();
+				loaded = true;
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void open() {
+
+		if (Objects.isNull(snapshotPath) || !Files.isRegularFile(snapshotPath) || !Files.isRegularFile(graphPath())) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		try (VectorStoreSnapshot snapshot = VectorStoreSnapshot.open(snapshotPath);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(graphPath())))) {
+
+			if (in.readInt() != GRAPH_MAGIC || in.readInt() != GRAPH_VERSION || in.readLong() != snapshot.generation()
+					|| in.readInt() != snapshot.size()) {
+				logger.warn("HNSW graph {} does not match snapshot {}, start with an empty store.", graphPath(), snapshotPath);
+				return;
+			}
+			int entry = in.readInt();
+			int levels = in.readInt();
+
+			dimensions = snapshot.dimensions();
+			List<Node> loaded = new ArrayList<>(snapshot.size());
+			for (int row = 0; row < snapshot.size(); row++) {
+				VectorStoreSnapshot.Record record = snapshot.read(row);
+				float[] vector = new float[dimensions];
+				snapshot.copyVector(row, vector);
+
+				Node node = new Node(
+						Document.builder().id(record.id()).text(record.text()).metadata(record.metadata()).build(),
+						vector, in.readInt(), m, maxM0);
+				for (int l = 0; l <= node.level; l++) {
+					int count = in.readInt();
+					for (int i = 0; i < count; i++) {
+						node.addNeighbor(l, in.readInt());
+					}
+				}
+				loaded.add(node);
+			}
+
+			nodes.addAll(loaded);
+			for (int i = 0; i < nodes.size(); i++) {
+				idIndex.put(nodes.get(i).document.getId(), i);
+			}
+			entryPoint = entry;
+			maxLevel = levels;
+			restored = true;
+			logger.info("Loaded HNSW snapshot {} with {} nodes in {} ms.", snapshotPath, nodes.size(),
+					(System.nanoTime() - start) / 1_000_000);
+		}
+		catch (IOException | RuntimeException e) {
+			nodes.clear();
+			idIndex.clear();
+			logger.warn("Failed to load HNSW snapshot {}, start with an empty store: {}", snapshotPath, e.getMessage());
+		}
+	}
+
+	private Path graphPath() {
+
+		return snapshotPath.resolveSibling(snapshotPath.getFileName() + ".graph");
+	}
+
+	@Override
+	public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+
+		return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+				.dimensions(this.dimensions)
+				.collectionName("hnsw")
+				.similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+	}
+
+	record Candidate(int node, float score) {
+	}
+
+	private static final class Node {
+
+		private final Document document;
+
+		private final float[] vector;
+
+		private final int level;
+
+		private final int[][] neighbors;
+
+		private final int[] neighborCounts;
+
+		private boolean deleted;
+
+		private Node(Document document, float[] vector, int level, int m, int maxM0) {
+			this.document = document;
+			this.vector = vector;
+			this.level = level;
+			this.neighbors = new int[level + 1][];
+			this.neighborCounts = new int[level + 1];
+			for (int l = 0; l <= level; l++) {
+				neighbors[l] = new int[l == 0 ? maxM0 : m];
+			}
+		}
+
+		private void addNeighbor(int level, int neighbor) {
+
+			if (neighborCounts[level] == neighbors[level].length) {
+				neighbors[level] = Arrays.copyOf(neighbors[level], neighbors[level].length * 2);
+			}
+			neighbors[level][neighborCounts[level]++] = neighbor;
+		}
+
+	}
+
+	public static final class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+		private int m = 16;
+
+		private int efConstruction = 200;
+
+		private int efSearch = 64;
+
+		private Path snapshotPath;
+
+		private Builder(EmbeddingModel embeddingModel) {
+			super(embeddingModel);
+		}
+
+		public Builder m(int m) {
+
+			this.m = m;
+			return this;
+		}
+
+		public Builder efConstruction(int efConstruction) {
+
+			this.efConstruction = efConstruction;
+			return this;
+		}
+
+		public Builder efSearch(int efSearch) {
+
+			this.efSearch = efSearch;
+			return this;
+		}
+
+		/**
+		 * 向量快照路径，邻接表保存在同目录下的 "{snapshotPath}.graph" 文件中。
+		 */
+		public Builder snapshotPath(Path snapshotPath) {
+
+			this.snapshotPath = snapshotPath;
+			return this;
+		}
+
+		@Override
+		public HnswVectorStore build() {
+
+			return new HnswVectorStore(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.util.Assert;
+
+/**
+ * 基于 mmap 二进制快照的暴力检索向量库，用于替换每次重启都为空的 SimpleVectorStore。
+ * <p>
+ * 启动时只映射快照文件（见 {@link VectorStoreSnapshot}），不做 JSON 解析，也不为每个向量分配 float[]；
+ * 运行期新增的文档放在内存增量区，删除的快照行用 BitSet 标记，调用 {@link #snapshot()} 时合并写回新快照。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+public class MappedVectorStore extends AbstractObservationVectorStore implements SnapshotVectorStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(MappedVectorStore.class);
+
+	private final Path snapshotPath;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<String, PendingEntry> pending = new LinkedHashMap<>();
+
+	private VectorStoreSnapshot base;
+
+	private BitSet deletedRows = new BitSet();
+
+	/**
+	 * 快照中 id -> 行号，只有删除或覆盖写入时才按需构建
+	 */
+	private Map<String, Integer> baseRowIndex;
+
+	private int dimensions;
+
+	private boolean restored;
+
+	protected MappedVectorStore(Builder builder) {
+
+		super(builder);
+		this.snapshotPath = builder.snapshotPath;
+		open();
+	}
+
+	public static Builder builder(EmbeddingModel embeddingModel) {
+
+		return new Builder(embeddingModel);
+	}
+
+	private void open() {
+
+		if (Objects.isNull(snapshotPath) || !Files.isRegularFile(snapshotPath)) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			this.base = VectorStoreSnapshot.open(snapshotPath);
+			this.dimensions = base.dimensions();
+			this.restored = true;
+			logger.info("Mapped vector store snapshot {} with {} documents in {} ms.", snapshotPath, base.size(),
+					(System.nanoTime() - start) / 1_000_000);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to map vector store snapshot {}, start with an empty store: {}", snapshotPath, e.getMessage());
+		}
+	}
+
+	@Override
+	public boolean hasSnapshot() {
+
+		return restored;
+	}
+
+	public int size() {
+
+		lock.readLock().lock();
+		try {
+			int baseSize = Objects.isNull(base) ? 0 : base.size() - deletedRows.cardinality();
+			return baseSize + pending.size();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void doAdd(List<Document> documents) {
+
+		Assert.notNull(documents, "Documents list cannot be null");
+		if (documents.isEmpty()) {
+			return;
+		}
+
+		List<float[]> embeddings = this.embeddingModel.embed(documents, EmbeddingOptions.builder().build(),
+				this.batchingStrategy);
+
+		lock.writeLock().lock();
+		try {
+			for (int i = 0; i < documents.size(); i++) {
+				Document document = documents.get(i);
+				float[] vector = VectorStoreSupport.normalize(embeddings.get(i));
+				if (dimensions == 0) {
+					dimensions = vector.length;
+				}
+				Assert.isTrue(vector.length == dimensions,
+						() -> "Embedding dimensions " + vector.length + " do not match store dimensions " + dimensions);
+
+				markBaseRowDeleted(document.getId());
+				pending.put(document.getId(), new PendingEntry(document, vector));
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void doDelete(List<String> idList) {
+
+		lock.writeLock().lock();
+		try {
+			for (String id : idList) {
+				pending.remove(id);
+				markBaseRowDeleted(id);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void markBaseRowDeleted(String id) {
+
+		if (Objects.isNull(base)) {
+			return;
+		}
+		if (Objects.isNull(baseRowIndex)) {
+			baseRowIndex = new HashMap<>(base.size() * 2);
+			for (int row = 0; row < base.size(); row++) {
+				baseRowIndex.put(base.id(row), row);
+			}
+		}
+		Integer row = baseRowIndex.get(id);
+		if (Objects.nonNull(row)) {
+			deletedRows.set(row);
+		}
+	}
+
+	@Override
+	public List<Document> doSimilaritySearch(SearchRequest request) {
+
+		float[] query = VectorStoreSupport.normalize(this.embeddingModel.embed(request.getQuery()));
+		Predicate<Map<String, Object>> filter = VectorStoreSupport.filterPredicate(request);
+		float threshold = (float) request.getSimilarityThreshold();
+		TopK topK = new TopK(request.getTopK());
+
+		lock.readLock().lock();
+		try {
+			if (Objects.nonNull(base) && base.dimensions() == query.length) {
+				for (int row = 0; row < base.size(); row++) {
+					if (deletedRows.get(row)) {
+						continue;
+					}
+					float score = base.dot(row, query);
+					// 先比较分数，只有可能进入 topK 的行才解码 metadata 做过滤
+					if (score < threshold || score <= topK.floor()) {
+						continue;
+					}
+					if (Objects.nonNull(filter) && !filter.test(base.read(row).metadata())) {
+						continue;
+					}
+					topK.offer(score, row);
+				}
+			}
+
+			List<PendingEntry> pendingEntries = pending.isEmpty() ? List.of() : new ArrayList<>(pending.values());
+			for (int i = 0; i < pendingEntries.size(); i++) {
+				PendingEntry entry = pendingEntries.get(i);
+				if (entry.vector().length != query.length) {
+					continue;
+				}
+				float score = VectorStoreSupport.dot(entry.vector(), query);
+				if (score < threshold || score <= topK.floor()) {
+					continue;
+				}
+				if (Objects.nonNull(filter) && !filter.test(entry.document().getMetadata())) {
+					continue;
+				}
+				// 增量区用负数 ref 区分
+				topK.offer(score, -(i + 1));
+			}
+
+			float[] scores = new float[topK.size()];
+			int[] refs = topK.drainDescending(scores);
+			List<Document> results = new ArrayList<>(refs.length);
+			for (int i = 0; i < refs.length; i++) {
+				int ref = refs[i];
+				if (ref >= 0) {
+					VectorStoreSnapshot.Record record = base.read(ref);
+					results.add(toDocument(record.id(), record.text(), record.metadata(), scores[i]));
+				}
+				else {
+					Document document = pendingEntries.get(-ref - 1).document();
+					results.add(toDocument(document.getId(), document.getText(), document.getMetadata(), scores[i]));
+				}
+			}
+			return results;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static Document toDocument(String id, String text, Map<String, Object> metadata, float score) {
+
+		Map<String, Object> resultMetadata = new HashMap<>(metadata);
+		resultMetadata.put(DocumentMetadata.DISTANCE.value(), 1 - score);
+
+		return Document.builder().id(id).text(text).metadata(resultMetadata).score((double) score).build();
+	}
+
+	/**
+	 * 把快照中未删除的行和内存增量区合并写入新快照，写完后原子替换并重新映射。
+	 */
+	@Override
+	public void snapshot() throws IOException {
+
+		Assert.notNull(snapshotPath, "snapshotPath must be configured to take a snapshot");
+
+		lock.writeLock().lock();
+		try {
+			int baseLive = Objects.isNull(base) ? 0 : base.size() - deletedRows.cardinality();
+			int total = baseLive + pending.size();
+
+			Files.createDirectories(snapshotPath.toAbsolutePath().getParent());
+			Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+			try (VectorStoreSnapshot.Writer writer = new VectorStoreSnapshot.Writer(tmp, dimensions, total)) {
+				if (Objects.nonNull(base)) {
+					for (int row = 0; row < base.size(); row++) {
+						if (!deletedRows.get(row)) {
+							writer.copy(base, row);
+						}
+					}
+				}
+				for (PendingEntry entry : pending.values()) {
+					Document document = entry.document();
+					writer.append(document.getId(), document.getText(), document.getMetadata(), entry.vector());
+				}
+			}
+
+			Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			VectorStoreSnapshot previous = base;
+			this.base = VectorStoreSnapshot.open(snapshotPath);
+			this.pending.clear();
+			this.deletedRows = new BitSet();
+			this.baseRowIndex = null;
+			if (Objects.nonNull(previous)) {
+				previous.close();
+			}
+			logger.debug("Wrote vector store snapshot {} with {} documents.", snapshotPath, total);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+
+		return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+				.dimensions(this.dimensions)
+				.collectionName("mapped-snapshot")
+				.similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+	}
+
+	private record PendingEntry(Document document, float[] vector) {
+	}
+
+	public static final class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+		private Path snapshotPath;
+
+		private Builder(EmbeddingModel embeddingModel) {
+			super(embeddingModel);
+		}
+
+		/**
+		 * 快照文件路径，文件存在时启动即映射。
+		 */
+		public Builder snapshotPath(Path snapshotPath) {
+
+			this.snapshotPath = snapshotPath;
+			return this;
+		}
+
+		@Override
+		public MappedVectorStore build() {
+
+			return new MappedVectorStore(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.io.IOException;
+
+import org.springframework.ai.vectorstore.VectorStore;
+
+/**
+ * 可以把自身持久化到本地快照的向量库，重启后无需重新 embedding。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+public interface SnapshotVectorStore extends VectorStore {
+
+	/**
+	 * 启动时是否已从快照恢复了数据。
+	 */
+	boolean hasSnapshot();
+
+	/**
+	 * 把当前内容写入快照。
+	 */
+	void snapshot() throws IOException;
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+/**
+ * 固定容量的最小堆，用原始类型数组保存 (score, ref)，检索时不为候选项分配对象。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+final class TopK {
+
+	private final float[] scores;
+
+	private final int[] refs;
+
+	private int size;
+
+	TopK(int k) {
+		this.scores = new float[Math.max(1, k)];
+		this.refs = new int[Math.max(1, k)];
+	}
+
+	/**
+	 * 当前堆能接纳的最低分数，堆未满时为负无穷。
+	 */
+	float floor() {
+
+		return size < scores.length ? Float.NEGATIVE_INFINITY : scores[0];
+	}
+
+	boolean offer(float score, int ref) {
+
+		if (size < scores.length) {
+			scores[size] = score;
+			refs[size] = ref;
+			siftUp(size++);
+			return true;
+		}
+		if (score <= scores[0]) {
+			return false;
+		}
+		scores[0] = score;
+		refs[0] = ref;
+		siftDown(0);
+		return true;
+	}
+
+	int size() {
+
+		return size;
+	}
+
+	/**
+	 * 按分数降序返回 ref，调用后堆被清空。
+	 */
+	int[] drainDescending(float[] scoresOut) {
+
+		int n = size;
+		int[] result = new int[n];
+		for (int i = n - 1; i >= 0; i--) {
+			result[i] = refs[0];
+			scoresOut[i] = scores[0];
+			size--;
+			scores[0] = scores[size];
+			refs[0] = refs[size];
+			siftDown(0);
+		}
+		return result;
+	}
+
+	private void siftUp(int i) {
+
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (scores[parent] <= scores[i]) {
+				return;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+
+		while (true) {
+			int left = 2 * i + 1;
+			if (left >= size) {
+				return;
+			}
+			int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+			if (scores[i] <= scores[smallest]) {
+				return;
+			}
+			swap(i, smallest);
+			i = smallest;
+		}
+	}
+
+	private void swap(int a, int b) {
+
+		float score = scores[a];
+		scores[a] = scores[b];
+		scores[b] = score;
+		int ref = refs[a];
+		refs[a] = refs[b];
+		refs[b] = ref;
+	}
+
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 向量库二进制快照格式（全部为小端序）：
+ * <pre>
+ * +----------------------------------------------------------------+
+ * | header (64 bytes)                                              |
+ * |   magic int | version int | dimensions int | count int         |
+ * |   vectorsOffset long | indexOffset long | recordsOffset long    |
+ * |   generation long，与快照一起写出的其他文件（如 HNSW 邻接表）用它配对 |
+ * +----------------------------------------------------------------+
+ * | vectors: count * dimensions * float32，已归一化，余弦相似度即点积    |
+ * +----------------------------------------------------------------+
+ * | index: (count + 1) * int64，第 i 条文档记录在 records 区的偏移      |
+ * +----------------------------------------------------------------+
+ * | records: id | text | metadata，字符串为 int 长度 + UTF-8 字节       |
+ * +----------------------------------------------------------------+
+ * </pre>
+ * 打开快照时只做 mmap，不解析任何文档；检索直接在映射的向量区上计算点积，
+ * 只有命中 topK 的文档才会解码 id、text 和 metadata。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+final class VectorStoreSnapshot implements Closeable {
+
+	static final int MAGIC = 0x53414156;
+
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 64;
+
+	private static final byte TYPE_NULL = 0;
+
+	private static final byte TYPE_STRING = 1;
+
+	private static final byte TYPE_INT = 2;
+
+	private static final byte TYPE_LONG = 3;
+
+	private static final byte TYPE_DOUBLE = 4;
+
+	private static final byte TYPE_BOOLEAN = 5;
+
+	private final FileChannel channel;
+
+	private final int dimensions;
+
+	private final int count;
+
+	private final long generation;
+
+	private final int rowsPerSegment;
+
+	private final FloatBuffer[] vectorSegments;
+
+	private final ByteBuffer index;
+
+	private final ByteBuffer records;
+
+	private VectorStoreSnapshot(FileChannel channel) throws IOException {
+
+		this.channel = channel;
+
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+			throw new IOException("Not a vector store snapshot or unsupported version");
+		}
+		this.dimensions = header.getInt(8);
+		this.count = header.getInt(12);
+		long vectorsOffset = header.getLong(16);
+		long indexOffset = header.getLong(24);
+		long recordsOffset = header.getLong(32);
+		this.generation = header.getLong(40);
+
+		// 单个 MappedByteBuffer 最大 2GB，向量区按整行切分成多个段
+		long rowBytes = (long) Math.max(1, dimensions) * Float.BYTES;
+		this.rowsPerSegment = (int) Math.max(1, Integer.MAX_VALUE / rowBytes);
+		int segments = count == 0 ? 0 : (count + rowsPerSegment - 1) / rowsPerSegment;
+		this.vectorSegments = new FloatBuffer[segments];
+		for (int s = 0; s < segments; s++) {
+			int rows = Math.min(rowsPerSegment, count - s * rowsPerSegment);
+			vectorSegments[s] = map(vectorsOffset + (long) s * rowsPerSegment * rowBytes, rows * rowBytes).asFloatBuffer();
+		}
+
+		this.index = map(indexOffset, (long) (count + 1) * Long.BYTES);
+		long recordsSize = index.getLong(count * Long.BYTES);
+		if (recordsSize > Integer.MAX_VALUE) {
+			throw new IOException("Document section of snapshot exceeds 2GB");
+		}
+		this.records = map(recordsOffset, recordsSize);
+	}
+
+	static VectorStoreSnapshot open(Path path) throws IOException {
+
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new VectorStoreSnapshot(channel);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private MappedByteBuffer map(long offset, long size) throws IOException {
+
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	int dimensions() {
+
+		return dimensions;
+	}
+
+	int size() {
+
+		return count;
+	}
+
+	/**
+	 * 写入时指定的代号，未指定时为 0。
+	 */
+	long generation() {
+
+		return generation;
+	}
+
+	/**
+	 * 第 row 行向量与（已归一化的）查询向量的点积，不分配任何对象。
+	 */
+	float dot(int row, float[] query) {
+
+		FloatBuffer segment = vectorSegments[row / rowsPerSegment];
+		int base = (row % rowsPerSegment) * dimensions;
+		float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+		int i = 0;
+		int bound = dimensions & ~3;
+		for (; i < bound; i += 4) {
+			s0 += segment.get(base + i) * query[i];
+			s1 += segment.get(base + i + 1) * query[i + 1];
+			s2 += segment.get(base + i + 2) * query[i + 2];
+			s3 += segment.get(base + i + 3) * query[i + 3];
+		}
+		for (; i < dimensions; i++) {
+			s0 += segment.get(base + i) * query[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	void copyVector(int row, float[] target) {
+
+		FloatBuffer segment = vectorSegments[row / rowsPerSegment];
+		segment.get((row % rowsPerSegment) * dimensions, target, 0, dimensions);
+	}
+
+	String id(int row) {
+
+		ByteBuffer record = record(row);
+		return readString(record);
+	}
+
+	Record read(int row) {
+
+		ByteBuffer record = record(row);
+		String id = readString(record);
+		String text = readString(record);
+		int size = record.getInt();
+		Map<String, Object> metadata = new LinkedHashMap<>(Math.max(4, size * 2));
+		for (int i = 0; i < size; i++) {
+			metadata.put(readString(record), readValue(record));
+		}
+		return new Record(id, text, metadata);
+	}
+
+	/**
+	 * 原始记录字节，重写快照时直接拷贝，无需解码。
+	 */
+	ByteBuffer rawRecord(int row) {
+
+		return record(row);
+	}
+
+	private ByteBuffer record(int row) {
+
+		int start = (int) index.getLong(row * Long.BYTES);
+		int end = (int) index.getLong((row + 1) * Long.BYTES);
+		return records.slice(start, end - start).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		channel.close();
+	}
+
+	private static String readString(ByteBuffer buffer) {
+
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static Object readValue(ByteBuffer buffer) {
+
+		byte type = buffer.get();
+		return switch (type) {
+			case TYPE_NULL -> null;
+			case TYPE_STRING -> readString(buffer);
+			case TYPE_INT -> buffer.getInt();
+			case TYPE_LONG -> buffer.getLong();
+			case TYPE_DOUBLE -> buffer.getDouble();
+			case TYPE_BOOLEAN -> buffer.get() != 0;
+			default -> throw new IllegalStateException("Unknown metadata value type: " + type);
+		};
+	}
+
+	record Record(String id, String text, Map<String, Object> metadata) {
+	}
+
+	/**
+	 * 顺序写入快照。文档总数需事先确定，向量区和记录区在同一个文件的不同位置同时追加。
+	 */
+	static final class Writer implements Closeable {
+
+		private final Path path;
+
+		private final FileChannel channel;
+
+		private final int dimensions;
+
+		private final int count;
+
+		private final long indexOffset;
+
+		private final long recordsOffset;
+
+		private final ByteBuffer vectorBuffer;
+
+		private final float[] copyBuffer;
+
+		private final ByteBuffer offsetBuffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+		private ByteBuffer recordBuffer = ByteBuffer.allocate(8 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+		private int written;
+
+		private long recordsSize;
+
+		Writer(Path path, int dimensions, int count) throws IOException {
+
+			this(path, dimensions, count, 0);
+		}
+
+		Writer(Path path, int dimensions, int count, long generation) throws IOException {
+
+			this.path = path;
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.WRITE);
+			this.dimensions = dimensions;
+			this.count = count;
+			this.vectorBuffer = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			this.copyBuffer = new float[dimensions];
+			this.indexOffset = HEADER_SIZE + (long) count * dimensions * Float.BYTES;
+			this.recordsOffset = indexOffset + (long) (count + 1) * Long.BYTES;
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(dimensions).putInt(count)
+					.putLong(HEADER_SIZE).putLong(indexOffset).putLong(recordsOffset).putLong(generation);
+			header.clear();
+			channel.write(header, 0);
+		}
+
+		/**
+		 * @param vector 已归一化的向量
+		 */
+		void append(String id, String text, Map<String, Object> metadata, float[] vector) throws IOException {
+
+			vectorBuffer.clear();
+			vectorBuffer.asFloatBuffer().put(vector, 0, dimensions);
+			writeVector();
+
+			recordBuffer.clear();
+			putString(id);
+			putString(text);
+			Map<String, Object> safeMetadata = Objects.requireNonNullElse(metadata, Map.of());
+			ensureCapacity(Integer.BYTES);
+			recordBuffer.putInt(safeMetadata.size());
+			for (Map.Entry<String, Object> entry : safeMetadata.entrySet()) {
+				putString(entry.getKey());
+				putValue(entry.getValue());
+			}
+			recordBuffer.flip();
+			writeRecord(recordBuffer);
+		}
+
+		/**
+		 * 从已有快照中原样拷贝一行。
+		 */
+		void copy(VectorStoreSnapshot source, int row) throws IOException {
+
+			vectorBuffer.clear();
+			source.copyVector(row, copyBuffer);
+			vectorBuffer.asFloatBuffer().put(copyBuffer);
+			writeVector();
+			writeRecord(source.rawRecord(row));
+		}
+
+		private void writeVector() throws IOException {
+
+			if (written >= count) {
+				throw new IllegalStateException("Snapshot writer expects " + count + " documents");
+			}
+			vectorBuffer.position(0).limit(dimensions * Float.BYTES);
+			long position = HEADER_SIZE + (long) written * dimensions * Float.BYTES;
+			while (vectorBuffer.hasRemaining()) {
+				position += channel.write(vectorBuffer, position);
+			}
+		}
+
+		private void writeRecord(ByteBuffer record) throws IOException {
+
+			writeOffset(written, recordsSize);
+			long position = recordsOffset + recordsSize;
+			int size = record.remaining();
+			while (record.hasRemaining()) {
+				position += channel.write(record, position);
+			}
+			recordsSize += size;
+			written++;
+		}
+
+		private void writeOffset(int row, long offset) throws IOException {
+
+			offsetBuffer.clear();
+			offsetBuffer.putLong(offset).flip();
+			channel.write(offsetBuffer, indexOffset + (long) row * Long.BYTES);
+		}
+
+		private void putString(String value) {
+
+			if (value == null) {
+				ensureCapacity(Integer.BYTES);
+				recordBuffer.putInt(-1);
+				return;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			ensureCapacity(Integer.BYTES + bytes.length);
+			recordBuffer.putInt(bytes.length).put(bytes);
+		}
+
+		private void putValue(Object value) {
+
+			ensureCapacity(1 + Long.BYTES);
+			if (value == null) {
+				recordBuffer.put(TYPE_NULL);
+			}
+			else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				recordBuffer.put(TYPE_INT).putInt(((Number) value).intValue());
+			}
+			else if (value instanceof Long) {
+				recordBuffer.put(TYPE_LONG).putLong((Long) value);
+			}
+			else if (value instanceof Number number) {
+				recordBuffer.put(TYPE_DOUBLE).putDouble(number.doubleValue());
+			}
+			else if (value instanceof Boolean bool) {
+				recordBuffer.put(TYPE_BOOLEAN).put((byte) (bool ? 1 : 0));
+			}
+			else {
+				// 其他类型统一按字符串存储
+				recordBuffer.put(TYPE_STRING);
+				putString(String.valueOf(value));
+			}
+		}
+
+		private void ensureCapacity(int extra) {
+
+			if (recordBuffer.remaining() < extra) {
+				int capacity = Math.max(recordBuffer.capacity() * 2, recordBuffer.position() + extra);
+				ByteBuffer larger = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+				recordBuffer.flip();
+				larger.put(recordBuffer);
+				recordBuffer = larger;
+			}
+		}
+
+		/**
+		 * 写入的文档数与预期不一致（通常是写入过程中出错）时删除不完整的文件。
+		 */
+		@Override
+		public void close() throws IOException {
+
+			boolean complete = false;
+			try {
+				if (written != count) {
+					throw new IllegalStateException("Snapshot writer expects " + count + " documents, but got " + written);
+				}
+				writeOffset(count, recordsSize);
+				channel.force(true);
+				complete = true;
+			}
+			finally {
+				channel.close();
+				if (!complete) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * 本地向量库的公共工具：向量归一化、点积（语义缓存也复用这两个方法）以及与 SimpleVectorStore 一致的 metadata 过滤表达式。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+public final class VectorStoreSupport {
+
+	private static final ExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
+
+	private static final FilterExpressionConverter FILTER_EXPRESSION_CONVERTER = new SimpleVectorStoreFilterExpressionConverter();
+
+	private VectorStoreSupport() {
+	}
+
+	/**
+	 * 原地归一化，之后余弦相似度即点积。
+	 */
+	public static float[] normalize(float[] vector) {
+
+		double norm = 0d;
+		for (float v : vector) {
+			norm += v * v;
+		}
+		if (norm == 0d) {
+			return vector;
+		}
+		float scale = (float) (1d / Math.sqrt(norm));
+		for (int i = 0; i < vector.length; i++) {
+			vector[i] *= scale;
+		}
+		return vector;
+	}
+
+	/**
+	 * 4 路展开的点积，多个独立累加器可以让 JIT 并行执行浮点加法。
+	 */
+	public static float dot(float[] a, float[] b) {
+
+		float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+		int i = 0;
+		int bound = a.length & ~3;
+		for (; i < bound; i += 4) {
+			s0 += a[i] * b[i];
+			s1 += a[i + 1] * b[i + 1];
+			s2 += a[i + 2] * b[i + 2];
+			s3 += a[i + 3] * b[i + 3];
+		}
+		for (; i < a.length; i++) {
+			s0 += a[i] * b[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	/**
+	 * @return 没有过滤条件时返回 null，调用方据此跳过 metadata 解码
+	 */
+	static Predicate<Map<String, Object>> filterPredicate(SearchRequest request) {
+
+		if (!request.hasFilterExpression()) {
+			return null;
+		}
+
+		Expression expression = EXPRESSION_PARSER.parseExpression(
+				FILTER_EXPRESSION_CONVERTER.convertExpression(request.getFilterExpression()));
+
+		return metadata -> {
+			StandardEvaluationContext context = new StandardEvaluationContext();
+			context.setVariable("metadata", metadata);
+			return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+		};
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link SemanticCacheAdvisor} 命中时跳过后续 advisor 和模型，未命中时记录模型的完整回答。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+class SemanticCacheAdvisorTest {
+
+	private final SemanticCacheAdvisor advisor = new SemanticCacheAdvisor(new SemanticResponseCache(
+			new SemanticResponseCacheTest.StubEmbeddingModel()
+					.put("what is spring ai", 1, 0, 0)
+					.put("tell me about spring ai", 1, 0.1f, 0),
+			0.95, Duration.ofHours(1), 10, new SimpleMeterRegistry()));
+
+	@Test
+	void callHitShortCircuitsChain() {
+
+		StubChain chain = new StubChain("Spring AI is an application framework.");
+
+		ChatClientResponse first = advisor.adviseCall(request(new UserMessage("what is spring ai")), chain);
+		ChatClientResponse second = advisor.adviseCall(request(new UserMessage("tell me about spring ai")), chain);
+
+		assertThat(chain.calls.get()).isEqualTo(1);
+		assertThat(text(first)).isEqualTo("Spring AI is an application framework.");
+		assertThat(text(second)).isEqualTo("Spring AI is an application framework.");
+		assertThat(second.chatResponse().getResult().getOutput().getMetadata()).containsEntry("semanticCache", "hit");
+	}
+
+	@Test
+	void differentSystemPromptDoesNotHit() {
+
+		StubChain chain = new StubChain("answer");
+
+		advisor.adviseCall(request(new SystemMessage("You are a poet."), new UserMessage("what is spring ai")), chain);
+		advisor.adviseCall(request(new SystemMessage("You are a coder."), new UserMessage("what is spring ai")), chain);
+
+		assertThat(chain.calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	void multiTurnConversationIsNotCached() {
+
+		StubChain chain = new StubChain("answer");
+		ChatClientRequest request = request(new UserMessage("hi"), new AssistantMessage("hello"),
+				new UserMessage("what is spring ai"));
+
+		advisor.adviseCall(request, chain);
+		advisor.adviseCall(request, chain);
+
+		assertThat(chain.calls.get()).isEqualTo(2);
+	}
+
+	@Test
+	void streamHitReplaysAnswerWithoutChain() {
+
+		StubChain chain = new StubChain("Spring AI ", "is an application ", "framework.");
+
+		String first = collect(advisor.adviseStream(request(new UserMessage("what is spring ai")), chain));
+		String second = collect(advisor.adviseStream(request(new UserMessage("what is spring ai")), chain));
+
+		assertThat(chain.calls.get()).isEqualTo(1);
+		assertThat(first).isEqualTo("Spring AI is an application framework.");
+		assertThat(second).isEqualTo(first);
+	}
+
+	@Test
+	void cancelledStreamIsNotCached() {
+
+		StubChain chain = new StubChain("Spring AI ", "is an application ", "framework.");
+
+		advisor.adviseStream(request(new UserMessage("what is spring ai")), chain).take(1).blockLast();
+		String answer = collect(advisor.adviseStream(request(new UserMessage("what is spring ai")), chain));
+
+		assertThat(chain.calls.get()).isEqualTo(2);
+		assertThat(answer).isEqualTo("Spring AI is an application framework.");
+	}
+
+	private static ChatClientRequest request(Message... messages) {
+
+		return ChatClientRequest.builder().prompt(new Prompt(List.of(messages))).context(Map.of()).build();
+	}
+
+	private static String collect(Flux<ChatClientResponse> responses) {
+
+		return responses.map(SemanticCacheAdvisorTest::text).collect(Collectors.joining()).block();
+	}
+
+	private static String text(ChatClientResponse response) {
+
+		return response.chatResponse().getResult().getOutput().getText();
+	}
+
+	/**
+	 * 代替模型的 advisor 链，按 chunk 返回固定回答并记录被调用的次数
+	 */
+	private static final class StubChain implements CallAdvisorChain, StreamAdvisorChain {
+
+		private final List<String> chunks;
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private StubChain(String... chunks) {
+
+			this.chunks = List.of(chunks);
+		}
+
+		@Override
+		public ChatClientResponse nextCall(ChatClientRequest request) {
+
+			calls.incrementAndGet();
+			return response(request, String.join("", chunks));
+		}
+
+		@Override
+		public Flux<ChatClientResponse> nextStream(ChatClientRequest request) {
+
+			return Flux.defer(() -> {
+				calls.incrementAndGet();
+				return Flux.fromIterable(chunks).map(chunk -> response(request, chunk));
+			});
+		}
+
+		@Override
+		public List<CallAdvisor> getCallAdvisors() {
+
+			return List.of();
+		}
+
+		@Override
+		public CallAdvisorChain copy(CallAdvisor after) {
+
+			return this;
+		}
+
+		@Override
+		public List<StreamAdvisor> getStreamAdvisors() {
+
+			return List.of();
+		}
+
+		private static ChatClientResponse response(ChatClientRequest request, String text) {
+
+			ChatResponse chatResponse = ChatResponse.builder()
+					.generations(List.of(new Generation(new AssistantMessage(text))))
+					.build();
+			return ChatClientResponse.builder().context(request.context()).chatResponse(chatResponse).build();
+		}
+
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.advisor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link SemanticResponseCache} 的精确命中、阈值上下的语义命中与未命中，以及按 LRU 淘汰。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+class SemanticResponseCacheTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final StubEmbeddingModel embeddingModel = new StubEmbeddingModel()
+			.put("what is spring ai", 1, 0, 0)
+			// 与上一个问题的余弦相似度约 0.995
+			.put("tell me about spring ai", 1, 0.1f, 0)
+			// 约 0.8
+			.put("what is spring boot", 0.8f, 0.6f, 0)
+			.put("how to cook rice", 0, 0, 1);
+
+	@Test
+	void exactRepeatHitsWithoutEmbedding() {
+
+		SemanticResponseCache cache = cache(10);
+		cache.put(cache.lookup("scope", "what is spring ai"), "answer", 1_000_000);
+		int embedCalls = embeddingModel.calls.get();
+
+		SemanticResponseCache.Lookup lookup = cache.lookup("scope", "  What   is Spring AI ");
+
+		assertThat(lookup.isHit()).isTrue();
+		assertThat(lookup.answer()).isEqualTo("answer");
+		assertThat(embeddingModel.calls.get()).isEqualTo(embedCalls);
+	}
+
+	@Test
+	void hitsAboveThresholdAndMissesBelowIt() {
+
+		SemanticResponseCache cache = cache(10);
+		cache.put(cache.lookup("scope", "what is spring ai"), "answer", 1_000_000);
+
+		assertThat(cache.lookup("scope", "tell me about spring ai").answer()).isEqualTo("answer");
+		assertThat(cache.lookup("scope", "what is spring boot").isHit()).isFalse();
+		// 不同作用域（模型或 system prompt 不同）不能互相命中
+		assertThat(cache.lookup("other", "tell me about spring ai").isHit()).isFalse();
+
+		assertThat(registry.get("playground.semantic.cache.requests").tag("result", "hit").counter().count())
+				.isEqualTo(1);
+		assertThat(registry.get("playground.semantic.cache.requests").tag("result", "miss").counter().count())
+				.isEqualTo(3);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedEntry() {
+
+		SemanticResponseCache cache = cache(2);
+		cache.put(cache.lookup("scope", "what is spring ai"), "spring", 1);
+		cache.put(cache.lookup("scope", "how to cook rice"), "rice", 1);
+		// 访问一次，让 "how to cook rice" 成为最久未使用的条目
+		assertThat(cache.lookup("scope", "what is spring ai").isHit()).isTrue();
+
+		cache.put(cache.lookup("scope", "what is spring boot"), "boot", 1);
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.lookup("scope", "how to cook rice").isHit()).isFalse();
+		assertThat(cache.lookup("scope", "what is spring ai").answer()).isEqualTo("spring");
+		assertThat(cache.lookup("scope", "what is spring boot").answer()).isEqualTo("boot");
+	}
+
+	@Test
+	void bypassesCacheWhenEmbeddingFails() {
+
+		SemanticResponseCache cache = cache(10);
+		SemanticResponseCache.Lookup lookup = cache.lookup("scope", "unknown question");
+
+		assertThat(lookup.isHit()).isFalse();
+		cache.put(lookup, "answer", 1);
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void rejectsUnboundedSize() {
+
+		assertThatThrownBy(() -> cache(SemanticResponseCache.MAX_ENTRIES + 1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private SemanticResponseCache cache(long maxEntries) {
+
+		return new SemanticResponseCache(embeddingModel, 0.95, Duration.ofHours(1), maxEntries, registry);
+	}
+
+	/**
+	 * 按文本返回固定向量，未知文本抛出异常
+	 */
+	static final class StubEmbeddingModel implements EmbeddingModel {
+
+		private final Map<String, float[]> vectors = new HashMap<>();
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		StubEmbeddingModel put(String text, float... vector) {
+
+			vectors.put(text, vector);
+			return this;
+		}
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+
+			calls.incrementAndGet();
+			List<Embedding> embeddings = new ArrayList<>();
+			for (int i = 0; i < request.getInstructions().size(); i++) {
+				String text = request.getInstructions().get(i);
+				float[] vector = vectors.get(text);
+				if (vector == null) {
+					throw new IllegalArgumentException("No vector for text: " + text);
+				}
+				embeddings.add(new Embedding(vector.clone(), i));
+			}
+			return new EmbeddingResponse(embeddings);
+		}
+
+		@Override
+		public float[] embed(Document document) {
+
+			return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+		}
+
+	}
+
+}
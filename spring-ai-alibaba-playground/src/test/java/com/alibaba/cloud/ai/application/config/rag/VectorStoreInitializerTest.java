@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 验证 {@link VectorStoreInitializer} 的增量导入，以及导入失败后下次启动能补齐向量。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+class VectorStoreInitializerTest {
+
+	@TempDir
+	Path dir;
+
+	private String userDir;
+
+	@BeforeEach
+	void setUp() throws Exception {
+
+		// 初始化器从 user.dir/rag/markdown 读取文档
+		userDir = System.getProperty("user.dir");
+		System.setProperty("user.dir", dir.toString());
+		Path markdown = Files.createDirectories(dir.resolve("rag").resolve("markdown"));
+		Files.writeString(markdown.resolve("a.md"), "# A\n\nalpha document");
+		Files.writeString(markdown.resolve("b.md"), "# B\n\nbeta document");
+	}
+
+	@AfterEach
+	void tearDown() {
+
+		System.setProperty("user.dir", userDir);
+	}
+
+	@Test
+	void unchangedFilesAreSkippedOnRestart() throws Exception {
+
+		InMemoryVectorStore store = new InMemoryVectorStore();
+		new VectorStoreInitializer(dir.resolve(".ingest"), 2).init(store);
+		assertThat(store.sources()).containsOnly("rag/markdown/a.md", "rag/markdown/b.md");
+		int adds = store.addCalls.size();
+
+		new VectorStoreInitializer(dir.resolve(".ingest"), 2).init(store);
+
+		assertThat(store.addCalls).hasSize(adds);
+		assertThat(store.deleteCalls).isEmpty();
+	}
+
+	@Test
+	void failedIngestIsCompletedOnRestart() throws Exception {
+
+		InMemoryVectorStore store = new InMemoryVectorStore();
+		store.failingSource = "rag/markdown/a.md";
+		new VectorStoreInitializer(dir.resolve(".ingest"), 2).init(store);
+
+		// a.md 的 embedding 失败，只有 b.md 写入
+		assertThat(store.sources()).containsOnly("rag/markdown/b.md");
+
+		store.failingSource = null;
+		new VectorStoreInitializer(dir.resolve(".ingest"), 2).init(store);
+
+		// 上次失败的文件重新写入全部 chunk，未变化的 b.md 不再写入
+		assertThat(store.sources()).containsOnly("rag/markdown/a.md", "rag/markdown/b.md");
+		assertThat(store.addCalls.get(store.addCalls.size() - 1))
+				.allSatisfy(document -> assertThat(document.getMetadata()).containsEntry("source", "rag/markdown/a.md"));
+
+		// 之后的启动认为 a.md 已完成导入
+		int adds = store.addCalls.size();
+		new VectorStoreInitializer(dir.resolve(".ingest"), 2).init(store);
+		assertThat(store.addCalls).hasSize(adds);
+	}
+
+	/**
+	 * 按 id 保存文档，{@code failingSource} 对应文件的写入总是失败
+	 */
+	private static class InMemoryVectorStore implements VectorStore {
+
+		private final Map<String, Document> documents = new ConcurrentHashMap<>();
+
+		private final List<List<Document>> addCalls = new CopyOnWriteArrayList<>();
+
+		private final List<List<String>> deleteCalls = new CopyOnWriteArrayList<>();
+
+		private volatile String failingSource;
+
+		@Override
+		public void add(List<Document> batch) {
+
+			if (batch.stream().anyMatch(document -> document.getMetadata().get("source").equals(failingSource))) {
+				throw new IllegalStateException("embedding service unavailable");
+			}
+			addCalls.add(List.copyOf(batch));
+			batch.forEach(document -> documents.put(document.getId(), document));
+		}
+
+		@Override
+		public void delete(List<String> ids) {
+
+			deleteCalls.add(List.copyOf(ids));
+			ids.forEach(documents::remove);
+		}
+
+		@Override
+		public void delete(Filter.Expression filterExpression) {
+
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Document> similaritySearch(SearchRequest request) {
+
+			return List.copyOf(documents.values());
+		}
+
+		List<Object> sources() {
+
+			return documents.values().stream().map(document -> document.getMetadata().get("source")).toList();
+		}
+
+	}
+
+}
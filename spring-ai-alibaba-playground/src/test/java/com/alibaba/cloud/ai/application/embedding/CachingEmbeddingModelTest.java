@@ -0,0 +1,227 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.embedding;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 验证 {@link CachingEmbeddingModel} 的内存命中、并发请求的合并批量调用、磁盘层在重启后的命中以及磁盘层的容量上限。
+ */
+class CachingEmbeddingModelTest {
+
+	@Test
+	void repeatedQueriesHitMemory() {
+
+		RecordingEmbeddingModel delegate = new RecordingEmbeddingModel();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		try (CachingEmbeddingModel model = CachingEmbeddingModel.builder(delegate)
+				.batchWindow(Duration.ZERO)
+				.meterRegistry(registry)
+				.build()) {
+
+			float[] first = model.embed("hello   world");
+			// 归一化后是同一个 key
+			float[] second = model.embed(" hello world ");
+
+			assertThat(second).containsExactly(first);
+			assertThat(delegate.calls()).containsExactly(List.of("hello world"));
+			assertThat(model.hitRatio()).isEqualTo(0.5);
+			assertThat(registry.get("embedding.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+
+			// 返回的是副本，调用方修改不影响缓存
+			second[0] = -1;
+			assertThat(model.embed("hello world")).containsExactly(first);
+			assertThat(delegate.calls()).hasSize(1);
+		}
+	}
+
+	@Test
+	void concurrentMissesShareOneBatchCall() throws Exception {
+
+		RecordingEmbeddingModel delegate = new RecordingEmbeddingModel();
+		int threads = 8;
+		try (CachingEmbeddingModel model = CachingEmbeddingModel.builder(delegate)
+				.batchWindow(Duration.ofMillis(500))
+				.maxBatchSize(10)
+				.build()) {
+
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<float[]>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				// 每个文本由两个线程同时请求
+				String text = "query-" + (t % (threads / 2));
+				futures.add(executor.submit(() -> {
+					start.await();
+					return model.embed(text);
+				}));
+			}
+
+			start.countDown();
+			for (int t = 0; t < threads; t++) {
+				assertThat(futures.get(t).get(10, TimeUnit.SECONDS))
+						.containsExactly(RecordingEmbeddingModel.vector("query-" + (t % (threads / 2))));
+			}
+			executor.shutdown();
+
+			assertThat(delegate.calls()).hasSize(1);
+			assertThat(delegate.calls().get(0)).containsExactlyInAnyOrder("query-0", "query-1", "query-2", "query-3");
+		}
+	}
+
+	@Test
+	void fullBatchIsSentWithoutWaitingForWindow() {
+
+		RecordingEmbeddingModel delegate = new RecordingEmbeddingModel();
+		try (CachingEmbeddingModel model = CachingEmbeddingModel.builder(delegate)
+				.batchWindow(Duration.ofMinutes(1))
+				.maxBatchSize(3)
+				.build()) {
+
+			List<float[]> vectors = model.embed(List.of("a", "b", "c"));
+
+			assertThat(vectors).hasSize(3);
+			assertThat(delegate.calls()).containsExactly(List.of("a", "b", "c"));
+		}
+	}
+
+	@Test
+	void diskTierSurvivesRestart(@TempDir Path dir) {
+
+		float[] stored;
+		RecordingEmbeddingModel delegate = new RecordingEmbeddingModel();
+		try (CachingEmbeddingModel model = CachingEmbeddingModel.builder(delegate)
+				.modelName("text-embedding-v3")
+				.diskPath(dir)
+				.batchWindow(Duration.ZERO)
+				.build()) {
+			stored = model.embed("persisted query");
+		}
+
+		EmbeddingModel unavailable = new RecordingEmbeddingModel() {
+			@Override
+			public EmbeddingResponse call(EmbeddingRequest request) {
+				throw new IllegalStateException("remote embedding should not be called");
+			}
+		};
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		try (CachingEmbeddingModel restarted = CachingEmbeddingModel.builder(unavailable)
+				.modelName("text-embedding-v3")
+				.diskPath(dir)
+				.batchWindow(Duration.ZERO)
+				.meterRegistry(registry)
+				.build()) {
+
+			assertThat(restarted.embed("persisted query")).containsExactly(stored);
+			assertThat(registry.get("embedding.cache.requests").tag("result", "disk_hit").counter().count())
+					.isEqualTo(1);
+			// 第二次直接命中内存层
+			assertThat(restarted.embed("persisted query")).containsExactly(stored);
+			assertThat(registry.get("embedding.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+		}
+
+		// 模型名不同不会读到其他模型的向量
+		try (CachingEmbeddingModel otherModel = CachingEmbeddingModel.builder(unavailable)
+				.modelName("text-embedding-v4")
+				.diskPath(dir)
+				.batchWindow(Duration.ZERO)
+				.build()) {
+			assertThatThrownBy(() -> otherModel.embed("persisted query")).isInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	@Test
+	void diskTierDropsOldestFilesBeyondLimit(@TempDir Path dir) throws Exception {
+
+		try (CachingEmbeddingModel model = CachingEmbeddingModel.builder(new RecordingEmbeddingModel())
+				.diskPath(dir)
+				.maxDiskEntries(10)
+				.batchWindow(Duration.ZERO)
+				.build()) {
+			for (int i = 0; i < 11; i++) {
+				model.embed("query " + i);
+			}
+		}
+
+		// 超过上限后删到上限的 90%
+		try (Stream<Path> files = Files.walk(dir)) {
+			assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(9);
+		}
+	}
+
+	/**
+	 * 记录每次远程调用的文本列表，向量由文本确定
+	 */
+	private static class RecordingEmbeddingModel implements EmbeddingModel {
+
+		private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+
+			calls.add(List.copyOf(request.getInstructions()));
+			List<Embedding> embeddings = new ArrayList<>();
+			for (int i = 0; i < request.getInstructions().size(); i++) {
+				embeddings.add(new Embedding(vector(request.getInstructions().get(i)), i));
+			}
+			return new EmbeddingResponse(embeddings);
+		}
+
+		@Override
+		public float[] embed(Document document) {
+
+			return vector(document.getText());
+		}
+
+		List<List<String>> calls() {
+
+			return calls;
+		}
+
+		static float[] vector(String text) {
+
+			int h = text.hashCode();
+			return new float[] {h & 0xff, (h >>> 8) & 0xff, (h >>> 16) & 0xff, text.length()};
+		}
+
+	}
+
+}
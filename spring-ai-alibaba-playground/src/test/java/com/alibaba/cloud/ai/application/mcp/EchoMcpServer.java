@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+
+import io.modelcontextprotocol.json.McpJsonMapper;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.transport.StdioServerTransportProvider;
+import io.modelcontextprotocol.spec.McpSchema;
+
+/**
+ * {@link McpStdioServerPoolTest} 使用的 stdio MCP Server，whoami 工具返回进程号和 ECHO_NAME 环境变量。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public final class EchoMcpServer {
+
+	private EchoMcpServer() {
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+
+		// stdout 只能输出协议消息，日志改写到 stderr
+		PrintStream out = System.out;
+		System.setOut(System.err);
+
+		McpJsonMapper jsonMapper = McpJsonMapper.getDefault();
+		McpSchema.Tool whoami = McpSchema.Tool.builder()
+				.name("whoami")
+				.description("Returns the process id and ECHO_NAME")
+				.inputSchema(jsonMapper, "{\"type\":\"object\",\"properties\":{}}")
+				.build();
+
+		McpServer.sync(new StdioServerTransportProvider(jsonMapper, System.in, out))
+				.serverInfo("echo", "1.0.0")
+				.capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+				.toolCall(whoami, (exchange, request) -> McpSchema.CallToolResult.builder()
+						.addTextContent(ProcessHandle.current().pid() + ":" + System.getenv("ECHO_NAME"))
+						.build())
+				.build();
+
+		new CountDownLatch(1).await();
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 并发添加、删除和读取 {@link McpServerContainer} 时，每次读到的快照索引一致，版本号单调递增。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+class McpServerContainerTest {
+
+	private static final int WRITERS = 4;
+
+	private static final int READERS = 4;
+
+	private static final int SERVERS_PER_WRITER = 200;
+
+	@BeforeEach
+	@AfterEach
+	void clear() {
+
+		McpServerContainer.clear();
+	}
+
+	@Test
+	void concurrentAddRemoveAndRead() throws Exception {
+
+		List<Long> versions = new CopyOnWriteArrayList<>();
+		Disposable changes = McpServerContainer.changes(-1L).subscribe(snapshot -> versions.add(snapshot.version()));
+		long startVersion = McpServerContainer.version();
+
+		ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch writersDone = new CountDownLatch(WRITERS);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int w = 0; w < WRITERS; w++) {
+			int writer = w;
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < SERVERS_PER_WRITER; i++) {
+					McpServerContainer.addServer(server(writer, i));
+					// 每个 writer 删除自己添加的奇数号 server
+					if (i % 2 == 1) {
+						assertThat(McpServerContainer.removeServerById(id(writer, i))).isTrue();
+					}
+				}
+				writersDone.countDown();
+				return null;
+			}));
+		}
+
+		for (int r = 0; r < READERS; r++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				long lastVersion = 0;
+				while (writersDone.getCount() > 0) {
+					McpServerContainer.Snapshot snapshot = McpServerContainer.snapshot();
+					assertThat(snapshot.version()).isGreaterThanOrEqualTo(lastVersion);
+					lastVersion = snapshot.version();
+					assertThat(snapshot.byId()).hasSameSizeAs(snapshot.servers());
+					assertThat(snapshot.byName()).hasSameSizeAs(snapshot.servers());
+					for (McpServer server : snapshot.servers()) {
+						assertThat(snapshot.byId().get(server.getId())).isSameAs(server);
+						assertThat(snapshot.byName().get(server.getName())).isSameAs(server);
+					}
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+		changes.dispose();
+
+		List<McpServer> servers = McpServerContainer.getAllServers();
+		assertThat(servers).hasSize(WRITERS * SERVERS_PER_WRITER / 2);
+		assertThat(servers).allMatch(server -> Integer.parseInt(server.getName().split("-")[2]) % 2 == 0);
+		assertThat(McpServerContainer.getServerById(id(1, 2))).map(McpServer::getName).contains("server-1-2");
+		assertThat(McpServerContainer.getServerByName("server-1-3")).isEmpty();
+
+		// 每次 add 和 remove 各生成一个版本，订阅者按顺序收到全部版本
+		long endVersion = McpServerContainer.version();
+		assertThat(endVersion - startVersion).isEqualTo(WRITERS * SERVERS_PER_WRITER * 3L / 2);
+		assertThat(versions).isSorted().doesNotHaveDuplicates().endsWith(endVersion);
+		assertThat(versions).hasSize((int) (endVersion - startVersion) + 1);
+	}
+
+	@Test
+	void replacesServerWithSameNameAndSkipsKnownVersion() {
+
+		McpServerContainer.addServers(List.of(server(0, 0), server(0, 1)));
+		McpServer replacement = McpServer.builder().id("replacement").name("server-0-0").build();
+		McpServerContainer.addServer(replacement);
+
+		assertThat(McpServerContainer.getAllServers()).extracting(McpServer::getId)
+				.containsExactly("replacement", id(0, 1));
+		assertThat(McpServerContainer.getServerById(id(0, 0))).isEmpty();
+		assertThat(McpServerContainer.removeServerById("missing")).isFalse();
+
+		long version = McpServerContainer.version();
+		List<Long> received = new ArrayList<>();
+		Disposable upToDate = McpServerContainer.changes(version).subscribe(s -> received.add(s.version()));
+		assertThat(received).isEmpty();
+		McpServerContainer.removeServerById("replacement");
+		upToDate.dispose();
+		McpServerContainer.removeServerById(id(0, 1));
+
+		assertThat(received).containsExactly(version + 1);
+	}
+
+	private static McpServer server(int writer, int i) {
+
+		return McpServer.builder().id(id(writer, i)).name("server-" + writer + "-" + i).build();
+	}
+
+	private static String id(int writer, int i) {
+
+		return writer + ":" + i;
+	}
+
+}
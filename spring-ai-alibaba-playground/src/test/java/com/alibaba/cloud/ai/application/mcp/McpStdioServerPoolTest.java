@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpStdioClientProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 启动真实的 stdio MCP Server 进程，验证进程复用、按环境变量区分、空闲回收和健康检查后的重启。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+class McpStdioServerPoolTest {
+
+	private static final Map<String, McpStdioClientProperties.Parameters> SERVERS = Map.of("echo",
+			new McpStdioClientProperties.Parameters(
+					ProcessHandle.current().info().command().orElse("java"),
+					List.of("-cp", System.getProperty("java.class.path"), EchoMcpServer.class.getName()),
+					Map.of("ECHO_NAME", "default")));
+
+	private McpStdioServerPool pool;
+
+	@AfterEach
+	void close() {
+
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Test
+	void reusesProcessPerEnv() {
+
+		pool = pool(false, Duration.ofMinutes(10));
+
+		String first;
+		try (McpStdioServerPool.Lease lease = pool.acquire("echo", Map.of())) {
+			assertThat(lease.toolCallbacks()).hasSize(1);
+			first = whoami(lease);
+		}
+		assertThat(first).endsWith(":default");
+
+		try (McpStdioServerPool.Lease lease = pool.acquire("echo", Map.of("ECHO_NAME", ""))) {
+			// 空值不覆盖配置中的环境变量
+			assertThat(whoami(lease)).isEqualTo(first);
+		}
+
+		try (McpStdioServerPool.Lease a = pool.acquire("echo", Map.of("ECHO_NAME", "a"));
+				McpStdioServerPool.Lease again = pool.acquire("echo", Map.of("ECHO_NAME", "a"))) {
+			assertThat(whoami(a)).endsWith(":a").isNotEqualTo(first);
+			assertThat(whoami(again)).isEqualTo(whoami(a));
+		}
+
+		assertThat(pool.size()).isEqualTo(2);
+	}
+
+	@Test
+	void reapsIdleServersAndRestartsWarmOnes() throws Exception {
+
+		pool = pool(true, Duration.ZERO);
+
+		long idlePid;
+		try (McpStdioServerPool.Lease lease = pool.acquire("echo", Map.of("ECHO_NAME", "idle"))) {
+			idlePid = pid(whoami(lease));
+			// 使用中的进程不会被回收
+			pool.check();
+			assertThat(ProcessHandle.of(idlePid).map(ProcessHandle::isAlive)).contains(true);
+		}
+
+		pool.check();
+		awaitExit(idlePid);
+
+		long warmPid;
+		assertThat(pool.size()).isEqualTo(1);
+		try (McpStdioServerPool.Lease lease = pool.acquire("echo", Map.of())) {
+			warmPid = pid(whoami(lease));
+		}
+
+		// 常驻进程空闲也不回收，进程挂掉后被健康检查移除并重新启动
+		pool.check();
+		assertThat(ProcessHandle.of(warmPid).map(ProcessHandle::isAlive)).contains(true);
+		ProcessHandle.of(warmPid).ifPresent(ProcessHandle::destroyForcibly);
+		awaitExit(warmPid);
+		pool.check();
+
+		assertThat(pool.size()).isEqualTo(1);
+		try (McpStdioServerPool.Lease lease = pool.acquire("echo", Map.of())) {
+			assertThat(pid(whoami(lease))).isNotEqualTo(warmPid);
+		}
+	}
+
+	private static McpStdioServerPool pool(boolean warmUp, Duration idleTimeout) {
+
+		return McpStdioServerPool.builder()
+				.servers(() -> SERVERS)
+				.warmUp(warmUp)
+				.idleTimeout(idleTimeout)
+				.healthCheckInterval(Duration.ofHours(1))
+				.requestTimeout(Duration.ofSeconds(30))
+				.build();
+	}
+
+	private static String whoami(McpStdioServerPool.Lease lease) {
+
+		McpSchema.CallToolResult result = lease.client().callTool(new McpSchema.CallToolRequest("whoami", Map.of()));
+		return ((McpSchema.TextContent) result.content().get(0)).text();
+	}
+
+	private static long pid(String whoami) {
+
+		return Long.parseLong(whoami.substring(0, whoami.indexOf(':')));
+	}
+
+	private static void awaitExit(long pid) throws InterruptedException {
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false) && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		assertThat(ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)).isFalse();
+	}
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.alibaba.cloud.ai.application.entity.tools.ToolCallResp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.DefaultToolDefinition;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 一轮中的多个工具并发执行，超时和耗时从工具开始执行时算起，超时和失败只影响对应的工具。
+ */
+class McpToolExecutorTest {
+
+	private McpToolExecutor executor;
+
+	@AfterEach
+	void close() {
+
+		if (executor != null) {
+			executor.close();
+		}
+	}
+
+	@Test
+	void runsToolsConcurrently() {
+
+		executor = McpToolExecutor.builder().build();
+		// 每个工具都要等三个工具同时进入才返回，串行执行时会因等不到而失败
+		CountDownLatch entered = new CountDownLatch(3);
+		Map<String, ToolCallback> callbacks = Map.of(
+				"slow", tool("slow", () -> awaitAll(entered)),
+				"fast", tool("fast", () -> awaitAll(entered)),
+				"faster", tool("faster", () -> awaitAll(entered))
+		);
+
+		List<ToolCallResp> results = executor.execute(
+				List.of(toolCall("1", "slow"), toolCall("2", "fast"), toolCall("3", "faster")), callbacks);
+
+		assertThat(results).extracting(ToolCallResp::getToolName).containsExactly("slow", "fast", "faster");
+		assertThat(results).extracting(ToolCallResp::getToolResponse).containsExactly("slow", "fast", "faster");
+		assertThat(results).allMatch(r -> r.getStatus() == ToolCallResp.ToolState.SUCCESS);
+	}
+
+	@Test
+	void queueWaitCountsNeitherAsCostNorAgainstTimeout() {
+
+		// 只有一个线程，fast 必须等 busy 执行完才能开始
+		executor = McpToolExecutor.builder()
+				.maxConcurrentTools(1)
+				.defaultTimeout(Duration.ofSeconds(30))
+				.timeout("fast", Duration.ofMillis(100))
+				.build();
+		Map<String, ToolCallback> callbacks = Map.of(
+				"busy", tool("busy", () -> Thread.sleep(500)),
+				"fast", tool("fast", () -> {
+				})
+		);
+
+		List<ToolCallResp> results = executor.execute(List.of(toolCall("1", "busy"), toolCall("2", "fast")),
+				callbacks);
+
+		assertThat(results).allMatch(r -> r.getStatus() == ToolCallResp.ToolState.SUCCESS);
+		assertThat(results.get(0).getToolCostTime()).isGreaterThanOrEqualTo(500L);
+		assertThat(results.get(1).getToolCostTime()).isLessThan(results.get(0).getToolCostTime());
+	}
+
+	@Test
+	void failsToolThatWaitsTooLongForWorker() {
+
+		executor = McpToolExecutor.builder()
+				.maxConcurrentTools(1)
+				.queueTimeout(Duration.ofMillis(100))
+				.build();
+		CountDownLatch never = new CountDownLatch(1);
+		AtomicBoolean queuedRan = new AtomicBoolean();
+		Map<String, ToolCallback> callbacks = Map.of(
+				"busy", tool("busy", () -> never.await(2, TimeUnit.SECONDS)),
+				"queued", tool("queued", () -> queuedRan.set(true))
+		);
+
+		List<ToolCallResp> results = executor.execute(List.of(toolCall("1", "busy"), toolCall("2", "queued")),
+				callbacks);
+
+		assertThat(results.get(0).getStatus()).isEqualTo(ToolCallResp.ToolState.SUCCESS);
+		assertThat(results.get(1).getStatus()).isEqualTo(ToolCallResp.ToolState.FAILURE);
+		assertThat(results.get(1).getErrorMessage()).contains("free worker");
+		assertThat(queuedRan).isFalse();
+	}
+
+	@Test
+	void timesOutSlowToolWithoutFailingOthers() {
+
+		executor = McpToolExecutor.builder()
+				.defaultTimeout(Duration.ofSeconds(30))
+				.timeout("hang", Duration.ofMillis(200))
+				.build();
+		CountDownLatch never = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		Map<String, ToolCallback> callbacks = Map.of(
+				"hang", tool("hang", () -> {
+					try {
+						never.await();
+					}
+					catch (InterruptedException e) {
+						interrupted.countDown();
+						throw e;
+					}
+				}),
+				"ok", tool("ok", () -> {
+				})
+		);
+
+		List<AssistantMessage.ToolCall> toolCalls = List.of(toolCall("1", "hang"), toolCall("2", "ok"),
+				toolCall("3", "missing"));
+		List<ToolCallResp> results = executor.execute(toolCalls, callbacks);
+
+		assertThat(results.get(0).getStatus()).isEqualTo(ToolCallResp.ToolState.FAILURE);
+		assertThat(results.get(0).getErrorMessage()).contains("timed out");
+		assertThat(results.get(1).getStatus()).isEqualTo(ToolCallResp.ToolState.SUCCESS);
+		assertThat(results.get(2).getStatus()).isEqualTo(ToolCallResp.ToolState.FAILURE);
+		assertThat(results.get(2).getErrorMessage()).contains("missing");
+		// 超时的工具被中断，不会一直占着线程
+		assertThat(await(interrupted)).isTrue();
+
+		ToolResponseMessage message = McpToolExecutor.toResponseMessage(toolCalls, results);
+		assertThat(message.getResponses()).extracting(ToolResponseMessage.ToolResponse::id)
+				.containsExactly("1", "2", "3");
+		assertThat(message.getResponses().get(0).responseData()).startsWith("Error: ");
+		assertThat(message.getResponses().get(1).responseData()).isEqualTo("ok");
+	}
+
+	private static AssistantMessage.ToolCall toolCall(String id, String name) {
+
+		return new AssistantMessage.ToolCall(id, "function", name, "{}");
+	}
+
+	private static void awaitAll(CountDownLatch entered) throws InterruptedException {
+
+		entered.countDown();
+		if (!entered.await(10, TimeUnit.SECONDS)) {
+			throw new IllegalStateException("Tools did not run concurrently");
+		}
+	}
+
+	private static boolean await(CountDownLatch latch) {
+
+		try {
+			return latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static ToolCallback tool(String name, Body body) {
+
+		ToolDefinition definition = DefaultToolDefinition.builder()
+				.name(name)
+				.description(name)
+				.inputSchema("{}")
+				.build();
+
+		return new ToolCallback() {
+
+			@Override
+			public ToolDefinition getToolDefinition() {
+
+				return definition;
+			}
+
+			@Override
+			public String call(String toolInput) {
+
+				try {
+					body.run();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				}
+				return name;
+			}
+		};
+	}
+
+	@FunctionalInterface
+	private interface Body {
+
+		void run() throws InterruptedException;
+
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.cloud.ai.application.config.WebSearchProperties;
+import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
+import com.alibaba.cloud.ai.application.enums.WebSearchEnum;
+import com.alibaba.cloud.ai.application.modulerag.core.IQSSearchEngine;
+import com.alibaba.cloud.ai.application.modulerag.data.DataClean;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.join.DocumentJoiner;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 用延迟和失败可控的 stub 搜索引擎验证 {@link ParallelWebSearchRetriever} 的截止时间、部分结果、失败跳过与并发上限。
+ */
+class ParallelWebSearchRetrieverTest {
+
+	private final StubSearchEngine searchEngine = new StubSearchEngine();
+
+	/**
+	 * 按 joiner 收到的查询顺序拼接文档，用来检查结果按扩展顺序组织
+	 */
+	private final DocumentJoiner joiner = documentsForQuery -> documentsForQuery.values()
+			.stream()
+			.flatMap(List::stream)
+			.flatMap(List::stream)
+			.toList();
+
+	@Test
+	void deadlineCutsOffAndCancelsSlowSearches() {
+
+		searchEngine.respond("fast", Mono.just(response("fast")));
+		searchEngine.respond("slow", Mono.never());
+
+		long start = System.nanoTime();
+		List<Document> documents = retriever(Duration.ofMillis(300), 4).retrieve(new Query("question"));
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		assertThat(texts(documents)).containsExactly(text("fast"));
+		assertThat(elapsed).isLessThan(Duration.ofSeconds(3));
+		// 截止时间到达时未返回的搜索被取消，而不是在后台继续执行
+		assertThat(searchEngine.cancelled).containsExactly("slow");
+	}
+
+	@Test
+	void keepsExpansionOrderForPartialResults() {
+
+		searchEngine.respond("first", Mono.just(response("first")).delayElement(Duration.ofMillis(150)));
+		searchEngine.respond("second", Mono.just(response("second")));
+		searchEngine.respond("third", Mono.just(response("third")).delayElement(Duration.ofSeconds(30)));
+
+		List<Document> documents = retriever(Duration.ofMillis(600), 4).retrieve(new Query("question"));
+
+		// second 先返回，但仍排在 first 之后；third 超过截止时间被丢弃
+		assertThat(texts(documents)).containsExactly(text("first"), text("second"));
+		assertThat(searchEngine.cancelled).containsExactly("third");
+	}
+
+	@Test
+	void skipsFailedSearch() {
+
+		searchEngine.respond("broken", Mono.error(new IllegalStateException("upstream down")));
+		searchEngine.respond("fast", Mono.just(response("fast")));
+
+		List<Document> documents = retriever(Duration.ofSeconds(5), 4).retrieve(new Query("question"));
+
+		assertThat(texts(documents)).containsExactly(text("fast"));
+		assertThat(searchEngine.cancelled).isEmpty();
+	}
+
+	@Test
+	void boundsConcurrentSearches() {
+
+		for (int i = 0; i < 8; i++) {
+			String query = "query-" + i;
+			searchEngine.respond(query, Mono.just(response(query)).delayElement(Duration.ofMillis(50)));
+		}
+
+		List<Document> documents = retriever(Duration.ofSeconds(5), 2).retrieve(new Query("question"));
+
+		assertThat(documents).hasSize(8);
+		assertThat(searchEngine.maxInFlight.get()).isEqualTo(2);
+	}
+
+	/**
+	 * 查询按 stub 中设置结果的顺序扩展
+	 */
+	private ParallelWebSearchRetriever retriever(Duration deadline, int maxConcurrency) {
+
+		return ParallelWebSearchRetriever.builder()
+				.retriever(WebSearchRetriever.builder()
+						.searchEngine(searchEngine)
+						.dataCleaner(new DataClean())
+						.maxResults(5)
+						.build())
+				.queryExpander(query -> searchEngine.queries().stream().map(Query::new).toList())
+				.documentJoiner(joiner)
+				.deadline(deadline)
+				.maxConcurrency(maxConcurrency)
+				.build();
+	}
+
+	private static List<String> texts(List<Document> documents) {
+
+		return documents.stream().map(Document::getText).toList();
+	}
+
+	private static String text(String query) {
+
+		return ("result for " + query + " ").repeat(5).strip();
+	}
+
+	private static IQSSearchResponse response(String query) {
+
+		IQSSearchResponse.PageItem item = new IQSSearchResponse.PageItem(query, "https://example.com/" + query, null,
+				null, text(query), null, List.of(), "example.com", null, null, 0.5);
+		return new IQSSearchResponse("request", List.of(item), List.of(), null, null, null);
+	}
+
+	/**
+	 * 按查询返回预先设置的结果，记录被取消的查询和同时进行中的搜索数。
+	 */
+	private static final class StubSearchEngine extends IQSSearchEngine {
+
+		private final Map<String, Mono<IQSSearchResponse>> responses = new ConcurrentHashMap<>();
+
+		private final Set<String> cancelled = ConcurrentHashMap.newKeySet();
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private final AtomicInteger maxInFlight = new AtomicInteger();
+
+		private final List<String> order = new ArrayList<>();
+
+		StubSearchEngine() {
+
+			super(RestClient.builder(), WebClient.builder(),
+					new WebSearchProperties(WebSearchEnum.ModuleRag, new IQSSearchProperties("stub-key",
+							"http://127.0.0.1:1/", new IQSSearchProperties.Cache(false, Duration.ofSeconds(5), 10))),
+					new DefaultResponseErrorHandler(),
+					new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+		}
+
+		void respond(String query, Mono<IQSSearchResponse> response) {
+
+			order.add(query);
+			responses.put(query, response);
+		}
+
+		List<String> queries() {
+
+			return List.copyOf(order);
+		}
+
+		@Override
+		public Mono<IQSSearchResponse> searchAsync(String query) {
+
+			return Mono.defer(() -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				return responses.get(query);
+			}).doOnTerminate(inFlight::decrementAndGet).doOnCancel(() -> {
+				inFlight.decrementAndGet();
+				cancelled.add(query);
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.core;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link IQSSearchCache} 的 TTL 推导、成功与失败结果的过期、single-flight 合并以及取消的传播。
+ * 时钟由测试推进，不依赖真实时间。
+ */
+class IQSSearchCacheTest {
+
+	private static final IQSSearchCache.SearchKey KEY = IQSSearchCache.SearchKey.of("spring ai", "OneWeek", "Generic");
+
+	private static final IQSSearchResponse RESPONSE = new IQSSearchResponse("request", List.of(), List.of(), null,
+			null, null);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final IQSSearchCache cache = new IQSSearchCache(true, Duration.ofSeconds(5), 100, registry, clock::get);
+
+	@Test
+	void ttlFollowsTimeRangeWithinBounds() {
+
+		assertThat(IQSSearchCache.ttlFor("OneWeek")).isEqualTo(Duration.ofHours(1));
+		assertThat(IQSSearchCache.ttlFor("OneDay")).isEqualTo(Duration.ofDays(1).dividedBy(168));
+		assertThat(IQSSearchCache.ttlFor("OneMonth")).isEqualTo(Duration.ofDays(30).dividedBy(168));
+		// 365 天 / 168 超过上限，截断为 1 天
+		assertThat(IQSSearchCache.ttlFor("OneYear")).isEqualTo(Duration.ofDays(1));
+		assertThat(IQSSearchCache.ttlFor("NoLimit")).isEqualTo(Duration.ofDays(1));
+		// 未知的时间范围按 OneWeek 处理
+		assertThat(IQSSearchCache.ttlFor("Unknown")).isEqualTo(Duration.ofHours(1));
+	}
+
+	@Test
+	void normalizesQueryWhitespace() {
+
+		assertThat(IQSSearchCache.SearchKey.of("  spring \t ai\n", "OneWeek", "Generic")).isEqualTo(KEY);
+	}
+
+	@Test
+	void successfulResultExpiresAfterTtl() {
+
+		assertThat(cache.get(KEY, this::succeed).join()).isSameAs(RESPONSE);
+
+		clock.addAndGet(Duration.ofHours(1).toNanos());
+		assertThat(cache.get(KEY, this::succeed).join()).isSameAs(RESPONSE);
+		assertThat(loads).hasValue(1);
+
+		clock.addAndGet(1);
+		cache.get(KEY, this::succeed).join();
+		assertThat(loads).hasValue(2);
+		assertThat(count("hit")).isEqualTo(1);
+		assertThat(count("miss")).isEqualTo(2);
+	}
+
+	@Test
+	void failureIsCachedForNegativeTtlOnly() {
+
+		assertThatThrownBy(() -> cache.get(KEY, this::fail).join()).isInstanceOf(CompletionException.class)
+				.hasRootCauseMessage("upstream down");
+
+		clock.addAndGet(Duration.ofSeconds(5).toNanos());
+		assertThatThrownBy(() -> cache.get(KEY, this::fail).join()).hasRootCauseMessage("upstream down");
+		assertThat(loads).hasValue(1);
+		assertThat(count("negative_hit")).isEqualTo(1);
+
+		clock.addAndGet(1);
+		assertThat(cache.get(KEY, this::succeed).join()).isSameAs(RESPONSE);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void loaderExceptionIsCachedAsFailure() {
+
+		IQSSearchCache.SearchKey key = IQSSearchCache.SearchKey.of("broken", "OneWeek", "Generic");
+
+		CompletableFuture<IQSSearchResponse> first = cache.get(key, k -> {
+			loads.incrementAndGet();
+			throw new IllegalStateException("bad request");
+		});
+
+		assertThatThrownBy(first::join).hasRootCauseInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> cache.get(key, this::succeed).join()).hasRootCauseMessage("bad request");
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void concurrentLookupsShareOneUpstreamCall() {
+
+		CompletableFuture<IQSSearchResponse> upstream = new CompletableFuture<>();
+
+		CompletableFuture<IQSSearchResponse> first = cache.get(KEY, key -> load(upstream));
+		CompletableFuture<IQSSearchResponse> second = cache.get(KEY, key -> load(upstream));
+		CompletableFuture<IQSSearchResponse> third = cache.get(KEY, key -> load(upstream));
+
+		assertThat(loads).hasValue(1);
+		assertThat(first).isNotDone();
+		assertThat(second).isNotDone();
+
+		upstream.complete(RESPONSE);
+
+		assertThat(first.join()).isSameAs(RESPONSE);
+		assertThat(second.join()).isSameAs(RESPONSE);
+		assertThat(third.join()).isSameAs(RESPONSE);
+		assertThat(count("coalesced")).isEqualTo(2);
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	void upstreamIsCancelledOnlyWhenEveryWaiterCancels() {
+
+		CompletableFuture<IQSSearchResponse> upstream = new CompletableFuture<>();
+		CompletableFuture<IQSSearchResponse> first = cache.get(KEY, key -> load(upstream));
+		CompletableFuture<IQSSearchResponse> second = cache.get(KEY, key -> load(upstream));
+
+		first.cancel(true);
+		assertThat(upstream).isNotDone();
+		assertThat(second).isNotDone();
+
+		second.cancel(true);
+		assertThat(upstream).isCancelled();
+		assertThat(count("cancelled")).isEqualTo(1);
+		assertThat(cache.size()).isZero();
+
+		// 被放弃的调用不会作为失败结果留在缓存里
+		assertThat(cache.get(KEY, this::succeed).join()).isSameAs(RESPONSE);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void lateJoinerKeepsUpstreamAlive() {
+
+		CompletableFuture<IQSSearchResponse> upstream = new CompletableFuture<>();
+		CompletableFuture<IQSSearchResponse> first = cache.get(KEY, key -> load(upstream));
+		first.cancel(true);
+		assertThat(upstream).isCancelled();
+
+		CompletableFuture<IQSSearchResponse> retried = new CompletableFuture<>();
+		CompletableFuture<IQSSearchResponse> second = cache.get(KEY, key -> load(retried));
+		CompletableFuture<IQSSearchResponse> third = cache.get(KEY, key -> load(retried));
+		second.cancel(true);
+		retried.complete(RESPONSE);
+
+		assertThat(third.join()).isSameAs(RESPONSE);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void disabledCacheAlwaysCallsUpstream() {
+
+		IQSSearchCache disabled = new IQSSearchCache(false, Duration.ofSeconds(5), 100, new SimpleMeterRegistry(),
+				clock::get);
+
+		disabled.get(KEY, this::succeed).join();
+		disabled.get(KEY, this::succeed).join();
+
+		assertThat(loads).hasValue(2);
+		assertThat(disabled.size()).isZero();
+	}
+
+	private CompletableFuture<IQSSearchResponse> succeed(IQSSearchCache.SearchKey key) {
+
+		return load(CompletableFuture.completedFuture(RESPONSE));
+	}
+
+	private CompletableFuture<IQSSearchResponse> fail(IQSSearchCache.SearchKey key) {
+
+		return load(CompletableFuture.failedFuture(new IllegalStateException("upstream down")));
+	}
+
+	private CompletableFuture<IQSSearchResponse> load(CompletableFuture<IQSSearchResponse> upstream) {
+
+		loads.incrementAndGet();
+		return upstream;
+	}
+
+	private double count(String result) {
+
+		return registry.get("playground.iqs.cache.requests").tag("result", result).counter().count();
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.core;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.cloud.ai.application.config.WebSearchProperties;
+import com.alibaba.cloud.ai.application.enums.WebSearchEnum;
+import com.alibaba.cloud.ai.application.modulerag.IQSSearchProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 使用本地 IQS stub 服务对比开启 / 关闭结果缓存时的吞吐量。
+ * <p>
+ * stub 每次请求固定延迟 {@link #UPSTREAM_LATENCY_MS} ms，查询按 Zipf 分布从少量热门查询中抽取，模拟热点查询集中的场景。
+ * 运行方式：
+ * <pre>
+ * mvn test -Dtest=IQSSearchEngineBenchmark -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IQSSearchEngineBenchmark {
+
+	private static final Logger logger = LoggerFactory.getLogger(IQSSearchEngineBenchmark.class);
+
+	private static final int UPSTREAM_LATENCY_MS = 50;
+
+	private static final int DISTINCT_QUERIES = 50;
+
+	private static final int REQUESTS = 4_000;
+
+	private static final int CLIENT_THREADS = 32;
+
+	private static final String RESPONSE = """
+			{"requestId":"stub","pageItems":[{"title":"t","link":"https://example.com","mainText":"stub main text for benchmark","rerankScore":0.9}],
+			 "queryContext":{"engineType":"Generic","originalQuery":{"query":"q","timeRange":"OneWeek"}}}
+			""";
+
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	private HttpServer server;
+
+	@BeforeEach
+	void startStub() throws IOException {
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/search/unified", exchange -> {
+			upstreamCalls.incrementAndGet();
+			String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			try {
+				Thread.sleep(UPSTREAM_LATENCY_MS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] response = RESPONSE.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(body.contains("\"fail\"") ? 500 : 200, response.length);
+			exchange.getResponseBody().write(response);
+			exchange.close();
+		});
+		server.setExecutor(Executors.newFixedThreadPool(CLIENT_THREADS * 2));
+		server.start();
+	}
+
+	@AfterEach
+	void stopStub() {
+
+		server.stop(0);
+	}
+
+	@Test
+	void throughputWithAndWithoutCache() throws Exception {
+
+		double uncached = run(engine(false), "uncached");
+		int uncachedCalls = upstreamCalls.getAndSet(0);
+		double cached = run(engine(true), "cached");
+		int cachedCalls = upstreamCalls.getAndSet(0);
+
+		logger.info("upstream calls: uncached={}, cached={}, speedup={}x", uncachedCalls, cachedCalls,
+				String.format("%.1f", cached / uncached));
+
+		assertThat(uncachedCalls).isEqualTo(REQUESTS);
+		// single-flight：每个不同的查询只会到达上游一次
+		assertThat(cachedCalls).isLessThanOrEqualTo(DISTINCT_QUERIES);
+		assertThat(cached).isGreaterThan(uncached);
+	}
+
+	@Test
+	void failuresAreCachedBriefly() {
+
+		IQSSearchEngine engine = engine(true);
+
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> engine.search("fail")).isInstanceOf(RuntimeException.class);
+		}
+		assertThat(upstreamCalls.get()).isEqualTo(1);
+	}
+
+	private double run(IQSSearchEngine engine, String name) throws Exception {
+
+		Random random = new Random(42);
+		List<String> workload = new ArrayList<>(REQUESTS);
+		for (int i = 0; i < REQUESTS; i++) {
+			workload.add("query-" + zipf(random));
+		}
+
+		ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+		long start = System.nanoTime();
+		List<Future<?>> futures = new ArrayList<>();
+		for (String query : workload) {
+			futures.add(clients.submit(() -> engine.search(query)));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		clients.shutdown();
+
+		double throughput = REQUESTS / seconds;
+		logger.info("{} {} requests in {}s, {} req/s", name, REQUESTS, String.format("%.2f", seconds),
+				String.format("%.0f", throughput));
+		return throughput;
+	}
+
+	/**
+	 * 近似 Zipf(s=1) 分布，排名越靠前的查询越热门
+	 */
+	private static int zipf(Random random) {
+
+		double harmonic = 0;
+		for (int k = 1; k <= DISTINCT_QUERIES; k++) {
+			harmonic += 1.0 / k;
+		}
+		double target = random.nextDouble() * harmonic;
+		double sum = 0;
+		for (int k = 1; k <= DISTINCT_QUERIES; k++) {
+			sum += 1.0 / k;
+			if (sum >= target) {
+				return k;
+			}
+		}
+		return DISTINCT_QUERIES;
+	}
+
+	private IQSSearchEngine engine(boolean cacheEnabled) {
+
+		String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+		IQSSearchProperties properties = new IQSSearchProperties("stub-key", baseUrl,
+				new IQSSearchProperties.Cache(cacheEnabled, Duration.ofSeconds(5), 10_000));
+
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("meterRegistry", new SimpleMeterRegistry());
+
+		return new IQSSearchEngine(
+				RestClient.builder(),
+				WebClient.builder(),
+				new WebSearchProperties(WebSearchEnum.ModuleRag, properties),
+				new DefaultResponseErrorHandler(),
+				beanFactory.getBeanProvider(MeterRegistry.class)
+		);
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 并发调用 {@link DataClean#clean} 时，每个请求的文档 metadata 与链接映射互不干扰。
+ */
+class DataCleanConcurrencyTest {
+
+	private static final int THREADS = 16;
+
+	private static final int REQUESTS_PER_THREAD = 500;
+
+	private static final String[] WORDS = {"graph", "agent", "vector", "store", "embedding", "model", "prompt",
+			"stream", "token", "search", "index", "memory", "tool", "server", "client", "cache", "node", "state"};
+
+	private final DataClean dataClean = new DataClean();
+
+	@Test
+	void concurrentRequestsDoNotShareState() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> futures = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			futures.add(executor.submit(() -> {
+				start.await();
+				int checked = 0;
+				for (int r = 0; r < REQUESTS_PER_THREAD; r++) {
+					String query = "q-" + thread + "-" + r;
+					DataClean.CleanedData cleaned = dataClean.clean(response(query, 4), 10);
+
+					assertThat(cleaned.documents()).hasSize(4);
+					assertThat(cleaned.webLinks()).hasSize(4);
+					for (int i = 0; i < cleaned.documents().size(); i++) {
+						Map<String, Object> metadata = cleaned.documents().get(i).getMetadata();
+						String link = "https://example.com/" + query + "/" + i;
+						assertThat(metadata).containsEntry("query", query)
+								.containsEntry("link", link)
+								.containsEntry("title", query + "-title-" + i);
+						assertThat(cleaned.webLinks()).containsEntry(i + 1, link);
+						checked++;
+					}
+				}
+				return checked;
+			}));
+		}
+
+		start.countDown();
+		int total = 0;
+		for (Future<Integer> future : futures) {
+			total += future.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertThat(total).isEqualTo(THREADS * REQUESTS_PER_THREAD * 4);
+	}
+
+	@Test
+	void optionalFieldsDoNotLeakBetweenItems() {
+
+		List<IQSSearchResponse.PageItem> items = List.of(
+				item("with snippet", "https://a.example.com", "snippet", "first page body about spring ai alibaba graph"),
+				item("without snippet", "https://b.example.com", null, "second page body about dashscope embedding models"));
+
+		List<Document> documents = dataClean.clean(response(items, "q"), 10).documents();
+
+		assertThat(documents).hasSize(2);
+		assertThat(documents.get(0).getMetadata()).containsKey("snippet");
+		assertThat(documents.get(1).getMetadata()).doesNotContainKey("snippet");
+	}
+
+	@Test
+	void nearDuplicateBodiesAreRemoved() {
+
+		String body = "Spring AI Alibaba 提供了基于 DashScope 的模型接入、Graph 多智能体编排以及 MCP 工具调用等能力，"
+				+ "开发者可以通过 starter 快速构建智能体应用，并结合向量库实现检索增强生成。";
+		List<IQSSearchResponse.PageItem> items = List.of(
+				item("origin", "https://origin.example.com", null, body),
+				// 转载：仅末尾多了来源说明
+				item("mirror", "https://mirror.example.com", null, body + "（转载自官网）"),
+				item("other", "https://other.example.com", null, "完全不同的一篇文章，介绍的是 Java 虚拟线程和结构化并发的使用方式与注意事项。"));
+
+		DataClean.CleanedData cleaned = dataClean.clean(response(items, "q"), 10);
+
+		assertThat(cleaned.documents()).extracting(doc -> doc.getMetadata().get("title"))
+				.containsExactly("origin", "other");
+		assertThat(cleaned.webLinks()).containsExactly(
+				Map.entry(1, "https://origin.example.com"), Map.entry(2, "https://other.example.com"));
+	}
+
+	private static IQSSearchResponse response(String query, int items) {
+
+		List<IQSSearchResponse.PageItem> pageItems = new ArrayList<>(items);
+		for (int i = 0; i < items; i++) {
+			pageItems.add(item(query + "-title-" + i, "https://example.com/" + query + "/" + i, null,
+					randomBody(new Random(query.hashCode() * 31L + i))));
+		}
+		return response(pageItems, query);
+	}
+
+	private static String randomBody(Random random) {
+
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			body.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+		}
+		return body.toString();
+	}
+
+	private static IQSSearchResponse response(List<IQSSearchResponse.PageItem> pageItems, String query) {
+
+		return new IQSSearchResponse("request", pageItems, List.of(), null,
+				new IQSSearchResponse.QueryContext("Generic", new IQSSearchResponse.OriginalQuery(query, "OneWeek"), null),
+				null);
+	}
+
+	private static IQSSearchResponse.PageItem item(String title, String link, String snippet, String mainText) {
+
+		return new IQSSearchResponse.PageItem(title, link, snippet, null, mainText, null, List.of(), "example.com",
+				null, null, 0.5);
+	}
+
+}
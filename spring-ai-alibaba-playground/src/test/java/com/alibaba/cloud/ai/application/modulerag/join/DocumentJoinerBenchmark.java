@@ -0,0 +1,178 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.join;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.join.DocumentJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ConcatenationDocumentJoiner 与 ReciprocalRankFusionDocumentJoiner 在不同 (查询数 × 每查询文档数) 下的 join 耗时对比。
+ * <p>
+ * ConcatenationDocumentJoiner 只按位置取前 10 个文档，不看全部结果；作为参照，另外实现了一个直接的 RRF
+ * （展开全部文档、用拼接的字符串 key 去重、对全部候选排序），用来衡量指纹去重与 top-K 堆的收益。
+ * <p>
+ * 每个查询的结果从一个共享的来源池中按 Zipf 分布抽取，模拟扩展查询之间大量重复召回的情况。
+ * 项目中没有引入 JMH，这里用预热 + 多轮计时的方式测量，运行方式：
+ * <pre>
+ * mvn test -Dtest=DocumentJoinerBenchmark -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DocumentJoinerBenchmark {
+
+	private static final Logger logger = LoggerFactory.getLogger(DocumentJoinerBenchmark.class);
+
+	private static final int[][] SHAPES = { { 3, 2 }, { 3, 10 }, { 5, 10 }, { 5, 50 }, { 8, 100 }, { 16, 200 } };
+
+	private static final int WARMUP_ROUNDS = 20_000;
+
+	private static final int MEASURE_ROUNDS = 50_000;
+
+	@Test
+	void joinLatency() {
+
+		DocumentJoiner concatenation = new ConcatenationDocumentJoiner();
+		DocumentJoiner naiveFusion = new NaiveFusionDocumentJoiner();
+		DocumentJoiner fusion = ReciprocalRankFusionDocumentJoiner.builder().build();
+
+		logger.info(String.format("%-8s %-6s %18s %18s %18s", "queries", "docs", "concatenation(us)",
+				"naive-rrf(us)", "rrf(us)"));
+		for (int[] shape : SHAPES) {
+			Map<Query, List<List<Document>>> input = input(new Random(42), shape[0], shape[1]);
+			double concatenationMicros = measure(concatenation, input, shape);
+			double naiveFusionMicros = measure(naiveFusion, input, shape);
+			double fusionMicros = measure(fusion, input, shape);
+			logger.info(String.format("%-8d %-6d %18.3f %18.3f %18.3f", shape[0], shape[1], concatenationMicros,
+					naiveFusionMicros, fusionMicros));
+
+			// 两种 RRF 实现的排序结果一致
+			assertThat(fusion.join(input)).extracting(Document::getId)
+					.containsExactlyElementsOf(naiveFusion.join(input).stream().map(Document::getId).toList());
+		}
+	}
+
+	private static double measure(DocumentJoiner joiner, Map<Query, List<List<Document>>> input, int[] shape) {
+
+		int scale = Math.max(1, shape[0] * shape[1] / 50);
+		long sink = 0;
+		for (int i = 0; i < WARMUP_ROUNDS / scale; i++) {
+			sink += joiner.join(input).size();
+		}
+		int rounds = MEASURE_ROUNDS / scale;
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			sink += joiner.join(input).size();
+		}
+		long elapsed = System.nanoTime() - start;
+		assertThat(sink).isPositive();
+		return elapsed / 1e3 / rounds;
+	}
+
+	private static Map<Query, List<List<Document>>> input(Random random, int queries, int docsPerQuery) {
+
+		int pool = queries * docsPerQuery / 2 + 1;
+		Map<Query, List<List<Document>>> input = new LinkedHashMap<>();
+		for (int q = 0; q < queries; q++) {
+			List<Document> documents = new ArrayList<>(docsPerQuery);
+			for (int d = 0; d < docsPerQuery; d++) {
+				int source = zipf(random, pool);
+				documents.add(Document.builder()
+						.text("body of document " + source)
+						.metadata(Map.of(
+								"source", "https://example.com/article/" + source,
+								"title", "title " + source,
+								"rerankScore", random.nextDouble()))
+						.build());
+			}
+			input.put(new Query("expanded query " + q), List.of(documents));
+		}
+		return input;
+	}
+
+	private static int zipf(Random random, int n) {
+
+		// 近似 Zipf(s=1)：按 log 均匀抽样
+		return (int) Math.min(n - 1, Math.floor(Math.exp(random.nextDouble() * Math.log(n + 1)) - 1));
+	}
+
+	/**
+	 * 直接的 RRF 实现：与 ReciprocalRankFusionDocumentJoiner 的打分规则相同（默认参数），只是不做任何优化。
+	 */
+	private static final class NaiveFusionDocumentJoiner implements DocumentJoiner {
+
+		@Override
+		public List<Document> join(Map<Query, List<List<Document>>> documentsForQuery) {
+
+			Map<String, Document> documents = new HashMap<>();
+			Map<String, String> aliases = new HashMap<>();
+			Map<String, Double> scores = new HashMap<>();
+			List<String> order = new ArrayList<>();
+
+			documentsForQuery.values().stream().flatMap(List::stream).forEach(list -> {
+				Set<String> seenInList = new HashSet<>();
+				int rank = 0;
+				for (Document document : list) {
+					rank++;
+					List<String> keys = new ArrayList<>();
+					keys.add("ID:" + document.getId());
+					if (document.getMetadata().get("source") instanceof String source) {
+						keys.add("SOURCE:" + source);
+					}
+					if (document.getMetadata().get("file_name") instanceof String fileName) {
+						keys.add("FILE_NAME:" + fileName);
+					}
+					String canonical = keys.stream().map(aliases::get).filter(Objects::nonNull).findFirst()
+							.orElse(keys.get(0));
+					keys.forEach(key -> aliases.putIfAbsent(key, canonical));
+					if (documents.putIfAbsent(canonical, document) == null) {
+						order.add(canonical);
+					}
+					if (!seenInList.add(canonical)) {
+						continue;
+					}
+					double rerankScore = ((Number) document.getMetadata().get("rerankScore")).doubleValue();
+					scores.merge(canonical, (0.5 + 0.5 * rerankScore) / (60 + rank), Double::sum);
+				}
+			});
+
+			List<String> sorted = new ArrayList<>(order);
+			sorted.sort(Comparator.comparingDouble((String key) -> scores.get(key)).reversed());
+			return sorted.stream().limit(10).map(documents::get).toList();
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.join;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ReciprocalRankFusionDocumentJoiner} 的融合排序、rerank 分数打破平局、去重与查询权重。
+ */
+class ReciprocalRankFusionDocumentJoinerTest {
+
+	@Test
+	void documentsRecalledByMoreQueriesRankHigher() {
+
+		Map<Query, List<List<Document>>> input = new LinkedHashMap<>();
+		input.put(new Query("q1"), List.of(List.of(doc("a", 0.5), doc("b", 0.5), doc("c", 0.5))));
+		input.put(new Query("q2"), List.of(List.of(doc("c", 0.5), doc("d", 0.5))));
+
+		List<Document> joined = ReciprocalRankFusionDocumentJoiner.builder().build().join(input);
+
+		assertThat(joined).extracting(d -> d.getMetadata().get("source")).containsExactly("c", "a", "b", "d");
+		assertThat(joined.get(0).getScore()).isGreaterThan(joined.get(1).getScore());
+	}
+
+	@Test
+	void rerankScoreBreaksRankTies() {
+
+		Map<Query, List<List<Document>>> input = new LinkedHashMap<>();
+		input.put(new Query("q1"), List.of(List.of(doc("a", 0.1))));
+		input.put(new Query("q2"), List.of(List.of(doc("b", 0.9))));
+
+		assertThat(ReciprocalRankFusionDocumentJoiner.builder().build().join(input))
+				.extracting(d -> d.getMetadata().get("source")).containsExactly("b", "a");
+		// 纯 RRF 时分数相同，先出现的文档在前
+		assertThat(ReciprocalRankFusionDocumentJoiner.builder().scoreWeight(0).build().join(input))
+				.extracting(d -> d.getMetadata().get("source")).containsExactly("a", "b");
+	}
+
+	@Test
+	void deduplicatesBySourceAndKeepsTopK() {
+
+		Document first = doc("same", 0.8);
+		Document mirror = Document.builder().text("mirror").metadata(Map.of("source", "same", "rerankScore", 0.8)).build();
+		Map<Query, List<List<Document>>> input = new LinkedHashMap<>();
+		input.put(new Query("q1"), List.of(List.of(first, doc("x", 0.5), doc("y", 0.5))));
+		input.put(new Query("q2"), List.of(List.of(mirror, doc("z", 0.5))));
+
+		List<Document> joined = ReciprocalRankFusionDocumentJoiner.builder().topK(2).build().join(input);
+
+		assertThat(joined).hasSize(2);
+		assertThat(joined.get(0).getId()).isEqualTo(first.getId());
+		assertThat(joined.get(0).getText()).isEqualTo(first.getText());
+	}
+
+	@Test
+	void ignoresQueriesWithNonPositiveWeight() {
+
+		Query ignored = new Query("ignored");
+		Map<Query, List<List<Document>>> input = new LinkedHashMap<>();
+		input.put(ignored, List.of(List.of(doc("a", 1.0))));
+		input.put(new Query("q2"), List.of(List.of(doc("b", 0.1))));
+
+		List<Document> joined = ReciprocalRankFusionDocumentJoiner.builder()
+				.queryWeight(query -> query.equals(ignored) ? 0 : 1)
+				.build()
+				.join(input);
+
+		assertThat(joined).extracting(d -> d.getMetadata().get("source")).containsExactly("b");
+	}
+
+	@Test
+	void emptyInputYieldsEmptyResult() {
+
+		assertThat(ReciprocalRankFusionDocumentJoiner.builder().build().join(Map.of())).isEmpty();
+		assertThat(ReciprocalRankFusionDocumentJoiner.builder().build()
+				.join(Map.of(new Query("q"), List.of(List.of())))).isEmpty();
+	}
+
+	private static Document doc(String source, double rerankScore) {
+
+		return Document.builder()
+				.text("text of " + source)
+				.metadata(Map.of("source", source, "rerankScore", rerankScore))
+				.build();
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * 按文本返回预先生成的向量，避免调用真实的 embedding 服务。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+final class FixedEmbeddingModel implements EmbeddingModel {
+
+	private final Map<String, float[]> vectors = new ConcurrentHashMap<>();
+
+	private final int dimensions;
+
+	FixedEmbeddingModel(int dimensions) {
+
+		this.dimensions = dimensions;
+	}
+
+	FixedEmbeddingModel put(String text, float... vector) {
+
+		vectors.put(text, vector);
+		return this;
+	}
+
+	float[] vector(String text) {
+
+		float[] vector = vectors.get(text);
+		if (vector == null) {
+			throw new IllegalArgumentException("No vector for text: " + text);
+		}
+		return vector.clone();
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+
+		List<Embedding> embeddings = new ArrayList<>();
+		for (int i = 0; i < request.getInstructions().size(); i++) {
+			embeddings.add(new Embedding(vector(request.getInstructions().get(i)), i));
+		}
+		return new EmbeddingResponse(embeddings);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+
+		return vector(document.getText());
+	}
+
+	@Override
+	public int dimensions() {
+
+		return dimensions;
+	}
+
+}
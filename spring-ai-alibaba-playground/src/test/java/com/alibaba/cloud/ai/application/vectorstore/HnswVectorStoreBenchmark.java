@@ -0,0 +1,162 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HNSW 与暴力检索（MappedVectorStore）的召回率 / 延迟对比。
+ * <p>
+ * 使用聚簇分布的合成向量模拟真实 embedding，运行方式：
+ * <pre>
+ * mvn test -Dtest=HnswVectorStoreBenchmark -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HnswVectorStoreBenchmark {
+
+	private static final Logger logger = LoggerFactory.getLogger(HnswVectorStoreBenchmark.class);
+
+	private static final int DOCUMENTS = 20_000;
+
+	private static final int DIMENSIONS = 256;
+
+	private static final int CLUSTERS = 64;
+
+	/**
+	 * 真实 embedding 的内在维度远低于向量维度，这里用低维隐变量投影到高维来模拟
+	 */
+	private static final int INTRINSIC_DIMENSIONS = 24;
+
+	private static final int QUERIES = 200;
+
+	private static final int TOP_K = 10;
+
+	@Test
+	void recallVersusLatency() {
+
+		Random random = new Random(7);
+		float[][] centroids = new float[CLUSTERS][];
+		for (int c = 0; c < CLUSTERS; c++) {
+			centroids[c] = sample(random, null, null);
+		}
+		float[][] projection = new float[INTRINSIC_DIMENSIONS][DIMENSIONS];
+		for (float[] row : projection) {
+			for (int i = 0; i < DIMENSIONS; i++) {
+				row[i] = (float) (random.nextGaussian() / Math.sqrt(DIMENSIONS));
+			}
+		}
+
+		FixedEmbeddingModel embeddingModel = new FixedEmbeddingModel(DIMENSIONS);
+		List<Document> documents = new ArrayList<>(DOCUMENTS);
+		for (int i = 0; i < DOCUMENTS; i++) {
+			String text = "doc-" + i;
+			embeddingModel.put(text, sample(random, centroids[random.nextInt(CLUSTERS)], projection));
+			documents.add(Document.builder().id(String.valueOf(i)).text(text).build());
+		}
+		List<String> queries = new ArrayList<>(QUERIES);
+		for (int i = 0; i < QUERIES; i++) {
+			String text = "query-" + i;
+			embeddingModel.put(text, sample(random, centroids[random.nextInt(CLUSTERS)], projection));
+			queries.add(text);
+		}
+
+		MappedVectorStore bruteForce = MappedVectorStore.builder(embeddingModel).build();
+		bruteForce.add(documents);
+
+		long buildStart = System.nanoTime();
+		HnswVectorStore hnsw = HnswVectorStore.builder(embeddingModel).m(16).efConstruction(200).build();
+		hnsw.add(documents);
+		logger.info("HNSW build: {} documents in {} ms", DOCUMENTS, (System.nanoTime() - buildStart) / 1_000_000);
+
+		List<Set<String>> truth = new ArrayList<>(QUERIES);
+		long bruteNanos = 0;
+		for (String query : queries) {
+			long start = System.nanoTime();
+			List<Document> result = bruteForce.similaritySearch(SearchRequest.builder().query(query).topK(TOP_K).build());
+			bruteNanos += System.nanoTime() - start;
+			truth.add(result.stream().map(Document::getId).collect(Collectors.toSet()));
+		}
+		logger.info("brute force: recall@{}=1.000, avg latency={} ms", TOP_K,
+				String.format("%.3f", bruteNanos / 1e6 / QUERIES));
+
+		double recallAt64 = 0;
+		for (int ef : new int[] { 16, 32, 64, 128, 256 }) {
+			long nanos = 0;
+			int hits = 0;
+			for (int q = 0; q < QUERIES; q++) {
+				float[] vector = embeddingModel.vector(queries.get(q));
+				long start = System.nanoTime();
+				List<HnswVectorStore.Candidate> candidates = hnsw.search(vector, Math.max(ef, TOP_K));
+				nanos += System.nanoTime() - start;
+				for (int i = 0; i < TOP_K && i < candidates.size(); i++) {
+					if (truth.get(q).contains(String.valueOf(candidates.get(i).node()))) {
+						hits++;
+					}
+				}
+			}
+			double recall = hits / (double) (QUERIES * TOP_K);
+			if (ef == 64) {
+				recallAt64 = recall;
+			}
+			logger.info("hnsw efSearch={} recall@{}={}, avg latency={} ms", ef, TOP_K, String.format("%.3f", recall),
+					String.format("%.3f", nanos / 1e6 / QUERIES));
+		}
+
+		assertThat(recallAt64).isGreaterThan(0.9);
+	}
+
+	/**
+	 * center 为 null 时生成随机簇中心，否则在簇中心附近按低维隐变量投影并叠加少量噪声。
+	 */
+	private static float[] sample(Random random, float[] center, float[][] projection) {
+
+		float[] vector = new float[DIMENSIONS];
+		if (center == null) {
+			for (int i = 0; i < DIMENSIONS; i++) {
+				vector[i] = (float) random.nextGaussian();
+			}
+			return VectorStoreSupport.normalize(vector);
+		}
+
+		for (float[] direction : projection) {
+			float z = (float) random.nextGaussian() * 0.6f;
+			for (int i = 0; i < DIMENSIONS; i++) {
+				vector[i] += z * direction[i];
+			}
+		}
+		for (int i = 0; i < DIMENSIONS; i++) {
+			vector[i] += center[i] + (float) (random.nextGaussian() * 0.05 / Math.sqrt(DIMENSIONS));
+		}
+		return VectorStoreSupport.normalize(vector);
+	}
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link HnswVectorStore} 的增删、与暴力检索对比的召回率，以及快照写回后重新打开。
+ */
+class HnswVectorStoreTest {
+
+	private static final int DIMENSIONS = 16;
+
+	private static final int DOCUMENTS = 500;
+
+	private static final int QUERIES = 50;
+
+	private static final int TOP_K = 10;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void insertsAndDeletesDocuments() {
+
+		FixedEmbeddingModel embeddingModel = new FixedEmbeddingModel(3)
+				.put("alpha", 1, 0, 0)
+				.put("beta", 0.9f, 0.1f, 0)
+				.put("gamma", 0.5f, 0.5f, 0)
+				.put("alpha v2", -1, 1, 0)
+				.put("q", 1, 0, 0);
+		HnswVectorStore store = HnswVectorStore.builder(embeddingModel).m(4).build();
+
+		store.add(List.of(document("a", "alpha"), document("b", "beta"), document("g", "gamma")));
+		assertThat(store.size()).isEqualTo(3);
+		assertThat(search(store, "q", 2)).extracting(Document::getId).containsExactly("a", "b");
+
+		store.delete(List.of("a"));
+		assertThat(store.size()).isEqualTo(2);
+		assertThat(search(store, "q", 2)).extracting(Document::getId).containsExactly("b", "g");
+
+		// 相同 id 再次写入时替换旧节点
+		store.add(List.of(document("b", "alpha v2")));
+		assertThat(store.size()).isEqualTo(2);
+		assertThat(search(store, "q", 1)).extracting(Document::getId).containsExactly("g");
+	}
+
+	@Test
+	void recallMatchesBruteForceOnSmallSet() {
+
+		Random random = new Random(7);
+		FixedEmbeddingModel embeddingModel = new FixedEmbeddingModel(DIMENSIONS);
+		List<Document> documents = new ArrayList<>(DOCUMENTS);
+		List<float[]> vectors = new ArrayList<>(DOCUMENTS);
+		for (int i = 0; i < DOCUMENTS; i++) {
+			float[] vector = randomVector(random);
+			embeddingModel.put("doc-" + i, vector);
+			vectors.add(VectorStoreSupport.normalize(vector.clone()));
+			documents.add(document(String.valueOf(i), "doc-" + i));
+		}
+		HnswVectorStore store = HnswVectorStore.builder(embeddingModel).m(8).efConstruction(100).efSearch(64).build();
+		store.add(documents);
+
+		int hits = 0;
+		for (int q = 0; q < QUERIES; q++) {
+			float[] query = randomVector(random);
+			embeddingModel.put("query-" + q, query);
+			float[] normalized = VectorStoreSupport.normalize(query.clone());
+			Set<String> expected = IntStream.range(0, DOCUMENTS)
+					.boxed()
+					.sorted(Comparator.comparingDouble(i -> -VectorStoreSupport.dot(vectors.get(i), normalized)))
+					.limit(TOP_K)
+					.map(String::valueOf)
+					.collect(Collectors.toSet());
+			hits += (int) store.similaritySearch(SearchRequest.builder().query("query-" + q).topK(TOP_K)
+							.similarityThresholdAll().build())
+					.stream()
+					.map(Document::getId)
+					.filter(expected::contains)
+					.count();
+		}
+
+		assertThat((double) hits / (QUERIES * TOP_K)).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void snapshotRoundTripKeepsDocumentsAndDeletes() throws IOException {
+
+		FixedEmbeddingModel embeddingModel = new FixedEmbeddingModel(3)
+				.put("alpha", 1, 0, 0)
+				.put("beta", 0.9f, 0.1f, 0)
+				.put("gamma", 0.5f, 0.5f, 0)
+				.put("q", 1, 0, 0);
+		Path snapshotPath = dir.resolve("hnsw.bin");
+
+		HnswVectorStore store = HnswVectorStore.builder(embeddingModel).m(4).snapshotPath(snapshotPath).build();
+		assertThat(store.hasSnapshot()).isFalse();
+		store.add(List.of(document("a", "alpha"), document("b", "beta"), document("g", "gamma")));
+		store.delete(List.of("b"));
+		store.snapshot();
+
+		HnswVectorStore reopened = HnswVectorStore.builder(embeddingModel).m(4).snapshotPath(snapshotPath).build();
+		assertThat(reopened.hasSnapshot()).isTrue();
+		assertThat(reopened.size()).isEqualTo(2);
+		List<Document> results = search(reopened, "q", 10);
+		assertThat(results).extracting(Document::getId).containsExactly("a", "g");
+		assertThat(results.get(1).getText()).isEqualTo("gamma");
+		assertThat(results.get(1).getMetadata()).containsEntry("source", "g.md");
+	}
+
+	@Test
+	void loadsSnapshotOnFirstUse() throws IOException {
+
+		FixedEmbeddingModel embeddingModel = new FixedEmbeddingModel(3).put("alpha", 1, 0, 0);
+		Path snapshotPath = dir.resolve("hnsw.bin");
+		HnswVectorStore store = HnswVectorStore.builder(embeddingModel).snapshotPath(snapshotPath).build();
+		store.add(List.of(document("a", "alpha")));
+		store.snapshot();
+
+		// 创建实例时不读快照，文件在第一次使用前被删掉时按空库处理
+		HnswVectorStore lazy = HnswVectorStore.builder(embeddingModel).snapshotPath(snapshotPath).build();
+		Files.delete(snapshotPath);
+		assertThat(lazy.hasSnapshot()).isFalse();
+		assertThat(lazy.size()).isZero();
+	}
+
+	@Test
+	void rejectsGraphFromAnotherSnapshot() throws IOException {
+
+		FixedEmbeddingModel embeddingModel = new FixedEmbeddingModel(3)
+				.put("alpha", 1, 0, 0)
+				.put("beta", 0, 1, 0)
+				.put("gamma", 0, 0, 1);
+		Path snapshotPath = dir.resolve("hnsw.bin");
+		Path graphPath = dir.resolve("hnsw.bin.graph");
+		Path staleGraph = dir.resolve("stale.graph");
+
+		HnswVectorStore store = HnswVectorStore.builder(embeddingModel).snapshotPath(snapshotPath).build();
+		store.add(List.of(document("a", "alpha"), document("b", "beta")));
+		store.snapshot();
+		Files.copy(graphPath, staleGraph);
+		store.delete(List.of("b"));
+		store.add(List.of(document("g", "gamma")));
+		store.snapshot();
+
+		// 模拟进程在替换图之后、替换向量之前退出：节点数相同，但两个文件来自不同的快照
+		Files.copy(staleGraph, graphPath, StandardCopyOption.REPLACE_EXISTING);
+		HnswVectorStore reopened = HnswVectorStore.builder(embeddingModel).snapshotPath(snapshotPath).build();
+		assertThat(reopened.hasSnapshot()).isFalse();
+		assertThat(reopened.size()).isZero();
+	}
+
+	private static List<Document> search(HnswVectorStore store, String query, int topK) {
+
+		return store.similaritySearch(SearchRequest.builder().query(query).topK(topK).build());
+	}
+
+	private static Document document(String id, String text) {
+
+		return Document.builder().id(id).text(text).metadata(Map.of("source", id + ".md")).build();
+	}
+
+	private static float[] randomVector(Random random) {
+
+		float[] vector = new float[DIMENSIONS];
+		for (int i = 0; i < DIMENSIONS; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link MappedVectorStore} 的增删、检索，以及快照写回后重新打开。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+class MappedVectorStoreTest {
+
+	@TempDir
+	Path dir;
+
+	private Path snapshotPath;
+
+	private FixedEmbeddingModel embeddingModel;
+
+	@BeforeEach
+	void setUp() {
+
+		snapshotPath = dir.resolve("vector-store.bin");
+		embeddingModel = new FixedEmbeddingModel(3)
+				.put("alpha", 1, 0, 0)
+				.put("beta", 0.9f, 0.1f, 0)
+				.put("gamma", 0.5f, 0.5f, 0)
+				.put("delta", 0, 1, 0)
+				.put("opposite", -1, 0, 0)
+				.put("alpha v2", -1, 1, 0)
+				.put("q", 1, 0, 0);
+	}
+
+	@Test
+	void searchReturnsTopKInScoreOrder() {
+
+		MappedVectorStore store = open();
+		store.add(List.of(document("d", "delta", "b.md"), document("b", "beta", "a.md"),
+				document("o", "opposite", "a.md"), document("a", "alpha", "a.md"), document("g", "gamma", "b.md")));
+
+		List<Document> results = search(store, 3);
+
+		assertThat(results).extracting(Document::getId).containsExactly("a", "b", "g");
+		assertThat(results.get(0).getScore()).isEqualTo(1d);
+		assertThat(results).extracting(Document::getScore).isSortedAccordingTo((x, y) -> Double.compare(y, x));
+
+		// 默认阈值为 0，反方向的文档不会返回
+		assertThat(search(store, 10)).extracting(Document::getId).containsExactly("a", "b", "g", "d");
+
+		List<Document> filtered = store.similaritySearch(
+				SearchRequest.builder().query("q").topK(10).filterExpression("source == 'b.md'").build());
+		assertThat(filtered).extracting(Document::getId).containsExactly("g", "d");
+	}
+
+	@Test
+	void snapshotMergesPendingAndBaseRows() throws IOException {
+
+		MappedVectorStore store = open();
+		assertThat(store.hasSnapshot()).isFalse();
+		store.add(List.of(document("a", "alpha", "a.md"), document("b", "beta", "a.md")));
+		store.snapshot();
+
+		// 快照之后的新增和删除都在内存里，与快照中的行一起参与检索
+		store.add(List.of(document("g", "gamma", "b.md")));
+		store.delete(List.of("b"));
+		assertThat(store.size()).isEqualTo(2);
+		assertThat(search(store, 10)).extracting(Document::getId).containsExactly("a", "g");
+
+		store.snapshot();
+		MappedVectorStore reopened = open();
+		assertThat(reopened.hasSnapshot()).isTrue();
+		assertThat(reopened.size()).isEqualTo(2);
+		List<Document> results = search(reopened, 10);
+		assertThat(results).extracting(Document::getId).containsExactly("a", "g");
+		assertThat(results.get(1).getText()).isEqualTo("gamma");
+		assertThat(results.get(1).getMetadata()).containsEntry("source", "b.md");
+	}
+
+	@Test
+	void deletesSurviveReloadOnlyAfterSnapshot() throws IOException {
+
+		MappedVectorStore store = open();
+		store.add(List.of(document("a", "alpha", "a.md"), document("b", "beta", "a.md")));
+		store.snapshot();
+
+		store.delete(List.of("a"));
+		// 没有写快照，重新打开时删除不生效
+		assertThat(search(open(), 10)).extracting(Document::getId).containsExactly("a", "b");
+
+		store.snapshot();
+		MappedVectorStore reopened = open();
+		assertThat(reopened.size()).isEqualTo(1);
+		assertThat(search(reopened, 10)).extracting(Document::getId).containsExactly("b");
+	}
+
+	@Test
+	void addingExistingIdReplacesSnapshotRow() throws IOException {
+
+		MappedVectorStore store = open();
+		store.add(List.of(document("a", "alpha", "a.md"), document("b", "beta", "a.md")));
+		store.snapshot();
+
+		store.add(List.of(document("a", "alpha v2", "a.md")));
+		assertThat(store.size()).isEqualTo(2);
+		assertThat(search(store, 1)).extracting(Document::getId).containsExactly("b");
+
+		store.snapshot();
+		MappedVectorStore reopened = open();
+		assertThat(reopened.size()).isEqualTo(2);
+		assertThat(search(reopened, 10)).extracting(Document::getId).containsExactly("b");
+	}
+
+	private MappedVectorStore open() {
+
+		return MappedVectorStore.builder(embeddingModel).snapshotPath(snapshotPath).build();
+	}
+
+	private static List<Document> search(MappedVectorStore store, int topK) {
+
+		return store.similaritySearch(SearchRequest.builder().query("q").topK(topK).build());
+	}
+
+	private static Document document(String id, String text, String source) {
+
+		return Document.builder().id(id).text(text).metadata(Map.of("source", source)).build();
+	}
+
+}
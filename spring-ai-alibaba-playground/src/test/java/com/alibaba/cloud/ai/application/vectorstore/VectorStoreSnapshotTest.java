@@ -0,0 +1,164 @@
+/*
+ * Copyright 2024-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.vectorstore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * {@link VectorStoreSnapshot} 的读写往返与格式校验。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+class VectorStoreSnapshotTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void roundTripsVectorsAndDocuments() throws IOException {
+
+		Path path = dir.resolve("store.bin");
+		Map<String, Object> metadata = new LinkedHashMap<>();
+		metadata.put("source", "a.md");
+		metadata.put("page", 3);
+		metadata.put("size", 1L << 40);
+		metadata.put("weight", 0.25d);
+		metadata.put("draft", true);
+		metadata.put("owner", null);
+		metadata.put("path", Path.of("docs", "a.md"));
+
+		try (VectorStoreSnapshot.Writer writer = new VectorStoreSnapshot.Writer(path, 3, 2)) {
+			writer.append("a", "alpha", metadata, VectorStoreSupport.normalize(new float[] { 1, 2, 2 }));
+			writer.append("b", null, null, new float[] { 0, 1, 0 });
+		}
+
+		try (VectorStoreSnapshot snapshot = VectorStoreSnapshot.open(path)) {
+			assertThat(snapshot.dimensions()).isEqualTo(3);
+			assertThat(snapshot.size()).isEqualTo(2);
+			assertThat(snapshot.id(1)).isEqualTo("b");
+
+			VectorStoreSnapshot.Record a = snapshot.read(0);
+			assertThat(a.id()).isEqualTo("a");
+			assertThat(a.text()).isEqualTo("alpha");
+			// 不支持的类型按字符串保存，其余类型原样还原
+			Map<String, Object> expected = new LinkedHashMap<>(metadata);
+			expected.put("path", Path.of("docs", "a.md").toString());
+			assertThat(a.metadata()).containsExactlyEntriesOf(expected);
+
+			VectorStoreSnapshot.Record b = snapshot.read(1);
+			assertThat(b.text()).isNull();
+			assertThat(b.metadata()).isEmpty();
+
+			float[] vector = new float[3];
+			snapshot.copyVector(0, vector);
+			assertThat(vector).containsExactly(1 / 3f, 2 / 3f, 2 / 3f);
+			assertThat(snapshot.dot(0, new float[] { 0, 1, 0 })).isCloseTo(2 / 3f, within(1e-6f));
+			assertThat(snapshot.dot(1, new float[] { 0, 1, 0 })).isEqualTo(1f);
+		}
+	}
+
+	@Test
+	void copiesRowsIntoNewSnapshot() throws IOException {
+
+		Path source = dir.resolve("source.bin");
+		try (VectorStoreSnapshot.Writer writer = new VectorStoreSnapshot.Writer(source, 2, 3)) {
+			writer.append("a", "alpha", Map.of("n", 1), new float[] { 1, 0 });
+			writer.append("b", "beta", Map.of("n", 2), new float[] { 0, 1 });
+			writer.append("c", "gamma", Map.of("n", 3), new float[] { -1, 0 });
+		}
+
+		Path target = dir.resolve("target.bin");
+		try (VectorStoreSnapshot snapshot = VectorStoreSnapshot.open(source);
+				VectorStoreSnapshot.Writer writer = new VectorStoreSnapshot.Writer(target, 2, 2)) {
+			writer.copy(snapshot, 2);
+			writer.copy(snapshot, 0);
+		}
+
+		try (VectorStoreSnapshot snapshot = VectorStoreSnapshot.open(target)) {
+			assertThat(snapshot.size()).isEqualTo(2);
+			assertThat(snapshot.read(0)).isEqualTo(new VectorStoreSnapshot.Record("c", "gamma", Map.of("n", 3)));
+			assertThat(snapshot.read(1)).isEqualTo(new VectorStoreSnapshot.Record("a", "alpha", Map.of("n", 1)));
+			assertThat(snapshot.dot(0, new float[] { -1, 0 })).isEqualTo(1f);
+		}
+	}
+
+	@Test
+	void emptySnapshotCanBeOpened() throws IOException {
+
+		Path path = dir.resolve("empty.bin");
+		new VectorStoreSnapshot.Writer(path, 0, 0).close();
+
+		try (VectorStoreSnapshot snapshot = VectorStoreSnapshot.open(path)) {
+			assertThat(snapshot.size()).isZero();
+		}
+	}
+
+	@Test
+	void rejectsFileWithWrongHeader() throws IOException {
+
+		Path path = dir.resolve("store.bin");
+		try (VectorStoreSnapshot.Writer writer = new VectorStoreSnapshot.Writer(path, 2, 1)) {
+			writer.append("a", "alpha", Map.of(), new float[] { 1, 0 });
+		}
+
+		byte[] bytes = Files.readAllBytes(path);
+		ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(4, VectorStoreSnapshot.VERSION + 1);
+		Files.write(path, bytes);
+		assertThatThrownBy(() -> VectorStoreSnapshot.open(path)).isInstanceOf(IOException.class)
+				.hasMessageContaining("unsupported version");
+
+		Path json = dir.resolve("store.json");
+		Files.writeString(json, "[" + " ".repeat(VectorStoreSnapshot.HEADER_SIZE) + "]");
+		assertThatThrownBy(() -> VectorStoreSnapshot.open(json)).isInstanceOf(IOException.class)
+				.hasMessageContaining("Not a vector store snapshot");
+	}
+
+	@Test
+	void incompleteWriteLeavesNoFile() throws IOException {
+
+		Path path = dir.resolve("store.bin.tmp");
+		VectorStoreSnapshot.Writer writer = new VectorStoreSnapshot.Writer(path, 2, 2);
+		writer.append("a", "alpha", Map.of(), new float[] { 1, 0 });
+
+		assertThatThrownBy(writer::close).isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("expects 2 documents, but got 1");
+		assertThat(path).doesNotExist();
+
+		try (VectorStoreSnapshot.Writer full = new VectorStoreSnapshot.Writer(path, 2, 1)) {
+			full.append("a", "alpha", Map.of(), new float[] { 1, 0 });
+			assertThatThrownBy(() -> full.append("b", "beta", Map.of(), new float[] { 0, 1 }))
+					.isInstanceOf(IllegalStateException.class);
+		}
+		assertThat(path).exists();
+	}
+
+}
@@ -0,0 +1,154 @@
+package com.alibaba.cloud.ai.rag.parallel.retrieve;
+
+import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
+import com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * @Author NGshiyu
+ * @Description DashScopeApi 客户端注册表
+ * <p>
+ * 按 (baseUrl, workspaceId, apiKey) 复用 DashScopeApi，所有客户端共享同一个 JDK HttpClient，HTTP 连接在请求之间复用，
+ * 不再为每个知识库、每次查询新建客户端。知识库名称到 pipelineId 的解析结果同样缓存，检索时只需一次 HTTP 请求。
+ * 线程安全，可在多个 KnowledgeBaseRetrieveProcess 之间共享。
+ * @CreateTime 2026/10/18 10:12
+ */
+public class DashScopeApiRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(DashScopeApiRegistry.class);
+
+    private static final DashScopeApiRegistry SHARED = new DashScopeApiRegistry(Duration.ofSeconds(3), Duration.ofSeconds(30));
+
+    private final Function<ClientKey, DashScopeApi> clientFactory;
+
+    private final Map<ClientKey, DashScopeApi> clients = new ConcurrentHashMap<>();
+
+    private final Map<PipelineKey, CompletableFuture<String>> pipelineIds = new ConcurrentHashMap<>();
+
+    /**
+     * @param connectTimeout 建立连接的超时时间
+     * @param readTimeout    单次 HTTP 请求等待响应的超时时间
+     */
+    public DashScopeApiRegistry(Duration connectTimeout, Duration readTimeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        this.clientFactory = key -> DashScopeApi.builder()
+                .baseUrl(key.baseUrl())
+                .workSpaceId(key.workspaceId())
+                .apiKey(key.apiKey())
+                // RestClient.Builder 是可变的，每个客户端使用独立的 builder，共享底层连接
+                .restClientBuilder(RestClient.builder().requestFactory(requestFactory))
+                .build();
+    }
+
+    /**
+     * @param clientFactory 按 key 创建客户端，测试中用来替换真实的 DashScopeApi
+     */
+    DashScopeApiRegistry(Function<ClientKey, DashScopeApi> clientFactory) {
+        this.clientFactory = Objects.requireNonNull(clientFactory, "clientFactory must not be null");
+    }
+
+    /**
+     * 进程内共享的注册表，KnowledgeBaseRetrieveProcess 默认使用它
+     */
+    public static DashScopeApiRegistry shared() {
+        return SHARED;
+    }
+
+    /**
+     * 获取知识库配置对应的客户端，不存在时创建
+     */
+    public DashScopeApi getClient(KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config) {
+        return clients.computeIfAbsent(ClientKey.of(config), key -> {
+            logger.info("创建 DashScopeApi 客户端：{}", key);
+            return clientFactory.apply(key);
+        });
+    }
+
+    /**
+     * 获取知识库的 pipelineId，首次访问时通过 DashScopeApi 解析并缓存
+     *
+     * @return pipelineId，知识库不存在时返回 null（不缓存）；解析失败时同样不缓存
+     */
+    public String getPipelineId(KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config) {
+        PipelineKey key = new PipelineKey(ClientKey.of(config), config.getIndexName());
+        CompletableFuture<String> pipelineId = pipelineIds.get(key);
+        if (pipelineId == null) {
+            // 先放入占位的 future，再在 map 之外发起 HTTP 请求，避免网络请求期间占用 ConcurrentHashMap 的桶锁；
+            // 同一个知识库的并发请求等待同一个结果
+            CompletableFuture<String> created = new CompletableFuture<>();
+            pipelineId = pipelineIds.putIfAbsent(key, created);
+            if (pipelineId == null) {
+                return resolvePipelineId(config, key, created);
+            }
+        }
+        try {
+            return pipelineId.join();
+        }
+        catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private String resolvePipelineId(KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config, PipelineKey key,
+                                     CompletableFuture<String> pipelineId) {
+        try {
+            String id = getClient(config).getPipelineIdByName(key.indexName());
+            if (id == null) {
+                pipelineIds.remove(key, pipelineId);
+            }
+            pipelineId.complete(id);
+            return id;
+        }
+        catch (RuntimeException e) {
+            pipelineIds.remove(key, pipelineId);
+            pipelineId.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 检索失败时移除缓存的 pipelineId，知识库被重建后下一次检索会重新解析
+     */
+    public void evictPipelineId(KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config) {
+        pipelineIds.remove(new PipelineKey(ClientKey.of(config), config.getIndexName()));
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    public record ClientKey(String baseUrl, String workspaceId, String apiKey) {
+
+        static ClientKey of(KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config) {
+            return new ClientKey(config.getBaseUrl(), config.getWorkspaceId(), config.getApiKey());
+        }
+
+        /**
+         * 日志中不输出完整的 apiKey
+         */
+        @Override
+        public String toString() {
+            String masked = Objects.isNull(apiKey) || apiKey.length() <= 8
+                    ? "****" : apiKey.substring(0, 4) + "****" + apiKey.substring(apiKey.length() - 4);
+            return "ClientKey[baseUrl=" + baseUrl + ", workspaceId=" + workspaceId + ", apiKey=" + masked + "]";
+        }
+    }
+
+    private record PipelineKey(ClientKey clientKey, String indexName) {
+    }
+}
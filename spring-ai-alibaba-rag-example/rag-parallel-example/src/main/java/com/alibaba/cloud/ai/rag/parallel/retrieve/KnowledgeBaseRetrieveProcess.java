@@ -1,7 +1,5 @@
 package com.alibaba.cloud.ai.rag.parallel.retrieve;
 
-import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
-import com.alibaba.cloud.ai.dashscope.rag.DashScopeDocumentRetriever;
 import com.alibaba.cloud.ai.dashscope.rag.DashScopeDocumentRetrieverOptions;
 import com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBaseConfigFinder;
 import com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration;
@@ -21,11 +19,13 @@ import org.springframework.ai.document.Document;
 import org.springframework.ai.rag.Query;
 import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -44,6 +44,31 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
      */
     private List<DashScopeDocumentWrapper> documentRetrievers = new ArrayList<>();
 
+    /**
+     * 复用的 DashScopeApi 客户端
+     */
+    private DashScopeApiRegistry clientRegistry = DashScopeApiRegistry.shared();
+
+    /**
+     * 单个知识库的检索时间上限（包含重试），超时的知识库不影响其他知识库的结果
+     */
+    private Duration indexTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 失败后的重试次数
+     */
+    private int maxRetries = 2;
+
+    /**
+     * 首次重试的等待时间，之后指数增长并叠加随机抖动
+     */
+    private Duration retryBackoff = Duration.ofMillis(500);
+
+    /**
+     * 全局重排后返回的文档数上限，小于等于 0 表示不限制
+     */
+    private int globalTopN = 0;
+
     public void setDocumentRetriever(List<DashScopeDocumentWrapper> documentRetrievers) {
         // 创建不可变列表，防止并发修改
         this.documentRetrievers = Optional.ofNullable(documentRetrievers)
@@ -64,6 +89,11 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
      */
     public static class ConfigurableRetrieverBuilder {
         private final List<DashScopeDocumentWrapper> documentRetrievers = new ArrayList<>();
+        private DashScopeApiRegistry clientRegistry = DashScopeApiRegistry.shared();
+        private Duration indexTimeout = Duration.ofSeconds(10);
+        private int maxRetries = 2;
+        private Duration retryBackoff = Duration.ofMillis(500);
+        private int globalTopN = 0;
 
         public ConfigurableRetrieverBuilder retrievers(List<DashScopeDocumentWrapper> documentRetrievers) {
             this.documentRetrievers.addAll(Optional.ofNullable(documentRetrievers).orElseGet(ArrayList::new));
@@ -80,12 +110,42 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
             return this;
         }
 
+        public ConfigurableRetrieverBuilder clientRegistry(DashScopeApiRegistry clientRegistry) {
+            this.clientRegistry = Objects.requireNonNull(clientRegistry, "clientRegistry must not be null");
+            return this;
+        }
+
+        public ConfigurableRetrieverBuilder indexTimeout(Duration indexTimeout) {
+            this.indexTimeout = Objects.requireNonNull(indexTimeout, "indexTimeout must not be null");
+            return this;
+        }
+
+        public ConfigurableRetrieverBuilder maxRetries(int maxRetries) {
+            this.maxRetries = Math.max(maxRetries, 0);
+            return this;
+        }
+
+        public ConfigurableRetrieverBuilder retryBackoff(Duration retryBackoff) {
+            this.retryBackoff = Objects.requireNonNull(retryBackoff, "retryBackoff must not be null");
+            return this;
+        }
+
+        public ConfigurableRetrieverBuilder globalTopN(int globalTopN) {
+            this.globalTopN = globalTopN;
+            return this;
+        }
+
         /**
          * 构建配置好的 KnowledgeBaseProcess 实例
          */
         public KnowledgeBaseRetrieveProcess build() {
             KnowledgeBaseRetrieveProcess process = new KnowledgeBaseRetrieveProcess();
             process.setDocumentRetriever(this.documentRetrievers);
+            process.clientRegistry = this.clientRegistry;
+            process.indexTimeout = this.indexTimeout;
+            process.maxRetries = this.maxRetries;
+            process.retryBackoff = this.retryBackoff;
+            process.globalTopN = this.globalTopN;
             return process;  // 直接返回 KnowledgeBaseProcess，不使用匿名类
         }
     }
@@ -102,11 +162,7 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
     @NotNull
     @Override
     public List<Document> retrieve(@NotNull Query query) {
-        return new ArrayList<>() {
-            {
-                addAll(retrieveByParallelThread(query));
-            }
-        };
+        return new ArrayList<>(retrieveByParallelThread(query));
     }
 
     @NotNull
@@ -116,108 +172,142 @@ public class KnowledgeBaseRetrieveProcess implements DocumentRetriever {
     }
 
     /**
-     * 多线程获取知识库召回
+     * 多知识库并行召回，阻塞等待 {@link #retrieveAsync(Query)} 的结果
      *
      * @param query 召回的参数
      *
      * @return {@link List }<{@link KnowledgeBaseDocument }>
      */
     public List<KnowledgeBaseDocument> retrieveByParallelThread(Query query) {
+        return Optional.ofNullable(retrieveAsync(query).block()).orElseGet(List::of);
+    }
+
+    /**
+     * 多知识库并行召回
+     * <p>
+     * 所有知识库同时发起检索，每个知识库有独立的超时时间；失败的检索在等待一段带抖动的退避时间后重试，
+     * 等待通过调度器定时完成，不占用线程。超时或重试耗尽的知识库只记录日志并返回空结果，不影响其他知识库。
+     * 全部完成后对合并结果按分值做一次全局重排。整体耗时约等于最慢的知识库，且不超过 indexTimeout。
+     *
+     * @param query 召回的参数
+     *
+     * @return {@link Mono }<{@link List }<{@link KnowledgeBaseDocument }>>
+     */
+    public Mono<List<KnowledgeBaseDocument>> retrieveAsync(Query query) {
+        if (query == null) {
+            logger.warn("查询参数为空");
+            return Mono.just(List.of());
+        }
         // documentRetrievers 已是不可变列表，直接使用即可
         List<WrapperAndConfig> wrapperAndConfigs = buildQueryWrapperAndConfigs(this.documentRetrievers);
-        if (CollectionUtils.isNotEmpty(wrapperAndConfigs)) {
-            // 构建 LLM 接入鉴权参数以及地址
-            List<CompletableFuture<List<KnowledgeBaseDocument>>> list = wrapperAndConfigs.stream()
-                    .map(wrapper -> CompletableFuture.supplyAsync(() -> getKnowledgeBaseDocuments(query, wrapper), ForkJoinPool.commonPool())
-                            .exceptionallyAsync(throwable -> {
-                                logger.error("知识库召回异常：{},知识库：{},异常信息: ", wrapper.config.getIndexName(), throwable.getMessage(),
-                                        throwable);
-                                throw new RuntimeException("知识库召回异常");
-                            }, ForkJoinPool.commonPool()))
-                    .toList();
-            CompletableFuture.allOf(list.toArray(new CompletableFuture[0])).join();
-            return list.stream().map(cf -> {
-                try {
-                    return cf.get();
-                } catch (InterruptedException | ExecutionException e) {
-                    throw new RuntimeException(e.getMessage());
-                }
-            }).filter(Objects::nonNull).flatMap(List::stream).toList();
-
-            //在召回完成之后，可以再次全量rerank
+        if (CollectionUtils.isEmpty(wrapperAndConfigs)) {
+            return Mono.just(List.of());
         }
-        else {
-            return new ArrayList<>();
+        long start = System.nanoTime();
+        return Flux.fromIterable(wrapperAndConfigs)
+                .flatMap(wrapperAndConfig -> retrieveIndex(query, wrapperAndConfig), wrapperAndConfigs.size())
+                .flatMapIterable(documents -> documents)
+                .collectList()
+                .map(this::globalRerank)
+                .doOnNext(documents -> logger.info("知识库召回完成，知识库数量：{}，文档数量：{}，耗时：{} ms",
+                        wrapperAndConfigs.size(), documents.size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+
+    /**
+     * 单个知识库的召回：阻塞的 HTTP 调用在 boundedElastic 上执行，重试等待和超时由 Reactor 的定时调度完成
+     */
+    private Mono<List<KnowledgeBaseDocument>> retrieveIndex(Query query, WrapperAndConfig wrapperAndConfig) {
+        KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config = wrapperAndConfig.config;
+        // 同一个 wrapper 的 options 会被该 scope 下的多个知识库共享，这里复制一份再设置 indexName
+        DashScopeDocumentRetrieverOptions options = copyOptions(wrapperAndConfig.options, config.getIndexName());
+        return Mono.fromCallable(() -> getKnowledgeBaseDocuments(query, config, options))
+                .subscribeOn(Schedulers.boundedElastic())
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .jitter(0.5)
+                        .doBeforeRetry(signal -> {
+                            logger.warn("知识库[{}]检索失败，第[{}]次重试，错误信息：{}", config.getIndexName(),
+                                    signal.totalRetries() + 1, signal.failure().getMessage());
+                            // pipeline 可能已经被重建，重试时重新解析 pipelineId
+                            clientRegistry.evictPipelineId(config);
+                        }))
+                .timeout(indexTimeout)
+                .onErrorResume(throwable -> {
+                    logger.error("知识库召回异常：{},知识库：{},异常信息: ", config.getIndexName(), throwable.getMessage(),
+                            throwable);
+                    return Mono.just(List.of());
+                });
+    }
+
+    /**
+     * 各知识库的结果合并后按 rerank 分值（没有时使用召回分值）从高到低排序，按文档 id 去重
+     */
+    private List<KnowledgeBaseDocument> globalRerank(List<KnowledgeBaseDocument> documents) {
+        Map<String, KnowledgeBaseDocument> unique = new LinkedHashMap<>();
+        for (KnowledgeBaseDocument document : documents) {
+            unique.merge(document.getId(), document,
+                    (current, candidate) -> scoreOf(candidate) > scoreOf(current) ? candidate : current);
         }
+        List<KnowledgeBaseDocument> ranked = new ArrayList<>(unique.values());
+        ranked.sort(Comparator.comparingDouble(KnowledgeBaseRetrieveProcess::scoreOf).reversed());
+        return globalTopN > 0 && ranked.size() > globalTopN ? List.copyOf(ranked.subList(0, globalTopN)) : ranked;
+    }
+
+    private static double scoreOf(KnowledgeBaseDocument document) {
+        Double score = document.getRerankScore();
+        return Objects.isNull(score) ? Double.NEGATIVE_INFINITY : score;
     }
 
     /**
      * 实际从知识库获取知识的方法
      *
-     * @param query            问题
-     * @param wrapperAndConfig 知识库检索的参数和知识库的配置
+     * @param query   问题
+     * @param config  知识库的配置
+     * @param options 知识库检索的参数
      *
      * @return {@link List }<{@link KnowledgeBaseDocument }>
-     */// *
+     */
     @NotNull
-    private static List<KnowledgeBaseDocument> getKnowledgeBaseDocuments(Query query,
-                                                                         WrapperAndConfig wrapperAndConfig) {
-        KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig directIndexConfig = wrapperAndConfig.config;
-        DashScopeDocumentRetrieverOptions options = wrapperAndConfig.options;
-        String indexName = directIndexConfig.getIndexName();
-        String workspaceId = directIndexConfig.getWorkspaceId();
-        // 召回的知识库数据和参数构建
-        DashScopeApi dashScopeApi = DashScopeApi.builder()
-                .apiKey(directIndexConfig.getApiKey())
-                .baseUrl(directIndexConfig.getBaseUrl())
-                .workSpaceId(workspaceId)
-                .build();
-        options.setIndexName(indexName);
-        logger.info("开始知识库检索召回,检索的目标知识库：【{}，workspaceId: {}】，Query：{}，检索参数：{}, rerankModelName:{}", directIndexConfig.getIndexName(),
-                directIndexConfig.getWorkspaceId(), JSON.toJSONString(JSON.toJSONString(query)),
+    private List<KnowledgeBaseDocument> getKnowledgeBaseDocuments(Query query,
+                                                                  KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config,
+                                                                  DashScopeDocumentRetrieverOptions options) {
+        logger.info("开始知识库检索召回,检索的目标知识库：【{}，workspaceId: {}】，Query：{}，检索参数：{}, rerankModelName:{}", config.getIndexName(),
+                config.getWorkspaceId(), query.text(),
                 JSON.toJSONString(options),
-                JSON.toJSONString(options.getRerankModelName()));
-        DashScopeDocumentRetriever dashScopeDocumentRetriever = new DashScopeDocumentRetriever(dashScopeApi, options);
-        List<Document> retrieve = getDocumentList(query, dashScopeDocumentRetriever, options);
+                options.getRerankModelName());
+        // 客户端与 pipelineId 都从注册表中复用，检索只需要一次 HTTP 请求
+        String pipelineId = clientRegistry.getPipelineId(config);
+        if (pipelineId == null) {
+            throw new IllegalStateException("知识库[" + config.getIndexName() + "]不存在");
+        }
+        List<Document> retrieve = clientRegistry.getClient(config).retriever(pipelineId, query.text(), options);
         // 构造自定义的返回
         return retrieve.stream().map(document -> {
-            Double score = Double.valueOf(document.getMetadata().get("_score").toString());
+            Object rawScore = document.getMetadata().get("_score");
+            Double score = rawScore != null ? Double.valueOf(rawScore.toString()) : document.getScore();
             KnowledgeBaseDocument knowledgeBaseDocument = new KnowledgeBaseDocument(document.getId(), document.getText(), document.getMetadata(), score);
-            knowledgeBaseDocument.setIndexName(directIndexConfig.getIndexName());
-            knowledgeBaseDocument.setWorkspaceId(directIndexConfig.getWorkspaceId());
-            knowledgeBaseDocument.setStructure(directIndexConfig.getStructure());
+            knowledgeBaseDocument.setIndexName(config.getIndexName());
+            knowledgeBaseDocument.setWorkspaceId(config.getWorkspaceId());
+            knowledgeBaseDocument.setStructure(config.getStructure());
             return knowledgeBaseDocument;
         }).toList();
     }
 
-    private static List<Document> getDocumentList(Query query, DashScopeDocumentRetriever dashScopeDocumentRetriever, DashScopeDocumentRetrieverOptions options) {
-        int maxRetries = 3;
-        int retryDelay = 1000;
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                // 参数校验
-                if (query == null || dashScopeDocumentRetriever == null) {
-                    logger.warn("查询参数或检索器为空");
-                    return Collections.emptyList();
-                }
-                return dashScopeDocumentRetriever.retrieve(query);
-            } catch (Exception e) {
-                logger.warn("知识库[{}]检索失败，第[{}]次尝试，错误信息：{}", options.getIndexName(), attempt, e.getMessage());
-                if (attempt == maxRetries) {
-                    logger.error("知识库[{}]检索经过[{}]次重试后仍然失败", options.getIndexName(), maxRetries, e);
-                    throw new RuntimeException("知识库[" + options.getIndexName() + "]检索失败：" + e.getMessage(), e);
-                }
-
-                try {
-                    TimeUnit.MILLISECONDS.sleep((long) retryDelay * attempt);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("重试过程中线程被中断", ie);
-                }
-            }
+    private static DashScopeDocumentRetrieverOptions copyOptions(DashScopeDocumentRetrieverOptions source, String indexName) {
+        DashScopeDocumentRetrieverOptions options = new DashScopeDocumentRetrieverOptions();
+        if (source != null) {
+            options.setDenseSimilarityTopK(source.getDenseSimilarityTopK());
+            options.setSparseSimilarityTopK(source.getSparseSimilarityTopK());
+            options.setEnableRewrite(source.isEnableRewrite());
+            options.setRewriteModelName(source.getRewriteModelName());
+            options.setEnableReranking(source.isEnableReranking());
+            options.setRerankModelName(source.getRerankModelName());
+            options.setRerankMinScore(source.getRerankMinScore());
+            options.setRerankTopN(source.getRerankTopN());
+            options.setSearchFilters(source.getSearchFilters());
         }
-
-        return Collections.emptyList();
+        options.setIndexName(indexName);
+        return options;
     }
 
     /**
@@ -0,0 +1,72 @@
+package com.alibaba.cloud.ai.rag.parallel.retrieve;
+
+import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
+import com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 验证 {@link DashScopeApiRegistry} 按 (baseUrl, workspaceId, apiKey) 复用客户端，并缓存 pipelineId
+ */
+class DashScopeApiRegistryTest {
+
+    private final StubDashScopeApi api = new StubDashScopeApi().respond("faq", attempt -> List.of());
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final DashScopeApiRegistry registry = new DashScopeApiRegistry(key -> {
+        created.incrementAndGet();
+        return api;
+    });
+
+    @Test
+    void reusesClientPerKey() {
+        DashScopeApi first = registry.getClient(config("sk-first-0000000000", "faq"));
+        DashScopeApi sameKey = registry.getClient(config("sk-first-0000000000", "manual"));
+        registry.getClient(config("sk-second-000000000", "faq"));
+
+        assertThat(sameKey).isSameAs(first);
+        assertThat(created).hasValue(2);
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void cachesPipelineIdUntilEvicted() {
+        KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config = config("sk-first-0000000000", "faq");
+
+        assertThat(registry.getPipelineId(config)).isEqualTo("pipeline-faq");
+        assertThat(registry.getPipelineId(config)).isEqualTo("pipeline-faq");
+        assertThat(api.pipelineLookups).hasValue(1);
+
+        registry.evictPipelineId(config);
+        registry.getPipelineId(config);
+        assertThat(api.pipelineLookups).hasValue(2);
+    }
+
+    @Test
+    void missingIndexIsNotCached() {
+        KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config = config("sk-first-0000000000", "missing");
+
+        assertThat(registry.getPipelineId(config)).isNull();
+        assertThat(registry.getPipelineId(config)).isNull();
+        assertThat(api.pipelineLookups).hasValue(2);
+    }
+
+    @Test
+    void keyDoesNotPrintApiKey() {
+        DashScopeApiRegistry.ClientKey key = new DashScopeApiRegistry.ClientKey("https://dashscope.aliyuncs.com",
+                "workspace", "sk-1234567890abcdef");
+
+        assertThat(key.toString()).contains("sk-1****cdef").doesNotContain("567890ab");
+    }
+
+    private static KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig config(String apiKey, String indexName) {
+        return new KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfig("https://dashscope.aliyuncs.com",
+                "workspace", apiKey, indexName, false);
+    }
+
+}
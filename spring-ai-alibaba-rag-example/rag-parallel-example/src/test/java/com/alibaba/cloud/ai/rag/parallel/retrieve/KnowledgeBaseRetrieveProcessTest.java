@@ -0,0 +1,142 @@
+package com.alibaba.cloud.ai.rag.parallel.retrieve;
+
+import com.alibaba.cloud.ai.rag.parallel.config.KnowledgeBasePropertiesConfiguration;
+import com.alibaba.cloud.ai.rag.parallel.model.KnowledgeBaseDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 用 {@link StubDashScopeApi} 验证多知识库召回的重试退避、单知识库超时、全局重排以及 rerank 分值回退到召回分值
+ */
+class KnowledgeBaseRetrieveProcessTest {
+
+    private final StubDashScopeApi api = new StubDashScopeApi();
+
+    @BeforeEach
+    void configureKnowledgeBases() {
+        KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties scope =
+                new KnowledgeBasePropertiesConfiguration.KnowledgeBaseConfigProperties();
+        scope.setScope("test");
+        scope.setWorkspaceId("workspace");
+        scope.setApiKey("sk-test-0000000000");
+        scope.setIndexNames(List.of("faq", "manual", "flaky", "slow"));
+        KnowledgeBasePropertiesConfiguration properties = new KnowledgeBasePropertiesConfiguration();
+        properties.setConfigs(List.of(scope));
+        properties.validateUniqueLabelsAndInitBean();
+    }
+
+    @Test
+    void retriesFailedIndexWithBackoff() {
+        api.respond("flaky", attempt -> {
+            if (attempt < 3) {
+                throw new IllegalStateException("attempt " + attempt + " failed");
+            }
+            return List.of(document("f1", 0.7));
+        });
+
+        List<KnowledgeBaseDocument> documents = process(Duration.ofSeconds(5), 2, "flaky").retrieveByParallelThread(
+                new Query("退货流程"));
+
+        assertThat(documents).extracting(Document::getId).containsExactly("f1");
+        assertThat(api.attempts("flaky")).isEqualTo(3);
+        // 每次重试前都会重新解析 pipelineId
+        assertThat(api.pipelineLookups).hasValue(3);
+        // 首次退避 50ms，抖动 50%，重试不会立即发生
+        long firstBackoff = api.attemptNanos.get(1) - api.attemptNanos.get(0);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(firstBackoff)).isGreaterThanOrEqualTo(25);
+    }
+
+    @Test
+    void slowIndexTimesOutWithoutFailingRequest() {
+        api.respond("faq", attempt -> List.of(document("a1", 0.9)));
+        api.respond("slow", attempt -> {
+            try {
+                Thread.sleep(10_000);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(document("s1", 1.0));
+        });
+
+        long start = System.nanoTime();
+        List<KnowledgeBaseDocument> documents = process(Duration.ofMillis(1_500), 0, "faq", "slow")
+                .retrieveByParallelThread(new Query("退货流程"));
+
+        assertThat(documents).extracting(Document::getId).containsExactly("a1");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void mergesIndexesByScoreAndDeduplicates() {
+        api.respond("faq", attempt -> List.of(document("a1", 0.9), document("a2", 0.3)));
+        // b1 没有 _score，使用 Document 自带的分值；a1 在两个知识库中都出现，保留分值高的
+        api.respond("manual", attempt -> List.of(
+                Document.builder().id("b1").text("b1").score(0.6).build(), document("a1", 0.5)));
+
+        List<KnowledgeBaseDocument> documents = process(Duration.ofSeconds(5), 0, "faq", "manual")
+                .retrieveByParallelThread(new Query("退货流程"));
+
+        assertThat(documents).extracting(Document::getId).containsExactly("a1", "b1", "a2");
+        assertThat(documents.get(0).getIndexName()).isEqualTo("faq");
+        assertThat(documents).extracting(KnowledgeBaseDocument::getRerankScore).containsExactly(0.9, 0.6, 0.3);
+    }
+
+    @Test
+    void globalTopNLimitsMergedResult() {
+        api.respond("faq", attempt -> List.of(document("a1", 0.9), document("a2", 0.3)));
+        api.respond("manual", attempt -> List.of(document("b1", 0.6)));
+
+        List<KnowledgeBaseDocument> documents = KnowledgeBaseRetrieveProcess.builder()
+                .addRetrievers(List.of(wrapper("faq"), wrapper("manual")))
+                .clientRegistry(new DashScopeApiRegistry(key -> api))
+                .maxRetries(0)
+                .globalTopN(2)
+                .build()
+                .retrieveByParallelThread(new Query("退货流程"));
+
+        assertThat(documents).extracting(Document::getId).containsExactly("a1", "b1");
+    }
+
+    @Test
+    void rerankScoreFallsBackToScore() {
+        KnowledgeBaseDocument document = new KnowledgeBaseDocument("a1", "a1", Map.of(), 0.4);
+        assertThat(document.getRerankScore()).isEqualTo(0.4);
+
+        document.setRerankScore(0.8);
+        assertThat(document.getRerankScore()).isEqualTo(0.8);
+    }
+
+    private KnowledgeBaseRetrieveProcess process(Duration indexTimeout, int maxRetries, String... indexNames) {
+        KnowledgeBaseRetrieveProcess.ConfigurableRetrieverBuilder builder = KnowledgeBaseRetrieveProcess.builder()
+                .clientRegistry(new DashScopeApiRegistry(key -> api))
+                .indexTimeout(indexTimeout)
+                .maxRetries(maxRetries)
+                .retryBackoff(Duration.ofMillis(50));
+        for (String indexName : indexNames) {
+            builder.addRetriever(wrapper(indexName));
+        }
+        return builder.build();
+    }
+
+    private static KnowledgeBaseRetrieveProcess.DashScopeDocumentWrapper wrapper(String indexName) {
+        return KnowledgeBaseRetrieveProcess.DashScopeDocumentWrapper.builder().scope("test", indexName).build();
+    }
+
+    /**
+     * DashScope 检索结果的分值放在 metadata 的 _score 中
+     */
+    private static Document document(String id, double score) {
+        return Document.builder().id(id).text(id).metadata("_score", score).build();
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.alibaba.cloud.ai.rag.parallel.retrieve;
+
+import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
+import com.alibaba.cloud.ai.dashscope.rag.DashScopeDocumentRetrieverOptions;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.model.SimpleApiKey;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 不发起 HTTP 请求的 DashScopeApi：pipelineId 由知识库名称推导，检索结果按知识库名称预先设置，
+ * 并记录每次 pipelineId 解析和每次检索的时间。
+ */
+class StubDashScopeApi extends DashScopeApi {
+
+    private final Map<String, Function<Integer, List<Document>>> responses = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+    final List<Long> attemptNanos = new CopyOnWriteArrayList<>();
+
+    final AtomicInteger pipelineLookups = new AtomicInteger();
+
+    StubDashScopeApi() {
+        super("http://127.0.0.1:1", new SimpleApiKey("sk-stub"), new LinkedMultiValueMap<>(), "/completions",
+                "/embeddings", "workspace", RestClient.builder(), WebClient.builder(),
+                new DefaultResponseErrorHandler());
+    }
+
+    /**
+     * @param response 参数为该知识库的第几次检索（从 1 开始），可以抛出异常模拟失败
+     */
+    StubDashScopeApi respond(String indexName, Function<Integer, List<Document>> response) {
+        responses.put(indexName, response);
+        return this;
+    }
+
+    int attempts(String indexName) {
+        AtomicInteger count = attempts.get(indexName);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public String getPipelineIdByName(String indexName) {
+        pipelineLookups.incrementAndGet();
+        return responses.containsKey(indexName) ? "pipeline-" + indexName : null;
+    }
+
+    @Override
+    public List<Document> retriever(String pipelineId, String query, DashScopeDocumentRetrieverOptions options) {
+        attemptNanos.add(System.nanoTime());
+        int attempt = attempts.computeIfAbsent(options.getIndexName(), key -> new AtomicInteger()).incrementAndGet();
+        return responses.get(options.getIndexName()).apply(attempt);
+    }
+
+}